@@ -0,0 +1,95 @@
+package evaluation.benchmarks;
+
+import games.GameType;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static utilities.Utils.getArg;
+
+/**
+ * Runs GameBenchmarks for every GameType (or those specified) at several player counts, with the GC profiler
+ * to record allocation rates, and writes all the results to a single JSON file. Comparing the files from two
+ * commits shows up a regression in any one game.
+ * <p>
+ * Arguments (all optional):
+ * - games=TicTacToe|Connect4|... Games to benchmark. Defaults to all.
+ * - playerCounts=minMidMax|all  Which player counts to use for each game. Defaults to the minimum, maximum and
+ * the one in the middle (capped at maxPlayers)
+ * - maxPlayers=6                Upper limit on the player count, for games that allow very large numbers
+ * - benchmarks=copy|next        Regex(es) to restrict the benchmark methods run. Defaults to all
+ * - output=jmh-results.json     File to write the results to
+ * - warmup=3, iterations=5, time=2  Warmup and measurement iterations (and seconds per iteration)
+ */
+public class GameBenchmarkRunner {
+
+    public static void main(String[] args) {
+        String games = getArg(args, "games", "");
+        String playerCounts = getArg(args, "playerCounts", "minMidMax");
+        int maxPlayers = getArg(args, "maxPlayers", 6);
+        String benchmarks = getArg(args, "benchmarks", "");
+        String output = getArg(args, "output", "jmh-results.json");
+        int warmup = getArg(args, "warmup", 3);
+        int iterations = getArg(args, "iterations", 5);
+        int time = getArg(args, "time", 2);
+
+        List<GameType> gamesToRun = games.isEmpty() ? Arrays.asList(GameType.values()) :
+                Arrays.stream(games.split("\\|")).map(GameType::valueOf).collect(Collectors.toList());
+
+        List<RunResult> allResults = new ArrayList<>();
+        List<String> failures = new ArrayList<>();
+        for (GameType gameType : gamesToRun) {
+            for (int nPlayers : playerCounts(gameType, playerCounts, maxPlayers)) {
+                ChainedOptionsBuilder options = new OptionsBuilder()
+                        .param("gameType", gameType.name())
+                        .param("nPlayers", String.valueOf(nPlayers))
+                        .addProfiler(GCProfiler.class)
+                        .warmupIterations(warmup)
+                        .measurementIterations(iterations)
+                        .warmupTime(TimeValue.seconds(time))
+                        .measurementTime(TimeValue.seconds(time))
+                        .shouldFailOnError(true);
+                if (benchmarks.isEmpty()) {
+                    options.include(GameBenchmarks.class.getSimpleName());
+                } else {
+                    for (String regex : benchmarks.split("\\|"))
+                        options.include(GameBenchmarks.class.getSimpleName() + "." + regex);
+                }
+                try {
+                    allResults.addAll(new Runner(options.build()).run());
+                } catch (RunnerException e) {
+                    // some games may not be runnable headless, or fail with random play; we report and move on
+                    failures.add(gameType + " with " + nPlayers + " players: " + e.getMessage());
+                }
+            }
+        }
+
+        ResultFormatFactory.getInstance(ResultFormatType.JSON, output).writeOut(allResults);
+        System.out.printf("Wrote %d results to %s%n", allResults.size(), output);
+        if (!failures.isEmpty()) {
+            System.out.println("Failed to benchmark:");
+            failures.forEach(f -> System.out.println("\t" + f));
+        }
+    }
+
+    static List<Integer> playerCounts(GameType gameType, String mode, int maxPlayers) {
+        int min = gameType.getMinPlayers();
+        int max = Math.max(min, Math.min(gameType.getMaxPlayers(), maxPlayers));
+        if (mode.equals("all")) {
+            List<Integer> retValue = new ArrayList<>();
+            for (int n = min; n <= max; n++)
+                retValue.add(n);
+            return retValue;
+        }
+        return new ArrayList<>(new TreeSet<>(Arrays.asList(min, (min + max) / 2, max)));
+    }
+}
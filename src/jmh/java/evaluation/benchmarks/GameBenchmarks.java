@@ -0,0 +1,139 @@
+package evaluation.benchmarks;
+
+import core.AbstractForwardModel;
+import core.AbstractGameState;
+import core.Game;
+import core.actions.AbstractAction;
+import games.GameType;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks of the core engine operations for a single game and player count.
+ * <p>
+ * The operations are measured over a fixed sample of decision points taken from seeded random playouts, so that
+ * they cover the whole of a game (and not just the opening position). Each invocation uses the next state in the
+ * sample (cycling round).
+ * - copy: AbstractGameState.copy(playerId) from the perspective of the current player
+ * - searchCopy: the lean AbstractGameState.searchCopy(playerId) used by search algorithms
+ * - computeAvailableActions: for the current player
+ * - copyAndNext: the same copy as copy, then forward model next() with one (random) legal action. Subtracting copy gives
+ *   next(), plus a copy() of the action: next() may change the action, so each invocation needs a fresh one, and taking
+ *   that out of the timed region (with a Level.Invocation setup) would cost more than the copy of most actions.
+ * - randomPlayout: a full game from the initial state with uniformly random actions (average time rather than throughput)
+ * <p>
+ * The gameType and nPlayers parameters are set by GameBenchmarkRunner for every GameType and valid player count.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameBenchmarks {
+
+    // Safety limit for random playouts, in case random play never finishes a game
+    static final int MAX_PLAYOUT_ACTIONS = 10000;
+
+    @Param({"TicTacToe"})
+    public String gameType;
+
+    @Param({"2"})
+    public int nPlayers;
+
+    @Param({"100"})
+    public int sampleSize;
+
+    @Param({"42"})
+    public long seed;
+
+    AbstractForwardModel forwardModel;
+    AbstractGameState initialState;
+    List<AbstractGameState> sampleStates;
+    List<AbstractAction> sampleActions;
+    Random rnd;
+    int index;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Game game = GameType.valueOf(gameType).createGameInstance(nPlayers, seed);
+        forwardModel = game.getForwardModel();
+        initialState = game.getGameState().copy();
+        rnd = new Random(seed);
+
+        sampleStates = new ArrayList<>();
+        sampleActions = new ArrayList<>();
+        // reservoir sample of the decision points from as many playouts as needed to see sampleSize of them
+        int seen = 0;
+        while (seen < sampleSize) {
+            AbstractGameState state = initialState.copy();
+            int actions = 0;
+            while (state.isNotTerminal() && actions < MAX_PLAYOUT_ACTIONS) {
+                List<AbstractAction> available = forwardModel.computeAvailableActions(state);
+                AbstractAction action = available.get(rnd.nextInt(available.size()));
+                int slot = seen < sampleSize ? seen : rnd.nextInt(seen + 1);
+                if (slot < sampleSize) {
+                    if (slot == sampleStates.size()) {
+                        sampleStates.add(state.copy());
+                        sampleActions.add(action.copy());
+                    } else {
+                        sampleStates.set(slot, state.copy());
+                        sampleActions.set(slot, action.copy());
+                    }
+                }
+                seen++;
+                forwardModel.next(state, action);
+                actions++;
+            }
+        }
+    }
+
+    private int nextIndex() {
+        index = (index + 1) % sampleSize;
+        return index;
+    }
+
+    @Benchmark
+    public AbstractGameState copy() {
+        AbstractGameState state = sampleStates.get(nextIndex());
+        return state.copy(state.getCurrentPlayer());
+    }
+
+    @Benchmark
+    public AbstractGameState searchCopy() {
+        AbstractGameState state = sampleStates.get(nextIndex());
+        return state.searchCopy(state.getCurrentPlayer());
+    }
+
+    @Benchmark
+    public List<AbstractAction> computeAvailableActions() {
+        return forwardModel.computeAvailableActions(sampleStates.get(nextIndex()));
+    }
+
+    @Benchmark
+    public AbstractGameState copyAndNext() {
+        int i = nextIndex();
+        AbstractGameState state = sampleStates.get(i);
+        state = state.copy(state.getCurrentPlayer());
+        forwardModel.next(state, sampleActions.get(i).copy());
+        return state;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int randomPlayout() {
+        AbstractGameState state = initialState.copy();
+        int actions = 0;
+        while (state.isNotTerminal() && actions < MAX_PLAYOUT_ACTIONS) {
+            List<AbstractAction> available = forwardModel.computeAvailableActions(state);
+            forwardModel.next(state, available.get(rnd.nextInt(available.size())));
+            actions++;
+        }
+        return actions;
+    }
+}
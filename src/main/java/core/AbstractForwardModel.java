@@ -17,6 +17,8 @@ public abstract class AbstractForwardModel {
 
     public ActionTreeNode root;
     public List<ActionTreeNode> leaves;
+    // if set, computeAvailableActions() looks up and records its results here (see setActionCache())
+    private ActionCache actionCache;
 
     /* Limited access/Final methods */
 
@@ -145,6 +147,89 @@ public abstract class AbstractForwardModel {
         currentState.advanceGameTick();
     }
 
+    /**
+     * Applies the given action as next(currentState, action) does, and pushes a record onto undoStack so that
+     * undo() can later return the state to exactly how it was before (as judged by equals() and hashCode()).
+     * This allows a search to descend and backtrack on one game state rather than copying it.
+     * <p>
+     * Only available if supportsUndo() is true, and not while an IExtendedSequence is in progress. Events sent to
+     * listeners, player timers, and any use of the random number generator are not reversed.
+     *
+     * @param currentState - current game state, to be modified by the action.
+     * @param action       - action requested to be played by a player.
+     * @param undoStack    - the record needed to reverse the action is pushed onto this
+     */
+    public final void next(AbstractGameState currentState, AbstractAction action, UndoStack undoStack) {
+        if (!supportsUndo())
+            throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support undo");
+        if (action == null)
+            throw new IllegalArgumentException("Cannot apply a null action with undo");
+        if (currentState.isActionInProgress())
+            throw new IllegalStateException("Undo is not supported while an IExtendedSequence is in progress");
+        UndoRecord record = undoStack.push();
+        record.action = action;
+        currentState.saveCoreState(record);
+        _recordUndo(currentState, action, record);
+        next(currentState, action);
+        if (currentState.isActionInProgress())
+            throw new IllegalStateException("Undo is not supported for actions that start an IExtendedSequence: " + action);
+    }
+
+    /**
+     * Reverses the last action applied with next(currentState, action, undoStack), and removes it from the stack.
+     *
+     * @return the action that was reversed
+     */
+    public final AbstractAction undo(AbstractGameState currentState, UndoStack undoStack) {
+        UndoRecord record = undoStack.pop();
+        _undo(currentState, record.action, record);
+        if (!record.isEmpty())
+            throw new AssertionError("Forward model did not pop everything it pushed when undoing " + record.action);
+        currentState.restoreCoreState(record);
+        return record.action;
+    }
+
+    /**
+     * Reverses all the actions on undoStack
+     */
+    public final void undoAll(AbstractGameState currentState, UndoStack undoStack) {
+        while (!undoStack.isEmpty())
+            undo(currentState, undoStack);
+    }
+
+    /**
+     * @return true if this forward model implements _recordUndo() and _undo(), so that next(state, action, undoStack)
+     * and undo() can be used.
+     */
+    public boolean supportsUndo() {
+        return false;
+    }
+
+    /**
+     * Called before an action is applied with next(state, action, undoStack). This must push onto the record
+     * everything game-specific that the action (and the rules applied after it) may change.
+     * The core state in AbstractGameState is saved separately, and need not be pushed.
+     *
+     * @param currentState - game state, before the action is applied
+     * @param action       - action about to be applied
+     * @param record       - the record to push values onto
+     */
+    protected void _recordUndo(AbstractGameState currentState, AbstractAction action, UndoRecord record) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support undo");
+    }
+
+    /**
+     * Reverses the game-specific effects of an action, popping the values pushed by _recordUndo() in reverse order.
+     * The core state in AbstractGameState is restored after this returns.
+     *
+     * @param currentState - game state, after the action was applied
+     * @param action       - action to reverse
+     * @param record       - the record pushed by _recordUndo()
+     */
+    protected void _undo(AbstractGameState currentState, AbstractAction action, UndoRecord record) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support undo");
+    }
+
     /**
      * Computes the available actions and updates the game state accordingly.
      *
@@ -160,10 +245,35 @@ public abstract class AbstractForwardModel {
         if (gameState.isActionInProgress()) {
             return gameState.actionsInProgress.peek()._computeAvailableActions(gameState, actionSpace);
         }
+        if (actionCache != null) {
+            List<AbstractAction> cached = actionCache.get(gameState, actionSpace);
+            if (cached != null)
+                return cached;
+        }
+        List<AbstractAction> retValue;
         if (actionSpace != null && !actionSpace.isDefault()) {
-            return _computeAvailableActions(gameState, actionSpace);
+            retValue = _computeAvailableActions(gameState, actionSpace);
+        } else {
+            retValue = _computeAvailableActions(gameState);
         }
-        return _computeAvailableActions(gameState);
+        if (actionCache != null)
+            actionCache.put(gameState, actionSpace, retValue);
+        return retValue;
+    }
+
+    /**
+     * Attaches a cache of available actions to this forward model, so that computeAvailableActions() only computes
+     * the actions once for each state in the cache. This is intended for the duration of a single decision by a
+     * search agent on its own copy of the forward model; it should be removed (set to null) once the decision is made.
+     *
+     * @param actionCache - the cache to use, or null to remove it
+     */
+    public void setActionCache(ActionCache actionCache) {
+        this.actionCache = actionCache;
+    }
+
+    public ActionCache getActionCache() {
+        return actionCache;
     }
 
     /**
@@ -65,6 +65,8 @@ public abstract class AbstractGameState {
     protected Stack<IExtendedSequence> actionsInProgress = new Stack<>();
     CoreParameters coreGameParameters;
     private int gameID;
+    // true for the lean copies used in search/simulation (see searchCopy()), which keep no history or timers
+    private boolean searchCopy;
     // rnd is used for all random number generation in the game - for events within the game
     protected Random rnd;
     // redeterminisationRnd is used for redeterminisation only - this is to ensure that the main game is not affected
@@ -287,6 +289,40 @@ public abstract class AbstractGameState {
      * @return - reduced copy of the game state.
      */
     public final AbstractGameState copy(int playerId) {
+        return copy(playerId, false);
+    }
+
+    /**
+     * A lean copy for use in search and simulation (MCTS, RHEA, RMHC and the like), which may take thousands
+     * of copies per decision. This shares nothing mutable with the original, but skips bookkeeping that a search
+     * never reads:
+     * - history and historyText start empty, and recordAction() and recordHistory() do not add to them
+     * - player timers are not copied, but replaced by ElapsedCpuChessTimer.FROZEN (which ignores all updates)
+     * - allComponents is not rebuilt; it is populated lazily the first time getComponentById() needs it
+     * <p>
+     * Any copy taken from a search copy is also a search copy. Do not use this for states that are given to players
+     * as observations, or that are otherwise used for anything other than forward planning.
+     *
+     * @param playerId - player observing this game state, or -1 for a full copy (as for copy(int))
+     * @return - lean copy of the game state
+     */
+    public final AbstractGameState searchCopy(int playerId) {
+        return copy(playerId, true);
+    }
+
+    public final AbstractGameState searchCopy() {
+        return copy(-1, true);
+    }
+
+    /**
+     * @return true if this state is a lean copy for search, as produced by searchCopy()
+     */
+    public final boolean isSearchCopy() {
+        return searchCopy;
+    }
+
+    private AbstractGameState copy(int playerId, boolean forSearch) {
+        forSearch = forSearch || searchCopy;
         AbstractGameState s = _copy(playerId);
         // Copy super class things
         s.allComponents = allComponents.emptyCopy();
@@ -300,12 +336,17 @@ public abstract class AbstractGameState {
         s.turnCounter = turnCounter;
         s.turnOwner = turnOwner;
         s.firstPlayer = firstPlayer;
+        s.gameID = gameID;
         // If we are copying from a player's perspective, then we branch the RNG so that the master copy
         // is not called an arbitrary number of times. This is to ensure that all shuffles in the main game are
         // the same if we start with the same seed
         s.rnd = playerId == -1 ? rnd : new Random(System.currentTimeMillis());
+        s.searchCopy = forSearch;
 
-        if (!coreGameParameters.competitionMode) {
+        if (forSearch) {
+            s.history = new ArrayList<>();
+            s.historyText = new ArrayList<>();
+        } else if (!coreGameParameters.competitionMode) {
             s.history = new ArrayList<>(history);
             s.historyText = new ArrayList<>(historyText);
             // we do not copy individual actions in history, as these are now dead and should not change
@@ -322,6 +363,11 @@ public abstract class AbstractGameState {
         );
 
         s.playerTimer = new ElapsedCpuChessTimer[getNPlayers()];
+        if (forSearch) {
+            Arrays.fill(s.playerTimer, ElapsedCpuChessTimer.FROZEN);
+            // allComponents is rebuilt on demand by getComponentById()
+            return s;
+        }
         for (int i = 0; i < getNPlayers(); i++) {
             s.playerTimer[i] = playerTimer[i].copy();
         }
@@ -337,6 +383,7 @@ public abstract class AbstractGameState {
      * @param action The action that has just been applied (or is about to be applied) to the game state
      */
     protected final void recordAction(AbstractAction action, int player) {
+        if (searchCopy) return;  // nothing in a search reads this, and getString() can be expensive
         history.add(action);
         historyText.add("Player " + player + " : " + action.getString(this));
     }
@@ -345,7 +392,7 @@ public abstract class AbstractGameState {
     // helper function to avoid time-consuming string manipulations if the message is not actually
     // going to be logged anywhere
     public void logEvent(IGameEvent event, Supplier<String> eventText) {
-        if (listeners.isEmpty() && !getCoreGameParameters().recordEventHistory)
+        if (listeners.isEmpty() && (searchCopy || !getCoreGameParameters().recordEventHistory))
             return; // to avoid expensive string manipulations
         logEvent(event, eventText.get());
     }
@@ -365,9 +412,44 @@ public abstract class AbstractGameState {
     }
 
     public void recordHistory(String history) {
+        if (searchCopy) return;
         historyText.add(history);
     }
 
+    /**
+     * Saves the core state before an action is applied, so that restoreCoreState() can put it back
+     * (see AbstractForwardModel.undo()). Timers and listeners are not included.
+     */
+    final void saveCoreState(UndoRecord record) {
+        record.tick = tick;
+        record.roundCounter = roundCounter;
+        record.turnCounter = turnCounter;
+        record.turnOwner = turnOwner;
+        record.firstPlayer = firstPlayer;
+        record.gameStatus = gameStatus;
+        if (record.playerResults.length != playerResults.length)
+            record.playerResults = new CoreConstants.GameResult[playerResults.length];
+        System.arraycopy(playerResults, 0, record.playerResults, 0, playerResults.length);
+        record.gamePhase = gamePhase;
+        record.historySize = history.size();
+        record.historyTextSize = historyText.size();
+    }
+
+    final void restoreCoreState(UndoRecord record) {
+        tick = record.tick;
+        roundCounter = record.roundCounter;
+        turnCounter = record.turnCounter;
+        turnOwner = record.turnOwner;
+        firstPlayer = record.firstPlayer;
+        gameStatus = record.gameStatus;
+        System.arraycopy(record.playerResults, 0, playerResults, 0, playerResults.length);
+        gamePhase = record.gamePhase;
+        if (history.size() > record.historySize)
+            history.subList(record.historySize, history.size()).clear();
+        if (historyText.size() > record.historyTextSize)
+            historyText.subList(record.historyTextSize, historyText.size()).clear();
+    }
+
     /* Methods dealing with ExtendedActions and the actionStack */
 
     public final IExtendedSequence currentActionInProgress() {
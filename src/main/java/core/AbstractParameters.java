@@ -6,7 +6,7 @@ import games.GameType;
 
 import java.util.*;
 
-public abstract class AbstractParameters {
+public abstract class AbstractParameters implements Cloneable {
 
     // Random seed for this game
     long randomSeed;
@@ -23,6 +23,8 @@ public abstract class AbstractParameters {
     long incrementActionS = 0, incrementTurnS = 0, incrementRoundS = 0;
     // Increment in seconds, added after a custom milestone (to be added manually in game implementation). Default 0.
     long incrementMilestoneS = 0;
+    // Set while a game is running on these parameters; they are then shared by all copies of its state
+    private boolean frozen;
 
 
     public AbstractParameters() {
@@ -59,17 +61,21 @@ public abstract class AbstractParameters {
     }
 
     public void setRandomSeed(long randomSeed) {
+        checkNotFrozen();
         this.randomSeed = randomSeed;
     }
 
     public void setThinkingTimeMins(long thinkingTimeMins) {
+        checkNotFrozen();
         this.thinkingTimeMins = thinkingTimeMins;
     }
 
     public void setMaxRounds(int max) {
+        checkNotFrozen();
         maxRounds = max;
     }
     public void setTimeoutRounds(int max) {
+        checkNotFrozen();
         timeoutRounds = max;
     }
 
@@ -139,20 +145,73 @@ public abstract class AbstractParameters {
     }
 
     /**
-     * Copy this game parameter object.
+     * Copy this game parameter object. Frozen parameters cannot change, so the copy of a frozen object is a shallow
+     * one, which shares all its fields (and any collections in them) with this one; this is what makes copies of
+     * game states cheap, as all _copy() implementations call this. Only the random seed differs, so that the seed the
+     * game was set up from is not visible in a copy given to a player.
+     * A shallow copy is frozen, and stays so; it should not be used once this object has been unfrozen.
      *
-     * @return - new object with the same parameters, but a new random seed.
+     * @return - a new object with the same parameters, but a new random seed.
      */
     public AbstractParameters copy() {
+        if (!frozen)
+            return unfrozenCopy();
+        try {
+            AbstractParameters copy = (AbstractParameters) super.clone();
+            copy.randomSeed = System.currentTimeMillis();
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError("AbstractParameters is Cloneable", e);
+        }
+    }
+
+    /**
+     * Copy this game parameter object, whether or not it is frozen. Use this rather than copy() for an instance
+     * that will be changed (for example, when tuning the game) or used for another game.
+     *
+     * @return - new object with the same parameters, but a new random seed.
+     */
+    public AbstractParameters unfrozenCopy() {
         AbstractParameters copy = _copy();
         copy.randomSeed = System.currentTimeMillis();
         return copy;
     }
 
+    /**
+     * Freezes these parameters, so that any attempt to change them (including the random seed) throws an
+     * IllegalStateException, and copy() returns a shallow copy. Game.run() does this for the length of the game.
+     * Public fields of sub-classes cannot be guarded, and must not be changed either.
+     *
+     * @return - this object
+     */
+    public AbstractParameters freeze() {
+        setFrozen(true);
+        return this;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    // package level deliberately, so that only Game can unfreeze parameters once its game is over
+    void unfreeze() {
+        setFrozen(false);
+    }
+
+    protected void setFrozen(boolean frozen) {
+        this.frozen = frozen;
+    }
+
+    protected void checkNotFrozen() {
+        if (frozen)
+            throw new IllegalStateException("Parameters cannot be changed while a game is using them; use unfrozenCopy() for an independent copy");
+    }
+
     /**
      * Randomizes the set of parameters, if this is a class that implements the TunableParameters interface.
      */
     public void randomize() {
+        checkNotFrozen();
         if (this instanceof ITunableParameters) {
             Random rnd = new Random(randomSeed);
             ITunableParameters params = (ITunableParameters) this;
@@ -173,6 +232,7 @@ public abstract class AbstractParameters {
      * interface.
      */
     public void reset() {
+        checkNotFrozen();
         if (this instanceof ITunableParameters) {
             Map<String, Object> defaultValues = ((ITunableParameters) this).getDefaultParameterValues();
             ((ITunableParameters) this).setParameterValues(defaultValues);
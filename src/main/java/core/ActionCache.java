@@ -0,0 +1,141 @@
+package core;
+
+import core.actions.AbstractAction;
+import core.actions.ActionSpace;
+import core.interfaces.IStateHash;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A bounded cache of the results of computeAvailableActions(), for a search agent to attach to its forward model
+ * (with AbstractForwardModel.setActionCache()) for the duration of one decision, during which the same states are
+ * often visited many times.
+ * <p>
+ * Entries are keyed on the 64-bit hash of the state from an IStateHash (such as a Zobrist hash), which must
+ * distinguish states with different actions available. A hit is not checked against the full state, so
+ * hashCode() is not accepted: with only 32 bits, and no guarantee of being well spread, collisions would be common
+ * enough in a long search to return the actions of another state. On a hit the current player, game tick, round,
+ * turn, game phase and action space are also checked against those the entry was created with, so a hash that
+ * ignores some of these does not return the wrong actions.
+ * When full, the least recently used entry is evicted.
+ * <p>
+ * As computeAvailableActions() returns new actions on each call, and some actions change when they are executed,
+ * the actions are copied both when they are recorded and when they are returned, so the caller is free to change
+ * them. (This is cheap for the many actions that are immutable, and return themselves from copy().) States with an
+ * IExtendedSequence in progress are not cached, as their actions depend on the state of the sequence.
+ * This is not thread-safe; each search thread should have its own cache (and forward model).
+ */
+public class ActionCache {
+
+    private static class Entry {
+        final int player, tick, round, turn;
+        final Object gamePhase;
+        final ActionSpace actionSpace;
+        final List<AbstractAction> actions;
+
+        Entry(AbstractGameState state, ActionSpace actionSpace, List<AbstractAction> actions) {
+            this.player = state.getCurrentPlayer();
+            this.tick = state.getGameTick();
+            this.round = state.getRoundCounter();
+            this.turn = state.getTurnCounter();
+            this.gamePhase = state.getGamePhase();
+            this.actionSpace = actionSpace;
+            this.actions = actions;
+        }
+
+        boolean matches(AbstractGameState state, ActionSpace actionSpace) {
+            return player == state.getCurrentPlayer() && tick == state.getGameTick() &&
+                    round == state.getRoundCounter() && turn == state.getTurnCounter() &&
+                    Objects.equals(gamePhase, state.getGamePhase()) && Objects.equals(this.actionSpace, actionSpace);
+        }
+    }
+
+    private final int capacity;
+    private final IStateHash stateHash;
+    private final Long2ObjectLinkedOpenHashMap<Entry> entries;
+    private int hits, misses, evictions;
+
+    /**
+     * @param capacity  - the maximum number of states to hold actions for
+     * @param stateHash - used to key the states
+     */
+    public ActionCache(int capacity, IStateHash stateHash) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("ActionCache capacity must be at least 1");
+        if (stateHash == null)
+            throw new IllegalArgumentException("ActionCache needs an IStateHash to key the states");
+        this.capacity = capacity;
+        this.stateHash = stateHash;
+        this.entries = new Long2ObjectLinkedOpenHashMap<>(Math.min(capacity, 1024));
+    }
+
+    private long key(AbstractGameState state) {
+        return stateHash.getHash(state);
+    }
+
+    /**
+     * @return copies of the cached actions for this state, or null if there are none
+     */
+    public List<AbstractAction> get(AbstractGameState state, ActionSpace actionSpace) {
+        if (state.isActionInProgress())
+            return null;
+        Entry entry = entries.getAndMoveToLast(key(state));
+        if (entry == null || !entry.matches(state, actionSpace)) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return copyOf(entry.actions);
+    }
+
+    /**
+     * Records the actions available in this state, replacing any previous entry with the same key.
+     */
+    public void put(AbstractGameState state, ActionSpace actionSpace, List<AbstractAction> actions) {
+        if (state.isActionInProgress())
+            return;
+        long key = key(state);
+        if (!entries.containsKey(key) && entries.size() >= capacity) {
+            entries.removeFirst();
+            evictions++;
+        }
+        entries.putAndMoveToLast(key, new Entry(state, actionSpace, copyOf(actions)));
+    }
+
+    private static List<AbstractAction> copyOf(List<AbstractAction> actions) {
+        List<AbstractAction> retValue = new ArrayList<>(actions.size());
+        for (AbstractAction action : actions)
+            retValue.add(action.copy());
+        return retValue;
+    }
+
+    public void clear() {
+        entries.clear();
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int getHits() {
+        return hits;
+    }
+
+    public int getMisses() {
+        return misses;
+    }
+
+    public int getEvictions() {
+        return evictions;
+    }
+
+    public double getHitRate() {
+        return hits + misses == 0 ? 0.0 : hits / (double) (hits + misses);
+    }
+}
@@ -3,10 +3,12 @@ package core;
 import core.actions.AbstractAction;
 import core.actions.DoNothing;
 import core.interfaces.IExtendedSequence;
+import core.interfaces.IGamePhase;
 import core.interfaces.IPrintable;
 import core.turnorders.ReactiveTurnOrder;
 import evaluation.listeners.IGameListener;
 import evaluation.metrics.Event;
+import evaluation.metrics.LatencyRecorder;
 import evaluation.summarisers.TAGNumericStatSummary;
 import games.GameType;
 import gui.AbstractGUIManager;
@@ -23,6 +25,7 @@ import players.rmhc.RMHCPlayer;
 import players.simple.FirstActionPlayer;
 import players.simple.OSLAPlayer;
 import players.simple.RandomPlayer;
+import utilities.AppendOnlyList;
 import utilities.Pair;
 import utilities.Utils;
 
@@ -55,8 +58,11 @@ public class Game {
     private JFrame frame;
     // Timers for various function calls
     private double nextTime, copyTime, agentTime, actionComputeTime;
+    // Distribution of the time taken by each stage of oneAction(), for the whole game (only if recordLatencies)
+    private final LatencyRecorder latencies = new LatencyRecorder();
+    private boolean recordLatencies;
     // Keeps track of action spaces for each game tick, pairs of (player ID, #actions)
-    private ArrayList<Pair<Integer, Integer>> actionSpaceSize;
+    private List<Pair<Integer, Integer>> actionSpaceSize;
     // Number of times an agent is asked for decisions
     private int nDecisions;
     // Number of actions taken in a turn by a player
@@ -101,6 +107,43 @@ public class Game {
         reset(Collections.emptyList(), gameState.gameParameters.randomSeed);
     }
 
+    /**
+     * Copies the statistics of a game, used for snapshots. The game state given is used as is.
+     */
+    private Game(Game source, AbstractGameState gameState) {
+        this.gameType = source.gameType;
+        this.players = new ArrayList<>(source.players);
+        this.forwardModel = source.forwardModel;
+        this.gameState = gameState;
+        this.lastPlayer = source.lastPlayer;
+        this.nextTime = source.nextTime;
+        this.copyTime = source.copyTime;
+        this.agentTime = source.agentTime;
+        this.actionComputeTime = source.actionComputeTime;
+        // a view of the entries so far, rather than a copy, so that a snapshot does not take longer as the game goes on
+        this.actionSpaceSize = source.actionSpaceSize instanceof AppendOnlyList ?
+                ((AppendOnlyList<Pair<Integer, Integer>>) source.actionSpaceSize).view() : source.actionSpaceSize;
+        this.nDecisions = source.nDecisions;
+        this.nActionsPerTurn = source.nActionsPerTurn;
+        this.nActionsPerTurnSum = source.nActionsPerTurnSum;
+        this.nActionsPerTurnCount = source.nActionsPerTurnCount;
+        this.turnPause = source.turnPause;
+    }
+
+    /**
+     * Creates a detached copy of this game's statistics (timers, action space sizes, decision counts), so that they
+     * can be read on another thread while this game carries on. The snapshot shares the players and forward model,
+     * has no listeners, and is not meant to be run. The per-stage latency histograms are not copied, and the action
+     * space sizes are a read-only view of those recorded so far, so taking a snapshot does not depend on the length
+     * of the game.
+     *
+     * @param gameState - the state the snapshot should report, usually a copy of the current game state.
+     * @return - snapshot of this game.
+     */
+    public Game snapshot(AbstractGameState gameState) {
+        return new Game(this, gameState);
+    }
+
     /**
      * Runs one game.
      *
@@ -403,17 +446,31 @@ public class Game {
         agentTime = 0;
         actionComputeTime = 0;
         nDecisions = 0;
-        actionSpaceSize = new ArrayList<>();
+        actionSpaceSize = new AppendOnlyList<>();
         nActionsPerTurnSum = 0;
         nActionsPerTurn = 1;
         nActionsPerTurnCount = 0;
         lastPlayer = -1;
+        latencies.reset();
     }
 
     /**
-     * Runs the game,
+     * Runs the game. The game parameters are frozen while it runs, so that all copies of the game state share them
+     * (unless they were frozen already, in which case they stay so).
      */
     public final void run() {
+        AbstractParameters gameParameters = gameState.gameParameters;
+        boolean wasFrozen = gameParameters.isFrozen();
+        gameParameters.freeze();
+        try {
+            playGame();
+        } finally {
+            if (!wasFrozen)
+                gameParameters.unfreeze();
+        }
+    }
+
+    private void playGame() {
 
         listeners.forEach(l -> l.onEvent(Event.createEvent(Event.GameEvent.ABOUT_TO_START, gameState)));
 
@@ -516,12 +573,13 @@ public class Game {
         if (!gameState.isNotTerminalForPlayer(activePlayer))
             throw new AssertionError("Player " + activePlayer + " is not allowed to move");
         AbstractPlayer currentPlayer = players.get(activePlayer);
+        IGamePhase gamePhase = gameState.getGamePhase();
         if (debug) System.out.printf("Starting oneAction for player %s%n", activePlayer);
 
         // Get player observation, and time how long it takes
         double s = System.nanoTime();
-        // copying the gamestate also copies the game parameters and resets the random seed (so agents cannot use this
-        // to reconstruct the starting hands etc.)
+        // copying the gamestate also copies the game parameters with a new random seed (so agents cannot use this
+        // to reconstruct the starting hands etc.), even while they are frozen and otherwise shared
         AbstractGameState observation = gameState.copy(activePlayer);
         copyTime = (System.nanoTime() - s);
         //      System.out.printf("Total copyTime in ms = %.2f at tick %d (Avg %.3f) %n", copyTime / 1e6, tick, copyTime / (tick +1.0) / 1e6);
@@ -561,6 +619,7 @@ public class Game {
 
         // Either ask player which action to use or, in case no actions are available, report the updated observation
         AbstractAction action = null;
+        long decisionTime = -1;
         if (observedActions.size() > 0) {
             if (observedActions.size() == 1 && (!(currentPlayer instanceof HumanGUIPlayer || currentPlayer instanceof HumanConsolePlayer) || observedActions.get(0) instanceof DoNothing)) {
                 // Can only do 1 action, so do it.
@@ -575,7 +634,8 @@ public class Game {
                 if (debug)
                     System.out.printf("Game: %2d Tick: %3d\t%s%n", gameState.getGameID(), getTick(), action.getString(gameState));
 
-                agentTime += (System.nanoTime() - s);
+                decisionTime = (long) (System.nanoTime() - s);
+                agentTime += decisionTime;
                 nDecisions++;
             }
             if (gameState.coreGameParameters.competitionMode && action != null && !observedActions.contains(action)) {
@@ -608,6 +668,14 @@ public class Game {
             s = System.nanoTime();
             forwardModel.next(gameState, action);
             nextTime = (System.nanoTime() - s);
+            if (recordLatencies)
+                latencies.record(LatencyRecorder.Stage.Next, gamePhase, action.getClass(), activePlayer, (long) nextTime);
+        }
+        if (recordLatencies) {
+            latencies.record(LatencyRecorder.Stage.Copy, gamePhase, action.getClass(), activePlayer, (long) copyTime);
+            latencies.record(LatencyRecorder.Stage.ComputeActions, gamePhase, action.getClass(), activePlayer, (long) actionComputeTime);
+            if (decisionTime >= 0)
+                latencies.record(LatencyRecorder.Stage.Agent, gamePhase, action.getClass(), activePlayer, decisionTime);
         }
 
         lastPlayer = activePlayer;
@@ -705,6 +773,26 @@ public class Game {
         return actionComputeTime;
     }
 
+    /**
+     * Retrieves the distribution of the time taken by each stage of the game loop (copy, computing available actions,
+     * agent decision and forward model next) in this game, by game phase, action class and player.
+     *
+     * Nothing is recorded unless setRecordLatencies(true) has been called (as LatencyListener does).
+     *
+     * @return - latency recorder for this game
+     */
+    public LatencyRecorder getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * Sets whether the time taken by each stage of the game loop is recorded (see getLatencies()).
+     * This is off unless a listener asks for it, and is turned off again by clearListeners().
+     */
+    public void setRecordLatencies(boolean recordLatencies) {
+        this.recordLatencies = recordLatencies;
+    }
+
     /**
      * Retrieves the number of game loop repetitions performed in this game.
      *
@@ -737,7 +825,7 @@ public class Game {
      *
      * @return - list of action space sizes
      */
-    public ArrayList<Pair<Integer, Integer>> getActionSpaceSize() {
+    public List<Pair<Integer, Integer>> getActionSpaceSize() {
         return actionSpaceSize;
     }
 
@@ -764,6 +852,7 @@ public class Game {
 
     public void clearListeners() {
         listeners.clear();
+        recordLatencies = false;
         getGameState().clearListeners();
     }
 
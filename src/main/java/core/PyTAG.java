@@ -195,6 +195,11 @@ public class PyTAG {
                 .toArray();
     }
 
+    // Gets one entry of the action mask, without creating the whole array (used by PyTAGVec)
+    int getActionMaskValue(int actionID) {
+        return leaves.get(actionID).getValue();
+    }
+
     // gets the whole action tree as an array (tree can be reconstructed using the getTreeShape() function)
     public int[] getActionTree() {
         return root.getActionMask();
@@ -0,0 +1,267 @@
+package core;
+
+import games.GameType;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+
+/**
+ * A vectorised version of PyTAG, that steps K environments (each a PyTAG with its own Game and players) in one call,
+ * so that the cost of crossing the Java-Python boundary is paid once per step rather than once per environment.
+ * <p>
+ * The results of reset() and step() are written into buffers provided by the caller with bindBuffers(), so that
+ * nothing is allocated for them on each step. These can be either flat primitive arrays or direct ByteBuffers
+ * (which can be wrapped by numpy without a copy). The layout is row-major, with environment i using:
+ * - observations: entries [i * observationSpace, (i + 1) * observationSpace) - as float32 in a ByteBuffer
+ * - masks: entries [i * actionSpace, (i + 1) * actionSpace) - as int8 in a ByteBuffer
+ * - rewards: entry i - as float32 in a ByteBuffer
+ * - dones: entry i - as int8 in a ByteBuffer (1 if the episode finished on this step)
+ * ByteBuffers are written in native byte order.
+ * <p>
+ * An environment whose episode finishes is reset automatically, so its observation and mask are those of the first
+ * decision of the next episode; its reward and done flag are those of the finished episode (and getFinalResults()
+ * gives the result for each player).
+ * <p>
+ * With parallelism > 1 the environments are stepped concurrently, on a pool of daemon threads.
+ */
+public class PyTAGVec implements AutoCloseable {
+
+    private final List<PyTAG> envs = new ArrayList<>();
+    private final CoreConstants.GameResult[][] finalResults;
+    private final int observationSpace;
+    private int actionSpace = -1;
+    private final ExecutorService executor;
+    private final List<Callable<Void>> stepTasks = new ArrayList<>();
+    private final List<Callable<Void>> resetTasks = new ArrayList<>();
+    private int[] actions;
+
+    // the caller's buffers; only one of each pair is set
+    private double[] obsArray, rewardArray;
+    private int[] maskArray;
+    private boolean[] doneArray;
+    private ByteBuffer obsBuffer, maskBuffer, rewardBuffer, doneBuffer;
+
+    /**
+     * @param playersPerEnv The players for each environment. Each list must contain a PythonAgent, and no two
+     *                      environments can share a player instance.
+     * @param parallelism   The number of threads to step environments on. 1 to step them all on the calling thread.
+     */
+    public PyTAGVec(GameType gameToPlay, String parameterConfigFile, List<List<AbstractPlayer>> playersPerEnv,
+                    long seed, boolean isNormalized, int parallelism) throws Exception {
+        Random seedRandom = new Random(seed);
+        for (List<AbstractPlayer> players : playersPerEnv) {
+            envs.add(new PyTAG(gameToPlay, parameterConfigFile, players, seedRandom.nextLong(), isNormalized));
+        }
+        finalResults = new CoreConstants.GameResult[envs.size()][];
+        observationSpace = envs.get(0).getObservationSpace();
+        for (int i = 0; i < envs.size(); i++) {
+            int env = i;
+            stepTasks.add(() -> {
+                stepEnv(env);
+                return null;
+            });
+            resetTasks.add(() -> {
+                resetEnv(env);
+                return null;
+            });
+        }
+        executor = parallelism > 1 ? Executors.newFixedThreadPool(Math.min(parallelism, envs.size()), r -> {
+            Thread thread = new Thread(r, "PyTAGVec");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    /**
+     * Creates nEnvs environments, each with a copy of the players provided
+     */
+    public PyTAGVec(GameType gameToPlay, String parameterConfigFile, List<AbstractPlayer> players, int nEnvs,
+                    long seed, boolean isNormalized, int parallelism) throws Exception {
+        this(gameToPlay, parameterConfigFile, copies(players, nEnvs), seed, isNormalized, parallelism);
+    }
+
+    private static List<List<AbstractPlayer>> copies(List<AbstractPlayer> players, int nEnvs) {
+        List<List<AbstractPlayer>> retValue = new ArrayList<>();
+        for (int i = 0; i < nEnvs; i++) {
+            List<AbstractPlayer> envPlayers = new ArrayList<>();
+            for (AbstractPlayer player : players)
+                envPlayers.add(i == 0 ? player : player.copy());
+            retValue.add(envPlayers);
+        }
+        return retValue;
+    }
+
+    public int getNumEnvs() {
+        return envs.size();
+    }
+
+    public int getObservationSpace() {
+        return observationSpace;
+    }
+
+    /**
+     * @return the size of the action space (the same for all environments). Only valid after the first reset().
+     */
+    public int getActionSpace() {
+        if (actionSpace < 0)
+            throw new IllegalStateException("Need to reset the environments before the action space is known");
+        return actionSpace;
+    }
+
+    public PyTAG getEnv(int env) {
+        return envs.get(env);
+    }
+
+    /**
+     * @return the result for each player of the last episode to finish in this environment (or null if none has)
+     */
+    public CoreConstants.GameResult[] getFinalResults(int env) {
+        return finalResults[env];
+    }
+
+    public void bindBuffers(double[] observations, int[] masks, double[] rewards, boolean[] dones) {
+        checkSize(observations.length, masks.length, rewards.length, dones.length);
+        clearBuffers();
+        obsArray = observations;
+        maskArray = masks;
+        rewardArray = rewards;
+        doneArray = dones;
+    }
+
+    /**
+     * The buffers must be direct, and are written in native byte order (see class comment for the types)
+     */
+    public void bindBuffers(ByteBuffer observations, ByteBuffer masks, ByteBuffer rewards, ByteBuffer dones) {
+        for (ByteBuffer buffer : new ByteBuffer[]{observations, masks, rewards, dones})
+            if (!buffer.isDirect())
+                throw new IllegalArgumentException("ByteBuffers must be direct");
+        checkSize(observations.capacity() / 4, masks.capacity(), rewards.capacity() / 4, dones.capacity());
+        clearBuffers();
+        obsBuffer = observations.order(ByteOrder.nativeOrder());
+        maskBuffer = masks;
+        rewardBuffer = rewards.order(ByteOrder.nativeOrder());
+        doneBuffer = dones;
+    }
+
+    private void checkSize(int observations, int masks, int rewards, int dones) {
+        int nEnvs = envs.size();
+        if (observations < nEnvs * observationSpace)
+            throw new IllegalArgumentException("Observation buffer needs " + nEnvs * observationSpace + " entries");
+        if (actionSpace >= 0 && masks < nEnvs * actionSpace)
+            throw new IllegalArgumentException("Mask buffer needs " + nEnvs * actionSpace + " entries");
+        if (rewards < nEnvs || dones < nEnvs)
+            throw new IllegalArgumentException("Reward and done buffers need " + nEnvs + " entries");
+    }
+
+    private void clearBuffers() {
+        obsArray = rewardArray = null;
+        maskArray = null;
+        doneArray = null;
+        obsBuffer = maskBuffer = rewardBuffer = doneBuffer = null;
+    }
+
+    /**
+     * Resets all the environments, and writes the first observations and masks into the bound buffers
+     */
+    public void reset() throws Exception {
+        if (obsArray == null && obsBuffer == null)
+            throw new IllegalStateException("Need to bind buffers before reset");
+        run(resetTasks);
+    }
+
+    /**
+     * Takes one action in each environment, and writes the new observations, masks, rewards and done flags into
+     * the bound buffers. Any environment that finishes its episode is reset.
+     *
+     * @param actions The index of the action to take in each environment (the array is not copied)
+     */
+    public void step(int[] actions) throws Exception {
+        if (actions.length != envs.size())
+            throw new IllegalArgumentException("Expected " + envs.size() + " actions but got " + actions.length);
+        this.actions = actions;
+        run(stepTasks);
+    }
+
+    private void run(List<Callable<Void>> tasks) throws Exception {
+        if (executor == null) {
+            for (Callable<Void> task : tasks)
+                task.call();
+            return;
+        }
+        for (Future<Void> result : executor.invokeAll(tasks)) {
+            try {
+                result.get();
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        }
+    }
+
+    private void resetEnv(int env) throws Exception {
+        PyTAG pyTAG = envs.get(env);
+        pyTAG.reset();
+        int envActionSpace = pyTAG.getActionSpace();
+        synchronized (this) {
+            if (actionSpace < 0) {
+                actionSpace = envActionSpace;
+                checkSize(obsArray != null ? obsArray.length : obsBuffer.capacity() / 4,
+                        maskArray != null ? maskArray.length : maskBuffer.capacity(), envs.size(), envs.size());
+            }
+        }
+        if (envActionSpace != actionSpace)
+            throw new AssertionError("All environments must have the same action space: " + envActionSpace + " and " + actionSpace);
+        writeObservation(env);
+        writeReward(env, 0.0, false);
+    }
+
+    private void stepEnv(int env) throws Exception {
+        PyTAG pyTAG = envs.get(env);
+        pyTAG.step(actions[env]);
+        if (pyTAG.isDone()) {
+            writeReward(env, pyTAG.getReward(), true);
+            finalResults[env] = pyTAG.getPlayerResults().clone();
+            pyTAG.reset();
+            writeObservation(env);
+        } else {
+            writeReward(env, pyTAG.getReward(), false);
+            writeObservation(env);
+        }
+    }
+
+    private void writeObservation(int env) throws Exception {
+        PyTAG pyTAG = envs.get(env);
+        double[] obs = pyTAG.getObservationVector();
+        int obsStart = env * observationSpace;
+        int maskStart = env * actionSpace;
+        if (obsArray != null) {
+            System.arraycopy(obs, 0, obsArray, obsStart, observationSpace);
+            for (int a = 0; a < actionSpace; a++)
+                maskArray[maskStart + a] = pyTAG.getActionMaskValue(a);
+        } else {
+            for (int i = 0; i < observationSpace; i++)
+                obsBuffer.putFloat((obsStart + i) * 4, (float) obs[i]);
+            for (int a = 0; a < actionSpace; a++)
+                maskBuffer.put(maskStart + a, (byte) pyTAG.getActionMaskValue(a));
+        }
+    }
+
+    private void writeReward(int env, double reward, boolean done) {
+        if (rewardArray != null) {
+            rewardArray[env] = reward;
+            doneArray[env] = done;
+        } else {
+            rewardBuffer.putFloat(env * 4, (float) reward);
+            doneBuffer.put(env, (byte) (done ? 1 : 0));
+        }
+    }
+
+    @Override
+    public void close() {
+        if (executor != null)
+            executor.shutdownNow();
+    }
+}
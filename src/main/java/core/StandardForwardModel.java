@@ -97,7 +97,7 @@ public abstract class StandardForwardModel extends AbstractForwardModel {
             turnOwner = (turnOwner + 1) % gs.nPlayers;
             if (turnOwner == gs.turnOwner) {
                 throw new AssertionError("Infinite loop - apparently all players are terminal, but game state is not. " +
-                        "Last action played: " + gs.getHistory().get(gs.getHistory().size() - 1));
+                        "Last action played: " + (gs.getHistory().isEmpty() ? "none recorded" : gs.getHistory().get(gs.getHistory().size() - 1)));
             }
         } while (!gs.isNotTerminalForPlayer(turnOwner));
         endPlayerTurn(gs, turnOwner);
@@ -0,0 +1,89 @@
+package core;
+
+import core.actions.AbstractAction;
+import core.interfaces.IGamePhase;
+
+import java.util.Arrays;
+
+/**
+ * Everything needed to reverse one call to AbstractForwardModel.next(state, action, undoStack).
+ * <p>
+ * The core state held in AbstractGameState (tick, round/turn counters, status, results, phase, and the
+ * length of the history) is saved by the framework. Anything game-specific is pushed by the forward model in
+ * _recordUndo() (before the action is applied), and popped again in reverse order in _undo().
+ * <p>
+ * Records are pooled by UndoStack and reused, so the game-specific stacks only allocate as they grow.
+ */
+public final class UndoRecord {
+
+    // core state, saved and restored by AbstractGameState
+    int tick, roundCounter, turnCounter, turnOwner, firstPlayer;
+    CoreConstants.GameResult gameStatus;
+    CoreConstants.GameResult[] playerResults = new CoreConstants.GameResult[0];
+    IGamePhase gamePhase;
+    int historySize, historyTextSize;
+    AbstractAction action;
+
+    // game-specific payload
+    private int[] ints = new int[8];
+    private int nInts;
+    private Object[] objects = new Object[8];
+    private int nObjects;
+
+    /**
+     * @return the action that this record reverses
+     */
+    public AbstractAction getAction() {
+        return action;
+    }
+
+    public void pushInt(int value) {
+        if (nInts == ints.length)
+            ints = Arrays.copyOf(ints, nInts * 2);
+        ints[nInts++] = value;
+    }
+
+    public int popInt() {
+        if (nInts == 0)
+            throw new IllegalStateException("No int values left in UndoRecord");
+        return ints[--nInts];
+    }
+
+    public void pushBoolean(boolean value) {
+        pushInt(value ? 1 : 0);
+    }
+
+    public boolean popBoolean() {
+        return popInt() == 1;
+    }
+
+    public void pushObject(Object value) {
+        if (nObjects == objects.length)
+            objects = Arrays.copyOf(objects, nObjects * 2);
+        objects[nObjects++] = value;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T popObject() {
+        if (nObjects == 0)
+            throw new IllegalStateException("No object values left in UndoRecord");
+        T retValue = (T) objects[--nObjects];
+        objects[nObjects] = null;
+        return retValue;
+    }
+
+    void clear() {
+        nInts = 0;
+        Arrays.fill(objects, 0, nObjects, null);
+        nObjects = 0;
+        action = null;
+        gamePhase = null;
+    }
+
+    /**
+     * @return true if everything pushed by the forward model has been popped again
+     */
+    boolean isEmpty() {
+        return nInts == 0 && nObjects == 0;
+    }
+}
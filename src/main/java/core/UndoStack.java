@@ -0,0 +1,53 @@
+package core;
+
+import java.util.Arrays;
+
+/**
+ * A stack of UndoRecords, one for each action applied with AbstractForwardModel.next(state, action, undoStack)
+ * and not yet reversed with undo(). This lets a search descend and backtrack on a single game state instead of
+ * copying it at each step.
+ * <p>
+ * Records are pooled, so once the stack has reached the maximum depth of a search nothing more is allocated.
+ * A stack should only be used with one game state at a time.
+ */
+public final class UndoStack {
+
+    private UndoRecord[] records = new UndoRecord[16];
+    private int size;
+
+    /**
+     * @return a cleared record to fill in, now on the top of the stack
+     */
+    UndoRecord push() {
+        if (size == records.length)
+            records = Arrays.copyOf(records, size * 2);
+        if (records[size] == null)
+            records[size] = new UndoRecord();
+        UndoRecord retValue = records[size++];
+        retValue.clear();
+        return retValue;
+    }
+
+    UndoRecord pop() {
+        if (size == 0)
+            throw new IllegalStateException("Nothing to undo");
+        return records[--size];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Discards all records, without reversing them
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++)
+            records[i].clear();
+        size = 0;
+    }
+}
@@ -6,9 +6,10 @@ import org.json.simple.JSONObject;
 import core.CoreConstants.ComponentType;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public abstract class Component {
-    private static int ID = 0;  // All components receive a unique and final ID from this always increasing counter
+    private static final AtomicInteger ID = new AtomicInteger(0);  // All components receive a unique and final ID from this always increasing counter
 
     protected transient final int componentID;  // Unique ID of this component
     protected final ComponentType type;  // Type of this component
@@ -17,14 +18,14 @@ public abstract class Component {
     protected String componentName;  // Name of this component
 
     public Component(ComponentType type, String name) {
-        this.componentID = ID++;
+        this.componentID = ID.getAndIncrement();
         this.type = type;
         this.componentName = name;
         this.properties = new HashMap<>();
     }
 
     public Component(ComponentType type) {
-        this.componentID = ID++;
+        this.componentID = ID.getAndIncrement();
         this.type = type;
         this.componentName = type.toString();
         this.properties = new HashMap<>();
@@ -51,6 +52,17 @@ public abstract class Component {
     public abstract Component copy();
     public Component copy(int playerId) { return copy(); }
 
+    /**
+     * Immutable components never change after setup, so copies of a game state may share them instead of
+     * creating new instances. Subclasses that return true should also return themselves from copy().
+     * The owner of an immutable component is not tracked on the component itself, as the same instance can sit
+     * in different places in different copies of the state: it stays at -1, and setOwnerId() fails.
+     * @return - true if this component is never modified once created, false by default.
+     */
+    public boolean isImmutable() {
+        return false;
+    }
+
     /**
      * Get and set the type of this component.
      */
@@ -75,6 +87,8 @@ public abstract class Component {
         return ownerId;
     }
     public void setOwnerId(int ownerId) {
+        if (isImmutable())
+            throw new UnsupportedOperationException("The owner of an immutable component is not tracked: " + componentName);
         this.ownerId = ownerId;
     }
 
@@ -173,6 +173,12 @@ public class Deck<T extends Component> extends Component implements IComponentCo
         return null;
     }
 
+    // immutable components are shared between copies of the state, so do not record which deck they are in
+    private static void setOwner(Component c, int ownerId) {
+        if (!c.isImmutable())
+            c.setOwnerId(ownerId);
+    }
+
     /**
      * Adds a component to a deck.
      *
@@ -181,7 +187,7 @@ public class Deck<T extends Component> extends Component implements IComponentCo
      */
     public boolean add(T c) {
         if (c != null) {
-            c.setOwnerId(ownerId);
+            setOwner(c, ownerId);
         }
         return add(c, 0);
     }
@@ -196,7 +202,7 @@ public class Deck<T extends Component> extends Component implements IComponentCo
     public boolean add(T c, int index) {
         if (c == null)
             throw new IllegalArgumentException("null cannot be added to a Deck");
-        c.setOwnerId(ownerId);
+        setOwner(c, ownerId);
         components.add(index, c);
         return capacity == -1 || components.size() <= capacity;
     }
@@ -232,7 +238,7 @@ public class Deck<T extends Component> extends Component implements IComponentCo
     public boolean add(Deck<T> d, int index) {
         components.addAll(index, d.components);
         for (T comp : d.components) {
-            comp.setOwnerId(ownerId);
+            setOwner(comp, ownerId);
         }
         return capacity == -1 || components.size() <= capacity;
     }
@@ -244,7 +250,7 @@ public class Deck<T extends Component> extends Component implements IComponentCo
     public boolean add(Collection<T> d, int index) {
         components.addAll(index, d);
         for (T comp : d) {
-            comp.setOwnerId(ownerId);
+            setOwner(comp, ownerId);
         }
         return capacity == -1 || components.size() <= capacity;
     }
@@ -256,7 +262,7 @@ public class Deck<T extends Component> extends Component implements IComponentCo
      * @return true if successfully removed, false otherwise.
      */
     public boolean remove(T component) {
-        component.setOwnerId(-1);
+        setOwner(component, -1);
         int index = components.indexOf(component);
         if (index != -1) {
             return remove(index);
@@ -272,7 +278,7 @@ public class Deck<T extends Component> extends Component implements IComponentCo
      */
     public boolean remove(int idx) {
         if (idx >= 0 && idx < components.size()) {
-            components.get(idx).setOwnerId(-1);
+            setOwner(components.get(idx), -1);
             components.remove(idx);
             return true;
         }
@@ -296,7 +302,7 @@ public class Deck<T extends Component> extends Component implements IComponentCo
      */
     public void clear() {
         for (T comp : components) {
-            comp.setOwnerId(-1);
+            setOwner(comp, -1);
         }
         components.clear();
     }
@@ -343,7 +349,7 @@ public class Deck<T extends Component> extends Component implements IComponentCo
     public void setComponents(ArrayList<T> components) {
         this.components = components;
         for (T comp : components) {
-            comp.setOwnerId(ownerId);
+            setOwner(comp, ownerId);
         }
     }
 
@@ -377,7 +383,7 @@ public class Deck<T extends Component> extends Component implements IComponentCo
      * @param component - new component.
      */
     public void setComponent(int idx, T component) {
-        component.setOwnerId(ownerId);
+        setOwner(component, ownerId);
         components.set(idx, component);
     }
 
@@ -412,9 +418,12 @@ public class Deck<T extends Component> extends Component implements IComponentCo
     }
 
     protected void copyTo(Deck<T> deck) {
-        List<T> newComponents = new ArrayList<>();
-        for (T c : components) {
-            newComponents.add((T) c.copy());
+        // Immutable components are shared, so only the others are replaced with copies
+        List<T> newComponents = new ArrayList<>(components);
+        for (int i = 0; i < newComponents.size(); i++) {
+            T c = newComponents.get(i);
+            if (!c.isImmutable())
+                newComponents.set(i, (T) c.copy());
         }
         deck.components = newComponents;
         deck.capacity = capacity;
@@ -425,9 +434,11 @@ public class Deck<T extends Component> extends Component implements IComponentCo
 
 
     protected void copyTo(Deck<T> deck, int playerId) {
-        List<T> newComponents = new ArrayList<>();
-        for (T c : components) {
-            newComponents.add((T) c.copy(playerId));
+        List<T> newComponents = new ArrayList<>(components);
+        for (int i = 0; i < newComponents.size(); i++) {
+            T c = newComponents.get(i);
+            if (!c.isImmutable())
+                newComponents.set(i, (T) c.copy(playerId));
         }
         deck.components = newComponents;
         deck.capacity = capacity;
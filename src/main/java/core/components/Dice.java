@@ -80,6 +80,13 @@ public class Dice extends Component {
         value = v;
     }
 
+    /**
+     * Returns the die to its state before it was first rolled (with a value of 0)
+     */
+    public void clearValue() {
+        value = 0;
+    }
+
     /**
      * @return number of sides for this die.
      */
@@ -10,6 +10,7 @@ import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
 import utilities.Pair;
 import utilities.Vector2D;
+import utilities.ZobristHashing;
 
 import java.io.FileReader;
 import java.io.IOException;
@@ -26,6 +27,11 @@ public class GridBoard<T extends Component> extends Component implements ICompon
 
     private Component[][] grid;  // 2D grid representation of this board
 
+    // Zobrist hash of the grid contents, maintained incrementally by setElement() once it has been calculated
+    // (see getZobristHash()). Anything that changes the grid wholesale just marks it as invalid.
+    private long zobristHash;
+    private boolean zobristHashValid;
+
     protected GridBoard() {
         super(CoreConstants.ComponentType.BOARD);
     }
@@ -64,6 +70,26 @@ public class GridBoard<T extends Component> extends Component implements ICompon
         this.grid = new Component[height][width];
     }
 
+    /**
+     * For subclasses that hold the contents of the cells themselves (see IntGridBoard), and so have no grid of
+     * Components. These must override every method that uses the grid.
+     */
+    protected GridBoard(int width, int height, boolean allocateGrid) {
+        super(CoreConstants.ComponentType.BOARD);
+        this.width = width;
+        this.height = height;
+        if (allocateGrid)
+            this.grid = new Component[height][width];
+    }
+
+    protected GridBoard(int width, int height, int ID, boolean allocateGrid) {
+        super(CoreConstants.ComponentType.BOARD, ID);
+        this.width = width;
+        this.height = height;
+        if (allocateGrid)
+            this.grid = new Component[height][width];
+    }
+
     public GridBoard(GridBoard<T> orig) {
         super(CoreConstants.ComponentType.BOARD);
         this.width = orig.getWidth();
@@ -122,6 +148,7 @@ public class GridBoard<T extends Component> extends Component implements ICompon
             if (w >= 0) System.arraycopy(this.grid[i], 0, grid[i + offsetY], offsetX, w);
         }
         this.grid = grid;
+        zobristHashValid = false;
     }
 
     /**
@@ -134,6 +161,10 @@ public class GridBoard<T extends Component> extends Component implements ICompon
      */
     public boolean setElement(int x, int y, T value) {
         if (x >= 0 && x < width && y >= 0 && y < height) {
+            if (zobristHashValid) {
+                int position = y * width + x;
+                zobristHash ^= ZobristHashing.key(position, elementValue(grid[y][x])) ^ ZobristHashing.key(position, elementValue(value));
+            }
             grid[y][x] = value;
             return true;
         } else
@@ -167,9 +198,34 @@ public class GridBoard<T extends Component> extends Component implements ICompon
      * @return - 2D grid.
      */
     public Component[][] getGridValues() {
+        zobristHashValid = false;  // as the caller may change the grid directly
         return grid;
     }
 
+    /**
+     * A Zobrist hash of the contents of the grid, for use in state keys (see core.interfaces.IStateHash).
+     * Elements are identified by their component name (so, for a Token, its type), and null cells are all the same.
+     * This is calculated in full the first time it is needed, and is then updated incrementally by setElement().
+     *
+     * @return - 64-bit hash of the grid contents
+     */
+    public long getZobristHash() {
+        if (!zobristHashValid) {
+            zobristHash = 0;
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    zobristHash ^= ZobristHashing.key(y * width + x, elementValue(grid[y][x]));
+                }
+            }
+            zobristHashValid = true;
+        }
+        return zobristHash;
+    }
+
+    protected static int elementValue(Component c) {
+        return c == null ? 0 : c.getComponentName().hashCode();
+    }
+
     public List<Vector2D> getEmptyCells(T defaultElement) {
         List<Vector2D> emptyCells = new ArrayList<>();
         for (int i = 0; i < height; i++) {
@@ -203,7 +259,7 @@ public class GridBoard<T extends Component> extends Component implements ICompon
      * @param original - original grid to rotate
      * @return rotated grid
      */
-    private Component[][] rotateClockWise(Component[][] original) {
+    protected Component[][] rotateClockWise(Component[][] original) {
         final int M = original.length;
         final int N = original[0].length;
         Component[][] grid = new Component[N][M];
@@ -236,6 +292,8 @@ public class GridBoard<T extends Component> extends Component implements ICompon
             if (width >= 0) System.arraycopy(grid[i], 0, gridCopy[i], 0, width);
         }
         GridBoard<T> g = new GridBoard<>(gridCopy, componentID);
+        g.zobristHash = zobristHash;
+        g.zobristHashValid = zobristHashValid;
         copyComponentTo(g);
         return g;
     }
@@ -302,6 +360,7 @@ public class GridBoard<T extends Component> extends Component implements ICompon
         }
 
         this.grid = new Component[height][width];
+        zobristHashValid = false;
 
         JSONArray grids = (JSONArray) board.get("grid");
         int y = 0;
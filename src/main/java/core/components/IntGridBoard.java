@@ -0,0 +1,222 @@
+package core.components;
+
+import org.json.simple.JSONObject;
+import utilities.Vector2D;
+import utilities.ZobristHashing;
+
+import java.util.*;
+
+/**
+ * A GridBoard for grids where every cell holds one of a small, fixed set of values (e.g. the empty cell and one
+ * Token per player). The grid holds an int index into this set of values for each cell, rather than a reference to a
+ * Component, so that copying the board is a single System.arraycopy. The values themselves are immutable and shared
+ * between all copies of the board.
+ * <p>
+ * All of the GridBoard methods work as normal (so views, state vectors and toGraphBoard() need no changes), and the
+ * int index of each cell is also available directly with getValue() and setValue(). The first value in the set is
+ * the default, which all cells start with.
+ * <p>
+ * The dimensions are fixed, so setWidthHeight() and loadBoard() are not supported.
+ *
+ * @param <T> The Type of Component in the cells
+ */
+public class IntGridBoard<T extends Component> extends GridBoard<T> {
+
+    private final Component[] values;  // the possible values of a cell, shared between copies
+    private final int[] cells;  // index into values for each cell, one row after another
+
+    private long zobristHash;
+    private boolean zobristHashValid;
+
+    public IntGridBoard(int width, int height, List<T> values) {
+        super(width, height, false);
+        if (values.isEmpty())
+            throw new IllegalArgumentException("IntGridBoard needs at least one value for the cells");
+        this.values = values.toArray(new Component[0]);
+        this.cells = new int[width * height];
+    }
+
+    private IntGridBoard(int width, int height, int ID, Component[] values, int[] cells) {
+        super(width, height, ID, false);
+        this.values = values;
+        this.cells = cells;
+    }
+
+    /**
+     * @return - the index of value in the set of possible cell values, or -1 if it is not one of them.
+     */
+    public int indexOf(T value) {
+        for (int i = 0; i < values.length; i++)
+            if (values[i] == value)
+                return i;
+        for (int i = 0; i < values.length; i++)
+            if (values[i].equals(value))
+                return i;
+        return -1;
+    }
+
+    public T getValueElement(int value) {
+        return (T) values[value];
+    }
+
+    /**
+     * @return - the index of the value at position (x, y), or -1 if the coordinates are out of bounds.
+     */
+    public int getValue(int x, int y) {
+        if (x >= 0 && x < getWidth() && y >= 0 && y < getHeight())
+            return cells[y * getWidth() + x];
+        return -1;
+    }
+
+    /**
+     * Sets the value at position (x, y) to the given index in the set of possible cell values.
+     *
+     * @return - true if coordinates in bounds, false otherwise (and function fails).
+     */
+    public boolean setValue(int x, int y, int value) {
+        if (value < 0 || value >= values.length)
+            throw new IllegalArgumentException("Value " + value + " is not one of the " + values.length + " possible cell values");
+        if (x >= 0 && x < getWidth() && y >= 0 && y < getHeight()) {
+            int position = y * getWidth() + x;
+            if (zobristHashValid)
+                zobristHash ^= ZobristHashing.key(position, elementValue(values[cells[position]])) ^ ZobristHashing.key(position, elementValue(values[value]));
+            cells[position] = value;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Finds the next cell with the given value, in the same order as flattenGrid() (one row after another).
+     * This allows iteration over (for example) all the empty cells without any allocation:
+     * <pre>
+     *     for (int i = board.nextCell(0, 0); i >= 0; i = board.nextCell(i + 1, 0)) {
+     *         int x = i % board.getWidth(), y = i / board.getWidth();
+     *     }
+     * </pre>
+     *
+     * @param from  - the first cell to check
+     * @param value - the index of the value to look for
+     * @return - the index of the next cell with that value, or -1 if there is none
+     */
+    public int nextCell(int from, int value) {
+        for (int i = from; i < cells.length; i++)
+            if (cells[i] == value)
+                return i;
+        return -1;
+    }
+
+    /**
+     * @return - the number of cells with the given value
+     */
+    public int count(int value) {
+        int retValue = 0;
+        for (int cell : cells)
+            if (cell == value)
+                retValue++;
+        return retValue;
+    }
+
+    @Override
+    public boolean setElement(int x, int y, T value) {
+        int index = indexOf(value);
+        if (index == -1)
+            throw new IllegalArgumentException(value + " is not one of the possible cell values");
+        return setValue(x, y, index);
+    }
+
+    @Override
+    public T getElement(int x, int y) {
+        if (x >= 0 && x < getWidth() && y >= 0 && y < getHeight())
+            return (T) values[cells[y * getWidth() + x]];
+        return null;
+    }
+
+    /**
+     * As the cells are not held as Components, this is a new grid, and changes to it do not affect this board.
+     */
+    @Override
+    public Component[][] getGridValues() {
+        Component[][] grid = new Component[getHeight()][getWidth()];
+        for (int i = 0; i < cells.length; i++)
+            grid[i / getWidth()][i % getWidth()] = values[cells[i]];
+        return grid;
+    }
+
+    @Override
+    public long getZobristHash() {
+        if (!zobristHashValid) {
+            zobristHash = 0;
+            for (int i = 0; i < cells.length; i++)
+                zobristHash ^= ZobristHashing.key(i, elementValue(values[cells[i]]));
+            zobristHashValid = true;
+        }
+        return zobristHash;
+    }
+
+    @Override
+    public List<Vector2D> getEmptyCells(T defaultElement) {
+        List<Vector2D> emptyCells = new ArrayList<>();
+        for (int i = 0; i < cells.length; i++) {
+            if (values[cells[i]].equals(defaultElement))
+                emptyCells.add(new Vector2D(i % getWidth(), i / getWidth()));
+        }
+        return emptyCells;
+    }
+
+    @Override
+    public Component[][] rotate(int orientation) {
+        Component[][] grid = getGridValues();
+        orientation %= 4;  // Maximum 4 sides to a grid
+        for (int i = 0; i < orientation; i++) {
+            grid = rotateClockWise(grid);
+        }
+        return grid;
+    }
+
+    @Override
+    public Component[] flattenGrid() {
+        Component[] array = new Component[cells.length];
+        for (int i = 0; i < cells.length; i++)
+            array[i] = values[cells[i]];
+        return array;
+    }
+
+    @Override
+    public IntGridBoard<T> copy() {
+        IntGridBoard<T> g = new IntGridBoard<>(getWidth(), getHeight(), componentID, values, cells.clone());
+        g.zobristHash = zobristHash;
+        g.zobristHashValid = zobristHashValid;
+        copyComponentTo(g);
+        return g;
+    }
+
+    /**
+     * @return - a copy of this board with every cell set to the default value
+     */
+    @Override
+    public IntGridBoard<T> emptyCopy() {
+        IntGridBoard<T> g = new IntGridBoard<>(getWidth(), getHeight(), componentID, values, new int[cells.length]);
+        copyComponentTo(g);
+        return g;
+    }
+
+    @Override
+    public void setWidthHeight(int width, int height, int offsetX, int offsetY) {
+        throw new UnsupportedOperationException("IntGridBoard has fixed dimensions");
+    }
+
+    @Override
+    public void loadBoard(JSONObject board) {
+        throw new UnsupportedOperationException("IntGridBoard cannot be loaded from JSON");
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o instanceof IntGridBoard && Arrays.equals(values, ((IntGridBoard<?>) o).values)) {
+            IntGridBoard<?> other = (IntGridBoard<?>) o;
+            return componentID == other.componentID && Arrays.equals(cells, other.cells);
+        }
+        return super.equals(o);
+    }
+}
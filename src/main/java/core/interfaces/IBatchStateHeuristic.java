@@ -0,0 +1,42 @@
+package core.interfaces;
+
+import core.AbstractGameState;
+
+import java.util.List;
+
+/**
+ * A state heuristic that can evaluate several states in one call. This lets a heuristic share the fixed cost of
+ * each call between many states: for example by computing all the feature vectors before a single pass over the
+ * coefficients, or by sending one request to an external model instead of one per state.
+ * <p>
+ * MCTS uses this when params.leafBatchSize > 1, to evaluate the leaves of several iterations together.
+ */
+public interface IBatchStateHeuristic extends IStateHeuristic {
+
+    /**
+     * Evaluates a number of (state, player) pairs. The result must be the same as calling evaluateState() on each.
+     *
+     * @param states    - game states to evaluate and score; the same state may appear more than once
+     * @param playerIds - the player to evaluate each state for (the same length as states)
+     * @return - the value of each state for its player, in the same order
+     */
+    default double[] evaluateStates(List<AbstractGameState> states, int[] playerIds) {
+        double[] retValue = new double[states.size()];
+        for (int i = 0; i < retValue.length; i++)
+            retValue[i] = evaluateState(states.get(i), playerIds[i]);
+        return retValue;
+    }
+
+    /**
+     * Evaluates the pairs with heuristic.evaluateStates() if it is an IBatchStateHeuristic, and otherwise with one
+     * call to evaluateState() for each.
+     */
+    static double[] evaluateStates(IStateHeuristic heuristic, List<AbstractGameState> states, int[] playerIds) {
+        if (heuristic instanceof IBatchStateHeuristic)
+            return ((IBatchStateHeuristic) heuristic).evaluateStates(states, playerIds);
+        double[] retValue = new double[states.size()];
+        for (int i = 0; i < retValue.length; i++)
+            retValue[i] = heuristic.evaluateState(states.get(i), playerIds[i]);
+        return retValue;
+    }
+}
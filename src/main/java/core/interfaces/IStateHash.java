@@ -0,0 +1,17 @@
+package core.interfaces;
+
+import core.AbstractGameState;
+
+/**
+ * A 64-bit version of IStateKey, for use where a key is needed very frequently, such as for the transposition
+ * table in MCGS. Two states that should be treated as the same (from the perspective of the current player)
+ * must have the same hash; different states should have different hashes with very high probability.
+ * <p>
+ * Implementations will usually read a Zobrist hash maintained incrementally by the game state (see
+ * utilities.ZobristHashing), so that no String is built for each lookup. getKey() is still needed, but is then
+ * only used for debugging and display.
+ */
+public interface IStateHash extends IStateKey {
+
+    long getHash(AbstractGameState state);
+}
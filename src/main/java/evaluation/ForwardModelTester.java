@@ -23,6 +23,10 @@ public class ForwardModelTester {
      * <p>
      * This is a useful way of checking automatically if some copy() is not doing a full deep copy, as in this case
      * an action may (incorrectly) change the state of the historic game state from which it was copied.
+     * <p>
+     * If the forward model supportsUndo(), then at each decision we also apply and then undo each available action
+     * (and a random sequence of up to undoDepth actions) on a copy of the state, and check that the result is
+     * equal to the original (plus same hashcode).
      */
 
     List<Integer> hashCodes = new ArrayList<>();
@@ -30,6 +34,8 @@ public class ForwardModelTester {
     List<AbstractGameState> stateHistory = new ArrayList<>();
     List<AbstractAction> actionHistory = new ArrayList<>();
     int decision = 0;
+    int undoDepth;
+    UndoStack undoStack = new UndoStack();
 
     public static void main(String... args) {
         new ForwardModelTester(args);
@@ -41,6 +47,7 @@ public class ForwardModelTester {
         String gameToRun = Utils.getArg(args, "game", "TicTacToe");
         int nPlayers = Utils.getArg(args, "nPlayers", 2);
         boolean verbose = Arrays.asList(args).contains("verbose");
+        undoDepth = Utils.getArg(args, "undoDepth", 10);
         GameType gt = GameType.valueOf(gameToRun);
         long seed = Utils.getArg(args, "seed", System.currentTimeMillis());
         Game game = gt.createGameInstance(nPlayers, seed);
@@ -73,6 +80,8 @@ public class ForwardModelTester {
                     throw new AssertionError("Copy of game state should have same hashcode as original");
                 }
                 allFine = checkHistory();
+                if (game.getForwardModel().supportsUndo())
+                    checkUndo(game.getForwardModel(), game.getGameState(), rnd);
                 int player = game.getGameState().getCurrentPlayer();
                 int currentRound = game.getGameState().getRoundCounter();
                 AbstractAction action = game.oneAction();
@@ -85,6 +94,34 @@ public class ForwardModelTester {
         }
     }
 
+    private void checkUndo(AbstractForwardModel fm, AbstractGameState state, Random rnd) {
+        AbstractGameState original = state.copy();
+        AbstractGameState working = state.copy();
+        for (AbstractAction action : fm.computeAvailableActions(working)) {
+            fm.next(working, action.copy(), undoStack);
+            fm.undo(working, undoStack);
+            checkUndone(original, working, action.toString());
+        }
+        // then a random sequence of actions, undone in one go
+        for (int depth = 0; depth < undoDepth && working.isNotTerminal(); depth++) {
+            List<AbstractAction> actions = fm.computeAvailableActions(working);
+            fm.next(working, actions.get(rnd.nextInt(actions.size())).copy(), undoStack);
+        }
+        int depth = undoStack.size();
+        fm.undoAll(working, undoStack);
+        checkUndone(original, working, depth + " random actions");
+    }
+
+    private void checkUndone(AbstractGameState original, AbstractGameState undone, String undoneActions) {
+        if (!original.equals(undone) || original.hashCode() != undone.hashCode()) {
+            String error = String.format("Mismatch after undoing %s at decision %d - orig/undone hashcodes are %d/%d",
+                    undoneActions, decision, original.hashCode(), undone.hashCode());
+            System.out.println(error);
+            System.out.printf("\tOrig: %s%n\tUndone: %s%n", original, undone);
+            throw new AssertionError(error + "\n");
+        }
+    }
+
     private boolean checkHistory() {
         // Here we run through the history of game state to make sure that their hashcodes are unchanged
         for (int i = 0; i < stateHistory.size(); i++) {
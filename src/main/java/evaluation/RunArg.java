@@ -73,6 +73,11 @@ public enum RunArg {
             "\t from the same set of games.",
             "evaluation.listeners.MetricsGameListener",
             new Usage[]{Usage.RunGames, Usage.ParameterSearch}),
+    listenerQueue("(Optional) If greater than zero, each listener processes events on its own thread, fed by a queue\n" +
+            "\t of this many events, so that slow listeners do not hold up the games. The output is unchanged.\n" +
+            "\t Defaults to 0 (listeners are called directly from the game loop).",
+            0,
+            new Usage[]{Usage.RunGames}),
     matchups("The total number of matchups to run in a tournament if mode=random...\n" +
             "\t...or the number of matchups to run per combination of players if mode=exhaustive\n" +
             "\tfor NTBEA this will be used as a final tournament between the recommended agents from each run.",
@@ -106,6 +111,16 @@ public enum RunArg {
     output("(Optional) If specified, the summary results will be written to a file with this name.",
             "",
             new Usage[]{Usage.RunGames, Usage.ParameterSearch}),
+    parallelism("(Optional) The number of games to run concurrently in a tournament. Defaults to 1 (serial execution).\n" +
+            "\t Each concurrent game has its own Game, forward model and copies of the players. Results and listener output\n" +
+            "\t are merged in the same order as a serial run. They will match the serial run exactly for the same seed\n" +
+            "\t provided that agents do not carry random state between games (e.g. resetSeedEachGame=true) and\n" +
+            "\t do not rely on shared static state.\n" +
+            "\t In ParameterSearch this is the number of games run concurrently: NTBEA then evaluates this many settings\n" +
+            "\t on each step, runs the repeats concurrently, and runs the final evaluation games and tournament in parallel.\n" +
+            "\t The results are reproducible for the same seed and parallelism (but differ from a serial run).",
+            1,
+            new Usage[]{Usage.RunGames, Usage.ParameterSearch}),
     playerDirectory("The directory containing agent JSON files for the competing Players\n" +
             "\t If not specified, this defaults to very basic OSLA, RND, RHEA and MCTS players.",
             "",
@@ -117,6 +132,16 @@ public enum RunArg {
             "\t Exception: if no player directory is set, then maximum number of players per game will be 5.",
             "all",
             new Usage[]{Usage.RunGames}),
+    processes("(Optional) If greater than zero, the games of each tournament are played in this many separate worker JVMs\n" +
+            "\t on this machine, each with its own heap and static state. The agents, game parameters and listeners are\n" +
+            "\t recreated in each worker from playerDirectory, focusPlayer, gameParams and listener, so agents must come\n" +
+            "\t from these files. Seeds and results are the same as in a serial run (with the same caveats as parallelism).\n" +
+            "\t A game whose worker crashes is retried in a new worker. Listener output is written per worker, in a\n" +
+            "\t worker-N sub-directory. Files with the same header line from every worker (such as the per-game rows of\n" +
+            "\t the statistics loggers) are then concatenated, in worker order rather than game order.\n" +
+            "\t Overrides parallelism. Cannot be used with randomGameParams.",
+            0,
+            new Usage[]{Usage.RunGames}),
     randomGameParams("(Optional) If specified, parameters for the game will be randomized for each game, and printed before the run.",
             false,
             new Usage[]{Usage.RunGames}),
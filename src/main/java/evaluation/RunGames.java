@@ -3,6 +3,7 @@ package evaluation;
 import core.AbstractParameters;
 import core.AbstractPlayer;
 import core.interfaces.IGameRunner;
+import evaluation.listeners.AsyncGameListener;
 import evaluation.listeners.IGameListener;
 import evaluation.tournaments.AbstractTournament;
 import evaluation.tournaments.RandomRRTournament;
@@ -81,24 +82,13 @@ public class RunGames implements IGameRunner {
 
         // 2. Setup
 
-        LinkedList<AbstractPlayer> agents = new LinkedList<>();
-        if (!runGames.config.get(playerDirectory).equals("")) {
-            agents.addAll(PlayerFactory.createPlayers((String) runGames.config.get(playerDirectory)));
-        } else {
-            agents.add(new MCTSPlayer());
-//            agents.add(new BasicMCTSPlayer());
-            agents.add(new RandomPlayer());
-            agents.add(new RMHCPlayer());
-            agents.add(new OSLAPlayer());
-        }
+        LinkedList<AbstractPlayer> agents = createAgents((String) runGames.config.get(playerDirectory), (String) runGames.config.get(focusPlayer));
         runGames.agents = agents;
 
         runGames.tournamentMode = ((boolean) runGames.config.get(selfPlay)) ? SELF_PLAY : NO_SELF_PLAY;
         if (!runGames.config.get(focusPlayer).equals("")) {
             // if a focus Player is provided, then this override some other settings
             runGames.config.put(mode, "exhaustive"); // this is irrelevant in this case
-            AbstractPlayer fp = PlayerFactory.createPlayer((String) runGames.config.get(focusPlayer));
-            agents.add(0, fp);  // convention is that they go first in the list of agents
             runGames.tournamentMode = ONE_VS_ALL;
         }
 
@@ -114,6 +104,31 @@ public class RunGames implements IGameRunner {
     }
 
 
+    /**
+     * Creates the agents for a tournament, in the order used to identify them.
+     *
+     * @param playerDirectory - directory of agent JSON files, or empty for a default set of agents
+     * @param focusPlayer     - JSON file of the focus player, or empty if there is none
+     * @return - list of agents, with the focus player (if any) first
+     */
+    public static LinkedList<AbstractPlayer> createAgents(String playerDirectory, String focusPlayer) {
+        LinkedList<AbstractPlayer> agents = new LinkedList<>();
+        if (!playerDirectory.equals("")) {
+            agents.addAll(PlayerFactory.createPlayers(playerDirectory));
+        } else {
+            agents.add(new MCTSPlayer());
+//            agents.add(new BasicMCTSPlayer());
+            agents.add(new RandomPlayer());
+            agents.add(new RMHCPlayer());
+            agents.add(new OSLAPlayer());
+        }
+        if (!focusPlayer.equals("")) {
+            AbstractPlayer fp = PlayerFactory.createPlayer(focusPlayer);
+            agents.add(0, fp);  // convention is that they go first in the list of agents
+        }
+        return agents;
+    }
+
     @Override
     public void run() {
         // Now we loop over each game and player count combination
@@ -134,8 +149,6 @@ public class RunGames implements IGameRunner {
                 // Add listeners
                 //noinspection unchecked
                 for (String listenerClass : ((List<String>) config.get(listener))) {
-                    IGameListener gameTracker = IGameListener.createListener(listenerClass, (String) config.get(metrics));
-                    tournament.addListener(gameTracker);
                     String outputDir = (String) config.get(destDir);
                     List<String> directories = new ArrayList<>(Arrays.asList(outputDir.split(Pattern.quote(File.separator))));
                     if (gamesAndPlayerCounts.size() > 1)
@@ -144,6 +157,15 @@ public class RunGames implements IGameRunner {
                         directories.add(playersDir);
                     if ((boolean) config.get(addTimeStamp))
                         directories.add(timeDir);
+                    if ((int) config.get(processes) > 0) {
+                        // each worker process creates its own listener
+                        tournament.addWorkerListener(listenerClass, (String) config.get(metrics), directories.toArray(new String[0]));
+                        continue;
+                    }
+                    IGameListener gameTracker = IGameListener.createListener(listenerClass, (String) config.get(metrics));
+                    if ((int) config.get(listenerQueue) > 0)
+                        gameTracker = new AsyncGameListener(gameTracker, (int) config.get(listenerQueue));
+                    tournament.addListener(gameTracker);
                     gameTracker.setOutputDirectory(directories.toArray(new String[0]));
                 }
 
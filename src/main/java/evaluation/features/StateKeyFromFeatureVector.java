@@ -2,11 +2,12 @@ package evaluation.features;
 
 import core.AbstractGameState;
 import core.interfaces.IStateFeatureVector;
-import core.interfaces.IStateKey;
+import core.interfaces.IStateHash;
+import utilities.ZobristHashing;
 
 import java.util.Arrays;
 
-public class StateKeyFromFeatureVector  implements IStateKey {
+public class StateKeyFromFeatureVector  implements IStateHash {
 
     public final IStateFeatureVector featureVector;
 
@@ -19,4 +20,9 @@ public class StateKeyFromFeatureVector  implements IStateKey {
         double[] retValue = featureVector.featureVector(state, state.getCurrentPlayer());
         return String.format("%d-%s", state.getCurrentPlayer(), Arrays.toString(retValue));
     }
+
+    @Override
+    public long getHash(AbstractGameState state) {
+        return ZobristHashing.hash(featureVector.featureVector(state, state.getCurrentPlayer())) ^ ZobristHashing.playerKey(state.getCurrentPlayer());
+    }
 }
@@ -2,14 +2,15 @@ package evaluation.features;
 
 import core.AbstractGameState;
 import core.interfaces.IStateFeatureVector;
-import core.interfaces.IStateKey;
+import core.interfaces.IStateHash;
 import evaluation.optimisation.TunableParameters;
 import games.loveletter.features.LLStateFeaturesTunable;
+import utilities.ZobristHashing;
 
 import java.util.Arrays;
 import java.util.stream.IntStream;
 
-public abstract class TunableStateFeatures extends TunableParameters implements IStateFeatureVector, IStateKey {
+public abstract class TunableStateFeatures extends TunableParameters implements IStateFeatureVector, IStateHash {
 
     private final String[] allNames;
 
@@ -89,4 +90,9 @@ public abstract class TunableStateFeatures extends TunableParameters implements
         double[] retValue = featureVector(state, state.getCurrentPlayer());
         return String.format("%d-%s", state.getCurrentPlayer(), Arrays.toString(retValue));
     }
+
+    @Override
+    public long getHash(AbstractGameState state) {
+        return ZobristHashing.hash(featureVector(state, state.getCurrentPlayer())) ^ ZobristHashing.playerKey(state.getCurrentPlayer());
+    }
 }
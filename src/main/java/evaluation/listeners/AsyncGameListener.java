@@ -0,0 +1,217 @@
+package evaluation.listeners;
+
+import core.AbstractGameState;
+import core.Game;
+import evaluation.metrics.Event;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Wraps another listener so that its events are processed on a separate thread, and the game loop only pays for
+ * taking a snapshot of each event and adding it to a bounded queue.
+ * <p>
+ * The wrapped listener sees exactly the same events, in the same order, as it would if attached directly:
+ * there is a single consumer thread, and the game state (and optionally the Game statistics) are snapshot when each
+ * event is raised. If the queue is full the game thread waits for the listener to catch up. At GAME_OVER, and
+ * before any other call is passed on (setGame, report, reset...), the game thread waits until all pending events
+ * have been processed. GAME_OVER itself is passed on with the live Game, as nothing else happens meanwhile.
+ * <p>
+ * Any exception thrown by the wrapped listener is re-thrown on the game thread at the next call.
+ */
+public class AsyncGameListener implements IGameListener {
+
+    public enum Snapshot {
+        // The state and action are passed on as they are. Only for listeners that ignore them until GAME_OVER.
+        NONE,
+        // The state and action are copied when the event is raised
+        STATE,
+        // As STATE, and the listener's Game is also a snapshot of the game statistics (timers, action space sizes)
+        GAME
+    }
+
+    private static class Pending {
+        final Event event;
+        final Game game;
+
+        Pending(Event event, Game game) {
+            this.event = event;
+            this.game = game;
+        }
+    }
+
+    private final IGameListener delegate;
+    private final Snapshot snapshot;
+    private final ArrayBlockingQueue<Pending> queue;
+    private final Object lock = new Object();
+    private Thread consumer;
+    private Game game;
+    private long submitted, stalls;
+    private long processed;  // guarded by lock
+    private volatile RuntimeException failure;
+
+    public AsyncGameListener(IGameListener delegate, int queueSize) {
+        this(delegate, queueSize, Snapshot.GAME);
+    }
+
+    public AsyncGameListener(IGameListener delegate, int queueSize, Snapshot snapshot) {
+        if (queueSize < 1)
+            throw new IllegalArgumentException("Queue size must be positive: " + queueSize);
+        this.delegate = delegate;
+        this.snapshot = snapshot;
+        this.queue = new ArrayBlockingQueue<>(queueSize);
+    }
+
+    @Override
+    public void onEvent(Event event) {
+        rethrowFailure();
+        boolean gameOver = event.type == Event.GameEvent.GAME_OVER;
+        Pending pending;
+        if (gameOver || snapshot == Snapshot.NONE) {
+            pending = new Pending(event, game);
+        } else {
+            AbstractGameState state = event.state == null ? null : event.state.copy();
+            Event copy = Event.createEvent(event.type, state,
+                    event.action == null ? null : event.action.copy(), event.playerID);
+            Game view = game;
+            if (snapshot == Snapshot.GAME && game != null)
+                view = game.snapshot(state == null ? game.getGameState().copy() : state);
+            pending = new Pending(copy, view);
+        }
+        if (consumer == null)
+            startConsumer();
+        if (!queue.offer(pending)) {
+            stalls++;
+            try {
+                queue.put(pending);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for " + delegate.getClass().getSimpleName(), e);
+            }
+        }
+        submitted++;
+        if (gameOver)
+            flush();
+    }
+
+    private void startConsumer() {
+        consumer = new Thread(this::consume, "AsyncGameListener-" + delegate.getClass().getSimpleName());
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    private void consume() {
+        try {
+            while (true) {
+                Pending pending = queue.take();
+                try {
+                    if (snapshot == Snapshot.GAME && pending.game != delegate.getGame())
+                        delegate.setGame(pending.game);
+                    delegate.onEvent(pending.event);
+                } catch (RuntimeException e) {
+                    if (failure == null)
+                        failure = e;
+                }
+                synchronized (lock) {
+                    processed++;
+                    lock.notifyAll();
+                }
+            }
+        } catch (InterruptedException e) {
+            // stopped by report()
+        }
+    }
+
+    /**
+     * Waits until the wrapped listener has processed all events raised so far, and points it back at the live game.
+     */
+    public void flush() {
+        if (consumer != null) {
+            synchronized (lock) {
+                while (processed < submitted) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RuntimeException("Interrupted while waiting for " + delegate.getClass().getSimpleName(), e);
+                    }
+                }
+            }
+            if (snapshot == Snapshot.GAME && delegate.getGame() != game)
+                delegate.setGame(game);
+        }
+        rethrowFailure();
+    }
+
+    private void rethrowFailure() {
+        RuntimeException e = failure;
+        if (e != null) {
+            failure = null;
+            throw e;
+        }
+    }
+
+    /**
+     * @return the wrapped listener, once all pending events have been processed.
+     */
+    public IGameListener getDelegate() {
+        flush();
+        return delegate;
+    }
+
+    /**
+     * @return the number of events for which the game thread had to wait for space in the queue.
+     */
+    public long getStalls() {
+        return stalls;
+    }
+
+    /**
+     * Processes all pending events, stops the consumer thread and then reports. A consumer thread is started again
+     * if further events arrive.
+     */
+    @Override
+    public void report() {
+        flush();
+        if (consumer != null) {
+            consumer.interrupt();
+            try {
+                consumer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            consumer = null;
+        }
+        delegate.report();
+    }
+
+    @Override
+    public boolean setOutputDirectory(String... nestedDirectories) {
+        flush();
+        return delegate.setOutputDirectory(nestedDirectories);
+    }
+
+    @Override
+    public void setGame(Game game) {
+        flush();
+        this.game = game;
+        delegate.setGame(game);
+    }
+
+    @Override
+    public Game getGame() {
+        return game;
+    }
+
+    @Override
+    public void reset() {
+        flush();
+        delegate.reset();
+    }
+
+    @Override
+    public void init(Game game, int nPlayersPerGame, Set<String> playerNames) {
+        flush();
+        delegate.init(game, nPlayersPerGame, playerNames);
+    }
+}
@@ -3,6 +3,7 @@ package evaluation.listeners;
 import core.*;
 import core.actions.AbstractAction;
 import core.interfaces.IStatisticLogger;
+import evaluation.loggers.BinaryFeatureLogger;
 import evaluation.metrics.Event;
 
 import java.util.*;
@@ -64,24 +65,42 @@ public abstract class FeatureListener implements IGameListener {
         }).toArray();
         double[] ordinal = IntStream.range(0, totP).mapToDouble(state::getOrdinalPosition).toArray();
         double finalRound = state.getRoundCounter();
+        String[] names = names();
+        String[] columns = new String[names.length + 11];
+        columns[0] = "GameID";
+        columns[1] = "Player";
+        columns[2] = "Round";
+        columns[3] = "Turn";
+        columns[4] = "CurrentScore";
+        System.arraycopy(names, 0, columns, 5, names.length);
+        String[] finalColumns = {"PlayerCount", "TotalRounds", "ActionScore", "Win", "Ordinal", "FinalScore"};
+        System.arraycopy(finalColumns, 0, columns, names.length + 5, finalColumns.length);
+        double playerCount = getGame().getPlayers().size();
         for (StateFeatureListener.LocalDataWrapper record : currentData) {
+            double[] row = new double[columns.length];
+            row[0] = state.getGameID();
+            row[1] = record.player;
+            row[2] = record.gameRound;
+            row[3] = record.gameTurn;
+            row[4] = record.currentScore;
+            System.arraycopy(record.array, 0, row, 5, names.length);
+            int i = names.length + 5;
+            row[i++] = playerCount;
+            row[i++] = finalRound;
+            row[i++] = record.actionScore;
+            row[i++] = winLoss[record.player];
+            row[i++] = ordinal[record.player];
+            row[i] = finalScores[record.player];
+            if (logger instanceof BinaryFeatureLogger) {
+                // this avoids the boxing of every value in a Map
+                ((BinaryFeatureLogger) logger).record(columns, row);
+                continue;
+            }
             // we use a LinkedHashMap so that the order of the keys is preserved, and hence the
             // data is written to file in a sensible order for human viewing
             Map<String, Double> data = new LinkedHashMap<>();
-            data.put("GameID", (double) state.getGameID());
-            data.put("Player", (double) record.player);
-            data.put("Round", (double) record.gameRound);
-            data.put("Turn", (double) record.gameTurn);
-            data.put("CurrentScore", record.currentScore);
-            for (int i = 0; i < record.array.length; i++) {
-                data.put(names()[i], record.array[i]);
-            }
-            data.put("PlayerCount", (double) getGame().getPlayers().size());
-            data.put("TotalRounds", finalRound);
-            data.put("ActionScore", record.actionScore);
-            data.put("Win", winLoss[record.player]);
-            data.put("Ordinal", ordinal[record.player]);
-            data.put("FinalScore", finalScores[record.player]);
+            for (int c = 0; c < columns.length; c++)
+                data.put(columns[c], row[c]);
             logger.record(data);
         }
         logger.processDataAndNotFinish();
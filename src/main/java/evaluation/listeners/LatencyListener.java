@@ -0,0 +1,136 @@
+package evaluation.listeners;
+
+import core.Game;
+import core.interfaces.IGamePhase;
+import evaluation.loggers.FileStatsLogger;
+import evaluation.metrics.Event;
+import evaluation.metrics.LatencyRecorder;
+import utilities.LatencyHistogram;
+import utilities.Utils;
+
+import java.util.*;
+
+/**
+ * Collects the distribution of the time taken by each stage of the game loop (observation copy, computing the
+ * available actions, agent decision and forward model next) over all games, from the LatencyRecorder kept by each Game.
+ * <p>
+ * On report() this writes a table of percentiles (in microseconds) to file, with one row per stage for all actions,
+ * one per stage and game phase, and one per stage, game phase, action class and player. The rows for all actions
+ * are also printed to the console.
+ * <p>
+ * Recording is done by the Game itself, once this listener has been attached (games without one record nothing),
+ * and this listener only merges the histograms at the end of each game, so it adds almost nothing to the cost of a
+ * tournament.
+ */
+public class LatencyListener implements IGameListener {
+
+    public static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final LatencyRecorder latencies = new LatencyRecorder();
+    private final String fileName;
+    private String folder = "";
+    private Game game;
+
+    public LatencyListener() {
+        this("Latencies.txt");
+    }
+
+    public LatencyListener(String fileName) {
+        this.fileName = fileName;
+    }
+
+    @Override
+    public void onEvent(Event event) {
+        if (event.type == Event.GameEvent.GAME_OVER)
+            latencies.add(game.getLatencies());
+    }
+
+    @Override
+    public boolean setOutputDirectory(String... nestedDirectories) {
+        folder = Utils.createDirectory(nestedDirectories);
+        return true;
+    }
+
+    @Override
+    public void report() {
+        List<Map<String, Object>> rows = getRows();
+        if (rows.isEmpty())
+            return;
+        FileStatsLogger logger = new FileStatsLogger(folder + fileName, "\t", false);
+        logger.doubleFormat = "%.1f";
+        rows.forEach(logger::record);
+        logger.processDataAndFinish();
+
+        System.out.printf("%-15s %10s %12s%s%n", "Stage", "Count", "Mean (us)",
+                Arrays.stream(PERCENTILES).mapToObj(p -> String.format(" %12s", "p" + p)).reduce("", String::concat));
+        for (Map<String, Object> row : rows) {
+            if (row.get("GamePhase").equals("All")) {
+                System.out.printf("%-15s %10d %12.1f", row.get("Stage"), (Long) row.get("Count"), (Double) row.get("Mean (us)"));
+                for (double p : PERCENTILES)
+                    System.out.printf(" %12.1f", (Double) row.get("p" + p + " (us)"));
+                System.out.println();
+            }
+        }
+    }
+
+    /**
+     * @return one map per row of the percentile table, from column name to value
+     */
+    public List<Map<String, Object>> getRows() {
+        List<Map<String, Object>> retValue = new ArrayList<>();
+        List<LatencyRecorder.Entry> entries = latencies.getEntries();
+        entries.sort(Comparator.comparing((LatencyRecorder.Entry e) -> String.valueOf(e.gamePhase))
+                .thenComparing(e -> e.actionClass.getSimpleName()));
+        for (LatencyRecorder.Stage stage : LatencyRecorder.Stage.values()) {
+            LatencyHistogram all = new LatencyHistogram();
+            Map<IGamePhase, LatencyHistogram> byPhase = new LinkedHashMap<>();
+            List<Map<String, Object>> detail = new ArrayList<>();
+            for (LatencyRecorder.Entry entry : entries) {
+                for (int p = 0; p < entry.getNPlayers(); p++) {
+                    LatencyHistogram h = entry.get(stage, p);
+                    if (h == null) continue;
+                    all.add(h);
+                    byPhase.computeIfAbsent(entry.gamePhase, k -> new LatencyHistogram()).add(h);
+                    detail.add(row(stage, String.valueOf(entry.gamePhase), entry.actionClass.getSimpleName(), String.valueOf(p), h));
+                }
+            }
+            if (all.getCount() == 0) continue;
+            retValue.add(row(stage, "All", "All", "All", all));
+            for (Map.Entry<IGamePhase, LatencyHistogram> e : byPhase.entrySet())
+                retValue.add(row(stage, String.valueOf(e.getKey()), "All", "All", e.getValue()));
+            retValue.addAll(detail);
+        }
+        return retValue;
+    }
+
+    private Map<String, Object> row(LatencyRecorder.Stage stage, String gamePhase, String actionType, String player, LatencyHistogram h) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("Stage", stage.name());
+        row.put("GamePhase", gamePhase);
+        row.put("ActionType", actionType);
+        row.put("Player", player);
+        row.put("Count", h.getCount());
+        row.put("Mean (us)", h.getMean() / 1e3);
+        for (double p : PERCENTILES)
+            row.put("p" + p + " (us)", h.getValueAtPercentile(p) / 1e3);
+        row.put("Max (us)", h.getMax() / 1e3);
+        return row;
+    }
+
+    @Override
+    public void reset() {
+        latencies.reset();
+    }
+
+    @Override
+    public void setGame(Game game) {
+        this.game = game;
+        if (game != null)
+            game.setRecordLatencies(true);
+    }
+
+    @Override
+    public Game getGame() {
+        return game;
+    }
+}
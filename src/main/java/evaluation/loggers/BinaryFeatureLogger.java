@@ -0,0 +1,208 @@
+package evaluation.loggers;
+
+import core.interfaces.IStatisticLogger;
+import evaluation.summarisers.TAGStatSummary;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * A compact binary alternative to FileStatsLogger for numeric data, such as the feature vectors recorded by
+ * FeatureListener. Each row is written as a fixed number of floats (or doubles) through a buffered FileChannel,
+ * so there is no String formatting on the way out and no parsing on the way back in. Use BinaryFeatureReader to
+ * read the file.
+ * <p>
+ * File format (big-endian):
+ * - int magic number (MAGIC), byte version, byte bytes per value (4 for float, 8 for double)
+ * - int number of columns, then for each column an int length and the UTF-8 bytes of its name
+ * - then the rows, each of which is one value for each column
+ * <p>
+ * The columns are fixed by the first record. Missing values are recorded as NaN.
+ */
+public class BinaryFeatureLogger implements IStatisticLogger {
+
+    public static final int MAGIC = 0x54414746; // "TAGF"
+    public static final byte VERSION = 1;
+    static final int BUFFER_SIZE = 1 << 20;
+
+    private final String fileName;
+    private final boolean append;
+    private final boolean doublePrecision;
+    private FileChannel channel;
+    private ByteBuffer buffer;
+    private String[] columns;
+
+    /**
+     * @param fileName        The full location of the file to write results to
+     * @param append          If true, then rows are added to the end of an existing file (which must have the same columns)
+     * @param doublePrecision If true, then values are written as doubles rather than floats. Floats are exact for
+     *                        integer values (such as GameID) up to 2^24, and are half the size.
+     */
+    public BinaryFeatureLogger(String fileName, boolean append, boolean doublePrecision) {
+        this.fileName = fileName;
+        this.append = append;
+        this.doublePrecision = doublePrecision;
+    }
+
+    public BinaryFeatureLogger(String fileName) {
+        this(fileName, true, false);
+    }
+
+    private void initialise(String[] columns) {
+        this.columns = columns;
+        File file = new File(fileName);
+        boolean existingData = append && file.exists() && file.length() > 0;
+        try {
+            if (existingData) {
+                try (BinaryFeatureReader reader = new BinaryFeatureReader(fileName)) {
+                    if (!Arrays.equals(reader.columns(), columns))
+                        throw new AssertionError("Columns do not match those already in " + fileName);
+                    if (reader.doublePrecision() != doublePrecision)
+                        throw new AssertionError("Precision does not match that already used in " + fileName);
+                }
+                channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            } else {
+                channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+            }
+            buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            if (!existingData)
+                writeHeader();
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new AssertionError("Problem opening file " + fileName + " : " + e.getMessage());
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        buffer.putInt(MAGIC);
+        buffer.put(VERSION);
+        buffer.put((byte) (doublePrecision ? 8 : 4));
+        buffer.putInt(columns.length);
+        for (String column : columns) {
+            byte[] name = column.getBytes(StandardCharsets.UTF_8);
+            ensureSpace(4 + name.length);
+            buffer.putInt(name.length);
+            buffer.put(name);
+        }
+    }
+
+    private void ensureSpace(int bytes) throws IOException {
+        if (buffer.remaining() < bytes)
+            writeBuffer();
+    }
+
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Records one row without the overhead of a Map. The columns are only checked against those of the first row
+     * by number (and not by name).
+     *
+     * @param columns The names of the columns
+     * @param row     The value for each column
+     */
+    public void record(String[] columns, double[] row) {
+        if (this.columns == null)
+            initialise(columns.clone());
+        if (row.length != this.columns.length)
+            throw new AssertionError(String.format("Expected %d values but got %d", this.columns.length, row.length));
+        try {
+            ensureSpace(row.length * (doublePrecision ? 8 : 4));
+            if (doublePrecision) {
+                for (double v : row)
+                    buffer.putDouble(v);
+            } else {
+                for (double v : row)
+                    buffer.putFloat((float) v);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new AssertionError("Problem writing to file " + fileName + " : " + e.getMessage());
+        }
+    }
+
+    /**
+     * The keys of the first record define the columns. Values must be numeric (or boolean); data linked to
+     * previously unseen keys is ignored.
+     *
+     * @param data A map of name -> value pairs
+     */
+    @Override
+    public void record(Map<String, ?> data) {
+        if (columns == null)
+            initialise(data.keySet().toArray(new String[0]));
+        double[] row = new double[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            Object datum = data.get(columns[i]);
+            if (datum == null)
+                row[i] = Double.NaN;
+            else if (datum instanceof Number)
+                row[i] = ((Number) datum).doubleValue();
+            else if (datum instanceof Boolean)
+                row[i] = (Boolean) datum ? 1.0 : 0.0;
+            else
+                throw new AssertionError("Non-numeric data for " + columns[i] + " cannot be written to " + fileName);
+        }
+        record(columns, row);
+    }
+
+    @Override
+    public void record(String key, Object datum) {
+        // as for FileStatsLogger, only the Map version of record() is supported
+    }
+
+    @Override
+    public void processDataAndFinish() {
+        if (channel == null) return;
+        try {
+            writeBuffer();
+            channel.close();
+            channel = null;
+            columns = null;
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new AssertionError("Problem closing file " + fileName + " : " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void processDataAndNotFinish() {
+        if (channel == null) return;
+        try {
+            writeBuffer();
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new AssertionError("Problem flushing file " + fileName + " : " + e.getMessage());
+        }
+    }
+
+    /**
+     * This always returns an empty Map
+     *
+     * @return A summary of the data
+     */
+    @Override
+    public Map<String, TAGStatSummary> summary() {
+        return new HashMap<>();
+    }
+
+    @Override
+    public BinaryFeatureLogger emptyCopy(String id) {
+        String[] fileParts = fileName.split(Pattern.quote("."));
+        if (fileParts.length != 2)
+            throw new AssertionError("Filename does not conform to expected <stem>.<type>");
+        String newFileName = fileParts[0] + "_" + id + "." + fileParts[1];
+        return new BinaryFeatureLogger(newFileName, append, doublePrecision);
+    }
+}
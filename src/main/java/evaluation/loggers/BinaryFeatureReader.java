@@ -0,0 +1,153 @@
+package evaluation.loggers;
+
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static evaluation.loggers.BinaryFeatureLogger.MAGIC;
+
+/**
+ * Streams back the rows of a file written by BinaryFeatureLogger. The file is memory-mapped a window at a time
+ * (so files larger than 2GB are fine), and each call to next() decodes one row into an array provided by the caller.
+ * <pre>
+ *     try (BinaryFeatureReader reader = new BinaryFeatureReader(file)) {
+ *         double[] row = new double[reader.columns().length];
+ *         while (reader.next(row)) { ... }
+ *     }
+ * </pre>
+ */
+public class BinaryFeatureReader implements AutoCloseable {
+
+    // The maximum size of each mapped window
+    static final long WINDOW_SIZE = 1L << 30;
+
+    private final String fileName;
+    private final FileChannel channel;
+    private final String[] columns;
+    private final int valueBytes;
+    private final long dataStart;
+    private final long rows;
+    private final long rowsPerWindow;
+    private long nextRow;
+    private long windowEnd;
+    private MappedByteBuffer window;
+
+    public BinaryFeatureReader(String fileName) throws IOException {
+        this.fileName = fileName;
+        channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+        try {
+            // the header is small, so we read it through a stream rather than mapping it
+            DataInputStream header = new DataInputStream(new FileInputStream(fileName));
+            try {
+                if (header.readInt() != MAGIC)
+                    throw new IOException(fileName + " is not a binary feature file");
+                byte version = header.readByte();
+                if (version != BinaryFeatureLogger.VERSION)
+                    throw new IOException("Unsupported version " + version + " in " + fileName);
+                valueBytes = header.readByte();
+                columns = new String[header.readInt()];
+                long headerSize = 10;
+                for (int i = 0; i < columns.length; i++) {
+                    byte[] name = new byte[header.readInt()];
+                    header.readFully(name);
+                    columns[i] = new String(name, StandardCharsets.UTF_8);
+                    headerSize += 4 + name.length;
+                }
+                dataStart = headerSize;
+            } finally {
+                header.close();
+            }
+            long rowBytes = (long) valueBytes * columns.length;
+            rows = rowBytes == 0 ? 0 : (channel.size() - dataStart) / rowBytes;
+            rowsPerWindow = Math.max(1, WINDOW_SIZE / Math.max(1, rowBytes));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return true if the file starts with the BinaryFeatureLogger magic number (so we can also accept text files)
+     */
+    public static boolean isBinaryFeatureFile(String fileName) {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(fileName))) {
+            return in.readInt() == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public String[] columns() {
+        return columns.clone();
+    }
+
+    public boolean doublePrecision() {
+        return valueBytes == 8;
+    }
+
+    /**
+     * @return The total number of (complete) rows in the file
+     */
+    public long rows() {
+        return rows;
+    }
+
+    /**
+     * Reads the next row into the array provided
+     *
+     * @param row An array with at least one entry per column
+     * @return false if there are no more rows (in which case row is unchanged)
+     */
+    public boolean next(double[] row) throws IOException {
+        if (nextRow >= rows)
+            return false;
+        if (window == null || nextRow >= windowEnd) {
+            long windowRows = Math.min(rowsPerWindow, rows - nextRow);
+            window = channel.map(FileChannel.MapMode.READ_ONLY,
+                    dataStart + nextRow * valueBytes * columns.length, windowRows * valueBytes * columns.length);
+            windowEnd = nextRow + windowRows;
+        }
+        ByteBuffer buffer = window;
+        if (valueBytes == 8) {
+            for (int i = 0; i < columns.length; i++)
+                row[i] = buffer.getDouble();
+        } else {
+            for (int i = 0; i < columns.length; i++)
+                row[i] = buffer.getFloat();
+        }
+        nextRow++;
+        return true;
+    }
+
+    /**
+     * @return All of the (remaining) rows in the file
+     */
+    public List<double[]> readAll() throws IOException {
+        List<double[]> retValue = new ArrayList<>((int) Math.min(Integer.MAX_VALUE - 8, rows - nextRow));
+        double[] row = new double[columns.length];
+        while (next(row)) {
+            retValue.add(row);
+            row = new double[columns.length];
+        }
+        return retValue;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BinaryFeatureReader(%s, %d columns, %d rows)", fileName, columns.length, rows);
+    }
+}
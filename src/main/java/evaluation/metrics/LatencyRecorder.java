@@ -0,0 +1,127 @@
+package evaluation.metrics;
+
+import core.interfaces.IGamePhase;
+import utilities.LatencyHistogram;
+
+import java.util.*;
+
+/**
+ * Records the time taken by each stage of the game loop (see Game.oneAction()) into a LatencyHistogram for each
+ * combination of stage, game phase, action class and player.
+ * Once a combination has been seen, recording to it again does not allocate, even after a reset().
+ */
+public class LatencyRecorder {
+
+    public enum Stage {
+        Copy, ComputeActions, Agent, Next
+    }
+
+    /**
+     * One set of histograms, for one combination of game phase and action class. Histograms are created as needed.
+     */
+    public static class Entry {
+        public final IGamePhase gamePhase;
+        public final Class<?> actionClass;
+        private LatencyHistogram[][] histograms = new LatencyHistogram[Stage.values().length][0];
+
+        Entry(IGamePhase gamePhase, Class<?> actionClass) {
+            this.gamePhase = gamePhase;
+            this.actionClass = actionClass;
+        }
+
+        LatencyHistogram get(Stage stage, int player, boolean create) {
+            LatencyHistogram[] byPlayer = histograms[stage.ordinal()];
+            if (player >= byPlayer.length) {
+                if (!create) return null;
+                byPlayer = histograms[stage.ordinal()] = Arrays.copyOf(byPlayer, player + 1);
+            }
+            if (byPlayer[player] == null && create)
+                byPlayer[player] = new LatencyHistogram();
+            return byPlayer[player];
+        }
+
+        /**
+         * @return the histogram for this stage and player, or null if nothing has been recorded for them
+         */
+        public LatencyHistogram get(Stage stage, int player) {
+            LatencyHistogram retValue = get(stage, player, false);
+            return retValue == null || retValue.getCount() == 0 ? null : retValue;
+        }
+
+        public int getNPlayers() {
+            int retValue = 0;
+            for (LatencyHistogram[] byPlayer : histograms)
+                retValue = Math.max(retValue, byPlayer.length);
+            return retValue;
+        }
+    }
+
+    private final Map<IGamePhase, Map<Class<?>, Entry>> entries = new HashMap<>();
+
+    private Entry entry(IGamePhase gamePhase, Class<?> actionClass) {
+        // get() before put() rather than computeIfAbsent(), as a capturing lambda would allocate on every call
+        Map<Class<?>, Entry> byClass = entries.get(gamePhase);
+        if (byClass == null) {
+            byClass = new HashMap<>();
+            entries.put(gamePhase, byClass);
+        }
+        Entry retValue = byClass.get(actionClass);
+        if (retValue == null) {
+            retValue = new Entry(gamePhase, actionClass);
+            byClass.put(actionClass, retValue);
+        }
+        return retValue;
+    }
+
+    /**
+     * Records one duration.
+     *
+     * @param stage       - the stage of the game loop
+     * @param gamePhase   - the game phase the action was taken in
+     * @param actionClass - the class of the action taken
+     * @param player      - the player who took the action
+     * @param nanos       - the duration in nanoseconds
+     */
+    public void record(Stage stage, IGamePhase gamePhase, Class<?> actionClass, int player, long nanos) {
+        entry(gamePhase, actionClass).get(stage, player, true).record(nanos);
+    }
+
+    /**
+     * Adds everything recorded in other to this recorder.
+     */
+    public void add(LatencyRecorder other) {
+        for (Entry otherEntry : other.getEntries()) {
+            Entry entry = entry(otherEntry.gamePhase, otherEntry.actionClass);
+            for (Stage stage : Stage.values()) {
+                for (int p = 0; p < otherEntry.getNPlayers(); p++) {
+                    LatencyHistogram h = otherEntry.get(stage, p);
+                    if (h != null)
+                        entry.get(stage, p, true).add(h);
+                }
+            }
+        }
+    }
+
+    public List<Entry> getEntries() {
+        List<Entry> retValue = new ArrayList<>();
+        for (Map<Class<?>, Entry> byClass : entries.values())
+            retValue.addAll(byClass.values());
+        return retValue;
+    }
+
+    /**
+     * Empties all the histograms, keeping them (and the entries that hold them) to record into again.
+     */
+    public void reset() {
+        for (Map<Class<?>, Entry> byClass : entries.values()) {
+            for (Entry entry : byClass.values()) {
+                for (LatencyHistogram[] byPlayer : entry.histograms) {
+                    for (LatencyHistogram h : byPlayer) {
+                        if (h != null)
+                            h.reset();
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package evaluation.optimisation;
+
+import evodef.BanditLandscapeModel;
+import evodef.MultiSolutionEvaluator;
+import evodef.SearchSpace;
+import evodef.SearchSpaceUtil;
+import evodef.SolutionEvaluator;
+import ntbea.NTupleBanditEA;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * A version of the NTBEA search that evaluates a batch of settings on each step, so that the games for these can
+ * be run concurrently (see GameEvaluator.evaluate(List) and GameMultiPlayerEvaluator.evaluateAll()).
+ * <p>
+ * On each step the batch is the current point, plus the best (batchSize - 1) distinct neighbours of it
+ * (by the UCB of the landscape model). All of these are evaluated and added to the model, before we move to
+ * the best neighbour of the current point as in the standard algorithm. With a batchSize of 1 this is the
+ * standard NTBEA algorithm.
+ * <p>
+ * Unlike NTupleBanditEA, all random choices (starting point, mutations and tie-breaks) use a seeded
+ * random number generator, so that a run is reproducible for a given seed and batchSize.
+ */
+public class BatchNTupleBanditEA extends NTupleBanditEA {
+
+    final int batchSize;
+    final int neighbourhoodSize;
+    final Random rnd;
+    final int playerCount;
+
+    /**
+     * @param playerCount - 0 for a single-player search (with a SolutionEvaluator); else the number of players
+     *                    (each with their own point) in a multi-player search (with a MultiSolutionEvaluator)
+     */
+    public BatchNTupleBanditEA(BanditLandscapeModel model, double kExplore, int neighbourhoodSize, int batchSize,
+                               int playerCount, long seed) {
+        super(model, kExplore, neighbourhoodSize);
+        this.batchSize = batchSize;
+        this.neighbourhoodSize = neighbourhoodSize;
+        this.playerCount = playerCount;
+        this.rnd = new Random(seed);
+    }
+
+    @Override
+    public double[] runTrial(SolutionEvaluator evaluator, int nEvals) {
+        SearchSpace searchSpace = evaluator.searchSpace();
+        int[] point = randomPoint(searchSpace);
+        int evals = 0;
+        while (evals < nEvals) {
+            List<int[]> batch = candidates(searchSpace, point, Math.min(batchSize, nEvals - evals));
+            double[] results;
+            if (evaluator instanceof GameEvaluator) {
+                results = ((GameEvaluator) evaluator).evaluate(batch);
+            } else {
+                results = batch.stream().mapToDouble(evaluator::evaluate).toArray();
+            }
+            for (int i = 0; i < batch.size(); i++)
+                banditLandscapeModel.addPoint(batch.get(i), results[i]);
+            evals += batch.size();
+            point = candidates(searchSpace, point, 2).get(1);
+        }
+        return banditLandscapeModel.getBestOfSampled();
+    }
+
+    @Override
+    public double[] runTrial(MultiSolutionEvaluator evaluator, int nEvals) {
+        if (playerCount < 1)
+            throw new AssertionError("playerCount must be set for a multi-player search");
+        SearchSpace searchSpace = evaluator.searchSpace();
+        List<int[]> points = new ArrayList<>();
+        for (int p = 0; p < playerCount; p++)
+            points.add(randomPoint(searchSpace));
+        int evals = 0;
+        while (evals < nEvals) {
+            int gamesInBatch = Math.min(batchSize, nEvals - evals);
+            // each player has their own candidates, and game g uses candidate g for each player
+            List<List<int[]>> playerCandidates = new ArrayList<>();
+            for (int[] point : points)
+                playerCandidates.add(candidates(searchSpace, point, gamesInBatch));
+            List<List<int[]>> games = new ArrayList<>();
+            for (int g = 0; g < gamesInBatch; g++) {
+                List<int[]> settings = new ArrayList<>();
+                for (int p = 0; p < playerCount; p++)
+                    settings.add(playerCandidates.get(p).get(g));
+                games.add(settings);
+            }
+            List<double[]> results;
+            if (evaluator instanceof GameMultiPlayerEvaluator) {
+                results = ((GameMultiPlayerEvaluator) evaluator).evaluateAll(games);
+            } else {
+                results = new ArrayList<>();
+                for (List<int[]> settings : games)
+                    results.add(evaluator.evaluate(settings));
+            }
+            for (int g = 0; g < gamesInBatch; g++) {
+                for (int p = 0; p < playerCount; p++)
+                    banditLandscapeModel.addPoint(games.get(g).get(p), results.get(g)[p]);
+            }
+            evals += gamesInBatch;
+            for (int p = 0; p < playerCount; p++)
+                points.set(p, candidates(searchSpace, points.get(p), 2).get(1));
+        }
+        return banditLandscapeModel.getBestOfSampled();
+    }
+
+    /**
+     * @return the point, followed by its best (n - 1) neighbours (by UCB). If there are not enough distinct
+     * neighbours, then the best ones are repeated.
+     */
+    private List<int[]> candidates(SearchSpace searchSpace, int[] point, int n) {
+        List<int[]> retValue = new ArrayList<>();
+        retValue.add(point);
+        if (n == 1)
+            return retValue;
+        // The same neighbourhood size as NTupleBanditEA
+        int nNeighbours = (int) Math.max(5, Math.min(neighbourhoodSize, SearchSpaceUtil.size(searchSpace) / 4));
+        Map<List<Integer>, int[]> neighbours = new LinkedHashMap<>();
+        for (int i = 0; i < nNeighbours; i++) {
+            int[] neighbour = mutate(searchSpace, point);
+            if (!Arrays.equals(neighbour, point))
+                neighbours.putIfAbsent(asList(neighbour), neighbour);
+        }
+        if (neighbours.isEmpty()) {
+            // a search space with a single point
+            while (retValue.size() < n)
+                retValue.add(point);
+            return retValue;
+        }
+        Map<int[], Double> ucb = new HashMap<>();
+        for (int[] neighbour : neighbours.values()) {
+            ucb.put(neighbour, banditLandscapeModel.getMeanEstimate(neighbour) +
+                    kExplore * banditLandscapeModel.getExplorationEstimate(neighbour) +
+                    rnd.nextDouble() * 1e-6); // to break ties randomly
+        }
+        List<int[]> ordered = new ArrayList<>(neighbours.values());
+        ordered.sort(Comparator.comparingDouble(x -> -ucb.get(x)));
+        for (int i = 0; retValue.size() < n; i++)
+            retValue.add(ordered.get(i % ordered.size()));
+        return retValue;
+    }
+
+    private static List<Integer> asList(int[] point) {
+        List<Integer> retValue = new ArrayList<>(point.length);
+        for (int v : point)
+            retValue.add(v);
+        return retValue;
+    }
+
+    private int[] randomPoint(SearchSpace searchSpace) {
+        int[] retValue = new int[searchSpace.nDims()];
+        for (int i = 0; i < retValue.length; i++)
+            retValue[i] = rnd.nextInt(searchSpace.nValues(i));
+        return retValue;
+    }
+
+    /**
+     * As for DefaultMutator: each dimension is changed with probability 1/nDims, and at least one is always changed
+     */
+    private int[] mutate(SearchSpace searchSpace, int[] point) {
+        int[] retValue = point.clone();
+        int nDims = searchSpace.nDims();
+        boolean mutated = false;
+        for (int i = 0; i < nDims; i++) {
+            if (searchSpace.nValues(i) > 1 && rnd.nextDouble() < 1.0 / nDims) {
+                retValue[i] = differentValue(searchSpace.nValues(i), point[i]);
+                mutated = true;
+            }
+        }
+        if (!mutated) {
+            int[] mutable = IntStream.range(0, nDims).filter(i -> searchSpace.nValues(i) > 1).toArray();
+            if (mutable.length > 0) {
+                int i = mutable[rnd.nextInt(mutable.length)];
+                retValue[i] = differentValue(searchSpace.nValues(i), point[i]);
+            }
+        }
+        return retValue;
+    }
+
+    private int differentValue(int nValues, int current) {
+        int retValue = rnd.nextInt(nValues - 1);
+        return retValue >= current ? retValue + 1 : retValue;
+    }
+}
@@ -12,6 +12,10 @@ import evodef.SolutionEvaluator;
 import games.GameType;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.DoubleSupplier;
 import java.util.stream.IntStream;
 
 import static java.util.stream.Collectors.toList;
@@ -37,6 +41,7 @@ public class GameEvaluator implements SolutionEvaluator {
     IStateHeuristic stateHeuristic;
     IGameHeuristic gameHeuristic;
     List<IGameListener> listeners = new ArrayList<>();
+    ExecutorService executor;
 
     /**
      * GameEvaluator
@@ -94,6 +99,47 @@ public class GameEvaluator implements SolutionEvaluator {
      */
     @Override
     public double evaluate(int[] settings) {
+        return prepareGame(settings).getAsDouble();
+    }
+
+    /**
+     * Evaluates a batch of settings, with one game for each. If an executor has been set (see setExecutor()) then
+     * the games are run concurrently on it, otherwise one after the other.
+     * All the random choices (opponents, seat and game seed) are made here in order before any game is run, so the
+     * results for a given seed are the same whatever the level of parallelism.
+     *
+     * @param settings the settings to evaluate (the same settings can be included several times)
+     * @return the game score for each of the settings, in the same order
+     */
+    public double[] evaluate(List<int[]> settings) {
+        List<DoubleSupplier> games = settings.stream().map(this::prepareGame).collect(toList());
+        double[] retValue = new double[games.size()];
+        if (executor == null) {
+            for (int i = 0; i < games.size(); i++)
+                retValue[i] = games.get(i).getAsDouble();
+            return retValue;
+        }
+        List<Future<Double>> results = games.stream()
+                .map(g -> executor.submit(g::getAsDouble))
+                .collect(toList());
+        for (int i = 0; i < results.size(); i++) {
+            try {
+                retValue[i] = results.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while evaluating settings", e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Error evaluating " + Arrays.toString(settings.get(i)), e.getCause());
+            }
+        }
+        return retValue;
+    }
+
+    /**
+     * Sets up a game for the settings, with new instances of all the players, and returns the function that runs it
+     * and returns the score. The game can then be run on any thread.
+     */
+    private DoubleSupplier prepareGame(int[] settings) {
         if (debug)
             System.out.printf("Starting evaluation %d of %s at %tT%n", nEvals,
                     Arrays.toString(settings), System.currentTimeMillis());
@@ -101,7 +147,9 @@ public class GameEvaluator implements SolutionEvaluator {
         boolean tuningPlayer = configuredThing instanceof AbstractPlayer;
         boolean tuningGame = configuredThing instanceof Game;
 
-        Game newGame = tuningGame ? (Game) configuredThing : game.createGameInstance(nPlayers, gameParams);
+        // each game gets its own parameters, as they are frozen while it runs and the games may run concurrently
+        Game newGame = tuningGame ? (Game) configuredThing :
+                game.createGameInstance(nPlayers, gameParams == null ? null : gameParams.unfrozenCopy());
         // we assign one player to each team (the default for a game is each player being their own team of 1)
         int nTeams = newGame.getGameState().getNTeams();
         List<AbstractPlayer> allPlayers = new ArrayList<>(nTeams);
@@ -127,23 +175,29 @@ public class GameEvaluator implements SolutionEvaluator {
         }
 
         // always reset the random seed for each new game
-        newGame.reset(allPlayers, rnd.nextLong());
+        long seed = rnd.nextLong();
+        nEvals++;
 
-        newGame.run();
-        int playerOnTeam = -1;
-        for (int p = 0; p < newGame.getGameState().getNPlayers(); p++) {
-            if (newGame.getGameState().getTeam(p) == playerIndex) {
-                playerOnTeam = p;
+        return () -> {
+            newGame.reset(allPlayers, seed);
+            newGame.run();
+            int playerOnTeam = -1;
+            for (int p = 0; p < newGame.getGameState().getNPlayers(); p++) {
+                if (newGame.getGameState().getTeam(p) == playerIndex) {
+                    playerOnTeam = p;
+                }
             }
-        }
-        if (playerOnTeam == -1)
-            throw new AssertionError("No Player found on team " + playerIndex);
-        double retValue = tuningGame ? gameHeuristic.evaluateGame(newGame) : stateHeuristic.evaluateState(newGame.getGameState(), playerOnTeam);
-
-    //    System.out.println("GameEvaluator: " + retValue);
+            if (playerOnTeam == -1)
+                throw new AssertionError("No Player found on team " + playerIndex);
+            return tuningGame ? gameHeuristic.evaluateGame(newGame) : stateHeuristic.evaluateState(newGame.getGameState(), playerOnTeam);
+        };
+    }
 
-        nEvals++;
-        return retValue;
+    /**
+     * @param executor used to run the games in evaluate(List) concurrently; or null to run them on the calling thread
+     */
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
     }
 
     public void addListener(IGameListener listener) {
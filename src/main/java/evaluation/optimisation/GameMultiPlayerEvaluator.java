@@ -9,6 +9,12 @@ import evodef.SearchSpace;
 import games.GameType;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import static java.util.stream.Collectors.toList;
 
 /**
  * Game Evaluator is used for NTBEA optimisation of parameters. It implements the SolutionEvaluator interface.
@@ -24,6 +30,7 @@ public class GameMultiPlayerEvaluator implements MultiSolutionEvaluator {
     int nEvals = 0;
     Random rnd;
     IStateHeuristic stateHeuristic;
+    ExecutorService executor;
 
 
     /**
@@ -61,6 +68,40 @@ public class GameMultiPlayerEvaluator implements MultiSolutionEvaluator {
      */
     @Override
     public double[] evaluate(List<int[]> settings) {
+        return prepareGame(settings).get();
+    }
+
+    /**
+     * Evaluates a batch of games, each with one setting per player. If an executor has been set (see setExecutor())
+     * then the games are run concurrently on it, otherwise one after the other.
+     * The players and game seeds are all set up here in order before any game is run, so the results for a given
+     * seed are the same whatever the level of parallelism.
+     *
+     * @param settings the settings for each game (a List with one int[] for each player)
+     * @return the results of each game (one value per player), in the same order
+     */
+    public List<double[]> evaluateAll(List<List<int[]>> settings) {
+        List<Supplier<double[]>> games = settings.stream().map(this::prepareGame).collect(toList());
+        if (executor == null)
+            return games.stream().map(Supplier::get).collect(toList());
+        List<Future<double[]>> results = games.stream()
+                .map(g -> executor.submit(g::get))
+                .collect(toList());
+        List<double[]> retValue = new ArrayList<>();
+        for (Future<double[]> result : results) {
+            try {
+                retValue.add(result.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while evaluating settings", e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Error evaluating settings", e.getCause());
+            }
+        }
+        return retValue;
+    }
+
+    private Supplier<double[]> prepareGame(List<int[]> settings) {
    //     System.out.printf("Starting evaluation %d of %n\t%s at %tT%n", nEvals,
      //           settings.stream().map(Arrays::toString).collect(joining(",\n\t")), System.currentTimeMillis());
 
@@ -73,20 +114,31 @@ public class GameMultiPlayerEvaluator implements MultiSolutionEvaluator {
             allPlayers.add(tunedPlayer);
         }
 
-        newGame.reset(allPlayers, rnd.nextLong());
+        long seed = rnd.nextLong();
+        nEvals++;
 
-        newGame.run();
-        AbstractGameState finalState = newGame.getGameState();
+        return () -> {
+            newGame.reset(allPlayers, seed);
 
-        nEvals++;
-        double[] retValue = new double[nPlayers];
-        for (int i = 0; i < nPlayers; i++) {
-            int team = finalState.getTeam(i);
-            retValue[team] = stateHeuristic.evaluateState(finalState, i);
-        }
+            newGame.run();
+            AbstractGameState finalState = newGame.getGameState();
 
-     //   System.out.printf("Result : %s%n", Arrays.toString(retValue));
-        return retValue;
+            double[] retValue = new double[nPlayers];
+            for (int i = 0; i < nPlayers; i++) {
+                int team = finalState.getTeam(i);
+                retValue[team] = stateHeuristic.evaluateState(finalState, i);
+            }
+
+            //   System.out.printf("Result : %s%n", Arrays.toString(retValue));
+            return retValue;
+        };
+    }
+
+    /**
+     * @param executor used to run the games in evaluateAll() concurrently; or null to run them on the calling thread
+     */
+    public void setExecutor(ExecutorService executor) {
+        this.executor = executor;
     }
 
     /**
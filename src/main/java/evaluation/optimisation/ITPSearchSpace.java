@@ -1,5 +1,6 @@
 package evaluation.optimisation;
 
+import core.AbstractParameters;
 import core.interfaces.ITunableParameters;
 import evodef.AgentSearchSpace;
 import org.json.simple.JSONArray;
@@ -186,7 +187,8 @@ public class ITPSearchSpace extends AgentSearchSpace<Object> {
         return getSearchKeys().indexOf(parameter);
     }
 
-    public Object getAgent(int[] settings) {
+    public synchronized Object getAgent(int[] settings) {
+        // synchronized, as we update the shared itp (NTBEA may set up several evaluations concurrently)
         // we first need to update itp with the specified parameters, and then instantiate
         for (int i = 0; i < settings.length; i++) {
             String pName = tunedIndexToParameterName.get(i);
@@ -194,6 +196,10 @@ public class ITPSearchSpace extends AgentSearchSpace<Object> {
             //   Object value = itp.getPossibleValues(pName).get(settings[i]);
             itp.setParameterValue(pName, value);
         }
+        // and then instantiate from a copy, so that what we create is not changed by the next call (nor, for a game,
+        // is itp frozen while it runs)
+        if (itp instanceof AbstractParameters)
+            return ((ITunableParameters) ((AbstractParameters) itp).unfrozenCopy()).instantiate();
         return itp.instantiate();
     }
 
@@ -4,8 +4,10 @@ import evodef.SearchSpace;
 import games.GameType;
 import ntbea.MultiNTupleBanditEA;
 import ntbea.NTupleSystem;
+import utilities.Pair;
 
 import java.util.*;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.IntStream;
 
 import static java.util.stream.Collectors.toMap;
@@ -18,7 +20,9 @@ public class MultiNTBEA extends NTBEA {
         super(parameters, game, nPlayers);
         params.evalGames = 0;  // these are not used in the multi-player case (yet)
 
-        searchFramework = new MultiNTupleBanditEA(landscapeModel, params.kExplore, params.neighbourhoodSize, nPlayers);
+        searchFramework = params.parallelism > 1
+                ? new BatchNTupleBanditEA(landscapeModel, params.kExplore, params.neighbourhoodSize, params.parallelism, nPlayers, params.seed)
+                : new MultiNTupleBanditEA(landscapeModel, params.kExplore, params.neighbourhoodSize, nPlayers);
 
         // Initialise the GameEvaluator that will do all the heavy lifting
         multiPlayerEvaluator = new GameMultiPlayerEvaluator(
@@ -31,9 +35,29 @@ public class MultiNTBEA extends NTBEA {
     }
 
     @Override
-    protected void runIteration() {
-        super.runIteration();
-        printDiversityResults(landscapeModel, params.kExplore);
+    protected void recordResult(NTBEA search, Pair<Pair<Double, Double>, int[]> resultToReport) {
+        super.recordResult(search, resultToReport);
+        printDiversityResults(search.landscapeModel, params.kExplore);
+    }
+
+    @Override
+    protected void setExecutor(ExecutorService executor) {
+        super.setExecutor(executor);
+        multiPlayerEvaluator.setExecutor(executor);
+    }
+
+    @Override
+    protected NTBEA createWorker(long seed) {
+        MultiNTBEA retValue = new MultiNTBEA(params, game, nPlayers);
+        retValue.initialiseWorker(this, seed);
+        return retValue;
+    }
+
+    @Override
+    protected void initialiseWorker(NTBEA parent, long seed) {
+        super.initialiseWorker(parent, seed);
+        multiPlayerEvaluator.rnd = new Random(seed);
+        searchFramework = new BatchNTupleBanditEA(landscapeModel, params.kExplore, params.neighbourhoodSize, params.parallelism, nPlayers, seed);
     }
 
     @Override
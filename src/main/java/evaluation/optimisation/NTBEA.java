@@ -25,6 +25,10 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.IntToDoubleFunction;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -50,6 +54,7 @@ public class NTBEA {
     int currentIteration = 0;
     IStateHeuristic stateHeuristic;
     IGameHeuristic gameHeuristic;
+    ExecutorService gameExecutor;
 
     public NTBEA(NTBEAParameters parameters, GameType game, int nPlayers) {
         // Now initialise the other bits and pieces needed for the NTBEA package
@@ -58,7 +63,10 @@ public class NTBEA {
         landscapeModel.setUse3Tuple(params.useThreeTuples);
         landscapeModel.addTuples();
 
-        searchFramework = new NTupleBanditEA(landscapeModel, params.kExplore, params.neighbourhoodSize);
+        // With parallelism we evaluate a batch of settings on each step, so that the games can be run concurrently
+        searchFramework = params.parallelism > 1
+                ? new BatchNTupleBanditEA(landscapeModel, params.kExplore, params.neighbourhoodSize, params.parallelism, 0, params.seed)
+                : new NTupleBanditEA(landscapeModel, params.kExplore, params.neighbourhoodSize);
         this.game = game;
         this.nPlayers = nPlayers;
         // Set up opponents
@@ -128,9 +136,29 @@ public class NTBEA {
      */
     public Pair<Object, int[]> run() {
 
-        for (currentIteration = 0; currentIteration < params.repeats; currentIteration++) {
-            runIteration();
+        if (params.parallelism > 1) {
+            gameExecutor = Executors.newFixedThreadPool(params.parallelism);
+            setExecutor(gameExecutor);
         }
+        try {
+            if (params.parallelism > 1 && params.repeats > 1) {
+                runIterationsConcurrently();
+            } else {
+                for (currentIteration = 0; currentIteration < params.repeats; currentIteration++) {
+                    runIteration();
+                }
+            }
+            return runFinalTournament();
+        } finally {
+            if (gameExecutor != null) {
+                gameExecutor.shutdown();
+                gameExecutor = null;
+                setExecutor(null);
+            }
+        }
+    }
+
+    private Pair<Object, int[]> runFinalTournament() {
 
         // After all runs are complete, if tournamentGames are specified, then we allow all the
         // winners from each iteration to play in a tournament and pick the winner of this tournament
@@ -167,6 +195,7 @@ public class NTBEA {
                 config.put(matchups, gamesPerMatchup);
                 config.put(byTeam, false);
                 config.put(RunArg.distinctRandomSeeds, 0);
+                config.put(RunArg.parallelism, params.parallelism);
                 RoundRobinTournament tournament = new RoundRobinTournament(players, game, nPlayers, params.gameParams,
                         NO_SELF_PLAY, config);
                 tournament.verbose = false;
@@ -222,14 +251,71 @@ public class NTBEA {
         searchFramework.runTrial(evaluator, params.iterationsPerRun);
     }
 
+    protected void setExecutor(ExecutorService executor) {
+        evaluator.setExecutor(executor);
+    }
+
+    /**
+     * Runs all the repeats at the same time. Each has its own NTBEA instance (with its own landscape model and
+     * evaluator), seeded from our seed, and all of them share the same pool of threads to run games. The results
+     * are then recorded in order, so that the output is the same for a given seed and parallelism.
+     */
+    private void runIterationsConcurrently() {
+        Random seedGenerator = new Random(params.seed);
+        List<NTBEA> workers = new ArrayList<>();
+        for (int i = 0; i < params.repeats; i++)
+            workers.add(createWorker(seedGenerator.nextLong()));
+
+        ExecutorService repeatExecutor = Executors.newFixedThreadPool(Math.min(params.repeats, params.parallelism));
+        try {
+            List<Future<Pair<Pair<Double, Double>, int[]>>> results = new ArrayList<>();
+            for (NTBEA worker : workers)
+                results.add(repeatExecutor.submit(worker::searchOnce));
+            for (currentIteration = 0; currentIteration < params.repeats; currentIteration++) {
+                try {
+                    recordResult(workers.get(currentIteration), results.get(currentIteration).get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while running NTBEA", e);
+                } catch (ExecutionException e) {
+                    throw new RuntimeException("Error in NTBEA run " + currentIteration, e.getCause());
+                }
+            }
+        } finally {
+            repeatExecutor.shutdown();
+        }
+    }
+
+    /**
+     * @return a new NTBEA to run one repeat concurrently with others, using the given seed and our game threads
+     */
+    protected NTBEA createWorker(long seed) {
+        NTBEA retValue = new NTBEA(params, game, nPlayers);
+        retValue.initialiseWorker(this, seed);
+        return retValue;
+    }
+
+    protected void initialiseWorker(NTBEA parent, long seed) {
+        evaluator.opponents = parent.evaluator.opponents;
+        evaluator.rnd = new Random(seed);
+        searchFramework = new BatchNTupleBanditEA(landscapeModel, params.kExplore, params.neighbourhoodSize, params.parallelism, 0, seed);
+        setExecutor(parent.gameExecutor);
+    }
+
     protected void runIteration() {
+        recordResult(this, searchOnce());
+    }
+
+    /**
+     * Runs the NTBEA trials from scratch, and then evaluates the best settings found
+     *
+     * @return the score of the best settings (with std error), and the settings
+     */
+    protected Pair<Pair<Double, Double>, int[]> searchOnce() {
         landscapeModel.reset();
 
         runTrials();
 
-        if (params.verbose)
-            logResults();
-
         int[] thisWinnerSettings = Arrays.stream(landscapeModel.getBestOfSampled())
                 .mapToInt(d -> (int) d)
                 .toArray();
@@ -239,9 +325,21 @@ public class NTBEA {
                 ? new Pair<>(landscapeModel.getMeanEstimate(landscapeModel.getBestOfSampled()), 0.0)
                 : evaluateWinner(thisWinnerSettings);
 
+        return new Pair<>(scoreOfBestAgent, thisWinnerSettings);
+    }
+
+    /**
+     * Records the result of one run of searchOnce()
+     *
+     * @param search the NTBEA that ran the search (this one, unless the repeats were run concurrently)
+     */
+    protected void recordResult(NTBEA search, Pair<Pair<Double, Double>, int[]> resultToReport) {
+        if (params.verbose)
+            search.logResults();
+
+        int[] thisWinnerSettings = resultToReport.b;
         winnersPerRun.add(params.searchSpace.getAgent(thisWinnerSettings));
         winnerSettings.add(thisWinnerSettings);
-        Pair<Pair<Double, Double>, int[]> resultToReport = new Pair<>(scoreOfBestAgent, thisWinnerSettings);
         if (params.verbose)
             printDetailsOfRun(resultToReport);
         logDetailsOfRun(resultToReport);
@@ -258,8 +356,8 @@ public class NTBEA {
 
     protected Pair<Double, Double> evaluateWinner(int[] winnerSettings) {
 
-        double[] results = IntStream.range(0, params.evalGames)
-                .mapToDouble(answer -> evaluator.evaluate(winnerSettings)).toArray();
+        // the games are run concurrently if we have an executor
+        double[] results = evaluator.evaluate(Collections.nCopies(params.evalGames, winnerSettings));
 
         double avg = Arrays.stream(results).average().orElse(0.0);
         double stdErr = Math.sqrt(Arrays.stream(results)
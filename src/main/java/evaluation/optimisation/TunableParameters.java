@@ -148,8 +148,8 @@ public abstract class TunableParameters extends AbstractParameters implements IT
      * @return The copied Parameters
      */
     @Override
-    public TunableParameters copy() {
-        AbstractParameters retValue = super.copy();  // this calls ._copy()
+    public TunableParameters unfrozenCopy() {
+        AbstractParameters retValue = super.unfrozenCopy();  // this calls ._copy()
         TunableParameters tunable = (TunableParameters) retValue;
         tunable.parameterNames = new ArrayList<>(parameterNames);
         tunable.possibleValues = new HashMap<>(possibleValues);
@@ -160,7 +160,7 @@ public abstract class TunableParameters extends AbstractParameters implements IT
             if (value instanceof TunableParameters) {
                 // then we have to recurse
                 TunableParameters subParams = (TunableParameters) value;
-                TunableParameters subParamsCopy = subParams.copy();
+                TunableParameters subParamsCopy = subParams.unfrozenCopy();
                 tunable.setParameterValue(name, subParamsCopy);
             } else {
                 tunable.setParameterValue(name, value);
@@ -170,6 +170,23 @@ public abstract class TunableParameters extends AbstractParameters implements IT
         return tunable;
     }
 
+    @Override
+    public TunableParameters copy() {
+        return (TunableParameters) super.copy();
+    }
+
+    /**
+     * Parameters nested as the value of a parameter are frozen (and unfrozen) with this object.
+     */
+    @Override
+    protected void setFrozen(boolean frozen) {
+        super.setFrozen(frozen);
+        for (Object value : currentValues.values()) {
+            if (value instanceof TunableParameters)
+                ((TunableParameters) value).setFrozen(frozen);
+        }
+    }
+
     /**
      * Use this to add a non-Tunable Parameter (i.e. one with a single value that does not change)
      * While this is not tuned, it means that a value for it can be defined in a JSON input file
@@ -197,6 +214,7 @@ public abstract class TunableParameters extends AbstractParameters implements IT
      * @param <T>          The type of the parameter
      */
     public <T> void addTunableParameter(String name, T defaultValue, List<T> allSettings) {
+        checkNotFrozen();
         if (!parameterNames.contains(name)) parameterNames.add(name);
         defaultValues.put(name, defaultValue);
         parameterTypes.put(name, defaultValue.getClass());
@@ -205,6 +223,7 @@ public abstract class TunableParameters extends AbstractParameters implements IT
     }
 
     public <T> void addTunableParameter(String name, Class<T> classType) {
+        checkNotFrozen();
         if (!parameterNames.contains(name)) parameterNames.add(name);
         defaultValues.put(name, null);
         parameterTypes.put(name, classType);
@@ -251,6 +270,7 @@ public abstract class TunableParameters extends AbstractParameters implements IT
      */
     @Override
     public void setParameterValue(String parameterName, Object value) {
+        checkNotFrozen();
         if (parameterName.split(Pattern.quote(".")).length > 1) {
             // in this case we pass on to the subParam (as well as updating here)
             String[] split = parameterName.split(Pattern.quote("."));
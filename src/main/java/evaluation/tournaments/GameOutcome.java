@@ -0,0 +1,33 @@
+package evaluation.tournaments;
+
+import core.AbstractGameState;
+
+import java.io.Serializable;
+
+import static core.CoreConstants.GameResult;
+
+/**
+ * The final result of one tournament game: everything the tournament needs from the final game state to update its
+ * statistics. This is small and serializable, so that it can be sent back from a TournamentWorker process.
+ */
+class GameOutcome implements Serializable {
+
+    final GameResult[] results;
+    final int[] ordinalPositions;
+    final int[] teams;
+
+    GameOutcome(AbstractGameState finalState) {
+        int nPlayers = finalState.getNPlayers();
+        results = finalState.getPlayerResults().clone();
+        ordinalPositions = new int[nPlayers];
+        teams = new int[nPlayers];
+        for (int p = 0; p < nPlayers; p++) {
+            ordinalPositions[p] = finalState.getOrdinalPosition(p);
+            teams[p] = finalState.getTeam(p);
+        }
+    }
+
+    int getNPlayers() {
+        return teams.length;
+    }
+}
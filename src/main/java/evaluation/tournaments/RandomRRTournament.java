@@ -32,6 +32,13 @@ public class RandomRRTournament extends RoundRobinTournament {
         idStream = new PermutationCycler(agents.size(), seedRnd, playersPerGame);
     }
 
+    @Override
+    public void setRandomSeed(Number randomSeed) {
+        super.setRandomSeed(randomSeed);
+        // the matchups are drawn from seedRnd, so we need to pick up the new generator
+        idStream = new PermutationCycler(agents.size(), seedRnd, nPlayers);
+    }
+
     /**
      * Instead of recursively constructing all possible combinations of players for the game (as in the super-class)
      * here we create random matchups. This is designed for large numbers of players, for which an exhaustive
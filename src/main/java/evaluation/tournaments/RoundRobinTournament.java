@@ -2,9 +2,12 @@ package evaluation.tournaments;
 
 import core.AbstractParameters;
 import core.AbstractPlayer;
+import core.Game;
 import evaluation.RunArg;
+import evaluation.listeners.AsyncGameListener;
 import evaluation.listeners.IGameListener;
 import evaluation.listeners.TournamentMetricsGameListener;
+import evaluation.metrics.Event;
 import evaluation.tournaments.AbstractTournament.TournamentMode;
 import games.GameType;
 import utilities.LinearRegression;
@@ -13,6 +16,7 @@ import utilities.Pair;
 import java.io.File;
 import java.io.FileWriter;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -47,6 +51,21 @@ public class RoundRobinTournament extends AbstractTournament {
     String seedFile;
     Random seedRnd = new Random(randomSeed);
 
+    // Number of games to run concurrently. If 1, then all games are run in sequence on the single shared Game
+    protected int parallelism;
+    private ExecutorService executor;
+    // Games that have been submitted, in the order a serial run would play them. Each one provides the code
+    // to merge its results once finished, which is always executed on the tournament thread in this order
+    private final Deque<Future<Runnable>> pendingGames = new ArrayDeque<>();
+    // Game instances (each with their own forward model) not currently in use by a submitted game
+    private final Deque<Game> idleGames = new ArrayDeque<>();
+    // Number of worker JVMs to play the games in. If 0, games are played in this JVM
+    protected int processes;
+    private WorkerPool workers;
+    // What the worker processes need to recreate the agents, game parameters and listeners
+    private final String playerDirectory, focusPlayer, gameParamsFile;
+    private final List<TournamentWorker.ListenerSpec> workerListeners = new ArrayList<>();
+
 
     /**
      * Create a round robin tournament, which plays all agents against all others.
@@ -85,6 +104,11 @@ public class RoundRobinTournament extends AbstractTournament {
         this.rankPerPlayerSquared = new double[agents.size()];
         this.gamesPerPlayer = new int[agents.size()];
         this.byTeam = (boolean) config.getOrDefault(RunArg.byTeam, false);
+        this.parallelism = Math.max(1, (int) config.getOrDefault(RunArg.parallelism, 1));
+        this.processes = Math.max(0, (int) config.getOrDefault(RunArg.processes, 0));
+        this.playerDirectory = (String) config.getOrDefault(RunArg.playerDirectory, "");
+        this.focusPlayer = (String) config.getOrDefault(RunArg.focusPlayer, "");
+        this.gameParamsFile = (String) config.getOrDefault(RunArg.gameParams, "");
         this.tournamentSeeds = (int) config.getOrDefault(RunArg.distinctRandomSeeds, 0);
         this.seedFile = (String) config.getOrDefault(RunArg.seedFile, "");
         if (!seedFile.isEmpty()) {
@@ -117,21 +141,44 @@ public class RoundRobinTournament extends AbstractTournament {
         }
 
         LinkedList<Integer> matchUp = new LinkedList<>();
-        // add outer loop if we have tournamentSeeds enabled; if not this will just run once
-        List<Integer> allSeeds = new ArrayList<>(gameSeeds);
-        for (int iter = 0; iter < Math.max(1, tournamentSeeds); iter++) {
-            if (tournamentSeeds > 0) {
-                // use the same seed for each game in the tournament
-                // allSeeds contains the ones loaded from file - if empty then use a random one
-                int nextRnd =  allSeeds.isEmpty() ? seedRnd.nextInt() : allSeeds.get(iter);
-                gameSeeds = IntStream.range(0, gamesPerMatchUp).mapToObj(i -> nextRnd).collect(toList());
-            } else {
-                // use a seed per matchup
-                gameSeeds = IntStream.range(0, gamesPerMatchUp).mapToObj(i -> seedRnd.nextInt()).collect(toList());
+        if (processes > 0) {
+            if (randomGameParams)
+                throw new IllegalArgumentException("randomGameParams cannot be used with worker processes");
+            if (!listeners.isEmpty())
+                throw new IllegalArgumentException("Listeners cannot be attached directly when games are played in worker processes: use addWorkerListener()");
+            TournamentWorker.Setup setup = new TournamentWorker.Setup(game.getGameType(), nPlayers,
+                    playerDirectory, focusPlayer, gameParamsFile, workerListeners);
+            workers = new WorkerPool(processes, setup, agents.stream().map(AbstractPlayer::toString).collect(toList()));
+        } else if (parallelism > 1)
+            executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            // add outer loop if we have tournamentSeeds enabled; if not this will just run once
+            List<Integer> allSeeds = new ArrayList<>(gameSeeds);
+            for (int iter = 0; iter < Math.max(1, tournamentSeeds); iter++) {
+                if (tournamentSeeds > 0) {
+                    // use the same seed for each game in the tournament
+                    // allSeeds contains the ones loaded from file - if empty then use a random one
+                    int nextRnd = allSeeds.isEmpty() ? seedRnd.nextInt() : allSeeds.get(iter);
+                    gameSeeds = IntStream.range(0, gamesPerMatchUp).mapToObj(i -> nextRnd).collect(toList());
+                } else {
+                    // use a seed per matchup
+                    gameSeeds = IntStream.range(0, gamesPerMatchUp).mapToObj(i -> seedRnd.nextInt()).collect(toList());
+                }
+                createAndRunMatchUp(matchUp);
+            }
+            reportResults();
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+                executor = null;
             }
-            createAndRunMatchUp(matchUp);
+            if (workers != null) {
+                workers.close();
+                workers = null;
+            }
+            pendingGames.clear();
+            idleGames.clear();
         }
-        reportResults();
 
         for (IGameListener listener : listeners)
             listener.report();
@@ -242,25 +289,41 @@ public class RoundRobinTournament extends AbstractTournament {
         for (int agentID : agentIDsInThisGame)
             matchUpPlayers.add(this.agents.get(agentID));
 
-        if (verbose) {
-            StringBuffer sb = new StringBuffer();
-            sb.append("[");
-            for (int agentID : agentIDsInThisGame)
-                sb.append(this.agents.get(agentID).toString()).append(",");
-            sb.setCharAt(sb.length() - 1, ']');
-            System.out.println(sb);
-        }
+        // Console output and matchup initialisation for listeners are queued with the games, so that they
+        // occur in the same order as a serial run (the matchUp list passed in may be changed by the caller)
+        List<Integer> matchUpIDs = new ArrayList<>(agentIDsInThisGame);
+        runInOrder(() -> {
+            if (verbose) {
+                StringBuffer sb = new StringBuffer();
+                sb.append("[");
+                for (int agentID : matchUpIDs)
+                    sb.append(this.agents.get(agentID).toString()).append(",");
+                sb.setCharAt(sb.length() - 1, ']');
+                System.out.println(sb);
+            }
 
-        // TODO : Not sure this is the ideal place for this...ask Raluca
-        Set<String> agentNames = agents.stream().map(AbstractPlayer::toString).collect(Collectors.toSet());
-        for (IGameListener listener : listeners) {
-            if (listener instanceof TournamentMetricsGameListener) {
-                ((TournamentMetricsGameListener) listener).tournamentInit(game, nPlayers, agentNames, new HashSet<>(matchUpPlayers));
+            // TODO : Not sure this is the ideal place for this...ask Raluca
+            Set<String> agentNames = agents.stream().map(AbstractPlayer::toString).collect(Collectors.toSet());
+            for (IGameListener listener : listeners) {
+                if (listener instanceof AsyncGameListener)
+                    listener = ((AsyncGameListener) listener).getDelegate();
+                if (listener instanceof TournamentMetricsGameListener) {
+                    ((TournamentMetricsGameListener) listener).tournamentInit(game, nPlayers, agentNames, new HashSet<>(matchUpPlayers));
+                }
             }
-        }
+        });
 
         // Run the game N = gamesPerMatchUp times with these players
         for (int i = 0; i < nGames; i++) {
+            if (workers != null) {
+                TournamentWorker.WorkUnit unit = new TournamentWorker.WorkUnit(matchUpIDs, seeds.get(i));
+                pendingGames.add(workers.submit(unit).thenApply(outcome -> () -> recordGameResults(outcome, matchUpIDs)));
+                continue;
+            }
+            if (executor != null) {
+                submitGame(matchUpIDs, matchUpPlayers, seeds.get(i));
+                continue;
+            }
             // if tournamentSeeds > 0, then we are running this many tournaments, each with a different random seed fixed for the whole tournament
             // so we override the standard random seeds
             game.reset(matchUpPlayers, seeds.get(i));
@@ -272,61 +335,156 @@ public class RoundRobinTournament extends AbstractTournament {
             }
 
             game.run();  // Always running tournaments without visuals
-            GameResult[] results = game.getGameState().getPlayerResults();
-
-            int numDraws = 0;
-            for (int j = 0; j < matchUpPlayers.size(); j++) {
-                nGamesPlayed[agentIDsInThisGame.get(j)] += 1;
-                for (int k = 0; k < matchUpPlayers.size(); k++) {
-                    if (k != j) {
-                        nGamesPlayedPerOpponent[agentIDsInThisGame.get(j)][agentIDsInThisGame.get(k)] += 1;
-                    }
+            recordGameResults(game, agentIDsInThisGame);
+        }
+    }
+
+    /**
+     * Sets up one game on a Game instance not in use by any other game, and submits it to the executor.
+     * All the set-up (game ID, player initialisation, randomised parameters) is done here on the tournament
+     * thread so that it happens in exactly the same order as in a serial run; only Game.run() is done by the worker.
+     * Any listener events are buffered (with a copy of the state at the time) and replayed to the tournament
+     * listeners once the game is merged.
+     */
+    private void submitGame(List<Integer> agentIDsInThisGame, List<AbstractPlayer> matchUpPlayers, long seed) {
+        Game workerGame = idleGames.isEmpty() ? createWorkerGame() : idleGames.pop();
+        workerGame.clearListeners();
+        List<AbstractPlayer> workerPlayers = new ArrayList<>(matchUpPlayers.size());
+        for (AbstractPlayer player : matchUpPlayers) {
+            // listeners key their data on the player name, which is not always preserved by copy()
+            AbstractPlayer workerPlayer = player.copy();
+            workerPlayer.setName(player.toString());
+            workerPlayers.add(workerPlayer);
+        }
+        workerGame.reset(workerPlayers, seed);
+        if (randomGameParams) {
+            workerGame.getGameState().getGameParameters().randomize();
+            System.out.println("Game parameters: " + workerGame.getGameState().getGameParameters());
+        }
+        EventBuffer buffer = listeners.isEmpty() ? null : new EventBuffer();
+        if (buffer != null)
+            workerGame.addListener(buffer);
+
+        pendingGames.add(executor.submit(() -> {
+            workerGame.run();
+            return () -> {
+                if (buffer != null)
+                    buffer.replay(listeners, workerGame, game);
+                recordGameResults(workerGame, agentIDsInThisGame);
+                idleGames.push(workerGame);
+            };
+        }));
+        // we cap the number of finished games waiting to be merged, as each may hold a buffer of events
+        while (pendingGames.size() > 2 * parallelism)
+            mergeNextGame();
+    }
+
+    private Game createWorkerGame() {
+        Game workerGame = game.getGameType().createGameInstance(nPlayers, game.getGameState().getGameParameters().unfrozenCopy());
+        workerGame.setCoreParameters(game.getCoreParameters());
+        return workerGame;
+    }
+
+    /**
+     * Runs the provided code once all previously submitted games have been merged (immediately if running serially)
+     */
+    private void runInOrder(Runnable task) {
+        if (executor == null && workers == null)
+            task.run();
+        else
+            pendingGames.add(CompletableFuture.completedFuture(task));
+    }
+
+    private void mergeNextGame() {
+        try {
+            pendingGames.poll().get().run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for tournament game", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error running tournament game: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Blocks until all submitted games have finished, and their results have been merged
+     */
+    protected void waitForPendingGames() {
+        while (!pendingGames.isEmpty())
+            mergeNextGame();
+    }
+
+    /**
+     * Updates the tournament statistics with the results of a finished game.
+     *
+     * @param finishedGame       - the game that has just been played
+     * @param agentIDsInThisGame - IDs of agents participating in this game.
+     */
+    private void recordGameResults(Game finishedGame, List<Integer> agentIDsInThisGame) {
+        recordGameResults(new GameOutcome(finishedGame.getGameState()), agentIDsInThisGame);
+    }
+
+    /**
+     * Updates the tournament statistics with the results of a finished game.
+     *
+     * @param outcome            - the final result of the game
+     * @param agentIDsInThisGame - IDs of agents participating in this game.
+     */
+    private void recordGameResults(GameOutcome outcome, List<Integer> agentIDsInThisGame) {
+        GameResult[] results = outcome.results;
+
+        int numDraws = 0;
+        for (int j = 0; j < agentIDsInThisGame.size(); j++) {
+            nGamesPlayed[agentIDsInThisGame.get(j)] += 1;
+            for (int k = 0; k < agentIDsInThisGame.size(); k++) {
+                if (k != j) {
+                    nGamesPlayedPerOpponent[agentIDsInThisGame.get(j)][agentIDsInThisGame.get(k)] += 1;
                 }
+            }
 
-                // now we need to be careful if we have a team game, as the agents are indexed by Team, not player
-                if (byTeam) {
-                    for (int player = 0; player < game.getGameState().getNPlayers(); player++) {
-                        if (game.getGameState().getTeam(player) == j) {
-                            numDraws += updatePoints(results, agentIDsInThisGame, agentIDsInThisGame.get(j), player);
-                            break; // we stop after one player on the team to avoid double counting
-                        }
+            // now we need to be careful if we have a team game, as the agents are indexed by Team, not player
+            if (byTeam) {
+                for (int player = 0; player < outcome.getNPlayers(); player++) {
+                    if (outcome.teams[player] == j) {
+                        numDraws += updatePoints(outcome, agentIDsInThisGame, agentIDsInThisGame.get(j), player);
+                        break; // we stop after one player on the team to avoid double counting
                     }
-                } else {
-                    numDraws += updatePoints(results, agentIDsInThisGame, agentIDsInThisGame.get(j), j);
                 }
+            } else {
+                numDraws += updatePoints(outcome, agentIDsInThisGame, agentIDsInThisGame.get(j), j);
             }
+        }
 
-            if (numDraws > 0) {
-                double pointsPerDraw = 1.0 / numDraws;
-                for (int j = 0; j < matchUpPlayers.size(); j++) {
-                    if (results[j] == GameResult.DRAW_GAME) pointsPerPlayer[agentIDsInThisGame.get(j)] += pointsPerDraw;
-                    if (results[j] == GameResult.DRAW_GAME)
-                        pointsPerPlayerSquared[agentIDsInThisGame.get(j)] += pointsPerDraw * pointsPerDraw;
-                }
+        if (numDraws > 0) {
+            double pointsPerDraw = 1.0 / numDraws;
+            for (int j = 0; j < agentIDsInThisGame.size(); j++) {
+                if (results[j] == GameResult.DRAW_GAME) pointsPerPlayer[agentIDsInThisGame.get(j)] += pointsPerDraw;
+                if (results[j] == GameResult.DRAW_GAME)
+                    pointsPerPlayerSquared[agentIDsInThisGame.get(j)] += pointsPerDraw * pointsPerDraw;
             }
+        }
 
-            if (verbose) {
-                StringBuffer sb = new StringBuffer();
-                sb.append("[");
-                for (int j = 0; j < matchUpPlayers.size(); j++) {
-                    for (int player = 0; player < game.getGameState().getNPlayers(); player++) {
-                        if (game.getGameState().getTeam(player) == j) {
-                            sb.append(results[player]).append(",");
-                            break; // we stop after one player on the team to avoid double counting
-                        }
+        if (verbose) {
+            StringBuffer sb = new StringBuffer();
+            sb.append("[");
+            for (int j = 0; j < agentIDsInThisGame.size(); j++) {
+                for (int player = 0; player < outcome.getNPlayers(); player++) {
+                    if (outcome.teams[player] == j) {
+                        sb.append(results[player]).append(",");
+                        break; // we stop after one player on the team to avoid double counting
                     }
                 }
-                sb.setCharAt(sb.length() - 1, ']');
-                System.out.println(sb);
             }
-
+            sb.setCharAt(sb.length() - 1, ']');
+            System.out.println(sb);
         }
-        totalGamesRun += nGames;
+        totalGamesRun++;
     }
 
-    private int updatePoints(GameResult[] results, List<Integer> matchUpPlayers, int j, int player) {
+    private int updatePoints(GameOutcome outcome, List<Integer> matchUpPlayers, int j, int player) {
         // j is the index of the agent in the matchup; player is the corresponding player number in the game
-        int ordinalPos = game.getGameState().getOrdinalPosition(player);
+        GameResult[] results = outcome.results;
+        int ordinalPos = outcome.ordinalPositions[player];
         rankPerPlayer[j] += ordinalPos;
         rankPerPlayerSquared[j] += ordinalPos * ordinalPos;
 
@@ -370,6 +528,7 @@ public class RoundRobinTournament extends AbstractTournament {
     }
 
     protected void reportResults() {
+        waitForPendingGames();
         calculateFinalResults();
         boolean toFile = resultsFile != null && !resultsFile.equals("");
         ArrayList<String> dataDump = new ArrayList<>();
@@ -461,6 +620,16 @@ public class RoundRobinTournament extends AbstractTournament {
         listeners.add(gameTracker);
     }
 
+    /**
+     * Adds a listener to be created in each worker process, when games are played in separate JVMs.
+     * See IGameListener.createListener() for the arguments.
+     *
+     * @param directories - output directory for the listener. Each worker writes to a sub-directory of this.
+     */
+    public void addWorkerListener(String listenerClass, String metricsClass, String... directories) {
+        workerListeners.add(new TournamentWorker.ListenerSpec(listenerClass, metricsClass, directories));
+    }
+
     public void setVerbose(boolean verbose) {
         this.verbose = verbose;
     }
@@ -481,4 +650,48 @@ public class RoundRobinTournament extends AbstractTournament {
     public int getNumberOfAgents() {
         return agents.size();
     }
+
+    /**
+     * Records the events from a game run on another thread, so that they can later be passed on to the
+     * tournament listeners in the correct order. The state is copied at the time of each event, as the
+     * listeners would otherwise only see the final state of the game.
+     */
+    static class EventBuffer implements IGameListener {
+        private final List<Event> events = new ArrayList<>();
+        private Game game;
+
+        @Override
+        public void onEvent(Event event) {
+            events.add(Event.createEvent(event.type,
+                    event.state == null ? null : event.state.copy(),
+                    event.action == null ? null : event.action.copy(),
+                    event.playerID));
+        }
+
+        /**
+         * Passes all buffered events to the listeners, in order. For the duration the listeners are pointed at
+         * the game that generated the events, and are then restored to the main tournament game.
+         */
+        void replay(List<IGameListener> listeners, Game source, Game tournamentGame) {
+            listeners.forEach(l -> l.setGame(source));
+            for (Event e : events)
+                listeners.forEach(l -> l.onEvent(e));
+            listeners.forEach(l -> l.setGame(tournamentGame));
+            events.clear();
+        }
+
+        @Override
+        public void report() {
+        }
+
+        @Override
+        public void setGame(Game game) {
+            this.game = game;
+        }
+
+        @Override
+        public Game getGame() {
+            return game;
+        }
+    }
 }
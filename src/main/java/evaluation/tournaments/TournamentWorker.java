@@ -0,0 +1,175 @@
+package evaluation.tournaments;
+
+import core.AbstractParameters;
+import core.AbstractPlayer;
+import core.Game;
+import evaluation.RunGames;
+import evaluation.listeners.IGameListener;
+import evaluation.listeners.TournamentMetricsGameListener;
+import games.GameType;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Plays games for a tournament run by another JVM (see WorkerPool). It is started as a separate process with the
+ * coordinator's port and a worker ID, connects back on the loopback interface, and then:
+ * 1) receives a Setup, creates the agents and listeners, and replies with the agent names so that the
+ * coordinator can check they are the same as its own;
+ * 2) plays each WorkUnit it is sent (one game with the given agents and seed), replying with its GameOutcome;
+ * 3) on receiving anything else, reports its listeners and exits.
+ * <p>
+ * Listener output is written to a 'worker-ID' sub-directory of the usual output directory of each listener,
+ * and merged by the coordinator at the end.
+ */
+public class TournamentWorker {
+
+    static final String FINISHED = "FINISHED";
+
+    /**
+     * Everything a worker needs to recreate the tournament's agents, game and listeners.
+     */
+    static class Setup implements Serializable {
+        final GameType gameType;
+        final int nPlayers;
+        final String playerDirectory, focusPlayer, gameParams;
+        final List<ListenerSpec> listeners;
+
+        Setup(GameType gameType, int nPlayers, String playerDirectory, String focusPlayer, String gameParams,
+              List<ListenerSpec> listeners) {
+            this.gameType = gameType;
+            this.nPlayers = nPlayers;
+            this.playerDirectory = playerDirectory;
+            this.focusPlayer = focusPlayer;
+            this.gameParams = gameParams;
+            this.listeners = listeners;
+        }
+    }
+
+    /**
+     * A listener to be created by each worker, as in IGameListener.createListener().
+     */
+    static class ListenerSpec implements Serializable {
+        final String listenerClass, metricsClass;
+        final String[] directories;
+
+        ListenerSpec(String listenerClass, String metricsClass, String[] directories) {
+            this.listenerClass = listenerClass;
+            this.metricsClass = metricsClass;
+            this.directories = directories;
+        }
+    }
+
+    /**
+     * One game to play: the agents (by index in the tournament) for each player position, and the seed.
+     */
+    static class WorkUnit implements Serializable {
+        final int[] agentIDs;
+        final long seed;
+
+        WorkUnit(List<Integer> agentIDs, long seed) {
+            this.agentIDs = agentIDs.stream().mapToInt(Integer::intValue).toArray();
+            this.seed = seed;
+        }
+    }
+
+    /**
+     * Sent instead of a GameOutcome if the game threw an exception. This is not retried, as it would fail again.
+     */
+    static class Failure implements Serializable {
+        final String message;
+
+        Failure(Throwable e) {
+            StringWriter trace = new StringWriter();
+            e.printStackTrace(new PrintWriter(trace));
+            this.message = trace.toString();
+        }
+    }
+
+    private final List<AbstractPlayer> agents;
+    private final Set<String> agentNames;
+    private final Game game;
+    private final int nPlayers;
+    private final List<IGameListener> listeners = new ArrayList<>();
+
+    TournamentWorker(Setup setup, int workerID) {
+        agents = RunGames.createAgents(setup.playerDirectory, setup.focusPlayer);
+        agentNames = agents.stream().map(AbstractPlayer::toString).collect(Collectors.toSet());
+        nPlayers = setup.nPlayers;
+        AbstractParameters params = setup.gameParams.equals("") ? null : AbstractParameters.createFromFile(setup.gameType, setup.gameParams);
+        game = params == null ?
+                setup.gameType.createGameInstance(nPlayers) :
+                setup.gameType.createGameInstance(nPlayers, params);
+        for (ListenerSpec spec : setup.listeners) {
+            IGameListener listener = IGameListener.createListener(spec.listenerClass, spec.metricsClass);
+            List<String> directories = new ArrayList<>(Arrays.asList(spec.directories));
+            directories.add("worker-" + workerID);
+            listener.setOutputDirectory(directories.toArray(new String[0]));
+            listener.init(game, nPlayers, agentNames);
+            game.addListener(listener);
+            listeners.add(listener);
+        }
+    }
+
+    List<String> getAgentNames() {
+        return agents.stream().map(AbstractPlayer::toString).collect(Collectors.toList());
+    }
+
+    GameOutcome play(WorkUnit unit) {
+        List<AbstractPlayer> players = new ArrayList<>(unit.agentIDs.length);
+        for (int id : unit.agentIDs)
+            players.add(agents.get(id));
+        for (IGameListener listener : listeners) {
+            if (listener instanceof TournamentMetricsGameListener)
+                ((TournamentMetricsGameListener) listener).tournamentInit(game, nPlayers, agentNames, new HashSet<>(players));
+        }
+        game.reset(players, unit.seed);
+        game.run();
+        return new GameOutcome(game.getGameState());
+    }
+
+    void report() {
+        for (IGameListener listener : listeners)
+            listener.report();
+    }
+
+    /**
+     * @param args - port of the coordinator on the loopback interface, and the ID of this worker
+     */
+    public static void main(String[] args) throws IOException, ClassNotFoundException {
+        if (args.length != 2)
+            throw new IllegalArgumentException("Usage: TournamentWorker <port> <workerID>");
+        int port = Integer.parseInt(args[0]);
+        int workerID = Integer.parseInt(args[1]);
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.flush();
+            ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(socket.getInputStream()));
+
+            TournamentWorker worker = new TournamentWorker((Setup) in.readObject(), workerID);
+            out.writeObject(new ArrayList<>(worker.getAgentNames()));
+            out.flush();
+
+            Object message;
+            while ((message = in.readObject()) instanceof WorkUnit) {
+                Object reply;
+                try {
+                    reply = worker.play((WorkUnit) message);
+                } catch (Exception | AssertionError e) {
+                    reply = new Failure(e);
+                }
+                out.writeObject(reply);
+                out.reset();
+                out.flush();
+            }
+            worker.report();
+            out.writeObject(FINISHED);
+            out.flush();
+        }
+        // agents may have left non-daemon threads running
+        System.exit(0);
+    }
+}
@@ -0,0 +1,305 @@
+package evaluation.tournaments;
+
+import evaluation.tournaments.TournamentWorker.*;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Runs tournament games in a number of TournamentWorker processes on this machine, each its own JVM.
+ * <p>
+ * Each worker process has a dispatcher thread here that takes the next game from a shared queue, sends it to the
+ * worker over a loopback socket, and completes the game's future with the outcome. If the worker dies (or the
+ * connection fails) the game is put back on the queue and a new worker process is started in its place; a game
+ * that fails in MAX_ATTEMPTS processes is given up. An exception thrown by the game itself is not retried.
+ * <p>
+ * Listeners in a worker only write their output when it finishes, so a worker that dies takes the listener output
+ * of all its games with it. Its replacement therefore plays those games again first (their outcomes are already
+ * known, and are ignored), so that its listeners cover them. Agents that keep state between games may not play them
+ * exactly as before. If that replay fails MAX_ATTEMPTS times, the listener output of those games is dropped, with
+ * a message saying how many.
+ */
+class WorkerPool implements AutoCloseable {
+
+    static final int MAX_ATTEMPTS = 3;
+    static final int CONNECT_TIMEOUT_MS = 60_000;
+
+    private static class Task {
+        final WorkUnit unit;
+        final CompletableFuture<GameOutcome> outcome = new CompletableFuture<>();
+        int attempts;
+
+        Task(WorkUnit unit) {
+            this.unit = unit;
+        }
+    }
+
+    private static final Task STOP = new Task(null);
+
+    /**
+     * One running worker process and its connection.
+     */
+    private class WorkerProcess {
+        final int id;
+        final Process process;
+        final Socket socket;
+        final ObjectOutputStream out;
+        final ObjectInputStream in;
+
+        WorkerProcess(int id) throws IOException {
+            this.id = id;
+            try (ServerSocket server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+                server.setSoTimeout(CONNECT_TIMEOUT_MS);
+                String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+                process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                        TournamentWorker.class.getName(), String.valueOf(server.getLocalPort()), String.valueOf(id))
+                        .redirectOutput(ProcessBuilder.Redirect.INHERIT)
+                        .redirectError(ProcessBuilder.Redirect.INHERIT)
+                        .start();
+                try {
+                    socket = server.accept();
+                    out = new ObjectOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                    out.writeObject(setup);
+                    out.flush();
+                    in = new ObjectInputStream(new BufferedInputStream(socket.getInputStream()));
+                    List<?> names = (List<?>) in.readObject();
+                    if (!names.equals(agentNames))
+                        throw new IllegalStateException("Worker agents " + names + " do not match the tournament agents " + agentNames);
+                } catch (IOException | ClassNotFoundException | RuntimeException e) {
+                    process.destroyForcibly();
+                    if (e instanceof RuntimeException)
+                        throw (RuntimeException) e;
+                    throw e instanceof IOException ? (IOException) e : new IOException(e);
+                }
+            }
+        }
+
+        Object play(WorkUnit unit) throws IOException, ClassNotFoundException {
+            out.writeObject(unit);
+            out.reset();
+            out.flush();
+            return in.readObject();
+        }
+
+        /**
+         * Asks the worker to report its listeners and exit, and waits for it to do so.
+         */
+        boolean finish() {
+            try {
+                out.writeObject(TournamentWorker.FINISHED);
+                out.flush();
+                boolean finished = TournamentWorker.FINISHED.equals(in.readObject());
+                process.waitFor();
+                return finished;
+            } catch (IOException | ClassNotFoundException e) {
+                return false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                destroy();
+            }
+        }
+
+        void destroy() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+            }
+            process.destroyForcibly();
+        }
+    }
+
+    private final Setup setup;
+    private final List<String> agentNames;
+    private final LinkedBlockingQueue<Task> tasks = new LinkedBlockingQueue<>();
+    private final List<Thread> dispatchers = new ArrayList<>();
+    private final AtomicInteger nextWorkerID = new AtomicInteger();
+    private final List<Integer> finishedWorkers = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * @param nProcesses - number of worker processes to run at once
+     * @param setup      - what the workers need to recreate the tournament
+     * @param agentNames - names of the tournament agents, in order, which each worker must reproduce
+     */
+    WorkerPool(int nProcesses, Setup setup, List<String> agentNames) {
+        this.setup = setup;
+        this.agentNames = agentNames;
+        for (int i = 0; i < nProcesses; i++) {
+            Thread dispatcher = new Thread(this::dispatch, "WorkerPool-" + i);
+            dispatcher.setDaemon(true);
+            dispatcher.start();
+            dispatchers.add(dispatcher);
+        }
+    }
+
+    /**
+     * Queues a game to be played by the next free worker.
+     */
+    CompletableFuture<GameOutcome> submit(WorkUnit unit) {
+        Task task = new Task(unit);
+        tasks.add(task);
+        return task.outcome;
+    }
+
+    private void dispatch() {
+        WorkerProcess worker = null;
+        // the games whose listener output is held by the current worker (or would have been, by one that died)
+        List<WorkUnit> played = new ArrayList<>();
+        try {
+            Task task;
+            while ((task = tasks.take()) != STOP) {
+                try {
+                    if (worker == null)
+                        worker = startWorker(played);
+                    Object reply = worker.play(task.unit);
+                    if (reply instanceof Failure) {
+                        task.outcome.completeExceptionally(new RuntimeException("Game failed in worker " + worker.id + ": " + ((Failure) reply).message));
+                    } else {
+                        played.add(task.unit);
+                        task.outcome.complete((GameOutcome) reply);
+                    }
+                } catch (IOException | ClassNotFoundException e) {
+                    if (worker != null) {
+                        System.err.printf("Worker %d failed (%s), restarting it and replaying its %d games for the listeners%n",
+                                worker.id, e, played.size());
+                        worker.destroy();
+                        worker = null;
+                    }
+                    if (++task.attempts >= MAX_ATTEMPTS)
+                        task.outcome.completeExceptionally(new RuntimeException("Game failed in " + MAX_ATTEMPTS + " worker processes", e));
+                    else
+                        tasks.add(task);
+                } catch (RuntimeException e) {
+                    task.outcome.completeExceptionally(e);
+                }
+            }
+            if (worker == null && !played.isEmpty()) {
+                try {
+                    worker = startWorker(played);
+                } catch (IOException e) {
+                    System.err.printf("Could not restart a worker (%s): the listener output of %d games is dropped%n", e, played.size());
+                }
+            }
+            if (worker != null) {
+                if (worker.finish())
+                    finishedWorkers.add(worker.id);
+                else
+                    System.err.printf("Worker %d did not finish cleanly: the listener output of %d games is dropped%n", worker.id, played.size());
+            }
+            worker = null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (worker != null)
+                worker.destroy();
+        }
+    }
+
+    /**
+     * Starts a new worker process, which first plays again the games played by the one it replaces (if any).
+     * If that fails MAX_ATTEMPTS times, those games are dropped from played, and a fresh worker is started.
+     */
+    private WorkerProcess startWorker(List<WorkUnit> played) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            WorkerProcess worker = new WorkerProcess(nextWorkerID.getAndIncrement());
+            try {
+                for (WorkUnit unit : played)
+                    worker.play(unit);
+                return worker;
+            } catch (IOException | ClassNotFoundException e) {
+                worker.destroy();
+                System.err.printf("Worker %d failed (%s) while replaying %d games%n", worker.id, e, played.size());
+                if (attempt >= MAX_ATTEMPTS) {
+                    System.err.printf("The listener output of %d games is dropped%n", played.size());
+                    played.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops the workers once they finish their current game (each then reports its listeners), and merges the
+     * listener output of those that finished cleanly. Any games still queued are abandoned, so all results should
+     * be collected before this is called.
+     */
+    @Override
+    public void close() {
+        tasks.clear();
+        for (int i = 0; i < dispatchers.size(); i++)
+            tasks.add(STOP);
+        for (Thread dispatcher : dispatchers) {
+            try {
+                dispatcher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                dispatchers.forEach(Thread::interrupt);
+                return;
+            }
+        }
+        for (ListenerSpec spec : setup.listeners)
+            mergeOutputs(Paths.get(String.join(File.separator, spec.directories)));
+    }
+
+    /**
+     * Listener output from each worker is in a 'worker-ID' sub-directory. Any file that all workers have written, and
+     * that has the same first (header) line in each, is merged into the parent directory with that header once,
+     * followed by the other lines of each worker in turn; this covers the per-game rows written by the
+     * IStatisticLogger implementations. Anything else is left in the worker directories.
+     */
+    private void mergeOutputs(Path directory) {
+        List<Integer> workers = new ArrayList<>(finishedWorkers);
+        Collections.sort(workers);
+        if (workers.isEmpty())
+            return;
+        Path first = directory.resolve("worker-" + workers.get(0));
+        if (!Files.isDirectory(first))
+            return;
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(first)) {
+            files = walk.filter(Files::isRegularFile).map(first::relativize).collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        int merged = 0;
+        for (Path file : files) {
+            try {
+                List<List<String>> contents = new ArrayList<>();
+                for (int id : workers) {
+                    Path workerFile = directory.resolve("worker-" + id).resolve(file);
+                    if (!Files.isRegularFile(workerFile))
+                        break;
+                    contents.add(Files.readAllLines(workerFile, StandardCharsets.UTF_8));
+                }
+                if (contents.size() < workers.size() || contents.stream().anyMatch(List::isEmpty))
+                    continue;
+                String header = contents.get(0).get(0);
+                if (contents.stream().anyMatch(lines -> !lines.get(0).equals(header)))
+                    continue;
+                List<String> lines = new ArrayList<>();
+                lines.add(header);
+                for (List<String> workerLines : contents)
+                    lines.addAll(workerLines.subList(1, workerLines.size()));
+                Path target = directory.resolve(file);
+                if (target.getParent() != null)
+                    Files.createDirectories(target.getParent());
+                Files.write(target, lines, StandardCharsets.UTF_8);
+                merged++;
+            } catch (IOException | UncheckedIOException e) {
+                // binary or unreadable output - left where it is
+            }
+        }
+        if (merged > 0)
+            System.out.printf("Merged %d listener output files from %d workers into %s%n", merged, workers.size(), directory);
+    }
+}
@@ -109,7 +109,7 @@ public class BlackjackGameState extends AbstractGameState implements IPrintable
                     copy.drawDeck.add(copy.playerDecks.get(dealerPlayer).pick(i));
                 }
             }
-            copy.drawDeck.shuffle(new Random(copy.gameParameters.getRandomSeed()));
+            copy.drawDeck.shuffle(redeterminisationRnd);
             for (int i = 0; i < copy.playerDecks.get(dealerPlayer).getSize(); i++) {
                 if (!copy.playerDecks.get(dealerPlayer).getVisibilityForPlayer(i, playerId)) {
                     copy.playerDecks.get(dealerPlayer).add(copy.drawDeck.draw());
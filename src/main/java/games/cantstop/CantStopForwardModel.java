@@ -3,6 +3,7 @@ package games.cantstop;
 import core.AbstractGameState;
 import core.StandardForwardModel;
 import core.StandardForwardModelWithTurnOrder;
+import core.UndoRecord;
 import core.actions.AbstractAction;
 import core.components.Dice;
 import core.forwardModels.SequentialActionForwardModel;
@@ -37,6 +38,70 @@ public class CantStopForwardModel extends StandardForwardModel {
         firstState.setGamePhase(CantStopGamePhase.Decision);
     }
 
+    @Override
+    public boolean supportsUndo() {
+        return true;
+    }
+
+    @Override
+    protected void _recordUndo(AbstractGameState currentState, AbstractAction action, UndoRecord record) {
+        CantStopGameState state = (CantStopGameState) currentState;
+        if (action instanceof RollDice) {
+            for (Dice d : state.dice)
+                record.pushInt(d.getValue());
+        } else if (action instanceof AllocateDice) {
+            for (int n : ((AllocateDice) action).getValues())
+                record.pushObject(state.temporaryMarkerPositions.get(n));
+        } else if (action instanceof Pass) {
+            // the temporary markers are replaced with a new Map, so we just need to keep hold of the old one,
+            // and the permanent positions of any tracks that they may update
+            int playerId = state.getCurrentPlayer();
+            for (int trackNumber : state.temporaryMarkerPositions.keySet()) {
+                record.pushInt(trackNumber);
+                record.pushInt(state.playerMarkerPositions[playerId][trackNumber]);
+                record.pushBoolean(state.completedColumns[trackNumber]);
+            }
+            record.pushInt(state.temporaryMarkerPositions.size());
+            record.pushInt(playerId);
+            record.pushObject(state.temporaryMarkerPositions);
+        }
+    }
+
+    @Override
+    protected void _undo(AbstractGameState currentState, AbstractAction action, UndoRecord record) {
+        CantStopGameState state = (CantStopGameState) currentState;
+        if (action instanceof RollDice) {
+            // the dice are put back, but not the random number generator
+            for (int i = state.dice.size() - 1; i >= 0; i--) {
+                int value = record.popInt();
+                if (value == 0)
+                    state.dice.get(i).clearValue();  // not rolled before
+                else
+                    state.dice.get(i).setValue(value);
+            }
+        } else if (action instanceof AllocateDice) {
+            int[] values = ((AllocateDice) action).getValues();
+            for (int i = values.length - 1; i >= 0; i--) {
+                Integer previous = record.popObject();
+                if (previous == null)
+                    state.temporaryMarkerPositions.remove(values[i]);
+                else
+                    state.temporaryMarkerPositions.put(values[i], previous);
+            }
+        } else if (action instanceof Pass) {
+            state.temporaryMarkerPositions = record.popObject();
+            int playerId = record.popInt();
+            int nTracks = record.popInt();
+            for (int i = 0; i < nTracks; i++) {
+                boolean completed = record.popBoolean();
+                int position = record.popInt();
+                int trackNumber = record.popInt();
+                state.completedColumns[trackNumber] = completed;
+                state.playerMarkerPositions[playerId][trackNumber] = position;
+            }
+        }
+    }
+
     @Override
     protected void _afterAction(AbstractGameState currentState, AbstractAction action) {
         if (action instanceof Pass) {
@@ -16,6 +16,7 @@ import java.util.*;
 import static core.CoreConstants.GameResult;
 import static games.catan.CatanConstants.HEX_SIDES;
 import static games.catan.stats.CatanMetrics.CatanEvent.LargestArmySteal;
+import static games.catan.stats.CatanMetrics.CatanEvent.LongestRoadSteal;
 
 public class CatanGameState extends AbstractGameState {
     protected CatanTile[][] board;
@@ -27,6 +28,7 @@ public class CatanGameState extends AbstractGameState {
     protected int largestArmyOwner; // playerID of the player currently holding the largest army
     protected int longestRoadOwner; // playerID of the player currently holding the longest road
     protected int longestRoadLength, largestArmySize;
+    protected RoadNetwork roadNetwork; // road components of each player, to keep road lengths up to date
     int rollValue;
 
     List<HashMap<CatanParameters.Resource, Counter>> playerResources;
@@ -236,72 +238,39 @@ public class CatanGameState extends AbstractGameState {
         return exchangeRates.get(playerID);
     }
 
-    public int getRoadDistance(int x, int y, int edgeIdx) {
-        // As the settlements are the nodes, we expand them to find roads
-        // calculates the distance length of the road
-        Set<Edge> roadSet = new LinkedHashSet<>();
-        Set<Edge> roadSet2 = new LinkedHashSet<>();
-
-        ArrayList<Building> dir1 = new ArrayList<>();
-        ArrayList<Building> dir2 = new ArrayList<>();
-        Building settl1 = (Building) catanGraph.getNodeByID(board[x][y].getVerticesBoardNodeIDs()[edgeIdx]);
-        Building settl2 = (Building) catanGraph.getNodeByID(board[x][y].getVerticesBoardNodeIDs()[(edgeIdx + 1) % 6]);
-
-        dir1.add(settl1);
-        dir2.add(settl2);
-
-        // find longest segment, we first follow dir_1 then dir_2
-        roadSet = expandRoad(roadSet, new ArrayList<>(dir1), new ArrayList<>(dir2));
-        roadSet.addAll(expandRoad(roadSet2, new ArrayList<>(dir2), new ArrayList<>(dir1)));
-
-//        System.out.println("Current road length is " + roadSet.size() + " for player " + getCurrentPlayer());
-        return roadSet.size();
+    public RoadNetwork getRoadNetwork() {
+        return roadNetwork;
     }
 
-    private Set<Edge> expandRoad(Set<Edge> roadSet, List<Building> unexpanded, List<Building> expanded) {
-        // return length, makes it possible to compare segments
-        // modify original set
-        if (unexpanded.size() == 0) {
-            return roadSet;
-        }
-        if (unexpanded.size() == 2) {
-            // Handle branching
-            int length = 0;
-            Set<Edge> longestSegment = new LinkedHashSet<>(roadSet);
-            for (Building settlement : unexpanded) {
-                ArrayList<Building> toExpand = new ArrayList<>();
-                toExpand.add(settlement);
-                Set<Edge> roadSetCopy = new LinkedHashSet<>(roadSet);
-                roadSetCopy = expandRoad(roadSetCopy, toExpand, expanded);
-                if (roadSetCopy.size() >= length) {
-                    length = roadSetCopy.size();
-                    longestSegment = roadSetCopy;
-                }
+    /**
+     * Updates the road lengths of the given players after their roads were split by another player's building,
+     * and moves the longest road to the player who now has it, if it changes. The holder keeps it on a tie;
+     * otherwise, if the longest road is tied (or too short), nobody holds it until a road is extended past it.
+     */
+    public void updateLongestRoad(Set<Integer> brokenRoads) {
+        CatanParameters cp = (CatanParameters) gameParameters;
+        for (int p : brokenRoads)
+            roadLengths[p] = roadNetwork.getLongestRoad(p);
+        int max = Arrays.stream(roadLengths).max().orElse(0);
+        int newOwner = longestRoadOwner;
+        if (longestRoadOwner == -1 || roadLengths[longestRoadOwner] < max) {
+            newOwner = -1;
+            if (max > cp.min_longest_road && Arrays.stream(roadLengths).filter(l -> l == max).count() == 1) {
+                for (int p = 0; p < nPlayers; p++)
+                    if (roadLengths[p] == max) newOwner = p;
             }
-            roadSet.addAll(longestSegment);
-            return roadSet;
-        } else {
-            // case of expanding a single settlement
-            Building settlement = unexpanded.remove(0);
-            expanded.add(settlement);
-
-            for (Map.Entry<Edge, BoardNodeWithEdges> e : settlement.getNeighbourEdgeMapping().entrySet()) {
-                if (e.getKey().getOwnerId() == getCurrentPlayer()) {
-                    if (expanded.contains((Building)e.getValue())) {
-                        // The road used to get here
-                        roadSet.add(e.getKey());
-                    } else {
-                        // if settlement belongs to somebody else it's a deadend
-                        if (e.getValue().getOwnerId() == -1 || e.getValue().getOwnerId() == getCurrentPlayer()) {
-                            unexpanded.add((Building) e.getValue());
-                        }
-                    }
-                }
+        }
+        if (newOwner != longestRoadOwner) {
+            if (longestRoadOwner >= 0)
+                addScore(longestRoadOwner, -cp.longest_road_value);
+            if (newOwner >= 0) {
+                if (longestRoadOwner >= 0)
+                    logEvent(LongestRoadSteal, String.valueOf(newOwner));
+                addScore(newOwner, cp.longest_road_value);
             }
+            longestRoadOwner = newOwner;
         }
-
-        // only gets here when explored a single road
-        return expandRoad(roadSet, unexpanded, expanded);
+        longestRoadLength = max;
     }
 
     public int getNResourcesInHand(int player) {
@@ -405,6 +374,7 @@ public class CatanGameState extends AbstractGameState {
         copy.scores = scores.clone();
         copy.knights = knights.clone();
         copy.roadLengths = roadLengths.clone();
+        copy.roadNetwork = roadNetwork.copy();
 
         copy.tradeOffer = tradeOffer != null? tradeOffer.copy() : null;
         copy.negotiationStepsCount = negotiationStepsCount;
@@ -0,0 +1,230 @@
+package games.catan;
+
+import core.components.BoardNodeWithEdges;
+import core.components.Edge;
+import core.components.GraphBoardWithEdges;
+
+import java.util.*;
+
+/**
+ * Keeps track of the roads of each player as connected components, so that the longest road of a player can be
+ * updated after each road or settlement without walking the whole road graph again.
+ * <p>
+ * Roads of one player are joined (union-find) when they meet at a vertex that is empty or has one of the player's
+ * own buildings; a building of another player splits them. The length of the longest road in each component is
+ * cached at its root, and is only recomputed for a component that changes: a new road merges at most three
+ * components and recomputes the result, and a new settlement splits only the component(s) running through it.
+ * A player can only have a few roads (15 by default) so each recomputation is bounded, whatever the game length.
+ * <p>
+ * The board topology (which edges meet at which vertex) never changes, and is shared between all copies.
+ * Only the per-player arrays are copied, and the graph itself is passed in to check who owns each vertex.
+ */
+public class RoadNetwork {
+
+    /**
+     * Edge and vertex indices of the board, built once from the graph at setup.
+     */
+    private static class Topology {
+        final Map<Integer, Integer> edgeIndex = new HashMap<>(), nodeIndex = new HashMap<>();
+        final int[] nodeIDs;
+        final int[][] edgeNodes;  // edge index -> indices of its two vertices
+        final int[][] nodeEdges;  // vertex index -> indices of its edges
+
+        Topology(GraphBoardWithEdges graph) {
+            List<BoardNodeWithEdges> nodes = new ArrayList<>(graph.getBoardNodes());
+            nodes.sort(Comparator.comparingInt(BoardNodeWithEdges::getComponentID));
+            nodeIDs = new int[nodes.size()];
+            for (int i = 0; i < nodes.size(); i++) {
+                nodeIDs[i] = nodes.get(i).getComponentID();
+                nodeIndex.put(nodeIDs[i], i);
+            }
+            List<int[]> ends = new ArrayList<>();
+            List<List<Integer>> incident = new ArrayList<>();
+            for (int i = 0; i < nodes.size(); i++) incident.add(new ArrayList<>());
+            for (int i = 0; i < nodes.size(); i++) {
+                for (Map.Entry<Edge, BoardNodeWithEdges> e : nodes.get(i).getNeighbourEdgeMapping().entrySet()) {
+                    int edgeID = e.getKey().getComponentID();
+                    if (edgeIndex.containsKey(edgeID)) continue;
+                    int other = nodeIndex.get(e.getValue().getComponentID());
+                    edgeIndex.put(edgeID, ends.size());
+                    incident.get(i).add(ends.size());
+                    incident.get(other).add(ends.size());
+                    ends.add(new int[]{i, other});
+                }
+            }
+            edgeNodes = ends.toArray(new int[0][]);
+            nodeEdges = new int[nodes.size()][];
+            for (int i = 0; i < nodes.size(); i++)
+                nodeEdges[i] = incident.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    private final Topology topology;
+    // parent[p][e] is the union-find parent of edge e among the roads of player p, or -1 if p has no road there
+    private final int[][] parent;
+    // length[p][r] is the longest road in the component with root r
+    private final int[][] length;
+
+    public RoadNetwork(GraphBoardWithEdges graph, int nPlayers) {
+        topology = new Topology(graph);
+        int nEdges = topology.edgeNodes.length;
+        parent = new int[nPlayers][nEdges];
+        length = new int[nPlayers][nEdges];
+        for (int[] p : parent) Arrays.fill(p, -1);
+    }
+
+    private RoadNetwork(RoadNetwork other) {
+        topology = other.topology;
+        parent = new int[other.parent.length][];
+        length = new int[other.length.length][];
+        for (int p = 0; p < parent.length; p++) {
+            parent[p] = other.parent[p].clone();
+            length[p] = other.length[p].clone();
+        }
+    }
+
+    public RoadNetwork copy() {
+        return new RoadNetwork(this);
+    }
+
+    /**
+     * Records a new road for the player.
+     * @param graph - the board graph, with buildings as they are now
+     * @param edgeID - component ID of the edge the road is on
+     * @param playerID - owner of the new road
+     * @return the length of the longest road of the player in the component containing the new road
+     */
+    public int addRoad(GraphBoardWithEdges graph, int edgeID, int playerID) {
+        int[] par = parent[playerID];
+        int e = topology.edgeIndex.get(edgeID);
+        if (par[e] != -1)
+            throw new IllegalArgumentException("Player " + playerID + " already has a road on edge " + edgeID);
+        par[e] = e;
+        for (int n : topology.edgeNodes[e]) {
+            if (isBlocked(graph, n, playerID)) continue;
+            for (int f : topology.nodeEdges[n]) {
+                if (f != e && par[f] != -1)
+                    union(par, e, f);
+            }
+        }
+        int root = find(par, e);
+        length[playerID][root] = longestRoad(graph, playerID, root);
+        return length[playerID][root];
+    }
+
+    /**
+     * Splits the roads of other players that run through a vertex that now has a building of the given player.
+     * @param graph - the board graph, with the new building already placed
+     * @param nodeID - component ID of the vertex built on
+     * @param playerID - owner of the new building
+     * @return the players whose roads were split (and whose longest road may now be shorter)
+     */
+    public Set<Integer> addBuilding(GraphBoardWithEdges graph, int nodeID, int playerID) {
+        Set<Integer> affected = new HashSet<>();
+        int n = topology.nodeIndex.get(nodeID);
+        for (int p = 0; p < parent.length; p++) {
+            if (p == playerID) continue;
+            int[] par = parent[p];
+            int root = -1;
+            for (int f : topology.nodeEdges[n]) {
+                if (par[f] == -1) continue;
+                if (root != -1) {
+                    affected.add(p);
+                    break;
+                }
+                root = find(par, f);
+            }
+            if (affected.contains(p))
+                rebuild(graph, p, root);
+        }
+        return affected;
+    }
+
+    /**
+     * @return the length of the longest road of the player, over all their road components
+     */
+    public int getLongestRoad(int playerID) {
+        int[] par = parent[playerID];
+        int best = 0;
+        for (int e = 0; e < par.length; e++) {
+            if (par[e] == e && length[playerID][e] > best)
+                best = length[playerID][e];
+        }
+        return best;
+    }
+
+    /**
+     * Re-joins the roads of one component from scratch after a building split it, and recomputes the longest road
+     * of each resulting component.
+     */
+    private void rebuild(GraphBoardWithEdges graph, int playerID, int oldRoot) {
+        int[] par = parent[playerID];
+        List<Integer> members = new ArrayList<>();
+        for (int e = 0; e < par.length; e++) {
+            if (par[e] != -1 && find(par, e) == oldRoot)
+                members.add(e);
+        }
+        for (int e : members) par[e] = e;
+        for (int e : members) {
+            for (int n : topology.edgeNodes[e]) {
+                if (isBlocked(graph, n, playerID)) continue;
+                for (int f : topology.nodeEdges[n]) {
+                    if (f != e && par[f] != -1)
+                        union(par, e, f);
+                }
+            }
+        }
+        for (int e : members) {
+            if (par[e] == e)
+                length[playerID][e] = longestRoad(graph, playerID, e);
+        }
+    }
+
+    /**
+     * Longest trail (no edge used twice) along the roads of one component, trying each vertex as the start.
+     */
+    private int longestRoad(GraphBoardWithEdges graph, int playerID, int root) {
+        int[] par = parent[playerID];
+        boolean[] used = new boolean[par.length];
+        int best = 0;
+        for (int e = 0; e < par.length; e++) {
+            if (par[e] == -1 || find(par, e) != root) continue;
+            for (int n : topology.edgeNodes[e])
+                best = Math.max(best, extend(graph, playerID, root, n, used));
+        }
+        return best;
+    }
+
+    private int extend(GraphBoardWithEdges graph, int playerID, int root, int node, boolean[] used) {
+        int[] par = parent[playerID];
+        int best = 0;
+        for (int f : topology.nodeEdges[node]) {
+            if (used[f] || par[f] == -1 || find(par, f) != root) continue;
+            int[] ends = topology.edgeNodes[f];
+            int next = ends[0] == node ? ends[1] : ends[0];
+            used[f] = true;
+            int further = isBlocked(graph, next, playerID) ? 0 : extend(graph, playerID, root, next, used);
+            used[f] = false;
+            best = Math.max(best, 1 + further);
+        }
+        return best;
+    }
+
+    private boolean isBlocked(GraphBoardWithEdges graph, int node, int playerID) {
+        int owner = graph.getNodeByID(topology.nodeIDs[node]).getOwnerId();
+        return owner != -1 && owner != playerID;
+    }
+
+    private static int find(int[] par, int e) {
+        while (par[e] != e) {
+            par[e] = par[par[e]];
+            e = par[e];
+        }
+        return e;
+    }
+
+    private static void union(int[] par, int a, int b) {
+        int ra = find(par, a), rb = find(par, b);
+        if (ra != rb) par[rb] = ra;
+    }
+}
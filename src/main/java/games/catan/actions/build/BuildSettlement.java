@@ -10,6 +10,7 @@ import games.catan.components.CatanTile;
 
 import java.util.HashMap;
 import java.util.Objects;
+import java.util.Set;
 
 import static games.catan.stats.CatanMetrics.CatanEvent.PortSettle;
 
@@ -49,6 +50,10 @@ public class BuildSettlement extends AbstractAction {
             settleTokens.increment();
 
             settlement.setOwnerId(playerID);
+            Set<Integer> brokenRoads = cgs.getRoadNetwork().addBuilding(cgs.getGraph(), settlement.getComponentID(), playerID);
+            if (!brokenRoads.isEmpty()) {
+                cgs.updateLongestRoad(brokenRoads);
+            }
             if(settlement.getHarbour() != null){
                 gs.logEvent(PortSettle, String.valueOf(playerID));
 
@@ -3,11 +3,13 @@ package games.chinesecheckers;
 import core.AbstractGameState;
 import core.CoreConstants;
 import core.StandardForwardModel;
+import core.UndoRecord;
 import core.actions.AbstractAction;
 import games.chinesecheckers.actions.MovePeg;
 import games.chinesecheckers.components.CCNode;
 import games.chinesecheckers.components.Peg;
 import games.chinesecheckers.components.StarBoard;
+import utilities.ZobristHashing;
 
 import java.util.*;
 
@@ -31,6 +33,7 @@ public class CCForwardModel extends StandardForwardModel {
         CCParameters params = (CCParameters) state.getGameParameters();
 
         state.starBoard = new StarBoard();
+        state.pegHash = 0;
 
         Peg.Colour[] playerColours = params.playerColours.get(state.getNPlayers());
 
@@ -166,6 +169,31 @@ public class CCForwardModel extends StandardForwardModel {
         }
     }
 
+    @Override
+    public boolean supportsUndo() {
+        return true;
+    }
+
+    @Override
+    protected void _recordUndo(AbstractGameState currentState, AbstractAction action, UndoRecord record) {
+        CCGameState state = (CCGameState) currentState;
+        MovePeg move = (MovePeg) action;
+        record.pushBoolean(state.getStarBoard().getBoardNodes().get(move.getFrom()).getOccupiedPeg().getInDestination());
+    }
+
+    @Override
+    protected void _undo(AbstractGameState currentState, AbstractAction action, UndoRecord record) {
+        CCGameState state = (CCGameState) currentState;
+        MovePeg move = (MovePeg) action;
+        CCNode nodeStart = state.getStarBoard().getBoardNodes().get(move.getFrom());
+        CCNode nodeDestination = state.getStarBoard().getBoardNodes().get(move.getTo());
+        Peg peg = nodeDestination.getOccupiedPeg();
+        nodeDestination.setOccupiedPeg(null);
+        nodeStart.setOccupiedPeg(peg);
+        state.movePegHash(peg.getColour(), move.getTo(), move.getFrom());
+        peg.setInDestination(record.popBoolean());
+    }
+
     @Override
     protected void _afterAction(AbstractGameState currentState, AbstractAction action) {
         CCGameState state = (CCGameState) currentState;
@@ -203,6 +231,7 @@ public class CCForwardModel extends StandardForwardModel {
         int[] indices = params.colourIndices.get(params.boardOpposites.get(colour));
         for (int i : indices) {
             state.starBoard.getBoardNodes().get(i).setOccupiedPeg(new Peg(colour, state.starBoard.getBoardNodes().get(i)));
+            state.pegHash ^= ZobristHashing.key(i, colour.ordinal());
         }
     }
 }
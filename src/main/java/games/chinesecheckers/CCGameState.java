@@ -6,6 +6,7 @@ import core.components.Component;
 import games.GameType;
 import games.chinesecheckers.components.Peg;
 import games.chinesecheckers.components.StarBoard;
+import utilities.ZobristHashing;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -14,6 +15,7 @@ import java.util.Objects;
 public class CCGameState extends AbstractGameState {
 
     StarBoard starBoard;
+    long pegHash;  // Zobrist hash of the peg positions, maintained by MovePeg
 
     public CCGameState(AbstractParameters gameParameters, int nPlayers) {
         super(gameParameters, nPlayers);
@@ -28,6 +30,14 @@ public class CCGameState extends AbstractGameState {
         return starBoard;
     }
 
+    public long getPegHash() {
+        return pegHash;
+    }
+
+    public void movePegHash(Peg.Colour colour, int from, int to) {
+        pegHash ^= ZobristHashing.key(from, colour.ordinal()) ^ ZobristHashing.key(to, colour.ordinal());
+    }
+
     @Override
     protected GameType _getGameType() {
         return GameType.ChineseCheckers;
@@ -44,6 +54,7 @@ public class CCGameState extends AbstractGameState {
     protected AbstractGameState _copy(int playerId) {
         CCGameState copy = new CCGameState(gameParameters, getNPlayers());
         copy.starBoard = starBoard.copy();
+        copy.pegHash = pegHash;
 
         return copy;
     }
@@ -67,7 +78,6 @@ public class CCGameState extends AbstractGameState {
     protected boolean _equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof CCGameState)) return false;
-        if (!super.equals(o)) return false;
         CCGameState that = (CCGameState) o;
         return Objects.equals(starBoard, that.starBoard);
     }
@@ -0,0 +1,28 @@
+package games.chinesecheckers;
+
+import core.AbstractGameState;
+import core.interfaces.IStateHash;
+import games.chinesecheckers.components.CCNode;
+import utilities.ZobristHashing;
+
+/**
+ * State key for use with MCGS. The position of every peg (by colour) and the current player define the state.
+ */
+public class CCStateKey implements IStateHash {
+
+    @Override
+    public String getKey(AbstractGameState state) {
+        CCGameState ccgs = (CCGameState) state;
+        StringBuilder sb = new StringBuilder();
+        sb.append(state.getCurrentPlayer()).append("-");
+        for (CCNode node : ccgs.getStarBoard().getBoardNodes()) {
+            sb.append(node.isNodeOccupied() ? node.getOccupiedPeg().getColour().ordinal() : ".");
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public long getHash(AbstractGameState state) {
+        return ((CCGameState) state).getPegHash() ^ ZobristHashing.playerKey(state.getCurrentPlayer());
+    }
+}
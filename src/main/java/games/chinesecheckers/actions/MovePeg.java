@@ -31,6 +31,7 @@ public class MovePeg extends AbstractAction {
 
         nodeStart.setOccupiedPeg(null);
         nodeDestination.setOccupiedPeg(peg);
+        state.movePegHash(peg.getColour(), from, to);
 
         // Then check to see if this is the destination node for the peg
         Peg.Colour colour = peg.getColour();
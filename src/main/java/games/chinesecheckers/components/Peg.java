@@ -56,6 +56,11 @@ public class Peg extends Component {
         this.occupiedNode = occupiedNode;
     }
 
+    private Peg(Colour team, int componentID) {
+        super(CoreConstants.ComponentType.TOKEN, "PEG", componentID);
+        this.team = team;
+    }
+
     public void setInDestination(boolean value) {
         inDestination = value;
     }
@@ -70,22 +75,22 @@ public class Peg extends Component {
 
     @Override
     public Component copy() {
-        Peg copy = new Peg();
+        Peg copy = new Peg(team, componentID);
         copy.setInDestination(getInDestination());
-        copy.team = getColour();
         return copy;
     }
 
     @Override
     public final int hashCode() {
-        return Objects.hash(componentID, occupiedNode, team, inDestination);
+        // occupiedNode is only set on creation, and is not kept up to date as the peg moves
+        return Objects.hash(componentID, team, inDestination);
     }
 
     @Override
     public boolean equals(Object o) {
         if (o instanceof Peg) {
             Peg other = (Peg) o;
-            return componentID == other.componentID && Objects.equals(occupiedNode, other.occupiedNode) && Objects.equals(team, other.team) && inDestination == other.inDestination;
+            return componentID == other.componentID && Objects.equals(team, other.team) && inDestination == other.inDestination;
         }
         return false;
     }
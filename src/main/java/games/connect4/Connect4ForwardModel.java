@@ -1,9 +1,10 @@
 package games.connect4;
 import core.AbstractGameState;
 import core.CoreConstants;
+import core.UndoRecord;
 import core.actions.AbstractAction;
 import core.actions.SetGridValueAction;
-import core.components.GridBoard;
+import core.components.IntGridBoard;
 import core.components.Token;
 import core.forwardModels.SequentialActionForwardModel;
 import utilities.Pair;
@@ -16,12 +17,22 @@ import java.util.List;
 
 public class Connect4ForwardModel extends SequentialActionForwardModel {
 
+    // the widest grid for which a row fits in the bits of a long; wider grids are scanned instead of using bitboards
+    static final int MAX_BITBOARD_WIDTH = 64;
+    // the value of an empty cell in the IntGridBoard (see _setup())
+    private static final int EMPTY = 0;
+
     @Override
     protected void _setup(AbstractGameState firstState) {
         Connect4GameParameters c4gp = (Connect4GameParameters) firstState.getGameParameters();
         int gridSize = c4gp.gridSize;
         Connect4GameState state = (Connect4GameState) firstState;
-        state.gridBoard = new GridBoard<>(gridSize, gridSize, new Token(Connect4Constants.emptyCell));
+        // the empty cell is the first value, so that all cells start empty
+        List<Token> cellValues = new ArrayList<>();
+        cellValues.add(new Token(Connect4Constants.emptyCell));
+        cellValues.addAll(Connect4Constants.playerMapping);
+        state.gridBoard = new IntGridBoard<>(gridSize, gridSize, cellValues);
+        state.playerRows = gridSize <= MAX_BITBOARD_WIDTH ? new long[Connect4Constants.playerMapping.size()][gridSize] : null;
         state.winnerCells = new LinkedList<>();
     }
 
@@ -31,203 +42,211 @@ public class Connect4ForwardModel extends SequentialActionForwardModel {
         ArrayList<AbstractAction> actions = new ArrayList<>();
         int player = c4gs.getCurrentPlayer();
 
-        if (gameState.isNotTerminal())
+        if (gameState.isNotTerminal() && c4gs.playerRows == null) {
             for (int x = 0; x < c4gs.gridBoard.getWidth(); x++) {
-                int y = c4gs.gridBoard.getHeight() - 1; // this is bottom of column
-                boolean end = false;
-                while(!end)
-                {
-                    boolean newCol = false;
-                    if (c4gs.gridBoard.getElement(x, y).getTokenType().equals(Connect4Constants.emptyCell)) {
+                // the first empty cell in the column, working up from the bottom
+                for (int y = c4gs.gridBoard.getHeight() - 1; y >= 0; y--) {
+                    if (c4gs.gridBoard.getValue(x, y) == EMPTY) {
                         actions.add(new SetGridValueAction<>(c4gs.gridBoard.getComponentID(), x, y, Connect4Constants.playerMapping.get(player)));
-                        newCol = true;
+                        break;
                     }
-
-                    //Stop when reaching top (column is full) or on finding the first empty cell (action available)
-                    end = (--y <  0 || newCol);
                 }
             }
+        } else if (gameState.isNotTerminal()) {
+            int width = c4gs.gridBoard.getWidth();
+            // the first empty cell in each column, working up from the bottom (or -1 if the column is full)
+            int[] firstEmpty = new int[width];
+            Arrays.fill(firstEmpty, -1);
+            long below = allColumns(width);  // columns that are full up to the current row
+            for (int y = c4gs.gridBoard.getHeight() - 1; y >= 0 && below != 0; y--) {
+                long occupied = occupied(c4gs, y);
+                for (long empty = below & ~occupied; empty != 0; empty &= empty - 1)
+                    firstEmpty[Long.numberOfTrailingZeros(empty)] = y;
+                below &= occupied;
+            }
+            for (int x = 0; x < width; x++) {
+                if (firstEmpty[x] >= 0)
+                    actions.add(new SetGridValueAction<>(c4gs.gridBoard.getComponentID(), x, firstEmpty[x], Connect4Constants.playerMapping.get(player)));
+            }
+        }
         return actions;
     }
 
+    private static long allColumns(int width) {
+        return width == MAX_BITBOARD_WIDTH ? -1L : (1L << width) - 1;
+    }
+
+    private static long occupied(Connect4GameState c4gs, int y) {
+        long retValue = 0;
+        for (long[] rows : c4gs.playerRows)
+            retValue |= rows[y];
+        return retValue;
+    }
+
+    @Override
+    public boolean supportsUndo() {
+        return true;
+    }
+
+    @Override
+    protected void _recordUndo(AbstractGameState currentState, AbstractAction action, UndoRecord record) {
+        Connect4GameState c4gs = (Connect4GameState) currentState;
+        SetGridValueAction<?> setAction = (SetGridValueAction<?>) action;
+        record.pushObject(c4gs.gridBoard.getElement(setAction.getX(), setAction.getY()));
+        // checkGameEnd() replaces the list on a win, rather than changing it
+        record.pushObject(c4gs.winnerCells);
+    }
+
+    @Override
+    protected void _undo(AbstractGameState currentState, AbstractAction action, UndoRecord record) {
+        Connect4GameState c4gs = (Connect4GameState) currentState;
+        SetGridValueAction<?> setAction = (SetGridValueAction<?>) action;
+        c4gs.winnerCells = record.popObject();
+        Token previous = record.popObject();
+        updateBitboards(c4gs, setAction.getX(), setAction.getY(), (Token) setAction.getValue(), previous);
+        c4gs.gridBoard.setElement(setAction.getX(), setAction.getY(), previous);
+    }
+
+    @Override
+    protected void _beforeAction(AbstractGameState currentState, AbstractAction action) {
+        Connect4GameState c4gs = (Connect4GameState) currentState;
+        SetGridValueAction<?> setAction = (SetGridValueAction<?>) action;
+        updateBitboards(c4gs, setAction.getX(), setAction.getY(),
+                c4gs.gridBoard.getElement(setAction.getX(), setAction.getY()), (Token) setAction.getValue());
+    }
+
+    private void updateBitboards(Connect4GameState c4gs, int x, int y, Token from, Token to) {
+        if (c4gs.playerRows == null)
+            return;
+        int fromPlayer = Connect4Constants.playerMapping.indexOf(from);
+        if (fromPlayer > -1)
+            c4gs.setToken(x, y, fromPlayer, false);
+        int toPlayer = Connect4Constants.playerMapping.indexOf(to);
+        if (toPlayer > -1)
+            c4gs.setToken(x, y, toPlayer, true);
+    }
+
     @Override
     protected void _afterAction(AbstractGameState currentState, AbstractAction action) {
         Connect4GameState c4gs = (Connect4GameState) currentState;
 
         // game-specific check for end of game
-        if (checkGameEnd(c4gs)) {
+        SetGridValueAction<?> setAction = (SetGridValueAction<?>) action;
+        int player = Connect4Constants.playerMapping.indexOf((Token) setAction.getValue());
+        boolean gameEnd = c4gs.playerRows == null ? checkGameEndByScan(c4gs, player, setAction.getX(), setAction.getY())
+                : checkGameEnd(c4gs, player);
+        if (gameEnd) {
             return;
         }
         super._afterAction(currentState, action);
     }
 
     /**
-     * Checks if the game ended.
+     * Checks if the game ended, after the specified player has placed a token.
+     * A player can only complete a line on their own move, so we just look for a line of theirs.
      *
      * @param gameState - game state to check game end.
      */
-    private boolean checkGameEnd(Connect4GameState gameState) {
-        GridBoard<Token> gridBoard = gameState.getGridBoard();
-        Connect4GameParameters c4gp = (Connect4GameParameters) gameState.getGameParameters();
-        boolean gap = false;
-        LinkedList<Pair<Integer, Integer>> winning = new LinkedList<>();;
-
-        // Check columns
-        for (int x = 0; x < gridBoard.getWidth(); x++) {
-            int count = 0;
-            String lastToken = null;
-            winning.clear();
-            for (int y = gridBoard.getHeight() - 1; y >= 0; y--) {
-                Token c = gridBoard.getElement(x, y);
-                if (c.getTokenType().equals(Connect4Constants.emptyCell)) {
-                    count = 0;
-                    lastToken = null;
-                    winning.clear();
-                    gap = true;
-                } else if (lastToken == null || !lastToken.equals(c.getTokenType())) {
-                    winning.clear();
-                    count = 1;
-                    lastToken = c.getTokenType();
-                    winning.add(new Pair<>(x, y));
-                } else {
-                    {
-                        count++;
-                        winning.add(new Pair<>(x, y));
-                        if (count == c4gp.winCount) {
-                            registerWinner(gameState, c, winning);
-                            return true;
-                        }
-                    }
-                    lastToken = c.getTokenType();
-                }
-            }
-        }
-
-        // Check rows
-        for (int y = gridBoard.getHeight() - 1; y >= 0; y--) {
-            int count = 0;
-            String lastToken = null;
-            winning.clear();
-            for (int x = 0; x < gridBoard.getWidth(); x++) {
-                Token c = gridBoard.getElement(x, y);
-                if (c.getTokenType().equals(Connect4Constants.emptyCell)) {
-                    count = 0;
-                    lastToken = null;
-                    winning.clear();
-                } else if (lastToken == null || !lastToken.equals(c.getTokenType())) {
-                    winning.clear();
-                    count = 1;
-                    lastToken = c.getTokenType();
-                    winning.add(new Pair<>(x, y));
-                } else {
-                    {
-                        count++;
-                        winning.add(new Pair<>(x, y));
-                        if (count == c4gp.winCount) {
-                            registerWinner(gameState, c, winning);
-                            return true;
-                        }
-                    }
-                    lastToken = c.getTokenType();
-                }
+    private boolean checkGameEnd(Connect4GameState gameState, int player) {
+        if (player > -1) {
+            LinkedList<Pair<Integer, Integer>> winning = findLine(gameState.playerRows[player],
+                    ((Connect4GameParameters) gameState.getGameParameters()).winCount);
+            if (winning != null) {
+                registerWinner(gameState, Connect4Constants.playerMapping.get(player), winning);
+                return true;
             }
         }
 
-        //Check main diagonals (from col 0)
-        for (int y = gridBoard.getHeight() - 1; y >= 0; y--) {
-            if (checkMainDiagonals(gameState, 0, y))
-                return true;
-
+        long full = allColumns(gameState.gridBoard.getWidth());
+        for (int y = 0; y < gameState.gridBoard.getHeight(); y++) {
+            if (occupied(gameState, y) != full)
+                return false;  // there is a gap, so we continue
         }
+        // tie
+        gameState.setGameStatus(CoreConstants.GameResult.DRAW_GAME);
+        Arrays.fill(gameState.getPlayerResults(), CoreConstants.GameResult.DRAW_GAME);
+        return true;
+    }
 
-        //Check main and inverse diagonals (from row 0)
-        for (int x = 1; x < gridBoard.getWidth(); x++) {
-            if (checkMainDiagonals(gameState, x, gridBoard.getHeight() - 1))
-                return true;
-            if (checkInvDiagonals(gameState, x, gridBoard.getHeight() - 1))
-                return true;
+    /**
+     * As checkGameEnd(), for a grid too wide for bitboards. A new line must pass through the token just placed, so
+     * we only look along the four lines through that cell; and the grid is full once the top row is.
+     */
+    private boolean checkGameEndByScan(Connect4GameState gameState, int player, int x, int y) {
+        IntGridBoard<Token> grid = gameState.gridBoard;
+        if (player > -1) {
+            int value = grid.getValue(x, y);
+            int winCount = ((Connect4GameParameters) gameState.getGameParameters()).winCount;
+            int[][] directions = {{1, 0}, {0, 1}, {1, 1}, {1, -1}};
+            for (int[] d : directions) {
+                // back to the start of the run of this player's tokens, then forward to its end
+                int startX = x, startY = y;
+                while (inGrid(grid, startX - d[0], startY - d[1]) && grid.getValue(startX - d[0], startY - d[1]) == value) {
+                    startX -= d[0];
+                    startY -= d[1];
+                }
+                int length = 1;
+                while (inGrid(grid, startX + length * d[0], startY + length * d[1]) &&
+                        grid.getValue(startX + length * d[0], startY + length * d[1]) == value)
+                    length++;
+                if (length >= winCount) {
+                    registerWinner(gameState, Connect4Constants.playerMapping.get(player), line(startX, startY, d[0], d[1], winCount));
+                    return true;
+                }
+            }
         }
 
-        //Check inv diagonals (from last column)
-        for (int y = gridBoard.getHeight() - 2; y >= 0; y--) { //height -1 is checked in previous loop
-            if (checkInvDiagonals(gameState, gridBoard.getWidth()-1, y))
-                return true;
+        for (int column = 0; column < grid.getWidth(); column++) {
+            if (grid.getValue(column, 0) == EMPTY)
+                return false;  // there is a gap, so we continue
         }
+        // tie
+        gameState.setGameStatus(CoreConstants.GameResult.DRAW_GAME);
+        Arrays.fill(gameState.getPlayerResults(), CoreConstants.GameResult.DRAW_GAME);
+        return true;
+    }
 
-        if (!gap) { //tie
-            gameState.setGameStatus(CoreConstants.GameResult.DRAW_GAME);
-            Arrays.fill(gameState.getPlayerResults(), CoreConstants.GameResult.DRAW_GAME);
-            return true;
-        }
+    private static boolean inGrid(IntGridBoard<Token> grid, int x, int y) {
+        return x >= 0 && x < grid.getWidth() && y >= 0 && y < grid.getHeight();
+    }
 
-        return false;
-    }
-
-
-    private boolean checkMainDiagonals(Connect4GameState gameState, int xStart, int yStart)
-    {
-        GridBoard<Token> gridBoard = gameState.getGridBoard();
-        Connect4GameParameters c4gp = (Connect4GameParameters) gameState.getGameParameters();
-        int count = 0;
-        String lastToken = null;
-        LinkedList<Pair<Integer, Integer>> winning = new LinkedList<>();
-
-        for (int x = xStart, y = yStart; x < gridBoard.getWidth() && y >=0; x++, y--) {
-            Token c = gridBoard.getElement(x, y);
-
-            if (c.getTokenType().equals(Connect4Constants.emptyCell)) {
-                count = 0;
-                lastToken = null;
-                winning.clear();
-            } else if (lastToken == null || !lastToken.equals(c.getTokenType())) {
-                winning.clear();
-                count = 1;
-                lastToken = c.getTokenType();
-                winning.add(new Pair<>(x, y));
-            } else {
-                count++;
-                winning.add(new Pair<>(x, y));
-                if (count == c4gp.winCount) {
-                    registerWinner(gameState, c, winning);
-                    return true;
-                }
-                lastToken = c.getTokenType();
-            }
+    /**
+     * Looks for winCount tokens in a row in one player's bitboard. Shifting each row by i lines up the bit for
+     * (x + i, y) with the bit for x, so ANDing the shifted rows leaves a bit set at the start of every line.
+     *
+     * @return the cells of the first line found, or null if there is none
+     */
+    private LinkedList<Pair<Integer, Integer>> findLine(long[] rows, int winCount) {
+        int height = rows.length;
+        for (int y = 0; y < height; y++) {
+            long horizontal = rows[y];
+            for (int i = 1; i < winCount && horizontal != 0; i++)
+                horizontal &= rows[y] >>> i;
+            if (horizontal != 0)
+                return line(Long.numberOfTrailingZeros(horizontal), y, 1, 0, winCount);
         }
-        return false;
-    }
-
-    private boolean checkInvDiagonals(Connect4GameState gameState, int xStart, int yStart)
-    {
-        GridBoard<Token> gridBoard = gameState.getGridBoard();
-        Connect4GameParameters c4gp = (Connect4GameParameters) gameState.getGameParameters();
-        int count = 0;
-        String lastToken = null;
-        LinkedList<Pair<Integer, Integer>> winning = new LinkedList<>();
-
-        for (int x = xStart, y = yStart; x >= 0 && y >= 0; x--, y--) {
-            Token c = gridBoard.getElement(x, y);
-
-            if (c.getTokenType().equals(Connect4Constants.emptyCell)) {
-                count = 0;
-                lastToken = null;
-                winning.clear();
-            } else if (lastToken == null || !lastToken.equals(c.getTokenType())) {
-                winning.clear();
-                count = 1;
-                lastToken = c.getTokenType();
-                winning.add(new Pair<>(x, y));
-            } else {
-                count++;
-                winning.add(new Pair<>(x, y));
-                if (count == c4gp.winCount) {
-                    registerWinner(gameState, c, winning);
-                    return true;
-                }
-                lastToken = c.getTokenType();
+        for (int y = 0; y + winCount <= height; y++) {
+            long vertical = rows[y], diagonal = rows[y], antiDiagonal = rows[y];
+            for (int i = 1; i < winCount; i++) {
+                vertical &= rows[y + i];
+                diagonal &= rows[y + i] >>> i;  // (x + i, y + i)
+                antiDiagonal &= rows[y + i] << i;  // (x - i, y + i)
             }
+            if (vertical != 0)
+                return line(Long.numberOfTrailingZeros(vertical), y, 0, 1, winCount);
+            if (diagonal != 0)
+                return line(Long.numberOfTrailingZeros(diagonal), y, 1, 1, winCount);
+            if (antiDiagonal != 0)
+                return line(Long.numberOfTrailingZeros(antiDiagonal), y, -1, 1, winCount);
         }
-        return false;
+        return null;
+    }
+
+    private LinkedList<Pair<Integer, Integer>> line(int x, int y, int dx, int dy, int length) {
+        LinkedList<Pair<Integer, Integer>> retValue = new LinkedList<>();
+        for (int i = 0; i < length; i++)
+            retValue.add(new Pair<>(x + i * dx, y + i * dy));
+        return retValue;
     }
 
     /**
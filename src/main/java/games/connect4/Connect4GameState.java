@@ -5,6 +5,7 @@ import core.AbstractGameStateWithTurnOrder;
 import core.AbstractParameters;
 import core.components.Component;
 import core.components.GridBoard;
+import core.components.IntGridBoard;
 import core.components.Token;
 import core.interfaces.IGridGameState;
 import core.interfaces.IPrintable;
@@ -20,8 +21,12 @@ import java.util.Objects;
 
 public class Connect4GameState extends AbstractGameState implements IPrintable, IGridGameState<Token> {
 
-    GridBoard<Token> gridBoard;
+    IntGridBoard<Token> gridBoard;
     LinkedList<Pair<Integer, Integer>> winnerCells;
+    // Bitboards kept in step with gridBoard by Connect4ForwardModel, and used for move generation and win detection.
+    // playerRows[p][y] has bit x set if player p has a token at (x, y)
+    // (null if the grid is too wide for a row to fit in a long, in which case the forward model scans the grid instead)
+    long[][] playerRows;
 
     public Connect4GameState(AbstractParameters gameParameters, int nPlayers) {
         super(gameParameters, nPlayers);
@@ -45,6 +50,11 @@ public class Connect4GameState extends AbstractGameState implements IPrintable,
     protected AbstractGameState _copy(int playerId) {
         Connect4GameState s = new Connect4GameState(gameParameters.copy(), getNPlayers());
         s.gridBoard = gridBoard.copy();
+        if (playerRows != null) {
+            s.playerRows = new long[playerRows.length][];
+            for (int p = 0; p < playerRows.length; p++)
+                s.playerRows[p] = playerRows[p].clone();
+        }
 
         s.winnerCells.clear();
         for (Pair<Integer, Integer> wC : this.winnerCells)
@@ -75,7 +85,6 @@ public class Connect4GameState extends AbstractGameState implements IPrintable,
     protected boolean _equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof Connect4GameState)) return false;
-        if (!super.equals(o)) return false;
         Connect4GameState that = (Connect4GameState) o;
         return Objects.equals(gridBoard, that.gridBoard);
     }
@@ -114,6 +123,13 @@ public class Connect4GameState extends AbstractGameState implements IPrintable,
         System.out.println(gridBoard.toString());
     }
 
+    void setToken(int x, int y, int player, boolean present) {
+        if (present)
+            playerRows[player][y] |= 1L << x;
+        else
+            playerRows[player][y] &= ~(1L << x);
+    }
+
     void registerWinningCells(LinkedList<Pair<Integer, Integer>> winnerCells) {
         this.winnerCells = winnerCells;
     }
@@ -2,12 +2,13 @@ package games.connect4;
 import core.AbstractGameState;
 import core.components.Token;
 import core.interfaces.IStateFeatureVector;
-import core.interfaces.IStateKey;
+import core.interfaces.IStateHash;
+import utilities.ZobristHashing;
 
 import java.util.Arrays;
 import java.util.stream.IntStream;
 
-public class Connect4StateVector implements IStateFeatureVector, IStateKey {
+public class Connect4StateVector implements IStateFeatureVector, IStateHash {
     // assume the grid is 8x8 ... if not, write a new StateVector
     private final String[] names = (String[]) IntStream.range(0, 8).boxed().flatMap(row ->
             IntStream.range(0, 3).mapToObj(col -> String.format("%d:%d", row, col))
@@ -41,4 +42,9 @@ public class Connect4StateVector implements IStateFeatureVector, IStateKey {
         double[] retValue = featureVector(state, state.getCurrentPlayer());
         return String.format("%d-%s", state.getCurrentPlayer(), Arrays.toString(retValue));
     }
+
+    @Override
+    public long getHash(AbstractGameState state) {
+        return ((Connect4GameState) state).gridBoard.getZobristHash() ^ ZobristHashing.playerKey(state.getCurrentPlayer());
+    }
 }
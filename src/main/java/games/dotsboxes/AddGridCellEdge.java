@@ -2,6 +2,7 @@ package games.dotsboxes;
 
 import core.AbstractGameState;
 import core.actions.AbstractAction;
+import utilities.ZobristHashing;
 
 import java.util.HashSet;
 import java.util.Objects;
@@ -20,7 +21,8 @@ public class AddGridCellEdge extends AbstractAction {
 
         int nCellsCompleteBefore = dbgs.cellToOwnerMap.size();
         // Mark this edge as complete by current player and check if connected cells are complete too
-        dbgs.edgeToOwnerMap.put(edge, gs.getCurrentPlayer());
+        if (dbgs.edgeToOwnerMap.put(edge, gs.getCurrentPlayer()) == null)
+            dbgs.edgeHash ^= ZobristHashing.key(edge.position(), 1);
 
         HashSet<DBCell> cells = dbgs.edgeToCellMap.get(edge);
         for (DBCell c : cells) {
@@ -33,6 +33,13 @@ public class DBEdge extends Component {
         return Objects.hash(from, to) + Objects.hash(to, from);
     }
 
+    /**
+     * @return a unique index for the position of this edge on the board (twice its midpoint), for use in hashing
+     */
+    int position() {
+        return (from.getX() + to.getX()) * 1024 + from.getY() + to.getY();
+    }
+
     public DBEdge copy() {
         return this;  // Immutable
     }
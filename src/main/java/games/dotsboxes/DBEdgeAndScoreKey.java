@@ -1,12 +1,13 @@
 package games.dotsboxes;
 
 import core.AbstractGameState;
-import core.interfaces.IStateKey;
+import core.interfaces.IStateHash;
+import utilities.ZobristHashing;
 
 import java.util.Arrays;
 import java.util.stream.Collectors;
 
-public class DBEdgeAndScoreKey implements IStateKey {
+public class DBEdgeAndScoreKey implements IStateHash {
 
     @Override
     public String getKey(AbstractGameState state) {
@@ -18,4 +19,14 @@ public class DBEdgeAndScoreKey implements IStateKey {
         String scoreString = "Scores: " + Arrays.toString(dbgs.nCellsPerPlayer);
         return state.getCurrentPlayer() + " " + edgeString + scoreString;
     }
+
+    @Override
+    public long getHash(AbstractGameState state) {
+        DBGameState dbgs = (DBGameState) state;
+        long retValue = dbgs.edgeHash ^ ZobristHashing.playerKey(state.getCurrentPlayer());
+        // scores use negative positions, so as not to clash with any edge
+        for (int p = 0; p < dbgs.nCellsPerPlayer.length; p++)
+            retValue ^= ZobristHashing.key(-1 - p, dbgs.nCellsPerPlayer[p]);
+        return retValue;
+    }
 }
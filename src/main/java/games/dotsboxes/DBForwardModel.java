@@ -2,8 +2,10 @@ package games.dotsboxes;
 
 import core.AbstractGameState;
 import core.StandardForwardModel;
+import core.UndoRecord;
 import core.actions.AbstractAction;
 import utilities.Vector2D;
+import utilities.ZobristHashing;
 
 import java.util.*;
 
@@ -20,6 +22,7 @@ public class DBForwardModel extends StandardForwardModel {
         dbgs.cellToEdgesMap = new HashMap<>();
         dbgs.cellToOwnerMap = new HashMap<>();
         dbgs.edgeToOwnerMap = new HashMap<>();
+        dbgs.edgeHash = 0;
         dbgs.edges = new HashSet<>();
         dbgs.cells = new HashSet<>();
         for (int i = 0; i < dbp.gridHeight; i++) {
@@ -47,6 +50,52 @@ public class DBForwardModel extends StandardForwardModel {
         dbgs.nCellsPerPlayer = new int[dbgs.getNPlayers()];
     }
 
+    @Override
+    public boolean supportsUndo() {
+        return true;
+    }
+
+    @Override
+    protected void _recordUndo(AbstractGameState currentState, AbstractAction action, UndoRecord record) {
+        DBGameState dbgs = (DBGameState) currentState;
+        DBEdge edge = ((AddGridCellEdge) action).edge;
+        HashSet<DBCell> cells = dbgs.edgeToCellMap.get(edge);
+        for (DBCell c : cells) {
+            record.pushObject(c);
+            record.pushObject(dbgs.cellToOwnerMap.get(c));
+        }
+        record.pushInt(cells.size());
+        record.pushObject(dbgs.edgeToOwnerMap.get(edge));
+        record.pushBoolean(dbgs.lastActionDidNotScore);
+    }
+
+    @Override
+    protected void _undo(AbstractGameState currentState, AbstractAction action, UndoRecord record) {
+        DBGameState dbgs = (DBGameState) currentState;
+        DBEdge edge = ((AddGridCellEdge) action).edge;
+        dbgs.lastActionDidNotScore = record.popBoolean();
+        Integer previousEdgeOwner = record.popObject();
+        int nCells = record.popInt();
+        for (int i = 0; i < nCells; i++) {
+            Integer previousCellOwner = record.popObject();
+            DBCell c = record.popObject();
+            // AddGridCellEdge (re)assigns every neighbouring cell that is complete once the edge is placed
+            if (dbgs.countCompleteEdges(c) == 4) {
+                dbgs.nCellsPerPlayer[dbgs.cellToOwnerMap.get(c)]--;
+                if (previousCellOwner == null)
+                    dbgs.cellToOwnerMap.remove(c);
+                else
+                    dbgs.cellToOwnerMap.put(c, previousCellOwner);
+            }
+        }
+        if (previousEdgeOwner == null) {
+            dbgs.edgeToOwnerMap.remove(edge);
+            dbgs.edgeHash ^= ZobristHashing.key(edge.position(), 1);
+        } else {
+            dbgs.edgeToOwnerMap.put(edge, previousEdgeOwner);
+        }
+    }
+
     @Override
     protected void _afterAction(AbstractGameState currentState, AbstractAction action) {
         DBGameState dbgs = (DBGameState) currentState;
@@ -26,6 +26,7 @@ public class DBGameState extends AbstractGameState {
     HashMap<DBCell, Integer> cellToOwnerMap;  // Mapping from each cell to its owner, if complete
     HashMap<DBEdge, Integer> edgeToOwnerMap;  // Mapping from each edge to its owner, if placed
     boolean lastActionDidNotScore;
+    long edgeHash;  // Zobrist hash of the placed edges (ignoring owner), maintained by AddGridCellEdge
 
     /**
      * Constructor. Initialises some generic game state variables.
@@ -55,6 +56,7 @@ public class DBGameState extends AbstractGameState {
         dbgs.edgeToCellMap = edgeToCellMap;
         dbgs.cellToEdgesMap = cellToEdgesMap;
         dbgs.lastActionDidNotScore = lastActionDidNotScore;
+        dbgs.edgeHash = edgeHash;
 
         dbgs.nCellsPerPlayer = nCellsPerPlayer.clone();
         dbgs.cellToOwnerMap = (HashMap<DBCell, Integer>) cellToOwnerMap.clone();
@@ -88,7 +90,6 @@ public class DBGameState extends AbstractGameState {
     public boolean _equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof DBGameState)) return false;
-        if (!super.equals(o)) return false;
         DBGameState that = (DBGameState) o;
         return lastActionDidNotScore == that.lastActionDidNotScore && Objects.equals(heuristic, that.heuristic)
                 && Objects.equals(edges, that.edges) && Objects.equals(cells, that.cells) &&
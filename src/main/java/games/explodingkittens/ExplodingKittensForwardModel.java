@@ -62,15 +62,11 @@ public class ExplodingKittensForwardModel extends AbstractForwardModel implement
             playerHandCards.add(playerCards);
 
             // Add defuse card
-            ExplodingKittensCard defuse =  new ExplodingKittensCard(ExplodingKittensCard.CardType.DEFUSE);
-            defuse.setOwnerId(i);
-            playerCards.add(defuse);
+            playerCards.add(new ExplodingKittensCard(ExplodingKittensCard.CardType.DEFUSE));
 
             // Add N random cards from the deck
             for (int j = 0; j < ekp.nCardsPerPlayer; j++) {
-                ExplodingKittensCard c = ekgs.getDrawPile().draw();
-                c.setOwnerId(i);
-                playerCards.add(c);
+                playerCards.add(ekgs.getDrawPile().draw());
             }
         }
         ekgs.setPlayerHandCards(playerHandCards);
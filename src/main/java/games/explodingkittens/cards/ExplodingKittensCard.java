@@ -19,7 +19,7 @@ public class ExplodingKittensCard extends Card {
         RAINBOWCAT,
     }
 
-    public CardType cardType;
+    public final CardType cardType;
 
     public ExplodingKittensCard(CardType cardType) {
         super(cardType.toString());
@@ -33,7 +33,12 @@ public class ExplodingKittensCard extends Card {
 
     @Override
     public Card copy() {
-        return new ExplodingKittensCard(cardType, componentID);
+        return this; // immutable
+    }
+
+    @Override
+    public boolean isImmutable() {
+        return true;
     }
 
     @Override
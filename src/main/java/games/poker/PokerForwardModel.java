@@ -10,7 +10,6 @@ import core.components.FrenchCard;
 import games.poker.actions.*;
 import games.poker.actions.Fold;
 import games.poker.components.MoneyPot;
-import utilities.Pair;
 
 import java.util.*;
 
@@ -188,13 +187,11 @@ public class PokerForwardModel extends StandardForwardModel {
     private void roundEnd(PokerGameState pgs) {
         // Calculate winner of round for each of the pots, they earn the money. Ties split money equally.
 
-        Pair<Map<Integer, Integer>, Map<Integer, Set<Integer>>> translated = translatePokerHands(pgs);
-        Map<Integer, Integer> ranks = translated.a;
-        Map<Integer, Set<Integer>> hands = translated.b;
+        Map<Integer, Integer> handValues = evaluatePokerHands(pgs);
 
         for (MoneyPot pot : pgs.moneyPots) {
             // Calculate winners separately for each money pot
-            Set<Integer> winners = getWinner(pgs, pot, ranks, hands);
+            Set<Integer> winners = getWinner(pgs, pot, handValues);
             if (winners.isEmpty()) {
                 // then we return to the participants their personal contribution
                 for (int i : pot.getPlayerContribution().keySet()) {
@@ -244,63 +241,41 @@ public class PokerForwardModel extends StandardForwardModel {
         }
     }
 
-    public Pair<Map<Integer, Integer>, Map<Integer, Set<Integer>>> translatePokerHands(PokerGameState pgs) {
-        Map<Integer, Integer> ranks = new HashMap<>();
-        Map<Integer, Set<Integer>> hands = new HashMap<>();
+    /**
+     * Scores the best hand of each player still in the round, from their own cards and the community cards.
+     *
+     * @param pgs - current game state
+     * @return - hand value of each player still in the round (see PokerHandEvaluator; higher is better)
+     */
+    public Map<Integer, Integer> evaluatePokerHands(PokerGameState pgs) {
+        Map<Integer, Integer> handValues = new HashMap<>();
+        List<FrenchCard> cards = new ArrayList<>();
         for (int i = 0; i < pgs.getNPlayers(); i++) {
             if (!pgs.playerFold[i] && pgs.getPlayerResults()[i] != LOSE_GAME) {
-                Deck<FrenchCard> cardsToEvaluate = pgs.playerDecks.get(i).copy();
-                cardsToEvaluate.add(pgs.communityCards.copy());
-                Pair<PokerGameState.PokerHand, HashSet<Integer>> hand = PokerGameState.PokerHand.translateHand(cardsToEvaluate);
-                if (hand != null) {
-                    ranks.put(i, hand.a.rank);
-                    hands.put(i, hand.b);
-                }
+                cards.clear();
+                cards.addAll(pgs.playerDecks.get(i).getComponents());
+                cards.addAll(pgs.communityCards.getComponents());
+                handValues.put(i, PokerHandEvaluator.evaluate(cards));
             }
         }
-        return new Pair<>(ranks, hands);
+        return handValues;
     }
 
-    @SuppressWarnings("unchecked")
-    public Set<Integer> getWinner(PokerGameState pgs, MoneyPot pot,
-                                  Map<Integer, Integer> ranks, Map<Integer, Set<Integer>> hands) {
-        // Calculate winners separately for each money pot
-        Set<Integer> playersInPot = new HashSet<>(pot.getPlayerContribution().keySet());
-
-        int smallestRank = 11;
-        for (int i : playersInPot) {
-            if (!pgs.playerFold[i] && pgs.getPlayerResults()[i] != LOSE_GAME && ranks.containsKey(i) && ranks.get(i) < smallestRank) {
-                smallestRank = ranks.get(i);
-            }
-        }
+    /**
+     * @return - the players still in the round with the best hand, of those who contributed to the pot. May be
+     * more than one if tied, or none if all contributors have folded.
+     */
+    public Set<Integer> getWinner(PokerGameState pgs, MoneyPot pot, Map<Integer, Integer> handValues) {
         Set<Integer> winners = new HashSet<>();
-        for (int i : playersInPot) {
-            if (!pgs.playerFold[i] && pgs.getPlayerResults()[i] != LOSE_GAME) {
-                if (ranks.get(i) == smallestRank) winners.add(i);
-            }
-        }
-        if (winners.size() > 1) {
-            // A tie in rank, check card values
-            ArrayList<Integer>[] cardValues = new ArrayList[pgs.getNPlayers()];
-            int nCards = 0;
-            for (int i : winners) {
-                cardValues[i] = new ArrayList<>(hands.get(i));
-                cardValues[i].sort(Collections.reverseOrder());
-                nCards = cardValues[i].size();
-            }
-            for (int j = 0; j < nCards; j++) {
-                // Checking card by card, once one player is found the winner we break; could still be a tie
-                int maxValue = 0;
-                for (int i : winners) {
-                    if (cardValues[i].get(j) > maxValue) maxValue = cardValues[i].get(j);
-                }
-                HashSet<Integer> actualWinners = new HashSet<>();
-                for (int i : winners) {
-                    if (cardValues[i].get(j) == maxValue) actualWinners.add(i);
-                }
-                if (actualWinners.size() == 1 || j == nCards - 1) {
-                    return actualWinners;
+        int best = -1;
+        for (int i : pot.getPlayerContribution().keySet()) {
+            if (!pgs.playerFold[i] && pgs.getPlayerResults()[i] != LOSE_GAME && handValues.containsKey(i)) {
+                int value = handValues.get(i);
+                if (value > best) {
+                    winners.clear();
+                    best = value;
                 }
+                if (value == best) winners.add(i);
             }
         }
         return winners;
@@ -0,0 +1,206 @@
+package games.poker;
+
+import core.components.FrenchCard;
+
+import java.util.List;
+
+import static games.poker.PokerGameState.PokerHand.*;
+
+/**
+ * Scores poker hands with lookup tables, built once on first use:
+ * - a flush table, indexed by the 13-bit mask of the ranks held in one suit, with the best flush or straight flush
+ * that can be made from them;
+ * - for each hand size up to MAX_TABLE_CARDS, a table indexed by a perfect hash of the number of cards held of each
+ * rank (a base-5 digit per rank, ranked among all such vectors with the same total), with the best hand that does
+ * not need a flush.
+ * The value of a hand is the larger of the two lookups. Larger hands are scored directly, in the same way as the
+ * tables are filled.
+ * <p>
+ * The value of a hand is its category (see PokerGameState.PokerHand) followed by up to 5 card ranks to break ties,
+ * 4 bits each, so that a higher value is a better hand and hands that tie have the same value. Hands with fewer than
+ * 5 cards can only make pairs, two pairs, three or four of a kind, or high card.
+ */
+public class PokerHandEvaluator {
+
+    static final int N_RANKS = 13;
+    static final int MAX_TABLE_CARDS = 7;
+    private static final int MIN_RANK = 2;  // card number of the lowest rank
+    private static final int CATEGORY_SHIFT = 20;
+
+    /**
+     * Tables are in a holder class, so they are only built when the first hand is scored.
+     */
+    private static class Tables {
+        static final int[] flush = new int[1 << N_RANKS];
+        static final int[][] ranks = new int[MAX_TABLE_CARDS + 1][];
+        // hashOffset[r][c][n] is added to the hash when rank r has c cards, with n cards still to place in ranks >= r
+        static final int[][][] hashOffset = new int[N_RANKS][5][MAX_TABLE_CARDS + 1];
+
+        static {
+            for (int mask = 0; mask < flush.length; mask++) {
+                if (Integer.bitCount(mask) >= 5)
+                    flush[mask] = scoreSuit(mask);
+            }
+            // nVectors[r][n] = number of ways to hold n cards in ranks r and above, with at most 4 of each
+            int[][] nVectors = new int[N_RANKS + 1][MAX_TABLE_CARDS + 1];
+            nVectors[N_RANKS][0] = 1;
+            for (int r = N_RANKS - 1; r >= 0; r--) {
+                for (int n = 0; n <= MAX_TABLE_CARDS; n++) {
+                    for (int c = 0; c <= Math.min(4, n); c++)
+                        nVectors[r][n] += nVectors[r + 1][n - c];
+                }
+            }
+            for (int r = 0; r < N_RANKS; r++) {
+                for (int n = 0; n <= MAX_TABLE_CARDS; n++) {
+                    for (int c = 1; c <= 4; c++)
+                        hashOffset[r][c][n] = hashOffset[r][c - 1][n] + (n - c + 1 >= 0 ? nVectors[r + 1][n - c + 1] : 0);
+                }
+            }
+            for (int n = 0; n <= MAX_TABLE_CARDS; n++) {
+                ranks[n] = new int[nVectors[0][n]];
+                fill(ranks[n], new int[N_RANKS], 0, n);
+            }
+        }
+
+        private static void fill(int[] table, int[] counts, int rank, int remaining) {
+            if (rank == N_RANKS) {
+                if (remaining == 0)
+                    table[hash(counts)] = scoreRanks(counts);
+                return;
+            }
+            for (int c = 0; c <= Math.min(4, remaining); c++) {
+                counts[rank] = c;
+                fill(table, counts, rank + 1, remaining - c);
+            }
+            counts[rank] = 0;
+        }
+    }
+
+    private PokerHandEvaluator() {
+    }
+
+    /**
+     * @param cards - any number of distinct cards
+     * @return the value of the best poker hand of (up to) 5 of the cards; higher is better
+     */
+    public static int evaluate(List<FrenchCard> cards) {
+        int[] counts = new int[N_RANKS];
+        int[] suitMasks = new int[FrenchCard.Suite.values().length];
+        for (FrenchCard card : cards) {
+            int rank = card.number - MIN_RANK;
+            counts[rank]++;
+            suitMasks[card.suite.ordinal()] |= 1 << rank;
+        }
+        int value = cards.size() <= MAX_TABLE_CARDS ?
+                Tables.ranks[cards.size()][hash(counts)] :
+                scoreRanks(counts);
+        for (int mask : suitMasks) {
+            if (Integer.bitCount(mask) >= 5)
+                value = Math.max(value, Tables.flush[mask]);
+        }
+        return value;
+    }
+
+    /**
+     * @return the category of a hand, given its value
+     */
+    public static PokerGameState.PokerHand getCategory(int value) {
+        int rank = HighCard.rank + RoyalFlush.rank - (value >>> CATEGORY_SHIFT);
+        for (PokerGameState.PokerHand hand : PokerGameState.PokerHand.values()) {
+            if (hand.rank == rank) return hand;
+        }
+        throw new IllegalArgumentException("Not a hand value: " + value);
+    }
+
+    private static int hash(int[] counts) {
+        int h = 0, remaining = 0;
+        for (int c : counts) remaining += c;
+        for (int r = 0; r < N_RANKS && remaining > 0; r++) {
+            h += Tables.hashOffset[r][counts[r]][remaining];
+            remaining -= counts[r];
+        }
+        return h;
+    }
+
+    /**
+     * Builds a hand value from its category and the ranks (0-12) that break ties, most significant first.
+     */
+    private static int value(PokerGameState.PokerHand category, int... ranks) {
+        int v = HighCard.rank + RoyalFlush.rank - category.rank;
+        for (int i = 0; i < 5; i++)
+            v = (v << 4) | (i < ranks.length ? ranks[i] + 1 : 0);
+        return v;
+    }
+
+    /**
+     * @return the highest rank of a 5-card straight in the mask, or -1; the ace also counts as the lowest rank
+     */
+    private static int highestStraight(int mask) {
+        int withLowAce = (mask << 1) | (mask >>> (N_RANKS - 1) & 1);
+        for (int high = N_RANKS; high >= 4; high--) {
+            if ((withLowAce >>> (high - 4) & 0b11111) == 0b11111) return high - 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Best flush or straight flush from the ranks held in one suit (at least 5).
+     */
+    static int scoreSuit(int mask) {
+        int straight = highestStraight(mask);
+        if (straight == N_RANKS - 1) return value(RoyalFlush, straight);
+        if (straight >= 0) return value(StraightFlush, straight);
+        return value(Flush, topRanks(mask, 5));
+    }
+
+    /**
+     * Best hand that does not use a flush, from the number of cards held of each rank.
+     */
+    static int scoreRanks(int[] counts) {
+        int mask = 0, quad = -1, trip = -1, pair = -1, secondPair = -1;
+        for (int r = N_RANKS - 1; r >= 0; r--) {
+            int c = counts[r];
+            if (c > 0) mask |= 1 << r;
+            if (c == 4 && quad < 0) quad = r;
+            else if (c >= 3 && trip < 0) trip = r;
+            else if (c >= 2) {
+                if (pair < 0) pair = r;
+                else if (secondPair < 0) secondPair = r;
+            }
+        }
+        if (quad >= 0)
+            return value(FourOfAKind, prepend(quad, topRanks(mask & ~(1 << quad), 1)));
+        // (a second set of three is counted as the pair of a full house)
+        if (trip >= 0 && pair >= 0)
+            return value(FullHouse, trip, pair);
+        int straight = highestStraight(mask);
+        if (straight >= 0)
+            return value(Straight, straight);
+        if (trip >= 0)
+            return value(ThreeOfAKind, prepend(trip, topRanks(mask & ~(1 << trip), 2)));
+        if (secondPair >= 0)
+            return value(TwoPair, prepend(pair, prepend(secondPair, topRanks(mask & ~(1 << pair) & ~(1 << secondPair), 1))));
+        if (pair >= 0)
+            return value(OnePair, prepend(pair, topRanks(mask & ~(1 << pair), 3)));
+        return value(HighCard, topRanks(mask, 5));
+    }
+
+    /**
+     * @return up to n of the ranks in the mask, highest first
+     */
+    private static int[] topRanks(int mask, int n) {
+        int[] ranks = new int[Math.min(n, Integer.bitCount(mask))];
+        for (int i = 0; i < ranks.length; i++) {
+            ranks[i] = 31 - Integer.numberOfLeadingZeros(mask);
+            mask &= ~(1 << ranks[i]);
+        }
+        return ranks;
+    }
+
+    private static int[] prepend(int first, int[] rest) {
+        int[] ranks = new int[rest.length + 1];
+        ranks[0] = first;
+        System.arraycopy(rest, 0, ranks, 1, rest.length);
+        return ranks;
+    }
+}
@@ -3,10 +3,11 @@ package games.tictactoe;
 import core.AbstractGameState;
 import core.CoreConstants;
 import core.StandardForwardModel;
+import core.UndoRecord;
 import core.actions.AbstractAction;
 import core.actions.ActionSpace;
 import core.actions.SetGridValueAction;
-import core.components.GridBoard;
+import core.components.IntGridBoard;
 import core.components.Token;
 import core.interfaces.ITreeActionSpace;
 import utilities.ActionTreeNode;
@@ -22,8 +23,15 @@ public class TicTacToeForwardModel extends StandardForwardModel implements ITree
     protected void _setup(AbstractGameState firstState) {
         TicTacToeGameParameters tttgp = (TicTacToeGameParameters) firstState.getGameParameters();
         int gridSize = tttgp.gridSize;
+        if (gridSize > 8)
+            throw new IllegalArgumentException("TicTacToe grid size cannot be more than 8, as the board is held in a long");
         TicTacToeGameState state = (TicTacToeGameState) firstState;
-        state.gridBoard = new GridBoard<>(gridSize, gridSize, new Token(TicTacToeConstants.emptyCell));
+        // the empty cell is the first value, so that all cells start empty
+        List<Token> cellValues = new ArrayList<>();
+        cellValues.add(new Token(TicTacToeConstants.emptyCell));
+        cellValues.addAll(TicTacToeConstants.playerMapping);
+        state.gridBoard = new IntGridBoard<>(gridSize, gridSize, cellValues);
+        state.playerBits = new long[TicTacToeConstants.playerMapping.size()];
     }
 
 
@@ -37,106 +45,89 @@ public class TicTacToeForwardModel extends StandardForwardModel implements ITree
         ArrayList<AbstractAction> actions = new ArrayList<>();
         int player = gameState.getCurrentPlayer();
 
-        if (gameState.isNotTerminal()){
+        if (gameState.isNotTerminal()) {
             // Normal action space
-            for (int x = 0; x < tttgs.gridBoard.getWidth(); x++) {
-                for (int y = 0; y < tttgs.gridBoard.getHeight(); y++) {
-                    if (tttgs.gridBoard.getElement(x, y).getTokenType().equals(TicTacToeConstants.emptyCell)) {
-                        actions.add(new SetGridValueAction<>(tttgs.gridBoard.getComponentID(), x, y, TicTacToeConstants.playerMapping.get(player)));
-                    }
-                }
+            // bits are ordered by x then y, so this gives the actions in the same order as a scan of the grid
+            int height = tttgs.gridBoard.getHeight();
+            for (long empty = allCells(tttgs) & ~occupied(tttgs); empty != 0; empty &= empty - 1) {
+                int bit = Long.numberOfTrailingZeros(empty);
+                actions.add(new SetGridValueAction<>(tttgs.gridBoard.getComponentID(), bit / height, bit % height, TicTacToeConstants.playerMapping.get(player)));
             }
         }
         return actions;
-        }
+    }
+
+    private static long allCells(TicTacToeGameState tttgs) {
+        int size = tttgs.gridBoard.getWidth() * tttgs.gridBoard.getHeight();
+        return size == 64 ? -1L : (1L << size) - 1;
+    }
+
+    private static long occupied(TicTacToeGameState tttgs) {
+        long retValue = 0;
+        for (long bits : tttgs.playerBits)
+            retValue |= bits;
+        return retValue;
+    }
+
+    @Override
+    public boolean supportsUndo() {
+        return true;
+    }
+
+    @Override
+    protected void _recordUndo(AbstractGameState currentState, AbstractAction action, UndoRecord record) {
+        SetGridValueAction<?> setAction = (SetGridValueAction<?>) action;
+        record.pushObject(((TicTacToeGameState) currentState).gridBoard.getElement(setAction.getX(), setAction.getY()));
+    }
+
+    @Override
+    protected void _undo(AbstractGameState currentState, AbstractAction action, UndoRecord record) {
+        TicTacToeGameState tttgs = (TicTacToeGameState) currentState;
+        SetGridValueAction<?> setAction = (SetGridValueAction<?>) action;
+        Token previous = record.popObject();
+        updateBitboards(tttgs, setAction.getX(), setAction.getY(), (Token) setAction.getValue(), previous);
+        tttgs.gridBoard.setElement(setAction.getX(), setAction.getY(), previous);
+    }
+
+    @Override
+    protected void _beforeAction(AbstractGameState currentState, AbstractAction action) {
+        TicTacToeGameState tttgs = (TicTacToeGameState) currentState;
+        SetGridValueAction<?> setAction = (SetGridValueAction<?>) action;
+        updateBitboards(tttgs, setAction.getX(), setAction.getY(),
+                tttgs.gridBoard.getElement(setAction.getX(), setAction.getY()), (Token) setAction.getValue());
+    }
+
+    private void updateBitboards(TicTacToeGameState tttgs, int x, int y, Token from, Token to) {
+        int fromPlayer = TicTacToeConstants.playerMapping.indexOf(from);
+        if (fromPlayer > -1)
+            tttgs.setToken(x, y, fromPlayer, false);
+        int toPlayer = TicTacToeConstants.playerMapping.indexOf(to);
+        if (toPlayer > -1)
+            tttgs.setToken(x, y, toPlayer, true);
+    }
 
     @Override
     protected void _afterAction(AbstractGameState currentState, AbstractAction action) {
-        if (checkAndProcessGameEnd((TicTacToeGameState) currentState)) {
+        int player = TicTacToeConstants.playerMapping.indexOf((Token) ((SetGridValueAction<?>) action).getValue());
+        if (checkAndProcessGameEnd((TicTacToeGameState) currentState, player)) {
             return;
         }
         endPlayerTurn(currentState);
     }
 
     /**
-     * Checks if the game ended.
+     * Checks if the game ended, after the specified player has placed a token.
+     * A player can only complete a line on their own move, so we just look for a line of theirs.
      *
      * @param gameState - game state to check game end.
      */
-    private boolean checkAndProcessGameEnd(TicTacToeGameState gameState) {
-        GridBoard<Token> gridBoard = gameState.getGridBoard();
-
-        // Check columns
-        for (int x = 0; x < gridBoard.getWidth(); x++) {
-            Token c = gridBoard.getElement(x, 0);
-            if (!c.getTokenType().equals(TicTacToeConstants.emptyCell)) {
-                boolean win = true;
-                for (int y = 1; y < gridBoard.getHeight(); y++) {
-                    Token o = gridBoard.getElement(x, y);
-                    if (o.getTokenType().equals(TicTacToeConstants.emptyCell) || !o.equals(c)) {
-                        win = false;
-                        break;
-                    }
-                }
-                if (win) {
-                    registerWinner(gameState, c);
-                    return true;
-                }
-            }
-        }
-
-        // Check rows
-        for (int y = 0; y < gridBoard.getHeight(); y++) {
-            Token c = gridBoard.getElement(0, y);
-            if (!c.getTokenType().equals(TicTacToeConstants.emptyCell)) {
-                boolean win = true;
-                for (int x = 1; x < gridBoard.getWidth(); x++) {
-                    Token o = gridBoard.getElement(x, y);
-                    if (o.getTokenType().equals(TicTacToeConstants.emptyCell) || !o.equals(c)) {
-                        win = false;
-                        break;
-                    }
-                }
-                if (win) {
-                    registerWinner(gameState, c);
-                    return true;
-                }
-            }
+    private boolean checkAndProcessGameEnd(TicTacToeGameState gameState, int player) {
+        if (player > -1 && hasLine(gameState, gameState.playerBits[player])) {
+            registerWinner(gameState, TicTacToeConstants.playerMapping.get(player));
+            return true;
         }
 
-        // Check diagonals
-        // Primary
-        Token c = gridBoard.getElement(0, 0);
-        if (!c.getTokenType().equals(TicTacToeConstants.emptyCell)) {
-            boolean win = true;
-            for (int i = 1; i < gridBoard.getWidth(); i++) {
-                Token o = gridBoard.getElement(i, i);
-                if (o.getTokenType().equals(TicTacToeConstants.emptyCell) || !o.equals(c)) {
-                    win = false;
-                }
-            }
-            if (win) {
-                registerWinner(gameState, c);
-                return true;
-            }
-        }
-
-        // Secondary
-        c = gridBoard.getElement(gridBoard.getWidth() - 1, 0);
-        if (!c.getTokenType().equals(TicTacToeConstants.emptyCell)) {
-            boolean win = true;
-            for (int i = 1; i < gridBoard.getWidth(); i++) {
-                Token o = gridBoard.getElement(gridBoard.getWidth() - 1 - i, i);
-                if (o.getTokenType().equals(TicTacToeConstants.emptyCell) || !o.equals(c)) {
-                    win = false;
-                }
-            }
-            if (win) {
-                registerWinner(gameState, c);
-                return true;
-            }
-        }
-        boolean tie = gridBoard.getComponents().stream().noneMatch(t -> t.getTokenType().equals(TicTacToeConstants.emptyCell));
+        boolean tie = occupied(gameState) == allCells(gameState);
 
         if (tie) {
             gameState.setGameStatus(CoreConstants.GameResult.DRAW_GAME);
@@ -146,6 +137,35 @@ public class TicTacToeForwardModel extends StandardForwardModel implements ITree
         return tie;
     }
 
+    /**
+     * Checks the bitboard of one player for a complete column, row or diagonal.
+     * With bits ordered by x then y, a column is a contiguous block of bits, and a row is every height-th bit.
+     */
+    private boolean hasLine(TicTacToeGameState gameState, long bits) {
+        int width = gameState.gridBoard.getWidth();
+        int height = gameState.gridBoard.getHeight();
+        long column = (1L << height) - 1;
+        long row = 0, primary = 0, secondary = 0;
+        for (int x = 0; x < width; x++) {
+            row |= 1L << gameState.bitIndex(x, 0);
+            if (x < height) {
+                primary |= 1L << gameState.bitIndex(x, x);
+                secondary |= 1L << gameState.bitIndex(width - 1 - x, x);
+            }
+        }
+        for (int x = 0; x < width; x++) {
+            long mask = column << (x * height);
+            if ((bits & mask) == mask)
+                return true;
+        }
+        for (int y = 0; y < height; y++) {
+            long mask = row << y;
+            if ((bits & mask) == mask)
+                return true;
+        }
+        return (bits & primary) == primary || (bits & secondary) == secondary;
+    }
+
     /**
      * Inform the game this player has won.
      *
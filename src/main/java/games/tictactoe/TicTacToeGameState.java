@@ -4,6 +4,7 @@ import core.AbstractGameState;
 import core.AbstractParameters;
 import core.components.Component;
 import core.components.GridBoard;
+import core.components.IntGridBoard;
 import core.components.Token;
 import core.interfaces.IGridGameState;
 import core.interfaces.IPrintable;
@@ -18,7 +19,10 @@ import java.util.Objects;
 
 public class TicTacToeGameState extends AbstractGameState implements IPrintable, IGridGameState<Token> {
 
-    GridBoard<Token> gridBoard;
+    IntGridBoard<Token> gridBoard;
+    // Bitboards kept in step with gridBoard by TicTacToeForwardModel, and used for move generation and win detection.
+    // playerBits[p] has bit (x * height + y) set if player p has a token at (x, y)
+    long[] playerBits;
 
     public TicTacToeGameState(AbstractParameters gameParameters, int nPlayers) {
         super(gameParameters, nPlayers);
@@ -40,6 +44,7 @@ public class TicTacToeGameState extends AbstractGameState implements IPrintable,
     protected TicTacToeGameState _copy(int playerId) {
         TicTacToeGameState s = new TicTacToeGameState(gameParameters.copy(), getNPlayers());
         s.gridBoard = gridBoard.copy();
+        s.playerBits = playerBits.clone();
         return s;
     }
 
@@ -92,4 +97,15 @@ public class TicTacToeGameState extends AbstractGameState implements IPrintable,
         System.out.println(gridBoard.toString());
     }
 
+    int bitIndex(int x, int y) {
+        return x * gridBoard.getHeight() + y;
+    }
+
+    void setToken(int x, int y, int player, boolean present) {
+        if (present)
+            playerBits[player] |= 1L << bitIndex(x, y);
+        else
+            playerBits[player] &= ~(1L << bitIndex(x, y));
+    }
+
 }
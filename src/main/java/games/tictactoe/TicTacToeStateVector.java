@@ -3,11 +3,13 @@ package games.tictactoe;
 import core.AbstractGameState;
 import core.components.Token;
 import core.interfaces.IStateFeatureVector;
+import core.interfaces.IStateHash;
+import utilities.ZobristHashing;
 
 import java.util.Arrays;
 import java.util.stream.IntStream;
 
-public class TicTacToeStateVector implements IStateFeatureVector {
+public class TicTacToeStateVector implements IStateFeatureVector, IStateHash {
 
     // assume the grid is 3x3 ... if not, write a new StateVector
     private final String[] names = IntStream.range(0, 3).boxed().flatMap(row ->
@@ -36,4 +38,15 @@ public class TicTacToeStateVector implements IStateFeatureVector {
     public String[] names() {
         return names;
     }
-}
\ No newline at end of file
+
+    @Override
+    public String getKey(AbstractGameState state) {
+        double[] retValue = featureVector(state, state.getCurrentPlayer());
+        return String.format("%d-%s", state.getCurrentPlayer(), Arrays.toString(retValue));
+    }
+
+    @Override
+    public long getHash(AbstractGameState state) {
+        return ((TicTacToeGameState) state).gridBoard.getZobristHash() ^ ZobristHashing.playerKey(state.getCurrentPlayer());
+    }
+}
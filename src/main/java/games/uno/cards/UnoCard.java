@@ -49,17 +49,14 @@ public class UnoCard extends Card {
         this.drawN = drawN;
     }
 
-    private UnoCard(UnoCardType type, String color, int number, int drawN, int componentID) {
-        super(type.toString(), componentID);
-        this.color = color;
-        this.type = type;
-        this.number = number;
-        this.drawN = drawN;
+    @Override
+    public Card copy() {
+        return this; // immutable
     }
 
     @Override
-    public Card copy() {
-        return new UnoCard(type, color, number, drawN, componentID);
+    public boolean isImmutable() {
+        return true;
     }
 
     public boolean isPlayable(UnoGameState gameState) {
@@ -167,7 +167,12 @@ public class Wonder7Card extends Card {
 
     @Override
     public Card copy() {
-        return new Wonder7Card(cardName, type, constructionCost, resourcesProduced, prerequisiteCard, componentID);
+        return this; // immutable
+    }
+
+    @Override
+    public boolean isImmutable() {
+        return true;
     }
 
     @Override
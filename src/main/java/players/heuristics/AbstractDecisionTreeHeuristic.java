@@ -1,42 +1,82 @@
 package players.heuristics;
 
-import com.globalmentor.apache.hadoop.fs.BareLocalFileSystem;
-import org.apache.hadoop.fs.FileSystem;
-import org.apache.spark.ml.regression.DecisionTreeRegressionModel;
-import org.apache.spark.sql.SparkSession;
+import players.learners.DecisionTreeCompiler;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Loads a decision tree trained by DecisionTreeLearner as a CompiledDecisionTree, so that no Spark is needed to
+ * use it.
+ * <p>
+ * The directory is normally one written by DecisionTreeLearner, which contains the compiled tree
+ * (COMPILED_TREE_FILE) as well as the Spark model. A directory with only a Spark model (as saved before the compiled
+ * tree was added) is compiled once with Spark, and the compiled tree saved there for next time (if the directory
+ * can be written to). The path may also be a compiled tree file on its own.
+ */
 public abstract class AbstractDecisionTreeHeuristic {
 
-    static SparkSession spark = SparkSession
-            .builder()
-            .appName("Java Spark SQL basic example")
-            //     .config("spark.driver.memory", "1g")
-            .master("local").getOrCreate();
-    static {
-        // And the hack to get this to work on Windows (without the Winutils.exe and hadoop.dll nightmare)
-        spark.sparkContext().hadoopConfiguration().setClass("fs.file.impl", BareLocalFileSystem.class, FileSystem.class);
-    }
+    public static final String COMPILED_TREE_FILE = "CompiledTree.txt";
 
-    protected DecisionTreeRegressionModel drModel;
+    protected CompiledDecisionTree tree;
 
-    public AbstractDecisionTreeHeuristic(String directory) {
+    /**
+     * @param directory    - where the model was saved by DecisionTreeLearner (or a compiled tree file)
+     * @param featureNames - names of the features the heuristic will give the tree, in order
+     */
+    public AbstractDecisionTreeHeuristic(String directory, String[] featureNames) {
         // load in the Decision Tree model from the directory
         if (directory == null || directory.isEmpty()) {
             System.out.println("No directory specified for Decision Tree model");
             return;
         }
-        drModel = DecisionTreeRegressionModel.load(directory);
+        File location = new File(directory);
+        File compiled = location.isFile() ? location : new File(location, COMPILED_TREE_FILE);
+        try {
+            if (compiled.exists()) {
+                tree = CompiledDecisionTree.load(compiled.getPath());
+            } else {
+                try {
+                    // only this needs Spark (and the class is not loaded unless we get here)
+                    tree = DecisionTreeCompiler.compileSavedModel(directory, featureNames);
+                } catch (NoClassDefFoundError e) {
+                    throw new AssertionError("No " + COMPILED_TREE_FILE + " in " + directory + ", and Spark is not available to compile the model there", e);
+                }
+                saveCompiledTree(compiled);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            throw new AssertionError("Error accessing : " + compiled);
+        }
+        if (!Arrays.equals(tree.getFeatureNames(), featureNames))
+            throw new AssertionError("Incompatible data in file " + compiled + ": the tree has features " +
+                    Arrays.toString(tree.getFeatureNames()) + " but we have " + Arrays.toString(featureNames));
     }
 
-    public static String prettifyDecisionTreeDescription(DecisionTreeRegressionModel model, String[] featureNames) {
-        // the debug string of model contains labels of the form 'feature nn', where nn is the index of the feature
-        // We want to replace these with the actual feature names
-        // we go in reverse to stop replacing 'feature 10' with 'nameOfFeature0' etc.
-        String debugString = model.toDebugString();
-        for (int i = featureNames.length-1; i >= 0; i--) {
-            debugString = debugString.replace("feature " + i, featureNames[i]);
+    /*
+     * Saves the tree we have just compiled for next time. This goes to a temporary file that is then renamed, so that
+     * other agents loading the same model never see a partly written file. If the directory cannot be written to, we
+     * just carry on with the tree in memory.
+     */
+    private void saveCompiledTree(File compiled) {
+        File temp = null;
+        try {
+            temp = File.createTempFile(COMPILED_TREE_FILE, ".tmp", compiled.getParentFile());
+            tree.save(temp.getPath());
+            try {
+                Files.move(temp.toPath(), compiled.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp.toPath(), compiled.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            System.out.println("Could not save " + COMPILED_TREE_FILE + " in " + compiled.getParent() + " (" + e.getMessage() + "), so it will be compiled again next time");
+            if (temp != null)
+                temp.delete();
         }
-        return debugString;
     }
 
 }
@@ -1,15 +1,18 @@
 package players.heuristics;
 
+import core.AbstractGameState;
+import core.interfaces.IBatchStateHeuristic;
 import core.interfaces.IStateFeatureVector;
 import core.interfaces.IStateHeuristic;
 
 import java.io.*;
 import java.util.Arrays;
+import java.util.List;
 
 /**
  * Provides a wrapper around an IStateFeatureVector and an array of coefficients
  */
-public abstract class AbstractStateHeuristic implements IStateHeuristic {
+public abstract class AbstractStateHeuristic implements IBatchStateHeuristic {
 
     protected IStateFeatureVector features;
     protected double[] coefficients;
@@ -64,4 +67,29 @@ public abstract class AbstractStateHeuristic implements IStateHeuristic {
         }
     }
 
+    /**
+     * Computes the linear predictor (the bias plus the coefficients times the features) for each pair with use[i] set.
+     * All the feature vectors are extracted first, and then multiplied by the coefficients in a single pass over
+     * one array; entries without use[i] set are left at zero.
+     */
+    protected double[] linearPredictors(List<AbstractGameState> states, int[] playerIds, boolean[] use) {
+        int nFeatures = coefficients.length - 1;
+        double[] phi = new double[states.size() * nFeatures];
+        for (int i = 0; i < states.size(); i++) {
+            if (use[i])
+                System.arraycopy(features.featureVector(states.get(i), playerIds[i]), 0, phi, i * nFeatures, nFeatures);
+        }
+        double[] retValue = new double[states.size()];
+        for (int i = 0; i < retValue.length; i++) {
+            if (!use[i])
+                continue;
+            double value = coefficients[0]; // the bias term
+            int offset = i * nFeatures;
+            for (int j = 0; j < nFeatures; j++)
+                value += phi[offset + j] * coefficients[j + 1];
+            retValue[i] = value;
+        }
+        return retValue;
+    }
+
 }
@@ -0,0 +1,143 @@
+package players.heuristics;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A trained regression tree in flat arrays, so that a prediction is a short loop with no allocation.
+ * <p>
+ * Nodes are held in pre-order, so the left child of an internal node is always the next node. For node n:
+ * - feature[n] is the index of the feature it splits on, or -1 if it is a leaf
+ * - value[n] is the split threshold (a feature value <= threshold goes left), or the prediction of a leaf
+ * - rightChild[n] is the index of the right child (and is not used for a leaf)
+ * <p>
+ * This is saved as a tab separated file. The first line has the feature names, and each line after that is one
+ * node: feature, value and rightChild. DecisionTreeLearner writes this file alongside the Spark model it trains,
+ * and can compile a Spark model saved previously (see AbstractDecisionTreeHeuristic); reading it back needs no Spark.
+ */
+public class CompiledDecisionTree {
+
+    private final String[] featureNames;
+    private final int[] feature;
+    private final double[] value;
+    private final int[] rightChild;
+
+    public CompiledDecisionTree(String[] featureNames, int[] feature, double[] value, int[] rightChild) {
+        if (feature.length == 0 || value.length != feature.length || rightChild.length != feature.length)
+            throw new IllegalArgumentException("Node arrays must be non-empty and of the same length");
+        for (int n = 0; n < feature.length; n++) {
+            if (feature[n] >= featureNames.length)
+                throw new IllegalArgumentException("Node " + n + " splits on feature " + feature[n] + ", but there are only " + featureNames.length);
+            if (feature[n] >= 0 && (n + 1 >= feature.length || rightChild[n] <= n + 1 || rightChild[n] >= feature.length))
+                throw new IllegalArgumentException("Node " + n + " does not have valid children");
+        }
+        this.featureNames = featureNames;
+        this.feature = feature;
+        this.value = value;
+        this.rightChild = rightChild;
+    }
+
+    /**
+     * @param features - the feature vector, in the order of getFeatureNames()
+     * @return the prediction of the tree
+     */
+    public double predict(double[] features) {
+        int n = 0;
+        while (feature[n] >= 0)
+            n = features[feature[n]] <= value[n] ? n + 1 : rightChild[n];
+        return value[n];
+    }
+
+    /**
+     * As predict(double[]), for a feature vector made of two parts (for example state and action features),
+     * without joining them into a new array.
+     */
+    public double predict(double[] first, double[] second) {
+        int n = 0;
+        while (feature[n] >= 0) {
+            int f = feature[n];
+            double x = f < first.length ? first[f] : second[f - first.length];
+            n = x <= value[n] ? n + 1 : rightChild[n];
+        }
+        return value[n];
+    }
+
+    public String[] getFeatureNames() {
+        return featureNames.clone();
+    }
+
+    public int getNodeCount() {
+        return feature.length;
+    }
+
+    public void save(String file) throws IOException {
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(file)))) {
+            writer.println(String.join("\t", featureNames));
+            for (int n = 0; n < feature.length; n++)
+                writer.println(feature[n] + "\t" + value[n] + "\t" + rightChild[n]);
+        }
+    }
+
+    public static CompiledDecisionTree load(String file) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String header = reader.readLine();
+            if (header == null)
+                throw new IOException("Empty decision tree file " + file);
+            String[] names = header.isEmpty() ? new String[0] : header.split("\\t");
+            List<String[]> nodes = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty())
+                    nodes.add(line.split("\\t"));
+            }
+            int[] feature = new int[nodes.size()];
+            double[] value = new double[nodes.size()];
+            int[] rightChild = new int[nodes.size()];
+            for (int n = 0; n < nodes.size(); n++) {
+                String[] node = nodes.get(n);
+                if (node.length != 3)
+                    throw new IOException("Expected 3 values on line " + (n + 2) + " of " + file);
+                try {
+                    feature[n] = Integer.parseInt(node[0]);
+                    value[n] = Double.parseDouble(node[1]);
+                    rightChild[n] = Integer.parseInt(node[2]);
+                } catch (NumberFormatException e) {
+                    throw new IOException("Invalid number on line " + (n + 2) + " of " + file, e);
+                }
+            }
+            try {
+                return new CompiledDecisionTree(names, feature, value, rightChild);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Invalid decision tree in " + file + ": " + e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * @return the tree in the style of Spark's toDebugString(), with feature names in place of indices
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("DecisionTree with %d nodes%n", feature.length));
+        appendNode(sb, 0, 1);
+        return sb.toString();
+    }
+
+    private void appendNode(StringBuilder sb, int n, int depth) {
+        char[] indent = new char[depth];
+        Arrays.fill(indent, ' ');
+        String prefix = new String(indent);
+        if (feature[n] < 0) {
+            sb.append(prefix).append("Predict: ").append(value[n]).append(System.lineSeparator());
+            return;
+        }
+        String name = featureNames[feature[n]];
+        sb.append(prefix).append("If (").append(name).append(" <= ").append(value[n]).append(")").append(System.lineSeparator());
+        appendNode(sb, n + 1, depth + 1);
+        sb.append(prefix).append("Else (").append(name).append(" > ").append(value[n]).append(")").append(System.lineSeparator());
+        appendNode(sb, rightChild[n], depth + 1);
+    }
+}
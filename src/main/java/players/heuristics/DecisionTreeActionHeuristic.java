@@ -5,7 +5,6 @@ import core.actions.AbstractAction;
 import core.interfaces.IActionFeatureVector;
 import core.interfaces.IActionHeuristic;
 import core.interfaces.IStateFeatureVector;
-import org.apache.spark.ml.linalg.Vectors;
 
 import java.util.List;
 
@@ -14,47 +13,40 @@ public class DecisionTreeActionHeuristic extends AbstractDecisionTreeHeuristic i
     IStateFeatureVector stateFeatures;
     IActionFeatureVector actionFeatures;
     public DecisionTreeActionHeuristic(IStateFeatureVector stateFeatures, IActionFeatureVector actionFeatures, String directory) {
-        super(directory);
+        super(directory, allNames(stateFeatures, actionFeatures));
         this.stateFeatures = stateFeatures;
         this.actionFeatures = actionFeatures;
     }
+
+    private static String[] allNames(IStateFeatureVector stateFeatures, IActionFeatureVector actionFeatures) {
+        String[] names = new String[stateFeatures.names().length + actionFeatures.names().length];
+        System.arraycopy(stateFeatures.names(), 0, names, 0, stateFeatures.names().length);
+        System.arraycopy(actionFeatures.names(), 0, names, stateFeatures.names().length, actionFeatures.names().length);
+        return names;
+    }
+
     @Override
     public double evaluateAction(AbstractAction action, AbstractGameState state) {
-        if (drModel == null) return 0;  // no model, no prediction (this is fine
+        if (tree == null) return 0;  // no model, no prediction (this is fine
         // get the features for the state and action
         int playerId = state.getCurrentPlayer();
         double[] stateFeatures = this.stateFeatures.featureVector(state, playerId);
         double[] actionFeatures = this.actionFeatures.featureVector(action, state, playerId);
-        // combine the features
-        double[] features = new double[stateFeatures.length + actionFeatures.length];
-        System.arraycopy(stateFeatures, 0, features, 0, stateFeatures.length);
-        System.arraycopy(actionFeatures, 0, features, stateFeatures.length, actionFeatures.length);
-        // return the prediction from the model
-
-        return drModel.predict(Vectors.dense(features));
+        // return the prediction from the model (the tree takes the state features followed by the action features)
+        return tree.predict(stateFeatures, actionFeatures);
     }
 
     @Override
     public double[] evaluateAllActions(List<AbstractAction> actions, AbstractGameState state) {
-        if (drModel == null) return new double[actions.size()];  // no model, no prediction (this is fine)
+        if (tree == null) return new double[actions.size()];  // no model, no prediction (this is fine)
         // First we get the state features once
         int playerId = state.getCurrentPlayer();
         double[] stateFeatures = this.stateFeatures.featureVector(state, playerId);
-        // Then we get the action features for each action
-        double[][] actionFeatures = new double[actions.size()][];
-        for (int i = 0; i < actions.size(); i++) {
-            actionFeatures[i] = this.actionFeatures.featureVector(actions.get(i), state, playerId);
-        }
-        // Then we combine the features
-        double[][] features = new double[actions.size()][stateFeatures.length + actionFeatures[0].length];
-        for (int i = 0; i < actions.size(); i++) {
-            System.arraycopy(stateFeatures, 0, features[i], 0, stateFeatures.length);
-            System.arraycopy(actionFeatures[i], 0, features[i], stateFeatures.length, actionFeatures[i].length);
-        }
-        // Then we return the predictions from the model
+        // Then we predict from those and the action features of each action
         double[] predictions = new double[actions.size()];
         for (int i = 0; i < actions.size(); i++) {
-            predictions[i] = drModel.predict(Vectors.dense(features[i]));
+            double[] actionFeatures = this.actionFeatures.featureVector(actions.get(i), state, playerId);
+            predictions[i] = tree.predict(stateFeatures, actionFeatures);
         }
         return predictions;
     }
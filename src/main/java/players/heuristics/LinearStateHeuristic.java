@@ -5,7 +5,12 @@ import core.interfaces.IStateFeatureVector;
 import core.interfaces.IStateHeuristic;
 import utilities.Utils;
 
+import java.util.List;
 
+/**
+ * Subclasses may change the value of states that are terminal for the player, and the bounds the value is clamped to
+ * (see setBounds()); any that change the value of other states must also override evaluateStates().
+ */
 public class LinearStateHeuristic extends AbstractStateHeuristic {
 
     protected double minValue = Double.NEGATIVE_INFINITY;
@@ -30,10 +35,37 @@ public class LinearStateHeuristic extends AbstractStateHeuristic {
             for (int i = 0; i < phi.length; i++) {
                 retValue += phi[i] * coefficients[i+1];
             }
+            setBounds(state);
             return Utils.clamp(retValue, minValue, maxValue);
         }
         if (defaultHeuristic != null)
             return defaultHeuristic.evaluateState(state, playerId);
         return 0;
     }
+
+    /**
+     * Sets minValue and maxValue for the state, before the value from the coefficients is clamped to them.
+     */
+    protected void setBounds(AbstractGameState state) {
+    }
+
+    @Override
+    public double[] evaluateStates(List<AbstractGameState> states, int[] playerIds) {
+        if (coefficients == null)
+            return super.evaluateStates(states, playerIds);
+        // the coefficients are used for every state that is not terminal for the player, and the rest evaluated singly
+        boolean[] use = new boolean[states.size()];
+        for (int i = 0; i < use.length; i++)
+            use[i] = states.get(i).isNotTerminalForPlayer(playerIds[i]);
+        double[] retValue = linearPredictors(states, playerIds, use);
+        for (int i = 0; i < retValue.length; i++) {
+            if (use[i]) {
+                setBounds(states.get(i));
+                retValue[i] = Utils.clamp(retValue[i], minValue, maxValue);
+            } else {
+                retValue[i] = evaluateState(states.get(i), playerIds[i]);
+            }
+        }
+        return retValue;
+    }
 }
@@ -19,9 +19,13 @@ public class LinearStateOrdHeuristic extends LinearStateHeuristic {
     }
 
     @Override
-    public double evaluateState(AbstractGameState state, int playerId) {
+    protected void setBounds(AbstractGameState state) {
         minValue = -state.getNPlayers();
         maxValue = -1.0;
+    }
+
+    @Override
+    public double evaluateState(AbstractGameState state, int playerId) {
         if (state.isNotTerminalForPlayer(playerId)) {
             return super.evaluateState(state, playerId);
         }
@@ -18,9 +18,13 @@ public class LinearStateWinHeuristic extends LinearStateHeuristic {
     }
 
     @Override
-    public double evaluateState(AbstractGameState state, int playerId) {
+    protected void setBounds(AbstractGameState state) {
         minValue = 0.0;
         maxValue = 1.0;
+    }
+
+    @Override
+    public double evaluateState(AbstractGameState state, int playerId) {
         if (state.isNotTerminalForPlayer(playerId)) {
             return super.evaluateState(state, playerId);
         }
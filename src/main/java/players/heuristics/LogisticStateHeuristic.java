@@ -4,7 +4,12 @@ import core.AbstractGameState;
 import core.interfaces.IStateFeatureVector;
 import core.interfaces.IStateHeuristic;
 
+import java.util.List;
 
+/**
+ * Subclasses may change the value of states that are terminal for the player; any that change the value of other
+ * states must also override evaluateStates().
+ */
 public class LogisticStateHeuristic extends AbstractStateHeuristic {
 
     public LogisticStateHeuristic(String featureVectorClassName, String coefficientsFile, String defaultHeuristicClass) {
@@ -28,4 +33,22 @@ public class LogisticStateHeuristic extends AbstractStateHeuristic {
         }
         return 1.0 / ( 1.0 + Math.exp(-retValue));
     }
+
+    @Override
+    public double[] evaluateStates(List<AbstractGameState> states, int[] playerIds) {
+        if (coefficients == null)
+            return super.evaluateStates(states, playerIds);
+        // the coefficients are used for every state that is not terminal for the player, and the rest evaluated singly
+        boolean[] use = new boolean[states.size()];
+        for (int i = 0; i < use.length; i++)
+            use[i] = states.get(i).isNotTerminalForPlayer(playerIds[i]);
+        double[] retValue = linearPredictors(states, playerIds, use);
+        for (int i = 0; i < retValue.length; i++) {
+            if (use[i])
+                retValue[i] = 1.0 / (1.0 + Math.exp(-retValue[i]));
+            else
+                retValue[i] = evaluateState(states.get(i), playerIds[i]);
+        }
+        return retValue;
+    }
 }
@@ -1,6 +1,7 @@
 package players.heuristics;
 
 import core.AbstractGameState;
+import core.interfaces.IBatchStateHeuristic;
 import core.interfaces.IStateFeatureVector;
 import core.interfaces.IStateHeuristic;
 import libsvm.svm;
@@ -8,8 +9,9 @@ import libsvm.svm_model;
 import libsvm.svm_node;
 
 import java.io.IOException;
+import java.util.List;
 
-public class SVMStateHeuristic implements IStateHeuristic {
+public class SVMStateHeuristic implements IBatchStateHeuristic {
 
     IStateFeatureVector features;
     svm_model model;
@@ -77,4 +79,30 @@ public class SVMStateHeuristic implements IStateHeuristic {
         double result = svm.svm_predict(model, data);
         return result;
     }
+
+    /**
+     * As evaluateState() for each pair, but the svm_nodes for the features are allocated once for the batch
+     */
+    @Override
+    public double[] evaluateStates(List<AbstractGameState> states, int[] playerIds) {
+        if (model == null)
+            return IBatchStateHeuristic.evaluateStates(defaultHeuristic, states, playerIds);
+        double[] retValue = new double[states.size()];
+        svm_node[] data = null;
+        for (int i = 0; i < retValue.length; i++) {
+            double[] phi = features.featureVector(states.get(i), playerIds[i]);
+            if (data == null) {
+                data = new svm_node[phi.length + 1];
+                for (int j = 0; j < data.length; j++) {
+                    data[j] = new svm_node();
+                    data[j].index = j;
+                }
+                data[0].value = 1.0; // bias
+            }
+            for (int j = 0; j < phi.length; j++)
+                data[j + 1].value = phi[j];
+            retValue[i] = svm.svm_predict(model, data);
+        }
+        return retValue;
+    }
 }
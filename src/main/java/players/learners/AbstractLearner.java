@@ -1,6 +1,7 @@
 package players.learners;
 
 import core.interfaces.ILearner;
+import evaluation.loggers.BinaryFeatureReader;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
@@ -57,16 +58,70 @@ public abstract class AbstractLearner implements ILearner {
         targetType = newTarget;
     }
 
+    /**
+     * Called by streamData() for each row of data.
+     */
+    protected interface RowHandler {
+        /**
+         * @param regressionData - the features, with a bias term of 1.0 first. This array is reused for the next row,
+         *                       so must be copied if it is to be kept
+         * @param target         - the target for this row, calculated from targetType and gamma
+         * @param currentScore   - the score of the player at this point
+         */
+        void row(double[] regressionData, double target, double currentScore);
+    }
+
     protected void loadData(String... files) {
         List<double[]> data = new ArrayList<>();
+        List<Double> targets = new ArrayList<>();
+        List<Double> scores = new ArrayList<>();
+        streamData((regressionData, t, score) -> {
+            data.add(regressionData.clone());
+            targets.add(t);
+            scores.add(score);
+        }, files);
+
+        dataArray = data.toArray(new double[0][]);
+        target = new double[data.size()][1];
+        currentScore = new double[data.size()][1];
+        for (int i = 0; i < dataArray.length; i++) {
+            target[i][0] = targets.get(i);
+            currentScore[i][0] = scores.get(i);
+        }
+    }
+
+    /**
+     * Reads the files one row at a time, and passes the features and target of each to the handler, without keeping
+     * any of them in memory. This sets header and descriptions from the files.
+     */
+    protected void streamData(RowHandler handler, String... files) {
+        header = null;
         for (String file : files) {
+            if (BinaryFeatureReader.isBinaryFeatureFile(file)) {
+                // written by BinaryFeatureLogger, so we can stream the values straight back
+                try (BinaryFeatureReader reader = new BinaryFeatureReader(file)) {
+                    setHeader(reader.columns(), file);
+                    double[] allData = new double[header.length];
+                    double[] regressionData = new double[header.length - 10];
+                    while (reader.next(allData))
+                        processRow(allData, regressionData, handler);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    throw new AssertionError("Problem reading file " + file);
+                }
+                continue;
+            }
             try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-                header = reader.readLine().split("\\t");
-                descriptions = new String[header.length - 11];
-                System.arraycopy(header, 5, descriptions, 0, descriptions.length);
+                setHeader(reader.readLine().split("\\t"), file);
+                double[] allData = new double[header.length];
+                double[] regressionData = new double[header.length - 10];
                 while (reader.ready()) {
-                    double[] datum = Arrays.stream(reader.readLine().split("\\t")).mapToDouble(Double::parseDouble).toArray();
-                    data.add(datum);
+                    String[] values = reader.readLine().split("\\t");
+                    if (values.length != header.length)
+                        throw new AssertionError("Incompatible data in file " + file + " : expected " + header.length + " values but found " + values.length);
+                    for (int i = 0; i < values.length; i++)
+                        allData[i] = Double.parseDouble(values[i]);
+                    processRow(allData, regressionData, handler);
                 }
             } catch (IOException e) {
                 e.printStackTrace();
@@ -76,53 +131,54 @@ public abstract class AbstractLearner implements ILearner {
                 throw new AssertionError("Problem parsing data as numeric : " + file);
             }
         }
+    }
 
-        // now convert data to [][]
+    private void setHeader(String[] fileHeader, String file) {
         // we assume (for the moment) that the columns are: GameID, Player, Round, Turn, CurrentScore... Win, Ordinal, FinalScore
         // with ... representing the game specific features
         // these fields are all defined in FeatureListener, and we assume that any Listener that records data
         // subclasses this class; adding additional game-specific data on top (or rather, in between).
         // TODO: This is unclear, and should be tidied up to reduce fragility
-        if (!header[0].equals("GameID") || !header[1].equals("Player") || !header[2].equals("Round") || !header[3].equals("Turn") || !header[4].equals("CurrentScore")) {
-            throw new AssertionError("Unexpected starting header entries " + String.join("", header));
+        if (fileHeader.length < 11 || !fileHeader[0].equals("GameID") || !fileHeader[1].equals("Player") || !fileHeader[2].equals("Round") || !fileHeader[3].equals("Turn") || !fileHeader[4].equals("CurrentScore")) {
+            throw new AssertionError("Unexpected starting header entries " + String.join("", fileHeader));
         }
-        if (!header[header.length - 1].equals("FinalScore") || !header[header.length - 2].equals("Ordinal")
-                || !header[header.length - 3].equals("Win") || !header[header.length - 4].equals(("ActionScore"))
-                || !header[header.length - 5].equals("TotalRounds") || !header[header.length - 6].equals("PlayerCount")) {
-            throw new AssertionError("Unexpected final header entries " + String.join("", header));
+        if (!fileHeader[fileHeader.length - 1].equals("FinalScore") || !fileHeader[fileHeader.length - 2].equals("Ordinal")
+                || !fileHeader[fileHeader.length - 3].equals("Win") || !fileHeader[fileHeader.length - 4].equals(("ActionScore"))
+                || !fileHeader[fileHeader.length - 5].equals("TotalRounds") || !fileHeader[fileHeader.length - 6].equals("PlayerCount")) {
+            throw new AssertionError("Unexpected final header entries " + String.join("", fileHeader));
         }
+        if (header != null && !Arrays.equals(header, fileHeader))
+            throw new AssertionError("Incompatible data in file " + file + " : the columns differ from those of the previous files");
+        header = fileHeader;
+        descriptions = new String[header.length - 11];
+        System.arraycopy(header, 5, descriptions, 0, descriptions.length);
+    }
 
-        dataArray = new double[data.size()][];
-        target = new double[data.size()][1];
-        currentScore = new double[data.size()][1];
-        for (int i = 0; i < dataArray.length; i++) {
-            double[] allData = data.get(i);
-            // calculate the number of turns from this point until the end of the game
-            double turns = allData[header.length - 5] - allData[2];
-            double playerCount = allData[header.length - 6];
-            // discount target (towards expected result where relevant)
-            double expectedAverage = 0.0;
-            if (targetType == Target.WIN_MEAN)
-                expectedAverage = 1.0 / playerCount;
-            if (targetType == Target.ORD_MEAN || targetType == Target.ORD_MEAN_SCALE)
-                expectedAverage = (1.0 + playerCount) / 2.0;
-
-            if (targetType == Target.SCORE_DELTA)
-                target[i][0] = (allData[header.length - targetType.indexOffset] - allData[4]) * Math.pow(gamma, turns);
-            else
-                target[i][0] = (allData[header.length - targetType.indexOffset] - expectedAverage) * Math.pow(gamma, turns) + expectedAverage;
-
-            if (targetType == Target.ORDINAL || targetType == Target.ORD_MEAN)
-                target[i][0] = -target[i][0];  // if we are targeting the Ordinal position, then high is bad!
-            if (targetType == Target.ORD_MEAN_SCALE || targetType == Target.ORD_SCALE)
-                target[i][0] = (playerCount - target[i][0]) / (playerCount - 1.0);  // scale to [0, 1]
-
-            currentScore[i][0] = allData[4];
-            double[] regressionData = new double[header.length - 10];
-            regressionData[0] = 1.0; // the bias term
-            System.arraycopy(allData, 5, regressionData, 1, regressionData.length - 1);
-            dataArray[i] = regressionData;
-        }
+    private void processRow(double[] allData, double[] regressionData, RowHandler handler) {
+        // calculate the number of turns from this point until the end of the game
+        double turns = allData[header.length - 5] - allData[2];
+        double playerCount = allData[header.length - 6];
+        // discount target (towards expected result where relevant)
+        double expectedAverage = 0.0;
+        if (targetType == Target.WIN_MEAN)
+            expectedAverage = 1.0 / playerCount;
+        if (targetType == Target.ORD_MEAN || targetType == Target.ORD_MEAN_SCALE)
+            expectedAverage = (1.0 + playerCount) / 2.0;
+
+        double rowTarget;
+        if (targetType == Target.SCORE_DELTA)
+            rowTarget = (allData[header.length - targetType.indexOffset] - allData[4]) * Math.pow(gamma, turns);
+        else
+            rowTarget = (allData[header.length - targetType.indexOffset] - expectedAverage) * Math.pow(gamma, turns) + expectedAverage;
+
+        if (targetType == Target.ORDINAL || targetType == Target.ORD_MEAN)
+            rowTarget = -rowTarget;  // if we are targeting the Ordinal position, then high is bad!
+        if (targetType == Target.ORD_MEAN_SCALE || targetType == Target.ORD_SCALE)
+            rowTarget = (playerCount - rowTarget) / (playerCount - 1.0);  // scale to [0, 1]
+
+        regressionData[0] = 1.0; // the bias term
+        System.arraycopy(allData, 5, regressionData, 1, regressionData.length - 1);
+        handler.row(regressionData, rowTarget, allData[4]);
     }
 
 }
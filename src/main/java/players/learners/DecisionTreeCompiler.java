@@ -0,0 +1,66 @@
+package players.learners;
+
+import org.apache.spark.ml.regression.DecisionTreeRegressionModel;
+import org.apache.spark.ml.tree.*;
+import players.heuristics.CompiledDecisionTree;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Converts Spark decision trees to CompiledDecisionTree. Apart from compileSavedModel(), this does not need a
+ * Spark session.
+ */
+public class DecisionTreeCompiler {
+
+    private DecisionTreeCompiler() {
+    }
+
+    /**
+     * Loads a model saved by DecisionTreeLearner.writeToFile() and compiles it. This is the only use of Spark by
+     * the decision tree heuristics, and only for models saved without a compiled tree.
+     *
+     * @param directory    - where the model was saved
+     * @param featureNames - the names of the features, in order (which Spark does not save with the model)
+     */
+    public static CompiledDecisionTree compileSavedModel(String directory, String[] featureNames) {
+        // loading needs the Spark session that the learners use, with its set-up
+        ApacheLearner.spark.sparkContext();
+        return compile(DecisionTreeRegressionModel.load(directory), featureNames);
+    }
+
+    /**
+     * Converts a Spark regression tree to flat arrays, with the nodes in pre-order (see CompiledDecisionTree).
+     */
+    public static CompiledDecisionTree compile(DecisionTreeRegressionModel model, String[] featureNames) {
+        if (model.numFeatures() != featureNames.length)
+            throw new IllegalArgumentException("Model has " + model.numFeatures() + " features, but " + featureNames.length + " names were given");
+        List<Integer> feature = new ArrayList<>();
+        List<Double> value = new ArrayList<>();
+        List<Integer> rightChild = new ArrayList<>();
+        addNode(model.rootNode(), feature, value, rightChild);
+        return new CompiledDecisionTree(featureNames.clone(),
+                feature.stream().mapToInt(Integer::intValue).toArray(),
+                value.stream().mapToDouble(Double::doubleValue).toArray(),
+                rightChild.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    private static void addNode(Node node, List<Integer> feature, List<Double> value, List<Integer> rightChild) {
+        int n = feature.size();
+        if (node instanceof LeafNode) {
+            feature.add(-1);
+            value.add(node.prediction());
+            rightChild.add(-1);
+            return;
+        }
+        InternalNode internal = (InternalNode) node;
+        if (!(internal.split() instanceof ContinuousSplit))
+            throw new IllegalArgumentException("Only continuous splits are supported, not " + internal.split());
+        feature.add(internal.split().featureIndex());
+        value.add(((ContinuousSplit) internal.split()).threshold());
+        rightChild.add(-1);  // set once the left subtree is in place
+        addNode(internal.leftChild(), feature, value, rightChild);
+        rightChild.set(n, feature.size());
+        addNode(internal.rightChild(), feature, value, rightChild);
+    }
+}
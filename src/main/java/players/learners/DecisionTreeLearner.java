@@ -5,7 +5,7 @@ import org.apache.spark.ml.regression.DecisionTreeRegressionModel;
 import org.apache.spark.ml.regression.DecisionTreeRegressor;
 import org.apache.spark.sql.Dataset;
 import org.apache.spark.sql.Row;
-import players.heuristics.DecisionTreeActionHeuristic;
+import players.heuristics.AbstractDecisionTreeHeuristic;
 
 import java.io.BufferedWriter;
 import java.io.File;
@@ -59,7 +59,7 @@ public class DecisionTreeLearner extends ApacheLearner {
         drModel = dr.fit(training);
 
         if (debug)
-            System.out.println(DecisionTreeActionHeuristic.prettifyDecisionTreeDescription(drModel, descriptions));
+            System.out.println(prettifyDecisionTreeDescription(drModel, descriptions));
 
     }
 
@@ -67,8 +67,9 @@ public class DecisionTreeLearner extends ApacheLearner {
     public void writeToFile(String file) {
         try {
             drModel.write().overwrite().save(file);
+            DecisionTreeCompiler.compile(drModel, descriptions).save(file + File.separator + AbstractDecisionTreeHeuristic.COMPILED_TREE_FILE);
             BufferedWriter writer = new BufferedWriter(new java.io.FileWriter(file + File.separator + "Description.txt"));
-            writer.write(DecisionTreeActionHeuristic.prettifyDecisionTreeDescription(drModel, descriptions));
+            writer.write(prettifyDecisionTreeDescription(drModel, descriptions));
             writer.close();
         } catch (IOException e) {
             e.printStackTrace();
@@ -83,4 +84,15 @@ public class DecisionTreeLearner extends ApacheLearner {
         return "DecisionTree";
     }
 
+    public static String prettifyDecisionTreeDescription(DecisionTreeRegressionModel model, String[] featureNames) {
+        // the debug string of model contains labels of the form 'feature nn', where nn is the index of the feature
+        // We want to replace these with the actual feature names
+        // we go in reverse to stop replacing 'feature 10' with 'nameOfFeature0' etc.
+        String debugString = model.toDebugString();
+        for (int i = featureNames.length-1; i >= 0; i--) {
+            debugString = debugString.replace("feature " + i, featureNames[i]);
+        }
+        return debugString;
+    }
+
 }
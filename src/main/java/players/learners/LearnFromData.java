@@ -4,6 +4,8 @@ import utilities.JSONUtils;
 import utilities.Utils;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.Objects;
 
 public class LearnFromData {
 
@@ -29,8 +31,11 @@ public class LearnFromData {
         String[] files;
         File inputFile = new File(inputFileName);
         if (inputFile.isDirectory()) {
-            // load all Data
-            files = inputFile.list();
+            // load all Data (either text files, or binary files from BinaryFeatureLogger)
+            files = Arrays.stream(Objects.requireNonNull(inputFile.listFiles()))
+                    .filter(File::isFile)
+                    .map(File::getPath)
+                    .toArray(String[]::new);
         } else {
             files = new String[]{inputFileName};
         }
@@ -1,124 +1,107 @@
 package players.learners;
 
-import org.apache.spark.ml.feature.RFormula;
-import org.apache.spark.ml.regression.GeneralizedLinearRegression;
-import org.apache.spark.ml.regression.GeneralizedLinearRegressionModel;
-import org.apache.spark.sql.AnalysisException;
-import org.apache.spark.sql.Dataset;
-import org.apache.spark.sql.Row;
-
-import java.io.FileWriter;
-import java.util.Arrays;
-
-import static java.util.stream.Collectors.joining;
-
-public class LogisticLearner extends ApacheLearner {
-
-    double[] coefficients;
+import java.util.List;
+
+/**
+ * Fits a logistic regression by Newton's method (iteratively re-weighted least squares). Each iteration is one pass
+ * through the data that adds up the gradient and Hessian of the log-likelihood (see StreamingLinearLearner), so that
+ * the data are never all in memory.
+ * <p>
+ * The target must be in [0, 1], but need not be 0 or 1; for example ORD_SCALE gives an ordinal model of the final
+ * position. The penalty is that of Spark's GeneralizedLinearRegression (which this replaces): each iteration solves
+ * a weighted least squares problem, with regularisation / 2 times the sum of the squared coefficients (not the bias)
+ * added to the weighted mean squared error.
+ */
+public class LogisticLearner extends StreamingLinearLearner {
+
+    protected int maxIterations = 25;
+    protected double tolerance = 1e-6;
 
     public LogisticLearner(double gamma, Target target) {
-        super(gamma, target);
+        this(gamma, target, 0.1);
     }
 
-    public static void main(String[] args) {
-
-        Dataset<Row> df = spark.read()
-                .option("delimiter", "\t")
-                .option("header", "true")
-                .option("inferSchema", "true")
-                .csv("Apache_0.data");
-
-        df.show(10);
-
-        String[] regressors = new String[]{"POINT_ADVANTAGE", "POINTS", "THREE_BOXES", "TWO_BOXES"};
-
-
-        //"GOLD_IN_DECK", "PROVINCE_IN_DECK", "ESTATE_IN_DECK", "DUCHY_IN_DECK", "TR_H", "AC_LEFT", "BUY_LEFT", "TOT_CRDS", "ROUND11", "OUR_TURN"};
-
-        // headers are not case-sensitive, so ORDINAL7 is the current position, and Ordinal119 is the final achieved position
-        try {
-            df.createTempView("data");
-        } catch (AnalysisException e) {
-            e.printStackTrace();
-        }
-        // for 4 players
-        df = spark.sql(String.format("select %s, (1 - (Ordinal13 - 1) / 3) as Ordinal From data", String.join(", ", regressors)));
-
-        df.show(10);
-
-        RFormula formula = new RFormula()
-                .setFormula("Ordinal ~ " + String.join(" + ", regressors))
-                .setFeaturesCol("features")
-                .setLabelCol("target");
-
-        Dataset<Row> training = formula.fit(df).transform(df).select("features", "target");
-
-        training.show(10);
-
-        GeneralizedLinearRegression lr = new GeneralizedLinearRegression()
-                .setMaxIter(10)
-                .setFamily("Binomial")
-                .setLink("Logit")
-                .setRegParam(0.01)
-                //       .setElasticNetParam(0.8)
-                .setLabelCol("target")
-                .setFeaturesCol("features");
-
-        GeneralizedLinearRegressionModel lrModel = lr.fit(training);
-
-        System.out.println(lrModel.coefficients());
-
-
+    public LogisticLearner(double gamma, Target target, double regularisation) {
+        this(gamma, target, regularisation, 1);
     }
 
-        @Override
-        public void learnFromApacheData (){
-
-            RFormula formula = new RFormula()
-                    .setFormula("target ~ " + String.join(" + ", descriptions))
-                    .setFeaturesCol("features")
-                    .setLabelCol("target");
-
-            Dataset<Row> training = formula.fit(apacheData).transform(apacheData).select("features", "target");
-
-            if (debug)
-                training.show(10);
-
-            GeneralizedLinearRegression lr = new GeneralizedLinearRegression()
-                    .setFitIntercept(true)
-                    .setMaxIter(10)
-                    .setFamily("Binomial")
-                    .setLink("Logit")
-                    .setRegParam(0.1)
-                    .setLabelCol("target")
-                    .setFeaturesCol("features");
-
-            GeneralizedLinearRegressionModel lrModel = lr.fit(training);
-
-            if (debug)
-                System.out.println(lrModel.coefficients());
-
-            coefficients = new double[descriptions.length + 1];
-            coefficients[0] = lrModel.intercept();
-            double[] coeffs = lrModel.coefficients().toArray();
-            System.arraycopy(coeffs, 0, coefficients, 1, coeffs.length);
+    public LogisticLearner(double gamma, Target target, double regularisation, int threads) {
+        super(gamma, target, regularisation, threads);
+    }
 
-        }
+    private static class Sums {
+        double[] hessian;
+        double[] gradient;
+        double[] weights;
+    }
 
-        @Override
-        public void writeToFile (String file) {
-            try (FileWriter writer = new FileWriter(file, false)) {
-                writer.write("BIAS\t" + String.join("\t", descriptions) + "\n");
-                writer.write(Arrays.stream(coefficients).mapToObj(d -> String.format("%.4f", d)).collect(joining("\t")));
-                writer.write("\n");
-            } catch (Exception e) {
-                e.printStackTrace();
+    @Override
+    protected void fit(String... files) {
+        // we only know the number of features once we have started on the data, so start from the bias alone
+        double[] beta = null;
+        for (int iteration = 0; iteration < maxIterations; iteration++) {
+            double[] current = beta;
+            List<Sums> partials = pass(Sums::new, (sums, x, y, n, p) -> {
+                if (sums.hessian == null) {
+                    sums.hessian = new double[p * p];
+                    sums.gradient = new double[p];
+                    sums.weights = new double[x.length / p];
+                }
+                for (int r = 0; r < n; r++) {
+                    if (!(y[r] >= 0.0 && y[r] <= 1.0))
+                        throw new AssertionError("Logistic regression needs a target in [0, 1], not " + y[r]);
+                    double eta = 0.0;
+                    if (current != null) {
+                        for (int j = 0; j < p; j++)
+                            eta += x[r * p + j] * current[j];
+                    }
+                    double mu = 1.0 / (1.0 + Math.exp(-eta));
+                    sums.weights[r] = mu * (1.0 - mu);
+                    for (int j = 0; j < p; j++)
+                        sums.gradient[j] += (y[r] - mu) * x[r * p + j];
+                }
+                addOuterProducts(sums.hessian, x, sums.weights, n, p);
+            }, files);
+
+            int p = descriptions.length + 1;
+            if (beta == null)
+                beta = new double[p];
+            double[] hessian = new double[p * p];
+            double[] step = new double[p];
+            for (Sums sums : partials) {
+                if (sums.hessian == null)
+                    continue;
+                for (int i = 0; i < hessian.length; i++)
+                    hessian[i] += sums.hessian[i] / rows;
+                for (int j = 0; j < p; j++)
+                    step[j] += sums.gradient[j] / rows;
+            }
+            // the penalty is scaled by the (mean) weight of the rows, as each iteration is a weighted least squares
+            double penalty = regularisation * hessian[0];
+            for (int j = 1; j < p; j++) {
+                hessian[j * p + j] += penalty;
+                step[j] -= penalty * beta[j];
             }
+            step = solve(hessian, step, p);
+            double largestStep = 0.0;
+            for (int j = 0; j < p; j++) {
+                beta[j] += step[j];
+                largestStep = Math.max(largestStep, Math.abs(step[j]));
+            }
+            if (largestStep < tolerance)
+                break;
         }
+        coefficients = beta;
+    }
 
-        @Override
-        public String name() {
-            return "Logistic";
-        }
+    @Override
+    public void writeToFile(String file) {
+        writeCoefficients(file, "%.4f");
+    }
+
+    @Override
+    public String name() {
+        return "Logistic";
+    }
 
 }
@@ -1,65 +1,110 @@
 package players.learners;
 
-
-import org.apache.spark.ml.feature.RFormula;
-import org.apache.spark.ml.regression.LinearRegression;
-import org.apache.spark.ml.regression.LinearRegressionModel;
-import org.apache.spark.sql.Dataset;
-import org.apache.spark.sql.Row;
-
-import java.io.FileWriter;
-import java.util.Arrays;
-import java.util.stream.Collectors;
-
-public class OLSLearner extends ApacheLearner {
-
-    double[] coefficients;
+import java.util.List;
+
+/**
+ * Fits a linear regression by the normal equations, in a single pass through the data that adds up X'X and X'y
+ * (see StreamingLinearLearner), so that the data are never all in memory.
+ * <p>
+ * With regularisation > 0 this is ridge regression, with the penalty on each coefficient scaled by the variance of its
+ * feature, and divided by the standard deviation of the target, as Spark's LinearRegression does by default. The bias
+ * is not penalised, and a feature that never changes gets a coefficient of zero.
+ */
+public class OLSLearner extends StreamingLinearLearner {
 
     public OLSLearner(double gamma, Target target) {
-        super(gamma, target);
+        this(gamma, target, 0.1);
     }
 
-    @Override
-    void learnFromApacheData() {
-
-        RFormula formula = new RFormula()
-                .setFormula("target ~ " + String.join(" + ", descriptions))
-                .setFeaturesCol("features")
-                .setLabelCol("target");
-
-        Dataset<Row> training = formula.fit(apacheData).transform(apacheData).select("features", "target");
+    public OLSLearner(double gamma, Target target, double regularisation) {
+        this(gamma, target, regularisation, 1);
+    }
 
-        if (debug)
-            training.show(10);
+    public OLSLearner(double gamma, Target target, double regularisation, int threads) {
+        super(gamma, target, regularisation, threads);
+    }
 
-        LinearRegression lr = new LinearRegression()
-                .setFitIntercept(true)
-                .setMaxIter(10)
-                .setRegParam(0.1)
-                .setLabelCol("target")
-                .setFeaturesCol("features");
+    private static class Sums {
+        double[] xtx;
+        double[] xty;
+        double yy;
+    }
 
-        LinearRegressionModel lrModel = lr.fit(training);
+    @Override
+    protected void fit(String... files) {
+        List<Sums> partials = pass(Sums::new, (sums, x, y, n, p) -> {
+            if (sums.xtx == null) {
+                sums.xtx = new double[p * p];
+                sums.xty = new double[p];
+            }
+            addOuterProducts(sums.xtx, x, null, n, p);
+            for (int r = 0; r < n; r++) {
+                for (int j = 0; j < p; j++)
+                    sums.xty[j] += x[r * p + j] * y[r];
+                sums.yy += y[r] * y[r];
+            }
+        }, files);
+
+        int p = descriptions.length + 1;
+        double[] xtx = new double[p * p];
+        double[] xty = new double[p];
+        double yy = 0.0;
+        for (Sums sums : partials) {
+            if (sums.xtx == null)
+                continue;
+            for (int i = 0; i < xtx.length; i++)
+                xtx[i] += sums.xtx[i];
+            for (int j = 0; j < p; j++)
+                xty[j] += sums.xty[j];
+            yy += sums.yy;
+        }
+        coefficients = solveNormalEquations(xtx, xty, yy, rows, regularisation);
+    }
 
-        if (debug)
-            System.out.println(lrModel.coefficients());
+    /**
+     * @param xtx - the upper triangle of X'X, where the first column of X is the bias (so xtx[j] is the sum of feature j)
+     * @param xty - X'y
+     * @param yy  - the sum of y^2
+     * @param n   - the number of rows
+     * @return the coefficients, with the bias first
+     */
+    static double[] solveNormalEquations(double[] xtx, double[] xty, double yy, long n, double regularisation) {
+        int p = xty.length;
+        double yMean = xty[0] / n;
+        double yStd = Math.sqrt(Math.max(0.0, yy / n - yMean * yMean));
+        double penalty = yStd > 0.0 ? regularisation / yStd : 0.0;
+
+        // features that never change are dropped (they would be the same as the bias)
+        int[] active = new int[p];
+        double[] variance = new double[p];
+        int nActive = 0;
+        active[nActive++] = 0;
+        for (int j = 1; j < p; j++) {
+            double mean = xtx[j] / n;
+            variance[j] = xtx[j * p + j] / n - mean * mean;
+            if (variance[j] > 1e-12 * Math.max(xtx[j * p + j] / n, Double.MIN_NORMAL))
+                active[nActive++] = j;
+        }
 
-        coefficients = new double[descriptions.length + 1];
-        coefficients[0] = lrModel.intercept();
-        double[] coeffs = lrModel.coefficients().toArray();
-        System.arraycopy(coeffs, 0, coefficients, 1, coeffs.length);
+        double[] a = new double[nActive * nActive];
+        double[] b = new double[nActive];
+        for (int i = 0; i < nActive; i++) {
+            int row = active[i];
+            b[i] = xty[row] / n;
+            for (int k = i; k < nActive; k++)
+                a[i * nActive + k] = xtx[row * p + active[k]] / n;
+            a[i * nActive + i] += penalty * variance[row];
+        }
+        double[] solution = solve(a, b, nActive);
+        double[] retValue = new double[p];
+        for (int i = 0; i < nActive; i++)
+            retValue[active[i]] = solution[i];
+        return retValue;
     }
 
     @Override
     public void writeToFile(String prefix) {
-        String file = prefix + ".txt";
-        try (FileWriter writer = new FileWriter(file, false)) {
-            writer.write("BIAS\t" + String.join("\t", descriptions) + "\n");
-            writer.write(Arrays.stream(coefficients).mapToObj(d -> String.format("%.4g", d)).collect(Collectors.joining("\t")));
-            writer.write("\n");
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        writeCoefficients(prefix + ".txt", "%.4g");
     }
 
     @Override
@@ -67,5 +112,4 @@ public class OLSLearner extends ApacheLearner {
         return "OLS";
     }
 
-
 }
@@ -0,0 +1,241 @@
+package players.learners;
+
+import java.io.FileWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Base for learners of a linear model (one coefficient per feature, plus a bias), which are fitted by passes over the
+ * data rather than by loading it all into memory (as loadData() does).
+ * <p>
+ * Each pass streams the files (see AbstractLearner.streamData()) into blocks of batchSize rows, one block per thread.
+ * Once each thread has a full block they are processed in parallel, each thread adding its block into its own partial
+ * result (for example the sums of X'X and X'y). The partial results are then combined in thread order. Block i of a
+ * pass always goes to thread (i % threads), so the result depends only on the data and the number of threads, and not
+ * on scheduling. Memory used is therefore that of the blocks and partial results, whatever the number of rows.
+ * <p>
+ * The coefficients are written in the format loaded by AbstractStateHeuristic: a tab separated line of
+ * BIAS and the feature names, and then a line of the coefficients.
+ */
+public abstract class StreamingLinearLearner extends AbstractLearner {
+
+    double[] coefficients;
+    protected double regularisation;
+    protected int threads;
+    protected int batchSize = 4096;
+    protected long rows;  // in the last pass
+
+    private ExecutorService executor;
+
+    public StreamingLinearLearner(double gamma, Target target, double regularisation, int threads) {
+        super(gamma, target);
+        if (regularisation < 0.0)
+            throw new IllegalArgumentException("Regularisation must be non-negative, not " + regularisation);
+        if (threads < 1)
+            throw new IllegalArgumentException("Need at least one thread, not " + threads);
+        this.regularisation = regularisation;
+        this.threads = threads;
+    }
+
+    /**
+     * Adds one block of data into a partial result.
+     */
+    protected interface BatchAccumulator<T> {
+        /**
+         * @param partial - the partial result of this thread, to add to
+         * @param x       - the rows of features (with the bias first), each of length p, one after another
+         * @param y       - the target of each row
+         * @param n       - the number of rows in the block (x and y may be longer)
+         * @param p       - the number of values in each row of x
+         */
+        void accumulate(T partial, double[] x, double[] y, int n, int p);
+    }
+
+    @Override
+    public void learnFrom(String... files) {
+        if (threads > 1)
+            executor = Executors.newFixedThreadPool(threads - 1, r -> {
+                Thread t = new Thread(r, "Learner-worker");
+                t.setDaemon(true);
+                return t;
+            });
+        try {
+            fit(files);
+        } finally {
+            if (executor != null)
+                executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Sets coefficients from the data in the files, using pass() as many times as needed.
+     */
+    protected abstract void fit(String... files);
+
+    /**
+     * Makes one pass through all the data in the files.
+     *
+     * @param newPartial  - creates the (empty) partial result of each thread
+     * @param accumulator - adds a block of data to a partial result
+     * @return the partial result of each thread, in thread order
+     */
+    protected <T> List<T> pass(Supplier<T> newPartial, BatchAccumulator<T> accumulator, String... files) {
+        List<T> partials = new ArrayList<>();
+        for (int t = 0; t < threads; t++)
+            partials.add(newPartial.get());
+        double[][] x = new double[threads][];
+        double[][] y = new double[threads][batchSize];
+        int[] count = new int[threads];
+        int[] current = new int[1];  // the block being filled
+        rows = 0;
+        streamData((regressionData, t, score) -> {
+            int p = regressionData.length;
+            int b = current[0];
+            if (x[b] == null)
+                x[b] = new double[batchSize * p];
+            System.arraycopy(regressionData, 0, x[b], count[b] * p, p);
+            y[b][count[b]] = t;
+            count[b]++;
+            rows++;
+            if (count[b] == batchSize) {
+                if (b == threads - 1) {
+                    accumulateAll(partials, accumulator, x, y, count, p);
+                    current[0] = 0;
+                } else {
+                    current[0] = b + 1;
+                }
+            }
+        }, files);
+        if (rows == 0)
+            throw new AssertionError("No data found in " + String.join(", ", files));
+        accumulateAll(partials, accumulator, x, y, count, descriptions.length + 1);
+        return partials;
+    }
+
+    private <T> void accumulateAll(List<T> partials, BatchAccumulator<T> accumulator, double[][] x, double[][] y,
+                                   int[] count, int p) {
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int t = 1; t < threads; t++) {
+            if (count[t] == 0)
+                continue;
+            int thread = t;
+            tasks.add(executor.submit(() -> accumulator.accumulate(partials.get(thread), x[thread], y[thread], count[thread], p)));
+        }
+        if (count[0] > 0)
+            accumulator.accumulate(partials.get(0), x[0], y[0], count[0], p);
+        for (Future<?> task : tasks) {
+            try {
+                task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while learning", e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Error while learning", e.getCause());
+            }
+        }
+        Arrays.fill(count, 0);
+    }
+
+    /**
+     * Adds the upper triangle of w * x x' into xtx (p by p, row-major) for each row of x, with w = 1 if weights is null
+     */
+    static void addOuterProducts(double[] xtx, double[] x, double[] weights, int n, int p) {
+        for (int r = 0; r < n; r++) {
+            int row = r * p;
+            double w = weights == null ? 1.0 : weights[r];
+            for (int j = 0; j < p; j++) {
+                double wxj = w * x[row + j];
+                if (wxj == 0.0)
+                    continue;  // many features are sparse
+                int offset = j * p;
+                for (int k = j; k < p; k++)
+                    xtx[offset + k] += wxj * x[row + k];
+            }
+        }
+    }
+
+    /**
+     * Solves a x = b in place (b is overwritten with x) by Cholesky decomposition, where a is symmetric and positive
+     * definite. Only the upper triangle of a (p by p, row-major) is used, and a is overwritten.
+     *
+     * @return false if a is not (numerically) positive definite, in which case a and b are left part-way
+     */
+    static boolean choleskySolve(double[] a, double[] b, int p) {
+        // decompose a = L L', storing L' in the upper triangle
+        for (int j = 0; j < p; j++) {
+            double d = a[j * p + j];
+            for (int k = 0; k < j; k++)
+                d -= a[k * p + j] * a[k * p + j];
+            if (!(d > 1e-12 * Math.abs(a[j * p + j])))
+                return false;
+            d = Math.sqrt(d);
+            a[j * p + j] = d;
+            for (int i = j + 1; i < p; i++) {
+                double s = a[j * p + i];
+                for (int k = 0; k < j; k++)
+                    s -= a[k * p + j] * a[k * p + i];
+                a[j * p + i] = s / d;
+            }
+        }
+        // forward substitution (L z = b), then back substitution (L' x = z)
+        for (int i = 0; i < p; i++) {
+            double s = b[i];
+            for (int k = 0; k < i; k++)
+                s -= a[k * p + i] * b[k];
+            b[i] = s / a[i * p + i];
+        }
+        for (int i = p - 1; i >= 0; i--) {
+            double s = b[i];
+            for (int k = i + 1; k < p; k++)
+                s -= a[i * p + k] * b[k];
+            b[i] = s / a[i * p + i];
+        }
+        return true;
+    }
+
+    /**
+     * As choleskySolve(), but if a is singular (for example because two features are always equal) a small ridge is
+     * added to the diagonal (other than the bias) until it can be solved.
+     */
+    static double[] solve(double[] a, double[] b, int p) {
+        double maxDiagonal = 0.0;
+        for (int j = 0; j < p; j++)
+            maxDiagonal = Math.max(maxDiagonal, Math.abs(a[j * p + j]));
+        double ridge = 0.0;
+        for (int attempt = 0; attempt < 12; attempt++) {
+            double[] aCopy = a.clone();
+            double[] x = b.clone();
+            for (int j = 1; j < p; j++)
+                aCopy[j * p + j] += ridge;
+            if (choleskySolve(aCopy, x, p))
+                return x;
+            ridge = ridge == 0.0 ? 1e-10 * Math.max(maxDiagonal, 1e-300) : ridge * 10.0;
+        }
+        throw new AssertionError("Unable to solve for the coefficients: the features are degenerate");
+    }
+
+    /**
+     * Writes the bias and coefficients to the file, each with the format given (for String.format)
+     */
+    protected void writeCoefficients(String file, String format) {
+        try (FileWriter writer = new FileWriter(file, false)) {
+            writer.write("BIAS\t" + String.join("\t", descriptions) + "\n");
+            writer.write(Arrays.stream(coefficients).mapToObj(d -> String.format(format, d)).collect(Collectors.joining("\t")));
+            writer.write("\n");
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    public double[] getCoefficients() {
+        return coefficients.clone();
+    }
+}
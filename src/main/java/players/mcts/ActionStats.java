@@ -26,4 +26,17 @@ public class ActionStats {
         nVisits++;
     }
 
+    /**
+     * Adds the statistics from another (independently gathered) set of results for the same action.
+     * Used to merge root statistics in root-parallel search.
+     */
+    public void add(ActionStats other) {
+        for (int i = 0; i < totValue.length; i++) {
+            totValue[i] += other.totValue[i];
+            squaredTotValue[i] += other.squaredTotValue[i];
+        }
+        nVisits += other.nVisits;
+        validVisits += other.validVisits;
+    }
+
 }
@@ -0,0 +1,59 @@
+package players.mcts;
+
+import core.actions.AbstractAction;
+
+import java.util.Arrays;
+
+/**
+ * The sequence of (acting player, action) pairs taken during one MCTS iteration. This replaces a
+ * List of Pairs so that nothing is allocated per action; the arrays are cleared and reused on every iteration.
+ */
+public class ActionTrajectory {
+
+    private int[] players = new int[16];
+    private AbstractAction[] actions = new AbstractAction[16];
+    private int size;
+
+    public void add(int player, AbstractAction action) {
+        if (size == players.length) {
+            players = Arrays.copyOf(players, size * 2);
+            actions = Arrays.copyOf(actions, size * 2);
+        }
+        players[size] = player;
+        actions[size] = action;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int player(int index) {
+        return players[index];
+    }
+
+    public AbstractAction action(int index) {
+        return actions[index];
+    }
+
+    public void clear() {
+        // we release the actions for garbage collection
+        Arrays.fill(actions, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Replaces the contents of this trajectory with just the actions taken by the specified player in another
+     */
+    public void copyForPlayer(ActionTrajectory other, int player) {
+        clear();
+        for (int i = 0; i < other.size; i++) {
+            if (other.players[i] == player)
+                add(player, other.actions[i]);
+        }
+    }
+}
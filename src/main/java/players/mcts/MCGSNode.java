@@ -2,13 +2,18 @@ package players.mcts;
 
 import core.AbstractGameState;
 import core.actions.AbstractAction;
+import core.interfaces.IStateHash;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import utilities.ZobristHashing;
 
 import java.util.*;
 
 public class MCGSNode extends SingleTreeNode {
 
-    private final Map<String, MCGSNode> transpositionMap = new HashMap<>();
-    public List<String> trajectory = new ArrayList<>();
+    // keyed on the 64-bit hash of the state, so that we avoid creating (and hashing) a String on every lookup
+    private final Long2ObjectOpenHashMap<MCGSNode> transpositionMap = new Long2ObjectOpenHashMap<>();
+    public LongArrayList trajectory = new LongArrayList();
 
     protected MCGSNode() {
     }
@@ -20,8 +25,18 @@ public class MCGSNode extends SingleTreeNode {
         addToTranspositionTable(this, state);
     }
 
+    /**
+     * The key used in the transposition table. This is the hash if MCGSStateKey implements IStateHash, and
+     * otherwise a hash of its String key.
+     */
+    private long stateKey(AbstractGameState state) {
+        if (params.MCGSStateKey instanceof IStateHash)
+            return ((IStateHash) params.MCGSStateKey).getHash(state);
+        return ZobristHashing.hash(params.MCGSStateKey.getKey(state));
+    }
+
     private void addToTranspositionTable(MCGSNode node, AbstractGameState keyState) {
-        String key = params.MCGSStateKey.getKey(keyState);
+        long key = stateKey(keyState);
         MCGSNode graphRoot = (MCGSNode) root;
         if (graphRoot.transpositionMap.containsKey(key)) {
             throw new AssertionError("Unexpected?");
@@ -42,7 +57,7 @@ public class MCGSNode extends SingleTreeNode {
         // we create the new node here; so that the backup does not create new nodes (which is in line with the main MCTS algorithm).
         // this enforces (for the moment) the rule that each iteration adds one new node.
         MCGSNode graphRoot = (MCGSNode) root;
-        String key = params.MCGSStateKey.getKey(nextState);
+        long key = stateKey(nextState);
         if (graphRoot.transpositionMap.containsKey(key)) {
             if (params.MCGSExpandAfterClash) {
                 throw new AssertionError("Unexpected?");
@@ -58,11 +73,11 @@ public class MCGSNode extends SingleTreeNode {
     @Override
     protected SingleTreeNode nextNodeInTree(AbstractAction actionChosen) {
         // we look up the node in the transposition table using the feature vector for the openLoopState
-        String key = params.MCGSStateKey.getKey(openLoopState);
+        long key = stateKey(openLoopState);
         MCGSNode nextNode = ((MCGSNode) root).transpositionMap.get(key);
 
         if (nextNode != null) {
-            if (actionValues.get(actionChosen).nVisits == 0) {
+            if (statsByIndex[indexFor(actionChosen)].nVisits == 0) {
                 root.nodeClash++;
                 if (!params.MCGSExpandAfterClash) {
                     // we then return null so we rollout from this point
@@ -82,7 +97,7 @@ public class MCGSNode extends SingleTreeNode {
             // We only track this while in the tree (we could do the rollout as well, but at the overhead
             // of featureVector calculations
             MCGSNode mcgsRoot = (MCGSNode) root;
-            String key = params.MCGSStateKey.getKey(gs);
+            long key = stateKey(gs);
             mcgsRoot.trajectory.add(key);
 //            System.out.println("Adding to trajectory: " + key);
         }
@@ -106,9 +121,9 @@ public class MCGSNode extends SingleTreeNode {
         }
 
         for (int i = 0; i < nRoot.trajectory.size(); i++) {
-            String key = nRoot.trajectory.get(i);
+            long key = nRoot.trajectory.getLong(i);
             MCGSNode node = nRoot.transpositionMap.get(key);
-            AbstractAction action = nRoot.actionsInTree.get(i).b;
+            AbstractAction action = nRoot.actionsInTree.action(i);
             if (node == null) {
                 throw new AssertionError("Node should not be null");
             }
@@ -117,7 +132,7 @@ public class MCGSNode extends SingleTreeNode {
         nRoot.trajectory.clear();
     }
 
-    public Map<String, MCGSNode> getTranspositionMap() {
+    public Map<Long, MCGSNode> getTranspositionMap() {
         return new HashMap<>(transpositionMap);
     }
 
@@ -47,7 +47,11 @@ public class MCTSMetrics implements IMetricsCollection {
                 records.put("ActionsAtRoot", root.actionValues.size());
                 records.put("fmCalls", mctsPlayer.root.fmCallsCount / visits);
                 records.put("copyCalls", mctsPlayer.root.copyCount / visits);
+                int cacheLookups = mctsPlayer.root.actionCacheHits + mctsPlayer.root.actionCacheMisses;
+                records.put("actionCacheHitRate", cacheLookups > 0 ? mctsPlayer.root.actionCacheHits / (double) cacheLookups : 0.0);
                 records.put("time", mctsPlayer.root.timeTaken);
+                // with root or tree parallelisation, Iterations is summed over all threads and time is that of the calling thread
+                records.put("itersPerSecond", mctsPlayer.root.timeTaken > 0.0 ? root.getVisits() * 1000.0 / mctsPlayer.root.timeTaken : 0.0);
                 return true;
             }
             return false;
@@ -77,7 +81,9 @@ public class MCTSMetrics implements IMetricsCollection {
             cols.put("ActionsAtRoot", Integer.class);
             cols.put("fmCalls", Integer.class);
             cols.put("copyCalls", Integer.class);
+            cols.put("actionCacheHitRate", Double.class);
             cols.put("time", Double.class);
+            cols.put("itersPerSecond", Double.class);
             return cols;
         }
     }
@@ -63,6 +63,31 @@ public class MCTSParams extends PlayerParameters {
     public boolean MCGSExpandAfterClash = true;
     public double MASTDefaultValue = 0.0;
     public double firstPlayUrgency = 1000000000.0;
+    // Number of independent trees searched concurrently from the root, with their root statistics merged
+    // before the final action is chosen (root parallelisation). 1 means a single tree on the calling thread.
+    public int rootParallelism = 1;
+    // Number of threads searching one shared tree (tree parallelisation), each iteration holding a virtual loss on its
+    // path until its rollout is backed up. 1 means the calling thread alone. Only for OneTree and SelfOnly trees, and
+    // not used with rootParallelism > 1.
+    public int treeParallelism = 1;
+    // If true, the subtree reached by the actions taken since our last decision is kept as the root of the next search
+    // (only for OneTree and SelfOnly trees, and not with rootParallelism).
+    // This also changes Closed_Loop search: each new node then holds the state reached by the actions to it (one
+    // copy and forward model call per node), and may be terminal. Otherwise every Closed_Loop node has the state of
+    // the root, as before, which leaves no subtree to reuse.
+    public boolean reuseTree = false;
+    // If true, and the forward model supports undo, Open_Loop search applies actions to one copy of the root state
+    // and undoes them at the end of each iteration, instead of copying the root state for every iteration
+    // (not used with MultiTree)
+    public boolean useUndo = false;
+    // If greater than zero, the results of computeAvailableActions() are cached for up to this many states during
+    // each search (see core.ActionCache). States are keyed by MCGSStateKey, and there is no cache unless this is an
+    // IStateHash.
+    public int actionCacheSize = 0;
+    // If greater than one, the leaves reached by up to this many iterations are evaluated together by the heuristic
+    // (in one call if it is an IBatchStateHeuristic) and then backed up. Until then each path carries a virtual loss,
+    // so that the iterations in between select different paths. Only for OneTree and SelfOnly trees.
+    public int leafBatchSize = 1;
 
     public MCTSParams() {
         addTunableParameter("K", Math.sqrt(2), Arrays.asList(0.0, 0.1, 1.0, Math.sqrt(2), 3.0, 10.0));
@@ -106,6 +131,12 @@ public class MCTSParams extends PlayerParameters {
         addTunableParameter("MCGSStateKey", IStateKey.class);
         addTunableParameter("MCGSExpandAfterClash", true);
         addTunableParameter("FPU", 1000000000.0);
+        addTunableParameter("rootParallelism", 1);
+        addTunableParameter("treeParallelism", 1);
+        addTunableParameter("reuseTree", false);
+        addTunableParameter("useUndo", false);
+        addTunableParameter("actionCacheSize", 0);
+        addTunableParameter("leafBatchSize", 1, Arrays.asList(1, 4, 8, 16, 32));
     }
 
     @Override
@@ -164,6 +195,12 @@ public class MCTSParams extends PlayerParameters {
         opponentModelParams = (TunableParameters) getParameterValue("opponentModelParams");
         // we then null those elements of params which are constructed (lazily) from the above
         firstPlayUrgency = (double) getParameterValue("FPU");
+        rootParallelism = (int) getParameterValue("rootParallelism");
+        treeParallelism = (int) getParameterValue("treeParallelism");
+        reuseTree = (boolean) getParameterValue("reuseTree");
+        useUndo = (boolean) getParameterValue("useUndo");
+        actionCacheSize = (int) getParameterValue("actionCacheSize");
+        leafBatchSize = (int) getParameterValue("leafBatchSize");
         opponentModel = null;
         rolloutPolicy = null;
     }
@@ -13,6 +13,7 @@ import utilities.Pair;
 import utilities.Utils;
 
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Supplier;
@@ -27,6 +28,13 @@ public class MCTSPlayer extends AbstractPlayer implements IAnyTimePlayer {
     protected boolean debug = false;
     protected SingleTreeNode root;
     List<Map<Object, Pair<Integer, Double>>> MASTStats;
+    // Used for root and tree parallelisation only: the copies of this player that search the additional trees
+    // (or that search the shared tree, one for each thread)
+    private List<MCTSPlayer> searchWorkers;
+    private ExecutorService searchExecutor;
+    // Used for tree reuse only: the root of our last search, and the length of the game history at that point
+    private SingleTreeNode previousRoot;
+    private int previousHistorySize;
 
     public MCTSPlayer() {
         this(new MCTSParams());
@@ -59,6 +67,8 @@ public class MCTSPlayer extends AbstractPlayer implements IAnyTimePlayer {
         if (getParameters().advantageFunction instanceof AbstractPlayer)
             ((AbstractPlayer) getParameters().advantageFunction).initializePlayer(state);
         MASTStats = null;
+        previousRoot = null;
+        shutdownSearchWorkers();
         getParameters().getRolloutStrategy().initializePlayer(state);
         getParameters().getOpponentModel().initializePlayer(state);
     }
@@ -92,7 +102,10 @@ public class MCTSPlayer extends AbstractPlayer implements IAnyTimePlayer {
             root = new MultiTreeNode(this, gameState, rnd);
         else
             root = SingleTreeNode.createRootNode(this, gameState, rnd, getFactory());
+        initialiseRootMAST();
+    }
 
+    private void initialiseRootMAST() {
         if (MASTStats != null)
             root.MASTStatistics = MASTStats.stream()
                     .map(m -> Utils.decay(m, getParameters().MASTGamma))
@@ -109,8 +122,21 @@ public class MCTSPlayer extends AbstractPlayer implements IAnyTimePlayer {
     @Override
     public AbstractAction _getAction(AbstractGameState gameState, List<AbstractAction> actions) {
         // Search for best action from the root
-        createRootNode(gameState);
-        root.mctsSearch();
+        if (getParameters().rootParallelism > 1 && getParameters().opponentTreePolicy != MultiTree) {
+            rootParallelSearch(gameState);
+        } else {
+            if (!reuseSubtree(gameState))
+                createRootNode(gameState);
+            if (getParameters().treeParallelism > 1 &&
+                    (getParameters().opponentTreePolicy == OneTree || getParameters().opponentTreePolicy == SelfOnly))
+                root.mctsSearch(treeWorkers(gameState), searchExecutor);
+            else
+                root.mctsSearch();
+        }
+        if (getParameters().reuseTree) {
+            previousRoot = root;
+            previousHistorySize = gameState.getHistory().size();
+        }
 
         if (getParameters().advantageFunction instanceof ITreeProcessor)
             ((ITreeProcessor) getParameters().advantageFunction).process(root);
@@ -131,8 +157,152 @@ public class MCTSPlayer extends AbstractPlayer implements IAnyTimePlayer {
         return root.bestAction();
     }
 
+    /**
+     * Tree reuse. If the actions taken in the game since our last search (as recorded in the history) lead to a node
+     * in that tree, then this node becomes the root for the new search, and keeps all the statistics
+     * gathered below it. The rest of the old tree is discarded.
+     * This is only supported for OneTree and SelfOnly trees; and the history must be available (so not in
+     * competition mode).
+     *
+     * @return true if root has been set from the previous tree, false if a new root is needed
+     */
+    private boolean reuseSubtree(AbstractGameState gameState) {
+        MCTSParams params = getParameters();
+        SingleTreeNode oldRoot = previousRoot;
+        previousRoot = null;
+        if (!params.reuseTree || oldRoot == null ||
+                (params.opponentTreePolicy != OneTree && params.opponentTreePolicy != SelfOnly))
+            return false;
+        List<AbstractAction> history = gameState.getHistory();
+        if (history.size() <= previousHistorySize)
+            return false;
+        SingleTreeNode newRoot;
+        try {
+            newRoot = oldRoot.findSubtree(history.subList(previousHistorySize, history.size()));
+        } catch (RuntimeException | AssertionError e) {
+            // the actions may not replay on our copy of the old state (for example if they depend on hidden information,
+            // which the forward models check with assertions)
+            return false;
+        }
+        if (newRoot == null || newRoot == oldRoot || newRoot.decisionPlayer != gameState.getCurrentPlayer())
+            return false;
+        newRoot.promoteToRoot(this, gameState);
+        root = newRoot;
+        initialiseRootMAST();
+        return true;
+    }
+
+    /**
+     * Root parallelisation. We search rootParallelism independent trees from the same root state, each with its own
+     * copy of the player (and hence of the forward model, rollout policy, opponent model and random number generator).
+     * One tree is searched on the calling thread, the others on a pool of worker threads.
+     * Each tree uses the full budget, so with a time budget we get more iterations in the same wall-clock time.
+     * The root statistics of all trees are then merged into root, from which bestAction() is taken as usual.
+     * <p>
+     * Any heuristic or advantage function in the parameters is shared between the trees, so it must be thread-safe.
+     */
+    private void rootParallelSearch(AbstractGameState gameState) {
+        int extraTrees = getParameters().rootParallelism - 1;
+        if (searchWorkers == null) {
+            searchWorkers = new ArrayList<>();
+            for (int i = 0; i < extraTrees; i++)
+                searchWorkers.add(newSearchWorker(gameState));
+            searchExecutor = Executors.newFixedThreadPool(extraTrees, r -> {
+                Thread t = new Thread(r, "MCTS-root-worker");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        List<Future<SingleTreeNode>> searches = new ArrayList<>();
+        for (MCTSPlayer worker : searchWorkers) {
+            // copies are taken (and seeds drawn) on this thread so that the workers share nothing mutable with us
+            AbstractGameState workerState = gameState.copy();
+            worker.rnd = new Random(rnd.nextLong());
+            searches.add(searchExecutor.submit(() -> {
+                worker.createRootNode(workerState);
+                worker.root.mctsSearch();
+                worker.MASTStats = worker.root.MASTStatistics;
+                return worker.root;
+            }));
+        }
+        createRootNode(gameState);
+        root.mctsSearch();
+        for (Future<SingleTreeNode> search : searches) {
+            try {
+                root.mergeRootStatistics(search.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted during root parallel search", e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Error in root parallel search", e.getCause());
+            }
+        }
+    }
+
+    /*
+     * A copy of this player with its own seed, for one of the threads of a parallel search
+     */
+    MCTSPlayer newSearchWorker(AbstractGameState gameState) {
+        MCTSPlayer worker = copy();
+        worker.getParameters().setRandomSeed(rnd.nextLong());
+        // copy() has already constructed the rollout policy and opponent model (in setForwardModel()) from the old
+        // seed, so we construct them again from the new one
+        worker.getParameters().rolloutPolicy = null;
+        worker.getParameters().opponentModel = null;
+        worker.setForwardModel(worker.getForwardModel());
+        worker.initializePlayer(gameState);
+        return worker;
+    }
+
+    /**
+     * Tree parallelisation. Each of treeParallelism threads searches the one tree in root, using its own copy of the
+     * player (and hence of the forward model, rollout policy and opponent model) for its rollouts; see
+     * SingleTreeNode.sharedTreeSearch(). The calling thread uses the first copy, and the others a pool of threads.
+     * <p>
+     * Any heuristic in the parameters is shared between the threads, so it must be thread-safe.
+     *
+     * @return the copies of this player, one for each thread
+     */
+    private List<MCTSPlayer> treeWorkers(AbstractGameState gameState) {
+        int threads = getParameters().treeParallelism;
+        if (searchWorkers == null) {
+            searchWorkers = new ArrayList<>();
+            for (int i = 0; i < threads; i++)
+                searchWorkers.add(newSearchWorker(gameState));
+            searchExecutor = Executors.newFixedThreadPool(threads - 1, r -> {
+                Thread t = new Thread(r, "MCTS-tree-worker");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        // MAST statistics are updated during the search while holding the lock on the tree, so rollouts (which do not
+        // hold it) use a copy of them as they are at the start
+        List<Map<Object, Pair<Integer, Double>>> MASTCopy = null;
+        for (MCTSPlayer worker : searchWorkers) {
+            for (AbstractPlayer policy : Arrays.asList(worker.getParameters().getRolloutStrategy(), worker.getParameters().getOpponentModel())) {
+                if (policy instanceof IMASTUser) {
+                    if (MASTCopy == null)
+                        MASTCopy = root.MASTStatistics.stream()
+                                .map(m -> m.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey,
+                                        e -> new Pair<>(e.getValue().a, e.getValue().b))))
+                                .collect(Collectors.toList());
+                    ((IMASTUser) policy).setStats(MASTCopy);
+                }
+            }
+        }
+        return searchWorkers;
+    }
+
+    private void shutdownSearchWorkers() {
+        if (searchExecutor != null)
+            searchExecutor.shutdownNow();
+        searchExecutor = null;
+        searchWorkers = null;
+    }
+
     @Override
     public void finalizePlayer(AbstractGameState state) {
+        shutdownSearchWorkers();
         getParameters().getRolloutStrategy().onEvent(Event.createEvent(Event.GameEvent.GAME_OVER, state));
         getParameters().getOpponentModel().onEvent(Event.createEvent(Event.GameEvent.GAME_OVER, state));
         if (getParameters().heuristic instanceof IGameListener)
@@ -84,8 +84,13 @@ public class MultiTreeNode extends SingleTreeNode {
         maxDepthReached = new boolean[currentLocation.length];
         System.arraycopy(roots, 0, currentLocation, 0, currentLocation.length);
 
-        actionsInTree = new ArrayList<>();
-        actionsInRollout = new ArrayList<>();
+        if (actionsInTree == null) {
+            actionsInTree = new ActionTrajectory();
+            actionsInRollout = new ActionTrajectory();
+        } else {
+            actionsInTree.clear();
+            actionsInRollout.clear();
+        }
 
         // Keep iterating while the state reached is not terminal and the depth of the tree is not exceeded
         do {
@@ -150,10 +155,10 @@ public class MultiTreeNode extends SingleTreeNode {
                 // for each player-specific sub-tree we filter these to just their actions
                 if (p != currentLocation[p].decisionPlayer)
                     throw new AssertionError("We should only be backing up for the decision player");
-                int finalP = p;
-                currentLocation[p].root.actionsInTree = actionsInTree.stream()
-                        .filter(a -> a.a == finalP)
-                        .collect(Collectors.toList());
+                SingleTreeNode playerRoot = currentLocation[p].root;
+                if (playerRoot.actionsInTree == null)
+                    playerRoot.actionsInTree = new ActionTrajectory();
+                playerRoot.actionsInTree.copyForPlayer(actionsInTree, p);
 //                singleTreeNode.root.actionsInRollout = actionsInRollout.stream()
 //                        .filter(a -> a.a == singleTreeNode.decisionPlayer)
 //                        .collect(Collectors.toList());
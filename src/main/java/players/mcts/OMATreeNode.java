@@ -57,10 +57,11 @@ public class OMATreeNode extends SingleTreeNode {
                 continue;  // for OMA we only consider the root player
 
             // We only care about our actions for OMA stats
-            int finalPlayer = player;
-            List<AbstractAction> selfActionsOnly = root.actionsInTree.stream()
-                    .filter(p -> p.a == finalPlayer).map(p -> p.b)
-                    .collect(toList());
+            List<AbstractAction> selfActionsOnly = new ArrayList<>();
+            for (int i = 0; i < root.actionsInTree.size(); i++) {
+                if (root.actionsInTree.player(i) == player)
+                    selfActionsOnly.add(root.actionsInTree.action(i));
+            }
             List<OMATreeNode> nodes = new ArrayList<>();
             OMATreeNode currentNode = this;
             do {
@@ -2,17 +2,23 @@ package players.mcts;
 
 import core.*;
 import core.actions.AbstractAction;
+import core.interfaces.IBatchStateHeuristic;
+import core.interfaces.IStateHash;
 import core.interfaces.IStateHeuristic;
 import players.PlayerConstants;
 import utilities.*;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.function.*;
 import java.util.stream.IntStream;
 
 import static java.util.stream.Collectors.*;
 import static players.PlayerConstants.*;
 import static players.mcts.MCTSEnums.Information.Closed_Loop;
+import static players.mcts.MCTSEnums.Information.Open_Loop;
 import static players.mcts.MCTSEnums.OpponentTreePolicy.*;
 import static players.mcts.MCTSEnums.RolloutTermination.DEFAULT;
 import static players.mcts.MCTSEnums.SelectionPolicy.*;
@@ -33,6 +39,8 @@ public class SingleTreeNode {
     // Number of FM calls and State copies up until this node
     protected int fmCallsCount;
     protected int copyCount;
+    // Lookups in the ActionCache during the search from this root (if params.actionCacheSize > 0)
+    protected int actionCacheHits, actionCacheMisses;
     protected int paranoidPlayer = -1;
     // Action taken to reach this node
     // In vanilla MCTS this will likely be an action taken by some other player (not the decisionPlayer at this node)
@@ -55,6 +63,9 @@ public class SingleTreeNode {
     double timeTaken;
     protected double highReward = Double.NEGATIVE_INFINITY;
     protected double lowReward = Double.POSITIVE_INFINITY;
+    // the lowest value backed up for any player (only stored on the root, and whatever normaliseRewards is)
+    // this is the virtual loss used for iterations whose leaves are still to be evaluated
+    protected double lowestResult = Double.POSITIVE_INFINITY;
     protected int nodeClash;
     // Root node of tree
     protected SingleTreeNode root;
@@ -63,16 +74,60 @@ public class SingleTreeNode {
     // Children of this node. The value is an Array because we have to cater for the possibility that the next decision
     // could be by any player - each of which would transition to a different Node OpenLoop search. (Closed Loop will
     // only ever have one position in the array populated: and similarly if we are using a SelfOnly tree).
-    Map<AbstractAction, SingleTreeNode[]> children = new LinkedHashMap<>();
-    Map<AbstractAction, ActionStats> actionValues = new HashMap<>();
+    // (A null array marks an action that is still to be expanded.)
+    // The actions are indexed densely in the order that they were first seen at this node, and their children and
+    // statistics are held in arrays by that index. Selection and backup use the indices, so that actions are only
+    // hashed once per visit (in setActionsFromOpenLoopState).
+    // (indexOf is a HashMap rather than an open-addressed map, as that only calls equals() on actions with the same
+    // hashCode, and some actions have an asymmetric equals() with their subclasses)
+    final Map<AbstractAction, Integer> indexOf = new HashMap<>();
+    AbstractAction[] actionsByIndex = new AbstractAction[0];
+    ActionStats[] statsByIndex = new ActionStats[0];
+    SingleTreeNode[][] childrenByIndex = new SingleTreeNode[0][];
+    // Read-only views of the arrays above by action, for everything other than the search itself
+    final Map<AbstractAction, SingleTreeNode[]> children = new IndexedView<>(i -> childrenByIndex[i]);
+    final Map<AbstractAction, ActionStats> actionValues = new IndexedView<>(i -> statsByIndex[i]);
+    // the index of each entry in actionsFromOpenLoopState (in the same order)
+    int[] availableIndices = new int[0];
+    // the visit on which each index was last seen in actionsFromOpenLoopState (to detect duplicates)
+    private int[] seenOnVisit = new int[0];
+    private int actionSetCount;
+    // the action last returned by treePolicyAction(), and its index (so that we do not have to look it up again)
+    private AbstractAction chosenAction;
+    private int chosenIndex = -1;
     List<Map<Object, Pair<Integer, Double>>> MASTStatistics; // a list of one Map per player. Action -> (visits, totValue)
     ToDoubleBiFunction<AbstractAction, AbstractGameState> advantageFunction = (a, s) -> advantagesOfActionsFromOLS.getOrDefault(a, 0.0);
     ToDoubleBiFunction<AbstractAction, AbstractGameState> MASTFunction;
     // The total value of all trajectories through this node (one element per player)
     private Supplier<? extends SingleTreeNode> factory;
     // Total value of this node
-    protected List<Pair<Integer, AbstractAction>> actionsInTree;
-    List<Pair<Integer, AbstractAction>> actionsInRollout;
+    protected ActionTrajectory actionsInTree;
+    ActionTrajectory actionsInRollout;
+    // with useUndo, the single copy of the root state used by every iteration (only set on the root)
+    private AbstractGameState undoState;
+    private UndoStack undoStack;
+    // with params.leafBatchSize > 1, the iterations whose leaves are still to be evaluated (only set on the root),
+    // and the trajectories of those already backed up, for reuse
+    private List<PendingLeaf> pendingLeaves;
+    private Deque<ActionTrajectory> spareTrajectories;
+    // with params.treeParallelism > 1, the iterations started so far by all threads, and whether they should stop
+    // (only set on the root, and guarded by its lock)
+    private int sharedIterations;
+    private boolean sharedSearchStopped;
+
+    /**
+     * An iteration whose final state has not yet been evaluated and backed up (with leafBatchSize, it has been rolled
+     * out; with treeParallelism, it may still be rolling out on another thread).
+     * Until then each node on its path (nodes[i] is where actionsInTree.action(i) was taken) counts a visit with
+     * virtualValue for every player.
+     */
+    private static class PendingLeaf {
+        AbstractGameState leafState;
+        double[] startingValues;
+        ActionTrajectory actionsInTree, actionsInRollout;
+        SingleTreeNode[] nodes;
+        double virtualValue;
+    }
 
     protected SingleTreeNode() {
     }
@@ -86,16 +141,20 @@ public class SingleTreeNode {
         retValue.params = player.getParameters();
         retValue.forwardModel = player.getForwardModel();
         retValue.rnd = rnd;
-        // only root node maintains MAST statistics
-        retValue.MASTStatistics = new ArrayList<>();
-        for (int i = 0; i < state.getNPlayers(); i++)
-            retValue.MASTStatistics.add(new HashMap<>());
-        MASTActionHeuristic MASTHeuristic = new MASTActionHeuristic(retValue.MASTStatistics, retValue.params.MASTActionKey, retValue.params.MASTDefaultValue);
-        retValue.MASTFunction = MASTHeuristic::evaluateAction;
+        retValue.initialiseMAST(state.getNPlayers());
         retValue.instantiate(null, null, state);
         return retValue;
     }
 
+    private void initialiseMAST(int nPlayers) {
+        // only root node maintains MAST statistics
+        MASTStatistics = new ArrayList<>();
+        for (int i = 0; i < nPlayers; i++)
+            MASTStatistics.add(new HashMap<>());
+        MASTActionHeuristic MASTHeuristic = new MASTActionHeuristic(MASTStatistics, params.MASTActionKey, params.MASTDefaultValue);
+        MASTFunction = MASTHeuristic::evaluateAction;
+    }
+
     public static SingleTreeNode createChildNode(SingleTreeNode parent, AbstractAction actionToReach, AbstractGameState state,
                                                  Supplier<? extends SingleTreeNode> factory) {
         SingleTreeNode retValue = factory.get();
@@ -157,9 +216,6 @@ public class SingleTreeNode {
             actionsFromOpenLoopState = forwardModel.computeAvailableActions(actionState, params.actionSpace);
             //      System.out.printf("Setting OLS actions for P%d (%d)%n%s%n", decisionPlayer, actionState.getCurrentPlayer(),
 //                actionsFromOpenLoopState.stream().map(a -> "\t" + a.toString() + "\n").collect(joining()));
-            if (actionsFromOpenLoopState.size() != actionsFromOpenLoopState.stream().distinct().count())
-                throw new AssertionError("Duplicate actions found in action list: " +
-                        actionsFromOpenLoopState.stream().map(a -> "\t" + a.toString() + "\n").collect(joining()));
             if (params.expansionPolicy == MAST) {
                 advantagesOfActionsFromOLS = actionsFromOpenLoopState.stream()
                         .collect(toMap(a -> a, a -> root.MASTFunction.applyAsDouble(a, actionState)));
@@ -174,20 +230,152 @@ public class SingleTreeNode {
                     }
                 }
             }
-            for (AbstractAction action : actionsFromOpenLoopState) {
-                if (!actionValues.containsKey(action)) {
-                    actionValues.put(action, new ActionStats(actionState.getNPlayers()));
-                    children.put(action.copy(), null); // mark a new node to be expanded
-                    // This *does* rely on a good equals method being implemented for Actions
-                    if (!children.containsKey(action))
-                        throw new AssertionError("We have an action that does not obey the equals/hashcode contract" + action);
-                }
-            }
-        } else if (!params.opponentTreePolicy.selfOnlyTree) {
+            indexAvailableActions(actionState.getNPlayers());
+        } else if (!params.opponentTreePolicy.selfOnlyTree && actionState.isNotTerminalForPlayer(decisionPlayer)) {
+            // (a terminal node has no actions, which can occur in Closed_Loop)
             throw new AssertionError("Expected?");
         }
     }
 
+    /**
+     * Sets availableIndices for the current actionsFromOpenLoopState, adding any actions not seen before at this node
+     */
+    private void indexAvailableActions(int nPlayers) {
+        int nActions = actionsFromOpenLoopState.size();
+        if (availableIndices.length < nActions)
+            availableIndices = new int[nActions];
+        actionSetCount++;
+        for (int i = 0; i < nActions; i++) {
+            AbstractAction action = actionsFromOpenLoopState.get(i);
+            int index = indexOfAction(action);
+            if (index < 0) {
+                index = addIndex(action.copy(), new ActionStats(nPlayers));
+                // This *does* rely on a good equals method being implemented for Actions
+                if (indexOfAction(action) != index)
+                    throw new AssertionError("We have an action that does not obey the equals/hashcode contract" + action);
+            }
+            if (seenOnVisit[index] == actionSetCount)
+                throw new AssertionError("Duplicate actions found in action list: " +
+                        actionsFromOpenLoopState.stream().map(a -> "\t" + a.toString() + "\n").collect(joining()));
+            seenOnVisit[index] = actionSetCount;
+            availableIndices[i] = index;
+        }
+    }
+
+    /*
+     * Adds a new action to the node (with no child yet)
+     */
+    private int addIndex(AbstractAction action, ActionStats stats) {
+        int index = indexOf.size();
+        if (index == statsByIndex.length) {
+            int newLength = Math.max(4, index * 2);
+            actionsByIndex = Arrays.copyOf(actionsByIndex, newLength);
+            statsByIndex = Arrays.copyOf(statsByIndex, newLength);
+            childrenByIndex = Arrays.copyOf(childrenByIndex, newLength);
+            seenOnVisit = Arrays.copyOf(seenOnVisit, newLength);
+        }
+        indexOf.put(action, index);
+        actionsByIndex[index] = action;
+        statsByIndex[index] = stats;
+        return index;
+    }
+
+    /**
+     * Removes all the actions (and their statistics and children) that are not in the set, keeping the rest in order
+     */
+    private void retainActions(Set<AbstractAction> actions) {
+        int kept = 0;
+        int size = indexOf.size();
+        indexOf.clear();
+        for (int i = 0; i < size; i++) {
+            if (actions.contains(actionsByIndex[i])) {
+                actionsByIndex[kept] = actionsByIndex[i];
+                statsByIndex[kept] = statsByIndex[i];
+                childrenByIndex[kept] = childrenByIndex[i];
+                indexOf.put(actionsByIndex[kept], kept);
+                kept++;
+            }
+        }
+        Arrays.fill(actionsByIndex, kept, size, null);
+        Arrays.fill(statsByIndex, kept, size, null);
+        Arrays.fill(childrenByIndex, kept, size, null);
+        Arrays.fill(seenOnVisit, 0);
+        chosenAction = null;
+        chosenIndex = -1;
+        for (int i = 0; i < actionsFromOpenLoopState.size(); i++)
+            availableIndices[i] = indexOfAction(actionsFromOpenLoopState.get(i));
+    }
+
+    /*
+     * A read-only Map from the actions at this node to the values held in one of the arrays by index
+     */
+    private class IndexedView<V> extends AbstractMap<AbstractAction, V> {
+        private final IntFunction<V> valueAt;
+
+        IndexedView(IntFunction<V> valueAt) {
+            this.valueAt = valueAt;
+        }
+
+        @Override
+        public V get(Object key) {
+            int index = key instanceof AbstractAction ? indexOfAction((AbstractAction) key) : -1;
+            return index < 0 ? null : valueAt.apply(index);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof AbstractAction && indexOfAction((AbstractAction) key) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return indexOf.size();
+        }
+
+        @Override
+        public Set<Entry<AbstractAction, V>> entrySet() {
+            return new AbstractSet<Entry<AbstractAction, V>>() {
+                @Override
+                public Iterator<Entry<AbstractAction, V>> iterator() {
+                    return new Iterator<Entry<AbstractAction, V>>() {
+                        int next = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < indexOf.size();
+                        }
+
+                        @Override
+                        public Entry<AbstractAction, V> next() {
+                            if (!hasNext())
+                                throw new NoSuchElementException();
+                            Entry<AbstractAction, V> entry = new SimpleImmutableEntry<>(actionsByIndex[next], valueAt.apply(next));
+                            next++;
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return indexOf.size();
+                }
+            };
+        }
+    }
+
+    /**
+     * @return the index of the action at this node, or -1 if it has never been available here
+     */
+    int indexFor(AbstractAction action) {
+        return action == chosenAction ? chosenIndex : indexOfAction(action);
+    }
+
+    private int indexOfAction(AbstractAction action) {
+        Integer index = indexOf.get(action);
+        return index == null ? -1 : index;
+    }
+
     protected void initialiseRoot() {
         timeTaken = 0.0;
         nodeClash = 0;
@@ -198,33 +386,66 @@ public class SingleTreeNode {
      * Performs full MCTS search, using the defined budget limits.
      */
     public void mctsSearch() {
+        mctsSearch(null, null);
+    }
+
+    /**
+     * Performs full MCTS search, using the defined budget limits.
+     * If treeWorkers is not null, then this is a shared-tree search by one thread per worker (see sharedTreeSearch()).
+     *
+     * @param treeWorkers - copies of the player, one for each thread searching the tree; or null for a search on
+     *                    this thread alone
+     * @param executor    - runs the threads of all workers but the first (which uses the calling thread)
+     */
+    void mctsSearch(List<MCTSPlayer> treeWorkers, ExecutorService executor) {
         initialiseRoot();
         // Variables for tracking time budget
-        double avgTimeTaken;
-        long remaining;
         int remainingLimit = params.breakMS;
         ElapsedCpuTimer elapsedTimer = new ElapsedCpuTimer();
         if (params.budgetType == BUDGET_TIME) {
             elapsedTimer.setMaxTimeMillis(params.budget);
         }
 
+        if (params.useUndo && params.information == Open_Loop && params.opponentTreePolicy != MultiTree
+                && forwardModel.supportsUndo() && treeWorkers == null) {
+            if (undoStack == null)
+                undoStack = new UndoStack();
+            undoStack.clear();
+            undoState = state.searchCopy();
+            copyCount++;
+        } else {
+            undoState = null;
+        }
+
+        ActionCache actionCache = null;
+        if (params.actionCacheSize > 0 && params.MCGSStateKey instanceof IStateHash) {
+            actionCache = new ActionCache(params.actionCacheSize, (IStateHash) params.MCGSStateKey);
+            forwardModel.setActionCache(actionCache);
+        }
+        try {
+            if (treeWorkers == null) {
+                searchLoop(elapsedTimer, remainingLimit);
+                if (pendingLeaves != null && !pendingLeaves.isEmpty())
+                    evaluatePendingLeaves();
+            } else {
+                sharedTreeSearch(treeWorkers, executor, remainingLimit);
+            }
+        } finally {
+            if (actionCache != null) {
+                forwardModel.setActionCache(null);
+                actionCacheHits += actionCache.getHits();
+                actionCacheMisses += actionCache.getMisses();
+            }
+        }
+        timeTaken = elapsedTimer.elapsedMillis();
+    }
+
+    private void searchLoop(ElapsedCpuTimer elapsedTimer, int remainingLimit) {
         // Tracking number of iterations for iteration budget
         int numIters = 0;
         boolean stop = false;
         while (!stop) {
-            switch (params.information) {
-                case Closed_Loop:
-                    setActionsFromOpenLoopState(state);
-                    break;
-                case Open_Loop:
-                    setActionsFromOpenLoopState(state.copy());
-                    copyCount++;
-                    break;
-                case Information_Set:
-                    setActionsFromOpenLoopState(state.copy(decisionPlayer));
-                    copyCount++;
-                    break;
-            }
+            startIteration();
 
             // New timer for this iteration
             //      ElapsedCpuTimer elapsedTimerIteration = new ElapsedCpuTimer();
@@ -238,25 +459,176 @@ public class SingleTreeNode {
             numIters++;
             //       System.out.printf("MCTS Iteration %d, timeLeft: %d\n", numIters, elapsedTimer.remainingTimeMillis());
             // Check stopping condition
-            PlayerConstants budgetType = params.budgetType;
-            if (budgetType == BUDGET_TIME) {
-                // Time budget
-                remaining = elapsedTimer.remainingTimeMillis();
-                avgTimeTaken = (double) elapsedTimer.elapsedMillis() / numIters;
-                stop = remaining <= 2 * avgTimeTaken || remaining <= remainingLimit;
-            } else if (budgetType == BUDGET_ITERATIONS) {
-                // Iteration budget
-                stop = numIters >= params.budget;
-            } else if (budgetType == BUDGET_FM_CALLS) {
-                // FM calls budget
-                stop = fmCallsCount > params.budget || numIters > params.budget;
-            } else if (budgetType == BUDGET_COPY_CALLS) {
-                stop = copyCount > params.budget || numIters > params.budget;
-            } else if (budgetType == BUDGET_FMANDCOPY_CALLS) {
-                stop = (copyCount + fmCallsCount) > params.budget || numIters > params.budget;
+            stop = budgetUsed(numIters, elapsedTimer, numIters, remainingLimit);
+        }
+    }
+
+    /**
+     * Sets openLoopState (and the actions available there) at the root for the start of an iteration
+     */
+    private void startIteration() {
+        switch (params.information) {
+            case Closed_Loop:
+                setActionsFromOpenLoopState(state);
+                break;
+            case Open_Loop:
+                if (undoState != null) {
+                    // return to the root state by reversing all actions taken in the last iteration
+                    forwardModel.undoAll(undoState, undoStack);
+                    setActionsFromOpenLoopState(undoState);
+                } else {
+                    setActionsFromOpenLoopState(state.searchCopy());
+                    copyCount++;
+                }
+                break;
+            case Information_Set:
+                setActionsFromOpenLoopState(state.searchCopy(decisionPlayer));
+                copyCount++;
+                break;
+        }
+    }
+
+    /**
+     * @param numIters       - the number of iterations in the search so far
+     * @param elapsedTimer   - the timer for a time budget. This measures the CPU time of the thread that created it,
+     *                       so with several threads each has its own
+     * @param timerIters     - the number of iterations run by the thread of elapsedTimer
+     * @param remainingLimit - the time (in ms) below which we stop, with a time budget
+     * @return true if the budget does not allow another iteration
+     */
+    private boolean budgetUsed(int numIters, ElapsedCpuTimer elapsedTimer, int timerIters, int remainingLimit) {
+        PlayerConstants budgetType = params.budgetType;
+        if (budgetType == BUDGET_TIME) {
+            // Time budget
+            long remaining = elapsedTimer.remainingTimeMillis();
+            double avgTimeTaken = timerIters == 0 ? 0.0 : (double) elapsedTimer.elapsedMillis() / timerIters;
+            return remaining <= 2 * avgTimeTaken || remaining <= remainingLimit;
+        } else if (budgetType == BUDGET_ITERATIONS) {
+            // Iteration budget
+            return numIters >= params.budget;
+        } else if (budgetType == BUDGET_FM_CALLS) {
+            // FM calls budget
+            return fmCallsCount > params.budget || numIters > params.budget;
+        } else if (budgetType == BUDGET_COPY_CALLS) {
+            return copyCount > params.budget || numIters > params.budget;
+        } else if (budgetType == BUDGET_FMANDCOPY_CALLS) {
+            return (copyCount + fmCallsCount) > params.budget || numIters > params.budget;
+        }
+        return false;
+    }
+
+    /**
+     * Shared-tree parallel search. Each worker runs iterations on this one tree on its own thread. Selection,
+     * expansion and backup change the tree, so these are done holding the lock on the root; the rollout and the
+     * evaluation of the state it reaches are done without it, and so run concurrently.
+     * <p>
+     * Between the two, the iteration is pending, and each node on its path counts a visit with a virtual loss (as
+     * with params.leafBatchSize). Other threads selecting in the meantime are therefore pushed to other paths.
+     * <p>
+     * Rollouts use the worker's own forward model, rollout policy, opponent model and heuristic, so that nothing
+     * they use is shared with the other threads (as long as the heuristic is not shared by the copies of the
+     * parameters; if it is then it must be thread-safe). Any MAST statistics used by a worker's rollout policy are
+     * those at the start of the search.
+     * <p>
+     * Iteration, FM call and copy budgets are for the whole search. A time budget applies to each thread, as the
+     * time measured is the CPU time of that thread.
+     */
+    private void sharedTreeSearch(List<MCTSPlayer> workers, ExecutorService executor, int remainingLimit) {
+        if (pendingLeaves == null) {
+            pendingLeaves = new ArrayList<>();
+            spareTrajectories = new ArrayDeque<>();
+        }
+        sharedIterations = 0;
+        sharedSearchStopped = false;
+        List<Future<?>> threads = new ArrayList<>();
+        for (int i = 1; i < workers.size(); i++) {
+            MCTSPlayer worker = workers.get(i);
+            threads.add(executor.submit(() -> sharedTreeWorker(worker, remainingLimit)));
+        }
+        RuntimeException error = null;
+        try {
+            sharedTreeWorker(workers.get(0), remainingLimit);
+        } catch (RuntimeException e) {
+            error = e;
+        }
+        for (Future<?> thread : threads) {
+            try {
+                thread.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted during shared tree search", e);
+            } catch (ExecutionException e) {
+                if (error == null)
+                    error = new RuntimeException("Error in shared tree search", e.getCause());
             }
         }
-        timeTaken = elapsedTimer.elapsedMillis();
+        if (error != null)
+            throw error;
+    }
+
+    /**
+     * The iterations of one thread of sharedTreeSearch(), which returns once the budget is used.
+     */
+    private void sharedTreeWorker(MCTSPlayer worker, int remainingLimit) {
+        ElapsedCpuTimer elapsedTimer = new ElapsedCpuTimer();
+        if (params.budgetType == BUDGET_TIME)
+            elapsedTimer.setMaxTimeMillis(params.budget);
+        int threadIters = 0;
+        // the rollouts of this worker are played by a node outside the tree, which is its own root
+        // (so the counts and actions of the rollout are kept on it, rather than on the shared root)
+        SingleTreeNode rolloutNode = new SingleTreeNode();
+        rolloutNode.root = rolloutNode;
+        rolloutNode.params = worker.getParameters();
+        rolloutNode.forwardModel = worker.getForwardModel();
+        rolloutNode.rnd = worker.getRnd();
+        rolloutNode.decisionPlayer = decisionPlayer;
+        rolloutNode.actionsInRollout = new ActionTrajectory();
+        IStateHeuristic heuristic = worker.getParameters().heuristic;
+        try {
+            while (true) {
+                PendingLeaf leaf;
+                int lastActorInTree;
+                synchronized (this) {
+                    if (sharedSearchStopped || budgetUsed(sharedIterations, elapsedTimer, threadIters, remainingLimit)) {
+                        sharedSearchStopped = true;
+                        return;
+                    }
+                    sharedIterations++;
+                    startIteration();
+                    double[] startingValues = evaluateForAllPlayers(openLoopState);
+                    SingleTreeNode selected = selectLeaf();
+                    lastActorInTree = actionsInTree.isEmpty() ? decisionPlayer : actionsInTree.player(actionsInTree.size() - 1);
+                    // the state of the node is fixed (Closed_Loop); openLoopState is that of this iteration only
+                    // (these are taken first, as the virtual loss may discard them from the node)
+                    rolloutNode.state = selected.state;
+                    rolloutNode.openLoopState = selected.openLoopState;
+                    leaf = addPendingPath(startingValues);
+                }
+                threadIters++;
+
+                rolloutNode.actionsInRollout.clear();
+                rolloutNode.fmCallsCount = 0;
+                rolloutNode.copyCount = 0;
+                AbstractGameState leafState = rolloutNode.playRollout(lastActorInTree);
+                int[] players = IntStream.range(0, leafState.getNPlayers()).toArray();
+                double[] values = IBatchStateHeuristic.evaluateStates(heuristic, Collections.nCopies(players.length, leafState), players);
+
+                synchronized (this) {
+                    fmCallsCount += rolloutNode.fmCallsCount;
+                    copyCount += rolloutNode.copyCount;
+                    rolloutActionsTaken += rolloutNode.actionsInRollout.size();
+                    leaf.actionsInRollout = rolloutNode.actionsInRollout;
+                    backUpPendingLeaf(leaf, values, 0);
+                    leaf.actionsInTree.clear();
+                    spareTrajectories.push(leaf.actionsInTree);
+                }
+            }
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                sharedSearchStopped = true;
+            }
+            throw e;
+        }
     }
 
     /**
@@ -264,11 +636,41 @@ public class SingleTreeNode {
      * Its result is purely stored in the tree generated from root
      */
     protected void oneSearchIteration() {
-        double[] startingValues = IntStream.range(0, openLoopState.getNPlayers())
-                .mapToDouble(i -> params.heuristic.evaluateState(openLoopState, i)).toArray();
+        double[] startingValues = evaluateForAllPlayers(openLoopState);
+
+        SingleTreeNode selected = selectLeaf();
 
-        actionsInTree = new ArrayList<>();
-        actionsInRollout = new ArrayList<>();
+        // Monte carlo rollout: return value of MC rollout from the newly added node
+        int lastActorInTree = actionsInTree.isEmpty() ? decisionPlayer : actionsInTree.player(actionsInTree.size() - 1);
+        if (batchingLeaves()) {
+            AbstractGameState leafState = selected.playRollout(lastActorInTree);
+            rolloutActionsTaken += actionsInRollout.size();
+            deferLeaf(leafState, startingValues);
+            if (pendingLeaves.size() >= params.leafBatchSize)
+                evaluatePendingLeaves();
+            return;
+        }
+        double[] delta = selected.rollout(startingValues, lastActorInTree);
+        // Back up the value of the rollout through the tree
+        rolloutActionsTaken += actionsInRollout.size();
+
+        selected.backUp(delta);
+        updateMASTStatistics(actionsInTree, actionsInRollout, delta);
+    }
+
+    /**
+     * Selection + expansion from this (root) node, recording the actions taken in actionsInTree
+     *
+     * @return - the node from which to roll out
+     */
+    private SingleTreeNode selectLeaf() {
+        if (actionsInTree == null) {
+            actionsInTree = new ActionTrajectory();
+            actionsInRollout = new ActionTrajectory();
+        } else {
+            actionsInTree.clear();
+            actionsInRollout.clear();
+        }
 
         SingleTreeNode selected = treePolicy();
         if (selected == this && openLoopState.isNotTerminalForPlayer(decisionPlayer) && nVisits > 3 && !(this instanceof MCGSNode))
@@ -276,33 +678,151 @@ public class SingleTreeNode {
         // by this point (and really earlier) we should have expanded a new node.
         // selected == this is a clear sign that we have a problem in the expansion phase
         // although if we have no decisions to make - this is fine
+        return selected;
+    }
 
-        // Monte carlo rollout: return value of MC rollout from the newly added node
-        int lastActorInTree = actionsInTree.isEmpty() ? decisionPlayer : actionsInTree.get(actionsInTree.size() - 1).a;
-        double[] delta = selected.rollout(startingValues, lastActorInTree);
-        // Back up the value of the rollout through the tree
-        rolloutActionsTaken += actionsInRollout.size();
+    private double[] evaluateForAllPlayers(AbstractGameState gs) {
+        int[] players = IntStream.range(0, gs.getNPlayers()).toArray();
+        return IBatchStateHeuristic.evaluateStates(params.heuristic, Collections.nCopies(players.length, gs), players);
+    }
 
-        selected.backUp(delta);
-        updateMASTStatistics(actionsInTree, actionsInRollout, delta);
+    /**
+     * Leaves are only batched for trees of SingleTreeNodes; the other node types have their own backup.
+     */
+    private boolean batchingLeaves() {
+        return params.leafBatchSize > 1 &&
+                (params.opponentTreePolicy == OneTree || params.opponentTreePolicy == SelfOnly);
+    }
+
+    /**
+     * Records the iteration just rolled out (from actionsInTree and actionsInRollout) to be evaluated later, and adds
+     * a virtual loss to each node on its path: a visit with the lowest reward seen so far.
+     */
+    private void deferLeaf(AbstractGameState leafState, double[] startingValues) {
+        if (pendingLeaves == null) {
+            pendingLeaves = new ArrayList<>();
+            spareTrajectories = new ArrayDeque<>();
+        }
+        ActionTrajectory rolloutActions = actionsInRollout;
+        actionsInRollout = spareTrajectories.isEmpty() ? new ActionTrajectory() : spareTrajectories.pop();
+        PendingLeaf leaf = addPendingPath(startingValues);
+        leaf.actionsInRollout = rolloutActions;
+        // with useUndo the state is changed by the next iteration; otherwise each iteration has its own
+        if (undoState != null) {
+            leaf.leafState = leafState.searchCopy();
+            copyCount++;
+        } else {
+            leaf.leafState = leafState;
+        }
+        pendingLeaves.add(leaf);
+    }
+
+    /**
+     * Creates a PendingLeaf for the path of the iteration in actionsInTree (which it then keeps, so that actionsInTree
+     * is replaced for the next iteration), and adds a virtual loss to each node on the path.
+     */
+    private PendingLeaf addPendingPath(double[] startingValues) {
+        PendingLeaf leaf = new PendingLeaf();
+        leaf.startingValues = startingValues;
+        leaf.actionsInTree = actionsInTree;
+        actionsInTree = spareTrajectories.isEmpty() ? new ActionTrajectory() : spareTrajectories.pop();
+        leaf.virtualValue = virtualLoss();
+
+        leaf.nodes = new SingleTreeNode[leaf.actionsInTree.size()];
+        SingleTreeNode n = this;
+        for (int i = 0; i < leaf.nodes.length; i++) {
+            AbstractAction action = leaf.actionsInTree.action(i);
+            leaf.nodes[i] = n;
+            n.addVirtualLoss(action, leaf.virtualValue);
+            if (i < leaf.nodes.length - 1) {
+                int index = n.indexFor(action);
+                SingleTreeNode[] nextN = index < 0 ? null : n.childrenByIndex[index];
+                if (nextN == null)
+                    throw new AssertionError("We have somehow failed to find the next node in the tree");
+                n = nextN[leaf.actionsInTree.player(i + 1)];
+            }
+        }
+        return leaf;
+    }
+
+    /**
+     * The value that a pending iteration counts for every player on its path: the lowest result backed up so far.
+     * As no action has a mean value below this, a pending visit always makes its path less attractive.
+     * Before any result has been backed up every visit in the tree is pending, so all means are equal whatever value
+     * we use here.
+     */
+    double virtualLoss() {
+        return Double.isInfinite(root.lowestResult) ? 0.0 : root.lowestResult;
+    }
+
+    private void recordLowestResult(double[] result) {
+        for (double r : result) {
+            if (r < root.lowestResult)
+                root.lowestResult = r;
+        }
+    }
+
+    /**
+     * Evaluates the leaves of all pending iterations in one call to the heuristic, and then backs each up (in the
+     * order they were reached) in place of its virtual loss.
+     */
+    private void evaluatePendingLeaves() {
+        int nPlayers = pendingLeaves.get(0).startingValues.length;
+        List<AbstractGameState> states = new ArrayList<>(pendingLeaves.size() * nPlayers);
+        int[] players = new int[pendingLeaves.size() * nPlayers];
+        for (PendingLeaf leaf : pendingLeaves) {
+            for (int p = 0; p < nPlayers; p++) {
+                players[states.size()] = p;
+                states.add(leaf.leafState);
+            }
+        }
+        double[] values = IBatchStateHeuristic.evaluateStates(params.heuristic, states, players);
+
+        for (int l = 0; l < pendingLeaves.size(); l++) {
+            PendingLeaf leaf = pendingLeaves.get(l);
+            backUpPendingLeaf(leaf, values, l * nPlayers);
+            leaf.actionsInTree.clear();
+            leaf.actionsInRollout.clear();
+            spareTrajectories.push(leaf.actionsInTree);
+            spareTrajectories.push(leaf.actionsInRollout);
+        }
+        pendingLeaves.clear();
     }
 
-    protected void updateMASTStatistics(List<Pair<Integer, AbstractAction>> tree, List<Pair<Integer, AbstractAction>> rollout, double[] value) {
+    /**
+     * Backs up the result of a pending iteration in place of its virtual loss
+     *
+     * @param values - the value of the leaf state for each player, starting at values[offset]
+     */
+    private void backUpPendingLeaf(PendingLeaf leaf, double[] values, int offset) {
+        double[] delta = new double[leaf.startingValues.length];
+        for (int p = 0; p < delta.length; p++) {
+            delta[p] = values[offset + p] - leaf.startingValues[p];
+            if (Double.isNaN(delta[p]))
+                throw new AssertionError("Illegal heuristic value - should be a number");
+        }
+        normaliseRewardsAfterIteration(delta);
+        double[] result = processResultsForParanoidOrSelfOnly(delta);
+        recordLowestResult(result);
+        for (int i = 0; i < leaf.nodes.length; i++)
+            leaf.nodes[i].replaceVirtualLoss(leaf.actionsInTree.action(i), leaf.virtualValue, result);
+        updateMASTStatistics(leaf.actionsInTree, leaf.actionsInRollout, delta);
+    }
+
+    protected void updateMASTStatistics(ActionTrajectory tree, ActionTrajectory rollout, double[] value) {
         if (params.useMAST) {
-            List<Pair<Integer, AbstractAction>> MASTActions = new ArrayList<>();
             switch (params.MAST) {
                 case Rollout:
-                    MASTActions = rollout;
+                    root.MASTBackup(rollout, value);
                     break;
                 case Tree:
-                    MASTActions = tree;
+                    root.MASTBackup(tree, value);
                     break;
                 case Both:
-                    MASTActions = rollout;
-                    MASTActions.addAll(tree);
+                    root.MASTBackup(rollout, value);
+                    root.MASTBackup(tree, value);
                     break;
             }
-            root.MASTBackup(MASTActions, value);
         }
     }
 
@@ -311,14 +831,16 @@ public class SingleTreeNode {
      * (this is called often enough it can make a measurable difference)
      */
     public int actionVisits(AbstractAction action) {
-        ActionStats stats = actionValues.get(action);
+        int index = indexOfAction(action);
+        ActionStats stats = index < 0 ? null : statsByIndex[index];
         return stats == null ? 0 : stats.nVisits;
     }
 
     private int validVisitsFor(AbstractAction action) {
         if (params.information == Closed_Loop)
             return nVisits;
-        ActionStats stats = actionValues.get(action);
+        int index = indexOfAction(action);
+        ActionStats stats = index < 0 ? null : statsByIndex[index];
         return stats == null ? 1 : stats.validVisits;
     }
 
@@ -327,17 +849,16 @@ public class SingleTreeNode {
      * (this is called often enough it can make a measurable difference)
      */
     public double actionTotValue(AbstractAction action, int playerId) {
-        ActionStats stats = actionValues.get(action);
+        int index = indexOfAction(action);
+        ActionStats stats = index < 0 ? null : statsByIndex[index];
         return stats == null ? 0.0 : stats.totValue[playerId];
     }
 
     public double nodeValue(int playerId) {
-        return actionValues.values().stream().mapToDouble(s -> s.totValue[playerId]).sum() / nVisits;
-    }
-
-    private double actionSquaredValue(AbstractAction action, int playerId) {
-        ActionStats stats = actionValues.get(action);
-        return stats == null ? 0.0 : stats.squaredTotValue[playerId];
+        double total = 0.0;
+        for (int i = 0; i < indexOf.size(); i++)
+            total += statsByIndex[i].totValue[playerId];
+        return total / nVisits;
     }
 
     /**
@@ -345,9 +866,10 @@ public class SingleTreeNode {
      * For this reason not converted to old-style java loop as there would be no performance gain
      */
     int[] actionVisits() {
-        return actionValues.values().stream()
-                .mapToInt(a -> a.nVisits)
-                .toArray();
+        int[] retValue = new int[indexOf.size()];
+        for (int i = 0; i < retValue.length; i++)
+            retValue[i] = statsByIndex[i].nVisits;
+        return retValue;
     }
 
     /**
@@ -372,10 +894,26 @@ public class SingleTreeNode {
             // In Open_Loop (and all variants other than Closed_Loop), we make a single copy of the state at the start of each iteration
             // this is then updated with all actions (and stored in openLoopState on each node it visits).
             // In Closed_Loop we make a copy of a state only when we expand and add a new node to the tree.
+            if (params.information == Closed_Loop && params.reuseTree) {
+                // we do not advance the state on the node; each node holds the state reached by the actions to it
+                // (this is only done when we reuse the tree, as the subtree of a node is then that of its state)
+                SingleTreeNode nextNode = cur.nextNodeInTree(chosen);
+                if (nextNode == null) {
+                    // so we only copy and advance a state when we need it for a new node
+                    AbstractGameState nextState = cur.state.searchCopy();
+                    root.copyCount++;
+                    cur.advanceState(nextState, chosen, false);
+                    return cur.expandNode(chosen, nextState);
+                }
+                // but we do want to track the actions taken (otherwise done in advanceState)
+                actionsInTree.add(cur.state.getCurrentPlayer(), chosen);
+                cur = nextNode;
+                continue;
+            }
             if (params.information == Closed_Loop) {
-                // we do not advance
+                // we do not advance, so every node has the state of the root
                 // but we do want to track the actions taken (otherwise done in advanceState)
-                actionsInTree.add(new Pair<>(cur.openLoopState.getCurrentPlayer(), chosen));
+                actionsInTree.add(cur.openLoopState.getCurrentPlayer(), chosen);
             } else {
                 cur.advanceState(cur.openLoopState, chosen, false);
             }
@@ -403,7 +941,11 @@ public class SingleTreeNode {
             // It is perfectly possible that a previously expanded action falls out of the considered list
             // depending on the advantage heuristic used.
             // However, we do break ties in favour of already expanded actions
-            allAvailable.sort(Comparator.comparingDouble(a -> -advantagesOfActionsFromOLS.getOrDefault(a, 0.0) - actionValues.get(a).nVisits * 1e-6));
+            allAvailable.sort(Comparator.comparingDouble(a -> -advantagesOfActionsFromOLS.getOrDefault(a, 0.0) - statsByIndex[indexOfAction(a)].nVisits * 1e-6));
+            if (allAvailable == actionsFromOpenLoopState) {
+                for (int i = 0; i < allAvailable.size(); i++)
+                    availableIndices[i] = indexOfAction(allAvailable.get(i));
+            }
             return allAvailable.subList(0, actionsToConsider);
         }
         return allAvailable;
@@ -446,11 +988,14 @@ public class SingleTreeNode {
         int nextPlayer = params.opponentTreePolicy.selfOnlyTree ? decisionPlayer : nextState.getCurrentPlayer();
         SingleTreeNode tn = createChildNode(actionCopy, nextState);
         // It is possible that we are expanding a node because a different player is the next to act
-        SingleTreeNode[] newNodeArray = children.get(actionCopy);
+        int index = indexFor(actionCopy);
+        if (index < 0)
+            index = addIndex(actionCopy, new ActionStats(nextState.getNPlayers()));
+        SingleTreeNode[] newNodeArray = childrenByIndex[index];
         if (newNodeArray == null)
             newNodeArray = new SingleTreeNode[nextState.getNPlayers()];
         newNodeArray[nextPlayer] = tn; // we store this by id of the player who will take their turn next
-        children.put(actionCopy, newNodeArray);
+        childrenByIndex[index] = newNodeArray;
         return tn;
     }
 
@@ -473,11 +1018,11 @@ public class SingleTreeNode {
         if (inRollout) {
             rolloutDepth++;
             lastActorInRollout = gs.getCurrentPlayer();
-            root.actionsInRollout.add(new Pair<>(lastActorInRollout, act));
+            root.actionsInRollout.add(lastActorInRollout, act);
         } else {
-            root.actionsInTree.add(new Pair<>(gs.getCurrentPlayer(), act));
+            root.actionsInTree.add(gs.getCurrentPlayer(), act);
         }
-        forwardModel.next(gs, act.copy());
+        next(gs, act.copy());
         root.fmCallsCount++;
         if (params.opponentTreePolicy != MultiTree &&
                 params.opponentTreePolicy.selfOnlyTree &&
@@ -503,14 +1048,21 @@ public class SingleTreeNode {
             action = oppModel.getAction(gs, availableActions);
             if (inRollout) {
                 rolloutDepth++;
-                root.actionsInRollout.add(new Pair<>(gs.getCurrentPlayer(), action));
+                root.actionsInRollout.add(gs.getCurrentPlayer(), action);
                 lastActorInRollout = gs.getCurrentPlayer();
             }
-            forwardModel.next(gs, action);
+            next(gs, action);
             root.fmCallsCount++;
         }
     }
 
+    private void next(AbstractGameState gs, AbstractAction action) {
+        if (gs == root.undoState)
+            forwardModel.next(gs, action, root.undoStack);
+        else
+            forwardModel.next(gs, action);
+    }
+
     /**
      * Apply relevant policy to choose a child.
      *
@@ -526,6 +1078,7 @@ public class SingleTreeNode {
         if (availableActions.isEmpty())
             throw new AssertionError("We need to have at least one option");
         AbstractAction actionChosen;
+        int indexChosen = -1;
         if (availableActions.size() == 1) {
             actionChosen = availableActions.get(0);
         } else {
@@ -534,7 +1087,9 @@ public class SingleTreeNode {
                 case AlphaGo:
                 case UCB_Tuned:
                     // These just vary on the form of the exploration term in a UCB algorithm
-                    actionChosen = ucb(availableActions);
+                    indexChosen = ucb(availableActions.size());
+                    actionChosen = actionsFromOpenLoopState.get(indexChosen);
+                    indexChosen = availableIndices[indexChosen];
                     break;
                 case EXP3:
                 case RegretMatching:
@@ -546,7 +1101,8 @@ public class SingleTreeNode {
                     throw new AssertionError("Unknown treePolicy: " + params.treePolicy);
             }
         }
-
+        chosenAction = actionChosen;
+        chosenIndex = indexChosen >= 0 ? indexChosen : indexOfAction(actionChosen);
         return actionChosen;
     }
 
@@ -560,7 +1116,8 @@ public class SingleTreeNode {
         // We check to see if we have finished. This is true if the gameState is terminal; or if
         // this is a selfOnly tree and it is terminal for the root decision player
 
-        SingleTreeNode[] nodeArray = children.get(actionChosen);
+        int index = indexFor(actionChosen);
+        SingleTreeNode[] nodeArray = index < 0 ? null : childrenByIndex[index];
         if (nodeArray == null) return null;
         if (params.information == Closed_Loop) {
             // in this case we have determinism...there should just be a single child node in the array...so we get that
@@ -589,22 +1146,31 @@ public class SingleTreeNode {
         return retValue;
     }
 
-    private AbstractAction ucb(List<AbstractAction> availableActions) {
+    /**
+     * @param nActions - the number of actions to consider, from the start of actionsFromOpenLoopState
+     * @return the position of the best action in actionsFromOpenLoopState
+     */
+    private int ucb(int nActions) {
         // Find child with highest UCB value
-        AbstractAction bestAction = null;
+        int bestAction = -1;
         double bestValue = -Double.MAX_VALUE;
 
         // shuffle so that ties are broken randomly
-        Collections.shuffle(availableActions, rnd);
-        for (AbstractAction action : availableActions) {
+        // (this is the same as Collections.shuffle(), but keeps availableIndices in step)
+        for (int i = nActions; i > 1; i--)
+            swapAvailableActions(i - 1, rnd.nextInt(i));
+        double nodeValue = params.biasVisits > 0 ? nodeValue(decisionPlayer) : 0.0;
+        for (int i = 0; i < nActions; i++) {
+            AbstractAction action = actionsFromOpenLoopState.get(i);
+            ActionStats actionStats = statsByIndex[availableIndices[i]];
             // Find 'UCB' value
             double uctValue = 0;
             // Find child value
-            if (actionValues.get(action) == null || actionValues.get(action).nVisits == 0) {
+            if (actionStats == null || actionStats.nVisits == 0) {
                 uctValue = untriedActionValue(action);
             } else {
-                double hvVal = actionTotValue(action, decisionPlayer);
-                int actionVisits = actionVisits(action);
+                double hvVal = actionStats.totValue[decisionPlayer];
+                int actionVisits = actionStats.nVisits;
                 double childValue = hvVal / (actionVisits + params.noiseEpsilon);
 
                 // consider OMA term
@@ -635,7 +1201,6 @@ public class SingleTreeNode {
 
                 // consider any progressive bias term
                 if (params.biasVisits > 0) {
-                    double nodeValue = nodeValue(decisionPlayer);
                     // nodeValue is the value of the state, V(s), and is used as a baseline when we use an Advantage function later
                     double beta = Math.sqrt(params.biasVisits / (double) (params.biasVisits + 3 * actionVisits));
                     childValue = (1.0 - beta) * childValue + beta * (advantagesOfActionsFromOLS.getOrDefault(action, 0.0) + nodeValue);
@@ -646,7 +1211,7 @@ public class SingleTreeNode {
                 }
 
                 // default to standard UCB
-                int effectiveTotalVisits = validVisitsFor(action) + 1;
+                int effectiveTotalVisits = (params.information == Closed_Loop ? nVisits : actionStats.validVisits) + 1;
                 double explorationTerm = params.K * Math.sqrt(Math.log(effectiveTotalVisits) / (actionVisits + params.noiseEpsilon));
                 // unless we are using a variant
                 switch (params.treePolicy) {
@@ -656,13 +1221,13 @@ public class SingleTreeNode {
                     case UCB_Tuned:
                         double range = root.highReward - root.lowReward;
                         if (range < 1e-6) range = 1e-6;
-                        double meanSq = actionSquaredValue(action, decisionPlayer) / (actionVisits + params.noiseEpsilon);
+                        double meanSq = actionStats.squaredTotValue[decisionPlayer] / (actionVisits + params.noiseEpsilon);
                         double standardVar = 0.25;
                         if (params.normaliseRewards) {
                             // we also need to standardise the sum of squares to calculate the variance
                             meanSq = (meanSq
                                     + root.lowReward * root.lowReward
-                                    - 2 * root.lowReward * actionTotValue(action, decisionPlayer) / (actionVisits + params.noiseEpsilon)
+                                    - 2 * root.lowReward * hvVal / (actionVisits + params.noiseEpsilon)
                             ) / (range * range);
                         } else {
                             // we need to modify the standard variance as it is not on a 0..1 basis (which is where 0.25 comes from)
@@ -687,17 +1252,24 @@ public class SingleTreeNode {
             // Apply small noise to break ties randomly
             uctValue = noise(uctValue, params.noiseEpsilon, rnd.nextDouble());
             if (uctValue > bestValue) {
-                bestAction = action;
+                bestAction = i;
                 bestValue = uctValue;
             }
         }
 
-        if (bestAction == null)
+        if (bestAction < 0)
             throw new AssertionError("We have a null value in UCT : shouldn't really happen!");
 
         return bestAction;
     }
 
+    private void swapAvailableActions(int i, int j) {
+        actionsFromOpenLoopState.set(i, actionsFromOpenLoopState.set(j, actionsFromOpenLoopState.get(i)));
+        int tmp = availableIndices[i];
+        availableIndices[i] = availableIndices[j];
+        availableIndices[j] = tmp;
+    }
+
     public double exp3Value(AbstractAction action) {
         double actionValue = actionTotValue(action, decisionPlayer);
         int actionVisits = actionVisits(action);
@@ -770,6 +1342,24 @@ public class SingleTreeNode {
      * @return - value of rollout.
      */
     protected double[] rollout(double[] startingValues, int lastActor) {
+        AbstractGameState rolloutState = playRollout(lastActor);
+        // Evaluate final state and return normalised score
+        double[] retValue = new double[rolloutState.getNPlayers()];
+
+        for (int i = 0; i < retValue.length; i++) {
+            retValue[i] = params.heuristic.evaluateState(rolloutState, i) - startingValues[i];
+            if (Double.isNaN(retValue[i]))
+                throw new AssertionError("Illegal heuristic value - should be a number");
+        }
+        return retValue;
+    }
+
+    /**
+     * Plays the rollout part of rollout(), without evaluating the state reached.
+     *
+     * @return - the state at the end of the rollout
+     */
+    protected AbstractGameState playRollout(int lastActor) {
         rolloutDepth = 0; // counting from end of tree
         lastActorInRollout = lastActor;
         roundAtStartOfRollout = openLoopState.getRoundCounter();
@@ -783,7 +1373,7 @@ public class SingleTreeNode {
                 // the thinking here is that in openLoop we copy the state right at the root, and then use the forward
                 // model at each action. Hence the current state on the node is the one we have been using up to now.
                 /// Hence we do not need to copy it.
-                rolloutState = state.copy();
+                rolloutState = state.searchCopy();
                 root.copyCount++;
             }
 
@@ -799,15 +1389,7 @@ public class SingleTreeNode {
                 advanceState(rolloutState, next, true);
             }
         }
-        // Evaluate final state and return normalised score
-        double[] retValue = new double[rolloutState.getNPlayers()];
-
-        for (int i = 0; i < retValue.length; i++) {
-            retValue[i] = params.heuristic.evaluateState(rolloutState, i) - startingValues[i];
-            if (Double.isNaN(retValue[i]))
-                throw new AssertionError("Illegal heuristic value - should be a number");
-        }
-        return retValue;
+        return rolloutState;
     }
 
     /**
@@ -843,17 +1425,19 @@ public class SingleTreeNode {
     protected void backUp(double[] delta) {
         normaliseRewardsAfterIteration(delta);
         double[] result = processResultsForParanoidOrSelfOnly(delta);
+        recordLowestResult(result);
         // we also need the action taken at each step which we should be able to get from actionsInTree...
         SingleTreeNode n = root;
         for (int i = 0; i < root.actionsInTree.size(); i++) {
-            int actingPlayer = root.actionsInTree.get(i).a;
-            AbstractAction action = root.actionsInTree.get(i).b;
+            int actingPlayer = root.actionsInTree.player(i);
+            AbstractAction action = root.actionsInTree.action(i);
             if (n.decisionPlayer != actingPlayer)
                 throw new AssertionError("We have a mismatch between the player who took the action and the player who should be acting");
             n.backUpSingleNode(action, result);
             if (i < root.actionsInTree.size() - 1) {
-                int nextPlayer = root.actionsInTree.get(i + 1).a;
-                SingleTreeNode[] nextN = n.children.get(action);
+                int nextPlayer = root.actionsInTree.player(i + 1);
+                int index = n.indexFor(action);
+                SingleTreeNode[] nextN = index < 0 ? null : n.childrenByIndex[index];
                 if (nextN == null)
                     throw new AssertionError("We have somehow failed to find the next node in the tree");
                 n = nextN[nextPlayer];
@@ -900,6 +1484,14 @@ public class SingleTreeNode {
     }
 
     protected void backUpSingleNode(AbstractAction actionTaken, double[] result) {
+        recordVisit();
+        statsFor(actionTaken).update(result);
+    }
+
+    /**
+     * The part of the backup of a node that uses the state of the iteration passing through it
+     */
+    private void recordVisit() {
         if (params.discardStateAfterEachIteration) {
             if (depth > 0)
                 openLoopState = null; // releases for Garbage Collection
@@ -909,24 +1501,43 @@ public class SingleTreeNode {
         nVisits++;
         // Here we look at actionsFromOpenLoopState to see which ones were valid
         // when we passed through, and keep track of valid visits
+        for (int i = 0; i < actionsFromOpenLoopState.size(); i++)
+            statsByIndex[availableIndices[i]].validVisits++;
+    }
 
-        // then we update the statistics for the action taken
-        for (AbstractAction action : actionsFromOpenLoopState) {
-            if (!actionValues.containsKey(action))
-                actionValues.put(action, new ActionStats(result.length));
-            actionValues.get(action).validVisits++;
-        }
-        ActionStats stats = actionValues.get(actionTaken);
+    private ActionStats statsFor(AbstractAction actionTaken) {
+        int index = indexFor(actionTaken);
+        ActionStats stats = index < 0 ? null : statsByIndex[index];
         if (stats == null)
             throw new AssertionError("We have somehow failed to find the action taken in the list of actions");
+        return stats;
+    }
+
+    /**
+     * As backUpSingleNode(), for an iteration whose leaf is still to be evaluated; the visit to the action taken has
+     * virtualValue for every player until replaceVirtualLoss() is called with the real result.
+     */
+    private void addVirtualLoss(AbstractAction actionTaken, double virtualValue) {
+        recordVisit();
+        ActionStats stats = statsFor(actionTaken);
+        for (int i = 0; i < stats.totValue.length; i++)
+            stats.totValue[i] += virtualValue;
+        stats.nVisits++;
+    }
+
+    private void replaceVirtualLoss(AbstractAction actionTaken, double virtualValue, double[] result) {
+        ActionStats stats = statsFor(actionTaken);
+        for (int i = 0; i < stats.totValue.length; i++)
+            stats.totValue[i] -= virtualValue;
+        stats.nVisits--;
         stats.update(result);
     }
 
 
-    protected void MASTBackup(List<Pair<Integer, AbstractAction>> rolloutActions, double[] delta) {
-        for (Pair<Integer, AbstractAction> pair : rolloutActions) {
-            AbstractAction action = pair.b;
-            int player = pair.a;
+    protected void MASTBackup(ActionTrajectory rolloutActions, double[] delta) {
+        for (int i = 0; i < rolloutActions.size(); i++) {
+            AbstractAction action = rolloutActions.action(i);
+            int player = rolloutActions.player(i);
             Object actionKey = params.MASTActionKey == null ? action.copy() : params.MASTActionKey.key(action);
             Pair<Integer, Double> stats = MASTStatistics.get(player).getOrDefault(actionKey, new Pair<>(0, 0.0));
             stats.a++;  // visits
@@ -935,6 +1546,132 @@ public class SingleTreeNode {
         }
     }
 
+    /**
+     * Merges the root statistics of another tree, searched independently from the same root state, into this one.
+     * This is used by root parallelisation; only the root is merged, as that is all bestAction() needs.
+     * The timeTaken is the maximum of the two, as the trees are searched concurrently.
+     *
+     * @param other - the root of the other tree
+     */
+    protected void mergeRootStatistics(SingleTreeNode other) {
+        if (this != root || other != other.root)
+            throw new AssertionError("Only root nodes can be merged");
+        nVisits += other.nVisits;
+        fmCallsCount += other.fmCallsCount;
+        copyCount += other.copyCount;
+        rolloutActionsTaken += other.rolloutActionsTaken;
+        nodeClash += other.nodeClash;
+        actionCacheHits += other.actionCacheHits;
+        actionCacheMisses += other.actionCacheMisses;
+        timeTaken = Math.max(timeTaken, other.timeTaken);
+        for (int i = 0; i < other.indexOf.size(); i++) {
+            ActionStats otherStats = other.statsByIndex[i];
+            int index = indexOfAction(other.actionsByIndex[i]);
+            if (index < 0)
+                index = addIndex(other.actionsByIndex[i].copy(), new ActionStats(otherStats.totValue.length));
+            statsByIndex[index].add(otherStats);
+        }
+    }
+
+    /**
+     * Finds the node in this (root) tree that we reach by applying the actions taken in the game since the
+     * search from this root. The actions are replayed on a copy of the root state to find out who took each of them.
+     * In a SelfOnly tree the actions of other players are skipped, as their effect is already aggregated in the
+     * next node.
+     * In Closed_Loop this assumes that the transitions are deterministic (as does the search itself).
+     *
+     * @param actionsSince - all the actions taken in the game since this tree was searched, starting with the one
+     *                     chosen from this root
+     * @return the node reached, or null if any of the actions were never expanded in the tree
+     */
+    protected SingleTreeNode findSubtree(List<AbstractAction> actionsSince) {
+        if (this != root)
+            throw new AssertionError("Only the root can be searched for a subtree");
+        AbstractGameState replayState = state.searchCopy();
+        SingleTreeNode node = this;
+        for (AbstractAction action : actionsSince) {
+            int actor = replayState.getCurrentPlayer();
+            forwardModel.next(replayState, action.copy());
+            if (params.opponentTreePolicy.selfOnlyTree && actor != node.decisionPlayer)
+                continue;
+            SingleTreeNode[] nodeArray = node.children.get(action);
+            if (nodeArray == null)
+                return null;
+            if (params.information == Closed_Loop) {
+                node = Arrays.stream(nodeArray).filter(Objects::nonNull).findFirst().orElse(null);
+            } else {
+                int nextPlayer = params.opponentTreePolicy.selfOnlyTree ? node.decisionPlayer : replayState.getCurrentPlayer();
+                node = nodeArray[nextPlayer];
+            }
+            if (node == null)
+                return null;
+        }
+        return node;
+    }
+
+    /**
+     * Detaches this node from its parent, and makes it the root of a new search from the given state.
+     * All the statistics in the subtree below this node are kept, and the rest of the old tree can be discarded.
+     *
+     * @param player - the player about to search the tree
+     * @param state  - the current state of the game, which this node (according to findSubtree()) represents
+     */
+    protected void promoteToRoot(MCTSPlayer player, AbstractGameState state) {
+        SingleTreeNode oldRoot = root;
+        int depthOffset = depth;
+        parent = null;
+        actionToReach = null;
+        // first the fields that only the root uses
+        factory = oldRoot.factory;
+        highReward = oldRoot.highReward;
+        lowReward = oldRoot.lowReward;
+        lowestResult = oldRoot.lowestResult;
+        paranoidPlayer = oldRoot.paranoidPlayer;
+        fmCallsCount = 0;
+        copyCount = 0;
+        rolloutActionsTaken = 0;
+        actionCacheHits = 0;
+        actionCacheMisses = 0;
+        params = player.getParameters();
+        forwardModel = player.getForwardModel();
+        rnd = player.getRnd();
+        initialiseMAST(state.getNPlayers());
+        if (params.information == Closed_Loop) {
+            this.state = state;
+        } else {
+            copyCount++;
+            this.state = state.copy();
+        }
+        round = state.getRoundCounter();
+        turn = state.getTurnCounter();
+        turnOwner = state.getCurrentPlayer();
+        terminalNode = !state.isNotTerminal();
+
+        // then update every node in the subtree to hang off this one
+        Deque<SingleTreeNode> nodeQueue = new ArrayDeque<>();
+        nodeQueue.add(this);
+        while (!nodeQueue.isEmpty()) {
+            SingleTreeNode node = nodeQueue.poll();
+            node.root = this;
+            node.depth -= depthOffset;
+            node.params = params;
+            node.forwardModel = forwardModel;
+            node.rnd = rnd;
+            for (int i = 0; i < node.indexOf.size(); i++) {
+                SingleTreeNode[] nodeArray = node.childrenByIndex[i];
+                if (nodeArray == null) continue;
+                for (SingleTreeNode child : nodeArray) {
+                    if (child != null)
+                        nodeQueue.add(child);
+                }
+            }
+        }
+        setActionsFromOpenLoopState(this.state);
+        // In open loop this node may have been reached from states where other actions were available;
+        // we remove these so that the root only has statistics for actions that are legal now
+        retainActions(new HashSet<>(actionsFromOpenLoopState));
+    }
+
     /**
      * Calculates the best action from the root according to the selection policy
      *
@@ -961,23 +1698,22 @@ public class SingleTreeNode {
             // We iterate through all action valid in the original root state
             // as openLoopState may be different if using MCGS (not an issue with SingleTreeNode or MultiTreeNode)
             for (AbstractAction action : forwardModel.computeAvailableActions(state, params.actionSpace)) {
-                if (!actionValues.containsKey(action)) {
+                int index = indexOfAction(action);
+                if (index < 0) {
                     throw new AssertionError("Hashcode / equals contract issue for " + action);
                 }
-                if (actionValues.get(action) != null) {
-                    ActionStats stats = actionValues.get(action);
-                    double childValue = stats.nVisits; // if ROBUST
-                    if (policy == SIMPLE)
-                        childValue = stats.totValue[decisionPlayer] / (stats.nVisits + params.noiseEpsilon);
-
-                    // Apply small noise to break ties randomly
-                    childValue = noise(childValue, params.noiseEpsilon, rnd.nextDouble());
-
-                    // Save best value
-                    if (childValue > bestValue) {
-                        bestValue = childValue;
-                        bestAction = action;
-                    }
+                ActionStats stats = statsByIndex[index];
+                double childValue = stats.nVisits; // if ROBUST
+                if (policy == SIMPLE)
+                    childValue = stats.totValue[decisionPlayer] / (stats.nVisits + params.noiseEpsilon);
+
+                // Apply small noise to break ties randomly
+                childValue = noise(childValue, params.noiseEpsilon, rnd.nextDouble());
+
+                // Save best value
+                if (childValue > bestValue) {
+                    bestValue = childValue;
+                    bestAction = action;
                 }
             }
         }
@@ -985,7 +1721,9 @@ public class SingleTreeNode {
         if (bestAction == null) {
             if (nVisits == 1) {
 //                System.out.println("Only one visit to root node - insufficient information - hopefully due to JVM warming up");
-                bestAction = actionValues.keySet().stream().findFirst().orElseThrow(() -> new AssertionError("No children"));
+                if (indexOf.isEmpty())
+                    throw new AssertionError("No children");
+                bestAction = actionsByIndex[0];
             } else
                 throw new AssertionError("Unexpected - no selection made.");
         }
@@ -1017,6 +1755,10 @@ public class SingleTreeNode {
         return forwardModel;
     }
 
+    public int getActionCacheLookups() {
+        return actionCacheHits + actionCacheMisses;
+    }
+
     /**
      * This returns a list of all nodes in the tree that do not match the specified Predicate
      *
@@ -19,6 +19,7 @@ public class PythonAgent extends AbstractPlayer {
 
     @Override
     public AbstractPlayer copy() {
-        return null;
+        // the decisions are made in Python, so there is no state to copy
+        return new PythonAgent();
     }
 }
@@ -7,54 +7,91 @@ import core.actions.AbstractAction;
 import core.interfaces.IStateHeuristic;
 import utilities.Pair;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
+/**
+ * The actions, states and scores of an individual are held in arrays of horizon length, allocated once and then
+ * reused when the individual is reset or overwritten with another (see RHEAPlayer, which recycles the individuals
+ * discarded each generation). The game states stored are never changed once stored, as every step of a rollout
+ * copies the state before it; they can therefore be shared between individuals (and between the threads evaluating
+ * them) without copying.
+ */
 public class RHEAIndividual implements Comparable<RHEAIndividual> {
 
     protected int repairCount;
     protected int nonRepairCount;
     AbstractAction[] actions;         // Actions in individual. Intended max length of individual = actions.length
-    AbstractGameState[] gameStates;   // Game states in individual.
+    AbstractGameState[] gameStates;   // Game states in individual. gameStates[i] is the state in which actions[i] is taken
+    List<AbstractAction>[] availableActions;  // The actions available in each of gameStates, as used in the rollout
+    double[] scores;                  // Heuristic value of each of gameStates (scores[0] is not used)
     double value;                     // Fitness of individual, to be maximised.
     int length;                       // Actual length of individual, <= actions.length
     double discountFactor;            // Discount factor for calculating rewards
     IStateHeuristic heuristic;
-    AbstractPlayer rolloutPolicy;
-    private Random gen;               // Random generator
-
-    RHEAIndividual(int L, double discountFactor, AbstractForwardModel fm, AbstractGameState gs,
-                   int playerID, Random gen, IStateHeuristic heuristic,
-                   AbstractPlayer rolloutPolicy) {
-        // Initialize
-        this.gen = gen;
-        this.discountFactor = discountFactor;
+
+    /**
+     * Creates an individual with no actions, to be chosen by the rollout policy in its first rollout.
+     *
+     * @param root - the state to start from, which is not copied (and so must not be changed later)
+     */
+    @SuppressWarnings("unchecked")
+    RHEAIndividual(int L, double discountFactor, AbstractGameState root, IStateHeuristic heuristic) {
         actions = new AbstractAction[L];
         gameStates = new AbstractGameState[L + 1];
-        this.heuristic = heuristic;
-        this.rolloutPolicy = rolloutPolicy;
-
-        // Rollout with random actions and assign fitness value
-        gameStates[0] = gs.copy();
-        rollout(fm, 0, playerID, true);
+        availableActions = new List[L + 1];
+        scores = new double[L + 1];
+        reset(discountFactor, root, heuristic);
     }
 
     // Copy constructor
     RHEAIndividual(RHEAIndividual I) {
-        actions = new AbstractAction[I.actions.length];
-        gameStates = new AbstractGameState[I.gameStates.length];
-        length = I.length;
-        discountFactor = I.discountFactor;
-        heuristic = I.heuristic;
-        rolloutPolicy = I.rolloutPolicy;
+        this(I.actions.length, I.discountFactor, I.gameStates[0], I.heuristic);
+        copyFrom(I);
+    }
 
-        for (int i = 0; i < length; i++) {
-            actions[i] = I.actions[i]; //.copy();
-            gameStates[i] = I.gameStates[i]; //.copy(); // Should not need to copy game states, as we always copy before we use!
-        }
+    /**
+     * Clears this individual to start again from the root state, as if newly constructed.
+     */
+    void reset(double discountFactor, AbstractGameState root, IStateHeuristic heuristic) {
+        this.discountFactor = discountFactor;
+        this.heuristic = heuristic;
+        Arrays.fill(actions, null);
+        Arrays.fill(gameStates, null);
+        Arrays.fill(availableActions, null);
+        gameStates[0] = root;
+        length = 0;
+        value = 0;
+        repairCount = 0;
+        nonRepairCount = 0;
+    }
 
+    /**
+     * Overwrites this individual with the genes of another of the same horizon, as the copy constructor does.
+     * The game states are shared, not copied.
+     */
+    void copyFrom(RHEAIndividual I) {
+        if (I.actions.length != actions.length)
+            throw new IllegalArgumentException("Cannot copy an individual of length " + I.actions.length + " into one of length " + actions.length);
+        reset(I.discountFactor, I.gameStates[0], I.heuristic);
+        length = I.length;
+        System.arraycopy(I.actions, 0, actions, 0, length);
+        System.arraycopy(I.gameStates, 0, gameStates, 0, length);
+        System.arraycopy(I.availableActions, 0, availableActions, 0, length);
+        System.arraycopy(I.scores, 0, scores, 0, length);
         value = I.value;
-        gen = I.gen;
+    }
+
+    /**
+     * For crossover: takes the action at fromIndex of another individual, with the state it was taken in, as the
+     * action at index to of this one.
+     */
+    void copyGene(int to, RHEAIndividual from, int fromIndex) {
+        actions[to] = from.actions[fromIndex];
+        gameStates[to] = from.gameStates[fromIndex];
+        availableActions[to] = from.availableActions[fromIndex];
+        scores[to] = from.scores[fromIndex];
     }
 
     /**
@@ -62,18 +99,21 @@ public class RHEAIndividual implements Comparable<RHEAIndividual> {
      * Updates the length of the individual in case the rollout hits game end.
      * Also evaluates the individual as a rollout is needed for mutation, and updates the value.
      *
-     * @param fm       - forward model
-     * @param playerID - ID of player, used in evaluation of fitness
-     * @return number of calls to the FM.next() function, as the difference between length after rollout and start
-     * index of rollout
+     * @param fm            - forward model
+     * @param playerID      - ID of player, used in evaluation of fitness
+     * @param gen           - random generator for the mutation and opponent moves
+     * @param rolloutPolicy - policy used to repair illegal actions
+     * @return number of calls to the FM.next() function, and to copy the state
      */
-    public Pair<Integer, Integer> mutate(AbstractForwardModel fm, int playerID, int mutationCount) {
+    public Pair<Integer, Integer> mutate(AbstractForwardModel fm, int playerID, int mutationCount, Random gen,
+                                         AbstractPlayer rolloutPolicy) {
         // Find index from which to mutate individual, random in range of currently valid length
         int startIndex = actions.length;
         for (int mutation = 0; mutation < mutationCount; mutation++) {
             int position = gen.nextInt(length); // we only consider actions up to the end of the game (which will therefore increase mutation rate towards game end)
-            if (gameStates[position] != null) {
-                List<AbstractAction> available = fm.computeAvailableActions(gameStates[position]);
+            // the actions recorded in the last rollout are those available in gameStates[position]
+            List<AbstractAction> available = availableActions[position];
+            if (available != null) {
                 actions[position] = available.get(gen.nextInt(available.size()));
                 if (position < startIndex)
                     startIndex = position;  // start the rollout from the first mutation
@@ -81,10 +121,10 @@ public class RHEAIndividual implements Comparable<RHEAIndividual> {
         }
 
         // Perform rollout and return number of FM calls taken.
-        if (gameStates[startIndex] == null) {
+        if (startIndex == actions.length || gameStates[startIndex] == null) {
             return new Pair<>(0, 0);
         } else {
-            return rollout(fm, startIndex, playerID, true);
+            return rollout(fm, startIndex, playerID, true, gen, rolloutPolicy);
         }
     }
 
@@ -93,29 +133,25 @@ public class RHEAIndividual implements Comparable<RHEAIndividual> {
      * Starts by repairing the full individual, then mutates it, and finally evaluates it.
      * Evaluates the final state reached and returns the number of calls to the FM.next() function.
      *
-     * @param fm         - forward model
-     * @param startIndex - index in individual from which to start rollout
-     * @param playerID   - ID of player, used in state evaluation
-     * @return - number of calls to the FM.next() function
+     * @param fm            - forward model
+     * @param startIndex    - index in individual from which to start rollout
+     * @param playerID      - ID of player, used in state evaluation
+     * @param gen           - random generator for opponent moves
+     * @param rolloutPolicy - policy used to pick (or repair) actions
+     * @return - number of calls to the FM.next() function, and to copy the state
      */
-    public Pair<Integer, Integer> rollout(AbstractForwardModel fm, int startIndex, int playerID, boolean repair) {
+    public Pair<Integer, Integer> rollout(AbstractForwardModel fm, int startIndex, int playerID, boolean repair,
+                                          Random gen, AbstractPlayer rolloutPolicy) {
         length = 0;
         double delta = 0;
         double previousScore = 0;
         int fmCalls = 0, copyCalls = 0;
-        AbstractGameState gs = gameStates[startIndex].copy();
-
-        // This lot are a local record for use in debugging; Very useful, with no compute overhead for keeping a local copy
-        AbstractGameState[] oldGameStates = new AbstractGameState[gameStates.length];
-        List<AbstractAction>[] availableActions = new List[gameStates.length];
-        AbstractAction[] oldActions = new AbstractAction[actions.length];
-        boolean[] illegalActions = new boolean[actions.length];
+        // the stored states are never changed, so the one we start from does not need to be copied
+        AbstractGameState gs = gameStates[startIndex];
 
         for (int i = 0; i < startIndex; i++) {
-            double score;
-            score = heuristic.evaluateState(gameStates[i + 1], playerID);
-            if (Double.isNaN(score))
-                throw new AssertionError("Illegal heuristic value - should be a number");
+            // the states before startIndex are unchanged, and so are their scores
+            double score = scores[i + 1];
             delta += Math.pow(discountFactor, i) * (score - previousScore);
             previousScore = score;
         }
@@ -126,14 +162,12 @@ public class RHEAIndividual implements Comparable<RHEAIndividual> {
             if (gs.isNotTerminal()) {
                 // is the action valid
                 AbstractAction action;
-                AbstractGameState gsCopy = gs.copy();
+                AbstractGameState gsCopy = gs.searchCopy();
                 copyCalls++;
                 List<AbstractAction> currentActions = fm.computeAvailableActions(gsCopy, rolloutPolicy.getParameters().actionSpace);
                 availableActions[i] = currentActions;
                 boolean illegalAction = !currentActions.contains(actions[i]);
-                illegalActions[i] = illegalAction;
                 if (illegalAction || actions[i] == null) {
-                    oldActions[i] = actions[i];
                     action = rolloutPolicy.getAction(gsCopy, currentActions);
                     if (repair || actions[i] == null) // if we are repairing then we override an illegal action with a random legitimate one
                         actions[i] = action;
@@ -159,8 +193,8 @@ public class RHEAIndividual implements Comparable<RHEAIndividual> {
                     fm.next(gsCopy, moves.get(gen.nextInt(moves.size())));
                     fmCalls++;
                 }
-                oldGameStates[i+1] = gameStates[i+1];
                 gameStates[i + 1] = gsCopy;
+                availableActions[i + 1] = null;
                 // Individual length increased
                 length++;
 
@@ -169,6 +203,7 @@ public class RHEAIndividual implements Comparable<RHEAIndividual> {
                 score = heuristic.evaluateState(gameStates[i + 1], playerID);
                 if (Double.isNaN(score))
                     throw new AssertionError("Illegal heuristic value - should be a number");
+                scores[i + 1] = score;
                 delta += Math.pow(discountFactor, i) * (score - previousScore);
                 previousScore = score;
 
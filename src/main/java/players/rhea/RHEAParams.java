@@ -23,6 +23,9 @@ public class RHEAParams extends PlayerParameters
     public boolean shiftLeft;
     public IStateHeuristic heuristic = AbstractGameState::getGameScore;
     public boolean useMAST;
+    // Number of threads that evaluate the population each generation, each with its own copy of the forward model.
+    // 1 means everything is done on the calling thread.
+    public int evaluationThreads = 1;
 
 
     public RHEAParams() {
@@ -38,6 +41,7 @@ public class RHEAParams extends PlayerParameters
         addTunableParameter("mutationCount", 1, Arrays.asList(1, 3, 10));
         addTunableParameter("heuristic", (IStateHeuristic) AbstractGameState::getGameScore);
         addTunableParameter("useMAST", false, Arrays.asList(false, true));
+        addTunableParameter("evaluationThreads", 1);
     }
 
     @Override
@@ -54,6 +58,7 @@ public class RHEAParams extends PlayerParameters
         shiftLeft = (boolean) getParameterValue("shiftLeft");
         mutationCount = (int) getParameterValue("mutationCount");
         useMAST = (boolean) getParameterValue("useMAST");
+        evaluationThreads = (int) getParameterValue("evaluationThreads");
         heuristic = (IStateHeuristic) getParameterValue("heuristic");
         if (heuristic instanceof TunableParameters) {
             TunableParameters tunableHeuristic = (TunableParameters) heuristic;
@@ -1,5 +1,6 @@
 package players.rhea;
 
+import core.AbstractForwardModel;
 import core.AbstractGameState;
 import core.AbstractPlayer;
 import core.actions.AbstractAction;
@@ -11,12 +12,22 @@ import utilities.Pair;
 import utilities.Utils;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 public class RHEAPlayer extends AbstractPlayer {
-    private static final AbstractPlayer randomPlayer = new RandomPlayer();
+    private final AbstractPlayer randomPlayer;
     List<Map<Object, Pair<Integer, Double>>> MASTStatistics; // a list of one Map per player. Action -> (visits, totValue)
     protected List<RHEAIndividual> population = new ArrayList<>();
+    // Individuals dropped from the population, whose arrays are reused for new individuals and copies
+    private final Deque<RHEAIndividual> spareIndividuals = new ArrayDeque<>();
+    // What each thread uses to evaluate individuals; the first is the calling thread, and the others (if any) run
+    // on evaluationExecutor
+    private List<EvaluationWorker> workers;
+    private ExecutorService evaluationExecutor;
     // Budgets
     protected double timePerIteration = 0, timeTaken = 0, initTime = 0;
     protected int numIters = 0;
@@ -25,8 +36,23 @@ public class RHEAPlayer extends AbstractPlayer {
     protected int repairCount, nonRepairCount;
     private MASTPlayer mastPlayer;
 
+    /**
+     * The forward model, random number generator and rollout policy used by one evaluation thread.
+     */
+    private static class EvaluationWorker {
+        AbstractForwardModel forwardModel;
+        Random rnd;
+        AbstractPlayer rolloutPolicy;
+
+        EvaluationWorker(AbstractForwardModel forwardModel) {
+            this.forwardModel = forwardModel;
+        }
+    }
+
     public RHEAPlayer(RHEAParams params) {
         super(params, "RHEAPlayer");
+        rnd = new Random(parameters.getRandomSeed());
+        randomPlayer = new RandomPlayer(rnd);
     }
 
     @Override
@@ -39,6 +65,8 @@ public class RHEAPlayer extends AbstractPlayer {
         for (int i = 0; i < state.getNPlayers(); i++)
             MASTStatistics.add(new HashMap<>());
         population = new ArrayList<>();
+        spareIndividuals.clear();
+        shutdownWorkers();
     }
 
     @Override
@@ -62,29 +90,36 @@ public class RHEAPlayer extends AbstractPlayer {
                         .map(m -> Utils.decay(m, params.discountFactor))
                         .collect(Collectors.toList());
             }
-            mastPlayer = new MASTPlayer(null, 1.0, 0.0, System.currentTimeMillis(), 0.0);
-            mastPlayer.setStats(MASTStatistics);
+            mastPlayer = createMASTPlayer(rnd.nextLong());
         }
-        // Initialise individuals
+        prepareWorkers();
+        if (!spareIndividuals.isEmpty() && spareIndividuals.peek().actions.length != params.horizon)
+            spareIndividuals.clear();
+        // all individuals start from the same copy of the state, which is never changed
+        AbstractGameState root = stateObs.searchCopy();
+        // Initialise individuals, one for each evaluation thread at a time, checking the budget in between
+        // (with a single thread this checks it before each individual)
+        int chunkSize = workers.size();
         if (params.shiftLeft && !population.isEmpty()) {
             population.forEach(i -> i.value = Double.NEGATIVE_INFINITY);  // so that any we don't have time to shift are ignored when picking an action
-            for (RHEAIndividual genome : population) {
-                if (!budgetLeft(timer)) break;
-                System.arraycopy(genome.actions, 1, genome.actions, 0, genome.actions.length - 1);
-                // we shift all actions along, and then rollout with repair
-                genome.gameStates[0] = stateObs.copy();
-                Pair<Integer, Integer> calls = genome.rollout(getForwardModel(), 0, getPlayerID(), true);
-                fmCalls += calls.a;
-                copyCalls += calls.b;
+            for (int start = 0; start < population.size() && budgetLeft(timer); start += chunkSize) {
+                List<RHEAIndividual> chunk = population.subList(start, Math.min(start + chunkSize, population.size()));
+                for (RHEAIndividual genome : chunk) {
+                    System.arraycopy(genome.actions, 1, genome.actions, 0, genome.actions.length - 1);
+                    // we shift all actions along, and then rollout with repair
+                    genome.gameStates[0] = root;
+                }
+                evaluate(chunk, false);
             }
         } else {
+            spareIndividuals.addAll(population);
             population = new ArrayList<>();
-            for (int i = 0; i < params.populationSize; ++i) {
-                if (!budgetLeft(timer)) break;
-                population.add(new RHEAIndividual(params.horizon, params.discountFactor, getForwardModel(), stateObs,
-                        getPlayerID(), rnd, params.heuristic, params.useMAST ? mastPlayer : randomPlayer));
-                fmCalls += population.get(i).length;
-                copyCalls += population.get(i).length;
+            while (population.size() < params.populationSize && budgetLeft(timer)) {
+                List<RHEAIndividual> chunk = new ArrayList<>();
+                for (int i = 0, n = Math.min(chunkSize, params.populationSize - population.size()); i < n; ++i)
+                    chunk.add(newIndividual(root));
+                evaluate(chunk, false);
+                population.addAll(chunk);
             }
         }
 
@@ -105,6 +140,126 @@ public class RHEAPlayer extends AbstractPlayer {
         return retValue;
     }
 
+    private MASTPlayer createMASTPlayer(long seed) {
+        MASTPlayer player = new MASTPlayer(null, 1.0, 0.0, seed, 0.0);
+        player.setStats(MASTStatistics);
+        return player;
+    }
+
+    /**
+     * Sets up the evaluation threads for this decision. The worker for the calling thread uses our own forward model,
+     * random number generator and rollout policy; the others each have a copy of the forward model, and a random
+     * number generator and rollout policy seeded from ours (so that, given our seed, the search is reproducible).
+     */
+    private void prepareWorkers() {
+        RHEAParams params = getParameters();
+        if (workers == null) {
+            workers = new ArrayList<>();
+            workers.add(new EvaluationWorker(getForwardModel()));
+            for (int i = 1; i < params.evaluationThreads; i++)
+                workers.add(new EvaluationWorker(getForwardModel().copy()));
+            if (params.evaluationThreads > 1) {
+                evaluationExecutor = Executors.newFixedThreadPool(params.evaluationThreads - 1, r -> {
+                    Thread t = new Thread(r, "RHEA-evaluation-worker");
+                    t.setDaemon(true);
+                    return t;
+                });
+            }
+        }
+        EvaluationWorker own = workers.get(0);
+        own.forwardModel = getForwardModel();
+        own.rnd = rnd;
+        own.rolloutPolicy = params.useMAST ? mastPlayer : randomPlayer;
+        for (EvaluationWorker worker : workers.subList(1, workers.size())) {
+            worker.rnd = new Random(rnd.nextLong());
+            worker.rolloutPolicy = params.useMAST ? createMASTPlayer(rnd.nextLong()) : new RandomPlayer(worker.rnd);
+        }
+    }
+
+    private void shutdownWorkers() {
+        if (evaluationExecutor != null)
+            evaluationExecutor.shutdownNow();
+        evaluationExecutor = null;
+        workers = null;
+    }
+
+    @Override
+    public void finalizePlayer(AbstractGameState state) {
+        shutdownWorkers();
+    }
+
+    /**
+     * Rolls out each individual from the start (if mutate is false, to create or repair it), or mutates it and rolls
+     * out the rest, and adds the FM and copy calls taken to our budget.
+     * <p>
+     * With more than one evaluation thread, individual i is evaluated by thread (i % threads), each with its own
+     * forward model, random number generator and rollout policy. The calls are counted per individual and added up
+     * once all have finished, so the budget used is exactly that of the rollouts made. The individuals share their
+     * game states, but only read them; the heuristic, however, is shared between threads and must be thread-safe.
+     */
+    private void evaluate(List<RHEAIndividual> individuals, boolean mutate) {
+        int nThreads = Math.min(workers.size(), individuals.size());
+        int[] fmCallsTaken = new int[individuals.size()];
+        int[] copyCallsTaken = new int[individuals.size()];
+        List<Future<?>> evaluations = new ArrayList<>();
+        for (int t = 1; t < nThreads; t++) {
+            int thread = t;
+            evaluations.add(evaluationExecutor.submit(() ->
+                    evaluate(individuals, mutate, thread, nThreads, fmCallsTaken, copyCallsTaken)));
+        }
+        evaluate(individuals, mutate, 0, nThreads, fmCallsTaken, copyCallsTaken);
+        for (Future<?> evaluation : evaluations) {
+            try {
+                evaluation.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted during parallel evaluation", e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Error in parallel evaluation", e.getCause());
+            }
+        }
+        for (int i = 0; i < individuals.size(); i++) {
+            fmCalls += fmCallsTaken[i];
+            copyCalls += copyCallsTaken[i];
+        }
+    }
+
+    private void evaluate(List<RHEAIndividual> individuals, boolean mutate, int thread, int nThreads,
+                          int[] fmCallsTaken, int[] copyCallsTaken) {
+        EvaluationWorker worker = workers.get(thread);
+        for (int i = thread; i < individuals.size(); i += nThreads) {
+            RHEAIndividual individual = individuals.get(i);
+            Pair<Integer, Integer> calls = mutate ?
+                    individual.mutate(worker.forwardModel, getPlayerID(), getParameters().mutationCount, worker.rnd, worker.rolloutPolicy) :
+                    individual.rollout(worker.forwardModel, 0, getPlayerID(), true, worker.rnd, worker.rolloutPolicy);
+            fmCallsTaken[i] = calls.a;
+            copyCallsTaken[i] = calls.b;
+        }
+    }
+
+    /**
+     * @return a new individual starting from root, reusing a spare one if we have any
+     */
+    private RHEAIndividual newIndividual(AbstractGameState root) {
+        RHEAParams params = getParameters();
+        RHEAIndividual individual = spareIndividuals.poll();
+        if (individual == null)
+            return new RHEAIndividual(params.horizon, params.discountFactor, root, params.heuristic);
+        individual.reset(params.discountFactor, root, params.heuristic);
+        return individual;
+    }
+
+    /**
+     * @return a copy of the individual, reusing a spare one if we have any
+     */
+    private RHEAIndividual copyOf(RHEAIndividual original) {
+        RHEAIndividual individual = spareIndividuals.poll();
+        if (individual == null)
+            return new RHEAIndividual(original);
+        individual.copyFrom(original);
+        return individual;
+    }
+
     private boolean budgetLeft(ElapsedCpuTimer timer) {
         RHEAParams params = getParameters();
         if (params.budgetType == PlayerConstants.BUDGET_TIME) {
@@ -134,7 +289,7 @@ public class RHEAPlayer extends AbstractPlayer {
     private RHEAIndividual crossover(RHEAIndividual p1, RHEAIndividual p2) {
         switch (getParameters().crossoverType) {
             case NONE: // we just take the first parent
-                return new RHEAIndividual(p1);
+                return copyOf(p1);
             case UNIFORM:
                 return uniformCrossover(p1, p2);
             case ONE_POINT:
@@ -147,39 +302,35 @@ public class RHEAPlayer extends AbstractPlayer {
     }
 
     private RHEAIndividual uniformCrossover(RHEAIndividual p1, RHEAIndividual p2) {
-        RHEAIndividual child = new RHEAIndividual(p1);
+        RHEAIndividual child = copyOf(p1);
         copyCalls += child.length;
         int min = Math.min(p1.length, p2.length);
         for (int i = 0; i < min; ++i) {
             if (rnd.nextFloat() >= 0.5f) {
-                child.actions[i] = p2.actions[i];
-                child.gameStates[i] = p2.gameStates[i]; //.copy();
+                child.copyGene(i, p2, i);
             }
         }
         return child;
     }
 
     private RHEAIndividual onePointCrossover(RHEAIndividual p1, RHEAIndividual p2) {
-        RHEAIndividual child = new RHEAIndividual(p1);
+        RHEAIndividual child = copyOf(p1);
         copyCalls += child.length;
         int tailLength = Math.min(p1.length, p2.length) / 2;
 
         for (int i = 0; i < tailLength; ++i) {
-            child.actions[child.length - 1 - i] = p2.actions[p2.length - 1 - i];
-            child.gameStates[child.length - 1 - i] = p2.gameStates[p2.length - 1 - i]; //.copy();
+            child.copyGene(child.length - 1 - i, p2, p2.length - 1 - i);
         }
         return child;
     }
 
     private RHEAIndividual twoPointCrossover(RHEAIndividual p1, RHEAIndividual p2) {
-        RHEAIndividual child = new RHEAIndividual(p1);
+        RHEAIndividual child = copyOf(p1);
         copyCalls += child.length;
         int tailLength = Math.min(p1.length, p2.length) / 3;
         for (int i = 0; i < tailLength; ++i) {
-            child.actions[i] = p2.actions[i];
-            child.gameStates[i] = p2.gameStates[i]; //.copy();
-            child.actions[child.length - 1 - i] = p2.actions[p2.length - 1 - i];
-            child.gameStates[child.length - 1 - i] = p2.gameStates[p2.length - 1 - i]; //.copy();
+            child.copyGene(i, p2, i);
+            child.copyGene(child.length - 1 - i, p2, p2.length - 1 - i);
         }
         return child;
     }
@@ -238,7 +389,7 @@ public class RHEAPlayer extends AbstractPlayer {
         RHEAParams params = getParameters();
         List<RHEAIndividual> newPopulation = new ArrayList<>();
         for (int i = 0, max = Math.min(params.eliteCount, population.size()); i < max; ++i) {
-            newPopulation.add(new RHEAIndividual(population.get(i)));
+            newPopulation.add(copyOf(population.get(i)));
         }
         //crossover
         for (int i = 0; i < params.childCount; ++i) {
@@ -247,10 +398,9 @@ public class RHEAPlayer extends AbstractPlayer {
             population.add(child);
         }
 
+        // the MAST statistics are only read while the individuals are evaluated, and updated afterwards
+        evaluate(population, true);
         for (RHEAIndividual individual : population) {
-            Pair<Integer, Integer> calls = individual.mutate(getForwardModel(), getPlayerID(), params.mutationCount);
-            fmCalls += calls.a;
-            copyCalls += calls.b;
             repairCount += individual.repairCount;
             nonRepairCount += individual.nonRepairCount;
             if (params.useMAST)
@@ -261,9 +411,12 @@ public class RHEAPlayer extends AbstractPlayer {
         population.sort(Comparator.naturalOrder());
 
         //best ones get moved to the new population
-        for (int i = 0; i < Math.min(population.size(), params.populationSize - params.eliteCount); ++i) {
+        int survivors = Math.max(0, Math.min(population.size(), params.populationSize - params.eliteCount));
+        for (int i = 0; i < survivors; ++i) {
             newPopulation.add(population.get(i));
         }
+        // the rest are dropped, and reused in the next generation
+        spareIndividuals.addAll(population.subList(survivors, population.size()));
 
         population = newPopulation;
 
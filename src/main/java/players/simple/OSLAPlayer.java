@@ -4,6 +4,7 @@ import core.AbstractForwardModel;
 import core.AbstractGameState;
 import core.AbstractGameStateWithTurnOrder;
 import core.AbstractPlayer;
+import core.UndoStack;
 import core.actions.AbstractAction;
 import core.interfaces.IStateHeuristic;
 import core.turnorders.StandardTurnOrder;
@@ -17,6 +18,8 @@ public class OSLAPlayer extends AbstractPlayer {
 
     // Heuristics used for the agent
     IStateHeuristic heuristic;
+    // used if the forward model supports undo, so that we apply each action to the same copy of the state
+    private final UndoStack undoStack = new UndoStack();
 
     public OSLAPlayer(Random random) {
         super(null, "OSLA");
@@ -43,11 +46,19 @@ public class OSLAPlayer extends AbstractPlayer {
         AbstractAction bestAction = null;
         double[] valState = new double[actions.size()];
         int playerID = gs.getCurrentPlayer();
+        boolean useUndo = getForwardModel().supportsUndo();
+        AbstractGameState sharedCopy = useUndo ? gs.copy() : null;
 
         for (int actionIndex = 0; actionIndex < actions.size(); actionIndex++) {
             AbstractAction action = actions.get(actionIndex);
-            AbstractGameState gsCopy = gs.copy();
-            getForwardModel().next(gsCopy, action);
+            AbstractGameState gsCopy;
+            if (useUndo) {
+                gsCopy = sharedCopy;
+                getForwardModel().next(gsCopy, action, undoStack);
+            } else {
+                gsCopy = gs.copy();
+                getForwardModel().next(gsCopy, action);
+            }
 
             if (gs instanceof AbstractGameStateWithTurnOrder && ((AbstractGameStateWithTurnOrder)gsCopy).getTurnOrder() instanceof StandardTurnOrder) {
                 advanceToEndOfRoundWithRandomActions(gsCopy, playerID);
@@ -59,6 +70,9 @@ public class OSLAPlayer extends AbstractPlayer {
                 valState[actionIndex] = gsCopy.getHeuristicScore(playerID);
             }
 
+            if (useUndo)
+                getForwardModel().undoAll(gsCopy, undoStack);
+
             double Q = noise(valState[actionIndex], getParameters().noiseEpsilon, rnd.nextDouble());
             //     System.out.println(Arrays.stream(valState).mapToObj(v -> String.format("%1.3f", v)).collect(Collectors.joining("\t")));
 
@@ -86,7 +100,7 @@ public class OSLAPlayer extends AbstractPlayer {
             // first get to the end of our actions
             while (gsCopy.getCurrentPlayer() == startingPlayer && gsCopy.isNotTerminal()) {
                 AbstractAction action = rnd.getAction(gsCopy, fm.computeAvailableActions(gsCopy, rnd.parameters.actionSpace));
-                fm.next(gsCopy, action);
+                next(gsCopy, action);
             }
         }
         // then each other player gets their round
@@ -98,9 +112,16 @@ public class OSLAPlayer extends AbstractPlayer {
                 }
                 while (gsCopy.getCurrentPlayer() == currentPlayer && gsCopy.isNotTerminal()) {
                     AbstractAction action = rnd.getAction(gsCopy, fm.computeAvailableActions(gsCopy, rnd.parameters.actionSpace));
-                    fm.next(gsCopy, action);
+                    next(gsCopy, action);
                 }
             }
         }
     }
+
+    private void next(AbstractGameState gsCopy, AbstractAction action) {
+        if (getForwardModel().supportsUndo())
+            getForwardModel().next(gsCopy, action, undoStack);
+        else
+            getForwardModel().next(gsCopy, action);
+    }
 }
@@ -0,0 +1,83 @@
+package utilities;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A list that can only be added to, from which a fixed view of the elements so far can be taken in constant time.
+ * <p>
+ * The elements are held in chunks of 1024 that are never moved once allocated, and adding an element only fills in
+ * entries of the directory of chunks that no view covers yet (or replaces the directory with a larger copy), so a
+ * view only needs a reference to the current directory and the size. The owner can carry on adding elements on its
+ * own thread while views are read on others, provided each view is handed over safely (e.g. through a queue), as
+ * the elements a view covers are never written again.
+ * This is not thread-safe for more than one writer.
+ */
+public class AppendOnlyList<T> extends AbstractList<T> {
+
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private Object[][] chunks = new Object[4][];
+    private int size;
+
+    @Override
+    public boolean add(T element) {
+        int chunk = size >>> CHUNK_BITS;
+        if (chunk == chunks.length)
+            chunks = Arrays.copyOf(chunks, chunks.length * 2);
+        if (chunks[chunk] == null)
+            chunks[chunk] = new Object[CHUNK_SIZE];
+        chunks[chunk][size & CHUNK_MASK] = element;
+        size++;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public T get(int index) {
+        return get(chunks, size, index);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return an unmodifiable list of the elements added so far, which is not affected by later additions
+     */
+    public List<T> view() {
+        return new View<>(chunks, size);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T get(Object[][] chunks, int size, int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        return (T) chunks[index >>> CHUNK_BITS][index & CHUNK_MASK];
+    }
+
+    private static class View<T> extends AbstractList<T> {
+        // shared with the owner, which only fills in the entries for later chunks
+        private final Object[][] chunks;
+        private final int size;
+
+        View(Object[][] chunks, int size) {
+            this.chunks = chunks;
+            this.size = size;
+        }
+
+        @Override
+        public T get(int index) {
+            return AppendOnlyList.get(chunks, size, index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -2,6 +2,50 @@ package utilities;
 
 public class ElapsedCpuChessTimer extends ElapsedCpuTimer {
 
+    /**
+     * A shared timer that ignores all updates and never runs out.
+     * Used by the search copies of a game state (AbstractGameState.searchCopy()), which have no use for thinking time.
+     */
+    public static final ElapsedCpuChessTimer FROZEN = new ElapsedCpuChessTimer(0, 0, 0, 0, 0) {
+        @Override
+        public void reset() {
+        }
+
+        @Override
+        public void pause() {
+        }
+
+        @Override
+        public void resume() {
+        }
+
+        @Override
+        public void incrementAction() {
+        }
+
+        @Override
+        public void incrementTurn() {
+        }
+
+        @Override
+        public void incrementRound() {
+        }
+
+        @Override
+        public void incrementMileStone() {
+        }
+
+        @Override
+        public boolean exceededMaxTime() {
+            return false;
+        }
+
+        @Override
+        public ElapsedCpuChessTimer copy() {
+            return this;
+        }
+    };
+
     private long timeRemaining;
     private final double incrementAction, incrementTurn, incrementRound, incrementMilestone;
 
@@ -0,0 +1,109 @@
+package utilities;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size histogram of durations in nanoseconds, along the lines of HdrHistogram. Values below 128 are counted
+ * exactly, and above that each power of two is split into 64 equal buckets, so any value read back (e.g. a
+ * percentile) is within 1/64 (about 1.6%) of the true value. Values above MAX_VALUE (about 18 minutes) are counted
+ * as MAX_VALUE, and negative values as 0.
+ * <p>
+ * Recording a value does not allocate, and is a handful of arithmetic operations, so it is cheap enough to use on
+ * every iteration of the game loop. The exact count, total, minimum and maximum are also kept.
+ * This is not thread-safe.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int HALF_SUB_BUCKETS = 1 << (SUB_BUCKET_BITS - 1);
+    public static final long MAX_VALUE = (1L << 40) - 1;
+    private static final int N_BUCKETS = index(MAX_VALUE) + 1;
+
+    private final long[] counts = new long[N_BUCKETS];
+    private long totalCount;
+    private double total;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    private static int index(long value) {
+        if (value < 2L * HALF_SUB_BUCKETS)
+            return (int) value;
+        int shift = 64 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * HALF_SUB_BUCKETS + (int) (value >>> shift) - HALF_SUB_BUCKETS;
+    }
+
+    /**
+     * @return the largest value that is recorded in the same bucket as the given index
+     */
+    private static long highestValue(int index) {
+        if (index < 2 * HALF_SUB_BUCKETS)
+            return index;
+        int shift = index / HALF_SUB_BUCKETS - 1;
+        long lowest = (long) (index % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    public void record(long value) {
+        if (value < 0) value = 0;
+        if (value > MAX_VALUE) value = MAX_VALUE;
+        counts[index(value)]++;
+        totalCount++;
+        total += value;
+        if (value < min) min = value;
+        if (value > max) max = value;
+    }
+
+    /**
+     * Adds all the values recorded in other to this histogram.
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < N_BUCKETS; i++)
+            counts[i] += other.counts[i];
+        totalCount += other.totalCount;
+        total += other.total;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        total = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    /**
+     * @param percentile - between 0 and 100
+     * @return the value that percentile of the recorded values are less than or equal to (to the precision of the
+     * histogram), or 0 if nothing has been recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (totalCount == 0)
+            return 0;
+        long target = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalCount));
+        long count = 0;
+        for (int i = 0; i < N_BUCKETS; i++) {
+            count += counts[i];
+            if (count >= target)
+                return Math.min(highestValue(i), max);
+        }
+        return max;
+    }
+
+    public long getCount() {
+        return totalCount;
+    }
+
+    public double getMean() {
+        return totalCount == 0 ? 0.0 : total / totalCount;
+    }
+
+    public long getMin() {
+        return totalCount == 0 ? 0 : min;
+    }
+
+    public long getMax() {
+        return max;
+    }
+}
@@ -0,0 +1,64 @@
+package utilities;
+
+/**
+ * Helpers for Zobrist-style 64-bit state hashes.
+ * <p>
+ * The hash of a state is the XOR of one key for each (position, value) pair that describes it. This means that
+ * a game can maintain the hash incrementally: when the value at a position changes, XOR out the key for the old
+ * value and XOR in the key for the new one.
+ * Rather than a pre-generated table of random numbers the keys are generated by a fixed mixing function, so they are
+ * the same in every run and there is no limit on the number of positions or values.
+ */
+public final class ZobristHashing {
+
+    private ZobristHashing() {
+    }
+
+    /**
+     * The SplitMix64 finaliser; a cheap bijective mixing function with good avalanche properties.
+     */
+    public static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * @param position - index of the position (cell, node, edge...) on the board
+     * @param value    - what is at that position (for example a player or piece index)
+     * @return the key to XOR into the hash for this value being at this position
+     */
+    public static long key(int position, int value) {
+        return mix(((long) position << 32) ^ (value & 0xffffffffL) ^ 0x9e3779b97f4a7c15L);
+    }
+
+    /**
+     * @return the key to XOR into the hash to record whose turn it is (in a separate space from the position keys)
+     */
+    public static long playerKey(int player) {
+        return mix(~((long) player) * 0x9e3779b97f4a7c15L);
+    }
+
+    /**
+     * 64-bit hash of an arbitrary vector (e.g. a feature vector); position i is hashed with the bits of values[i]
+     */
+    public static long hash(double[] values) {
+        long retValue = values.length;
+        for (int i = 0; i < values.length; i++) {
+            retValue = mix(retValue ^ (Double.doubleToLongBits(values[i]) + i * 0x9e3779b97f4a7c15L));
+        }
+        return retValue;
+    }
+
+    /**
+     * 64-bit hash of a String (FNV-1a, then mixed). Used to fall back from String keys to long ones.
+     */
+    public static long hash(String value) {
+        long retValue = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            retValue ^= value.charAt(i);
+            retValue *= 0x100000001b3L;
+        }
+        return mix(retValue);
+    }
+}
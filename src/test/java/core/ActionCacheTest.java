@@ -0,0 +1,193 @@
+package core;
+
+import core.actions.AbstractAction;
+import core.actions.ActionSpace;
+import core.actions.SetGridValueAction;
+import core.interfaces.IStateHash;
+import games.GameType;
+import games.connect4.Connect4Constants;
+import games.connect4.Connect4StateVector;
+import org.junit.Before;
+import org.junit.Test;
+import players.PlayerConstants;
+import players.mcts.MCTSEnums;
+import players.mcts.MCTSParams;
+import players.mcts.SingleTreeNode;
+import players.mcts.TestMCTSPlayer;
+import players.simple.RandomPlayer;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class ActionCacheTest {
+
+    Game game;
+    AbstractGameState state;
+    AbstractForwardModel fm;
+    Random rnd = new Random(933);
+
+    @Before
+    public void setup() {
+        game = GameType.Connect4.createGameInstance(2, 42);
+        game.reset(Collections.nCopies(2, new RandomPlayer(new Random(1))));
+        state = game.getGameState();
+        fm = game.getForwardModel();
+    }
+
+    private void randomMove(AbstractGameState gs) {
+        List<AbstractAction> actions = fm.computeAvailableActions(gs);
+        fm.next(gs, actions.get(rnd.nextInt(actions.size())));
+    }
+
+    @Test
+    public void repeatedStatesAreServedFromTheCache() {
+        ActionCache cache = new ActionCache(10, new Connect4StateVector());
+        fm.setActionCache(cache);
+        List<AbstractAction> first = fm.computeAvailableActions(state);
+        AbstractGameState copy = state.copy();
+        List<AbstractAction> second = fm.computeAvailableActions(copy);
+        assertEquals(first, second);
+        assertNotSame(first, second);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        randomMove(copy);  // a hit when choosing the move, and then a miss for the new state
+        fm.computeAvailableActions(copy);
+        assertEquals(2, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void leastRecentlyUsedStatesAreEvicted() {
+        ActionCache cache = new ActionCache(2, new Connect4StateVector());
+        fm.setActionCache(cache);
+        AbstractGameState first = state.copy();
+        fm.computeAvailableActions(first);
+        for (int i = 0; i < 2; i++) {
+            randomMove(state);
+            fm.computeAvailableActions(state);
+        }
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertNull(cache.get(first, first.getCoreGameParameters().actionSpace));
+    }
+
+    @Test
+    public void hashCollisionsAreDetected() {
+        // every state has the same hash, so only the checks on the state itself tell them apart
+        ActionCache cache = new ActionCache(10, new IStateHash() {
+            @Override
+            public long getHash(AbstractGameState state) {
+                return 0;
+            }
+
+            @Override
+            public String getKey(AbstractGameState state) {
+                return "0";
+            }
+        });
+        fm.setActionCache(cache);
+        fm.computeAvailableActions(state);
+        fm.next(state, fm.computeAvailableActions(state).get(0));
+        assertEquals(1, cache.getHits());
+        List<AbstractAction> actions = fm.computeAvailableActions(state);
+        assertEquals(1, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(Connect4Constants.playerMapping.get(state.getCurrentPlayer()), ((SetGridValueAction<?>) actions.get(0)).getValue());
+    }
+
+    /*
+     * Counts the times it is executed, as an IExtendedSequence or other stateful action might record its progress
+     */
+    static class CountingAction extends AbstractAction {
+        int executed;
+
+        @Override
+        public boolean execute(AbstractGameState gs) {
+            executed++;
+            return true;
+        }
+
+        @Override
+        public CountingAction copy() {
+            CountingAction retValue = new CountingAction();
+            retValue.executed = executed;
+            return retValue;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof CountingAction && ((CountingAction) obj).executed == executed;
+        }
+
+        @Override
+        public int hashCode() {
+            return executed;
+        }
+
+        @Override
+        public String getString(AbstractGameState gameState) {
+            return "Counting " + executed;
+        }
+    }
+
+    @Test
+    public void changesToReturnedActionsDoNotReachTheCache() {
+        ActionCache cache = new ActionCache(10, new Connect4StateVector());
+        ActionSpace actionSpace = state.getCoreGameParameters().actionSpace;
+        CountingAction original = new CountingAction();
+        cache.put(state, actionSpace, Collections.singletonList(original));
+        original.execute(state);
+        for (int i = 0; i < 3; i++) {
+            List<AbstractAction> actions = cache.get(state, actionSpace);
+            CountingAction action = (CountingAction) actions.get(0);
+            assertNotSame(original, action);
+            assertEquals(0, action.executed);
+            action.execute(state);
+        }
+        assertEquals(3, cache.getHits());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void aStateHashIsRequired() {
+        new ActionCache(10, null);
+    }
+
+    @Test
+    public void searchIsUnchangedByTheCache() {
+        for (int i = 0; i < 6; i++)
+            randomMove(state);
+        SingleTreeNode without = search(0, new Connect4StateVector());
+        SingleTreeNode with = search(1000, new Connect4StateVector());
+        assertEquals(without.getVisits(), with.getVisits());
+        for (AbstractAction action : fm.computeAvailableActions(state))
+            assertEquals(without.actionVisits(action), with.actionVisits(action));
+        assertEquals(without.bestAction(), with.bestAction());
+        assertTrue(with.getActionCacheLookups() > 0);
+        assertNull(with.getForwardModel().getActionCache());
+    }
+
+    @Test
+    public void noCacheWithoutAStateHash() {
+        SingleTreeNode root = search(1000, null);
+        assertEquals(0, root.getActionCacheLookups());
+    }
+
+    private SingleTreeNode search(int cacheSize, IStateHash stateHash) {
+        MCTSParams params = new MCTSParams();
+        params.setRandomSeed(7);
+        params.budgetType = PlayerConstants.BUDGET_ITERATIONS;
+        params.budget = 300;
+        params.rolloutLength = 10;
+        params.information = MCTSEnums.Information.Open_Loop;
+        params.actionCacheSize = cacheSize;
+        params.MCGSStateKey = stateHash;
+        TestMCTSPlayer player = new TestMCTSPlayer(params, null);
+        player.setForwardModel(GameType.Connect4.createForwardModel(null, 2));
+        AbstractGameState copy = state.copy();
+        player._getAction(copy, player.getForwardModel().computeAvailableActions(copy));
+        return player.getRoot(0);
+    }
+}
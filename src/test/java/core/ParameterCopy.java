@@ -1,7 +1,13 @@
 package core;
 
+import core.actions.AbstractAction;
+import games.GameType;
+import games.loveletter.LoveLetterParameters;
 import games.puertorico.PuertoRicoParameters;
 import org.junit.Test;
+import players.simple.RandomPlayer;
+
+import java.util.*;
 
 import static org.junit.Assert.*;
 
@@ -16,4 +22,85 @@ public class ParameterCopy {
         assertNotEquals(params.getRandomSeed(), paramsCopy.getRandomSeed());
         assertEquals(params.hashCode(), paramsCopy.hashCode());
     }
+
+    @Test
+    public void frozenParametersAreSharedAndCannotChange() {
+        LoveLetterParameters params = new LoveLetterParameters();
+        params.freeze();
+        LoveLetterParameters shared = (LoveLetterParameters) params.copy();
+        assertNotSame(params, shared);
+        assertTrue(shared.isFrozen());
+        assertEquals(params, shared);
+        assertSame(params.cardCounts, shared.cardCounts);
+        assertThrows(IllegalStateException.class, () -> params.setParameterValue("nCardsPerPlayer", 2));
+        assertThrows(IllegalStateException.class, () -> params.setMaxRounds(10));
+        assertThrows(IllegalStateException.class, params::randomize);
+        assertThrows(IllegalStateException.class, () -> params.setRandomSeed(1));
+        assertThrows(IllegalStateException.class, () -> shared.setRandomSeed(1));
+
+        LoveLetterParameters independent = (LoveLetterParameters) params.unfrozenCopy();
+        assertNotSame(params, independent);
+        assertFalse(independent.isFrozen());
+        assertEquals(params, independent);
+        independent.setParameterValue("nCardsPerPlayer", 2);
+        assertEquals(1, params.getParameterValue("nCardsPerPlayer"));
+    }
+
+    @Test
+    public void copyOfFrozenParametersDoesNotExposeTheSeed() {
+        LoveLetterParameters params = new LoveLetterParameters();
+        params.setRandomSeed(1234);
+        params.freeze();
+        assertNotEquals(1234, params.copy().getRandomSeed());
+        assertEquals(1234, params.getRandomSeed());
+
+        // nor does a copy of a game state made while the game runs
+        Game game = GameType.LoveLetter.createGameInstance(3, 1234);
+        game.getGameState().getGameParameters().freeze();
+        assertNotEquals(1234, game.getGameState().copy().getGameParameters().getRandomSeed());
+        assertNotEquals(1234, game.getGameState().copy(0).getGameParameters().getRandomSeed());
+        assertEquals(1234, game.getGameState().getGameParameters().getRandomSeed());
+    }
+
+    /**
+     * Records the parameters of each observation it is given
+     */
+    static class ParameterRecorder extends RandomPlayer {
+        final Set<AbstractParameters> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        final Set<Long> seeds = new HashSet<>();
+        boolean allFrozen = true;
+
+        ParameterRecorder(long seed) {
+            super(new Random(seed));
+        }
+
+        @Override
+        public AbstractAction _getAction(AbstractGameState observation, List<AbstractAction> actions) {
+            seen.add(observation.getGameParameters());
+            seeds.add(observation.getGameParameters().getRandomSeed());
+            allFrozen &= observation.getGameParameters().isFrozen();
+            return super._getAction(observation, actions);
+        }
+    }
+
+    @Test
+    public void parametersAreFrozenWhileTheGameRuns() {
+        List<ParameterRecorder> players = Arrays.asList(new ParameterRecorder(1), new ParameterRecorder(2), new ParameterRecorder(3));
+        Game game = GameType.LoveLetter.createGameInstance(players.size(), 42);
+        AbstractParameters params = game.getGameState().getGameParameters();
+        game.reset(new ArrayList<>(players));
+        game.run();
+        for (ParameterRecorder player : players) {
+            assertTrue(player.allFrozen);
+            // each observation has its own (shallow) copy, equal to the game's but without its seed
+            assertFalse(player.seen.contains(params));
+            for (AbstractParameters seen : player.seen)
+                assertEquals(params, seen);
+            assertFalse(player.seeds.contains(42L));
+        }
+        // and can be changed for the next game
+        assertFalse(params.isFrozen());
+        assertNotSame(params, params.copy());
+        ((LoveLetterParameters) params).setParameterValue("nCardsPerPlayer", 2);
+    }
 }
@@ -0,0 +1,131 @@
+package core;
+
+import games.GameType;
+import org.junit.Test;
+import players.python.PythonAgent;
+import players.simple.RandomPlayer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PyTAGVecTest {
+
+    static final int ENVS = 4;
+
+    private PyTAGVec create(int parallelism) throws Exception {
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(new PythonAgent());
+        players.add(new RandomPlayer(new Random(23)));
+        return new PyTAGVec(GameType.TicTacToe, null, players, ENVS, 42, false, parallelism);
+    }
+
+    private static int pickAction(int[] masks, int env, int actionSpace, Random rnd) {
+        int[] legal = new int[actionSpace];
+        int n = 0;
+        for (int a = 0; a < actionSpace; a++)
+            if (masks[env * actionSpace + a] == 1)
+                legal[n++] = a;
+        return legal[rnd.nextInt(n)];
+    }
+
+    /**
+     * Plays random actions for a number of steps, and returns the concatenation of all the observations,
+     * rewards and done flags
+     */
+    private List<Double> playWithArrays(int parallelism) throws Exception {
+        List<Double> retValue = new ArrayList<>();
+        Random rnd = new Random(3);
+        try (PyTAGVec env = create(parallelism)) {
+            double[] obs = new double[ENVS * env.getObservationSpace()];
+            int[] masks = new int[ENVS * 9];
+            double[] rewards = new double[ENVS];
+            boolean[] dones = new boolean[ENVS];
+            env.bindBuffers(obs, masks, rewards, dones);
+            env.reset();
+            assertEquals(9, env.getActionSpace());
+            int[] actions = new int[ENVS];
+            int episodes = 0;
+            for (int step = 0; step < 50; step++) {
+                for (int e = 0; e < ENVS; e++)
+                    actions[e] = pickAction(masks, e, 9, rnd);
+                env.step(actions);
+                for (int e = 0; e < ENVS; e++) {
+                    if (dones[e]) {
+                        episodes++;
+                        assertNotNull(env.getFinalResults(e));
+                        // and the environment has been reset
+                        assertFalse(env.getEnv(e).isDone());
+                    }
+                    retValue.add(rewards[e]);
+                    retValue.add(dones[e] ? 1.0 : 0.0);
+                }
+                for (double o : obs)
+                    retValue.add(o);
+            }
+            assertTrue(episodes > 10);
+        }
+        return retValue;
+    }
+
+    @Test
+    public void parallelMatchesSerial() throws Exception {
+        assertEquals(playWithArrays(1), playWithArrays(3));
+    }
+
+    @Test
+    public void byteBuffersMatchArrays() throws Exception {
+        Random rnd = new Random(3);
+        try (PyTAGVec arrayEnv = create(1); PyTAGVec bufferEnv = create(2)) {
+            int obsSize = ENVS * arrayEnv.getObservationSpace();
+            double[] obs = new double[obsSize];
+            int[] masks = new int[ENVS * 9];
+            double[] rewards = new double[ENVS];
+            boolean[] dones = new boolean[ENVS];
+            arrayEnv.bindBuffers(obs, masks, rewards, dones);
+            ByteBuffer obsBuffer = ByteBuffer.allocateDirect(obsSize * 4);
+            ByteBuffer maskBuffer = ByteBuffer.allocateDirect(ENVS * 9);
+            ByteBuffer rewardBuffer = ByteBuffer.allocateDirect(ENVS * 4);
+            ByteBuffer doneBuffer = ByteBuffer.allocateDirect(ENVS);
+            bufferEnv.bindBuffers(obsBuffer, maskBuffer, rewardBuffer, doneBuffer);
+            arrayEnv.reset();
+            bufferEnv.reset();
+            int[] actions = new int[ENVS];
+            for (int step = 0; step < 30; step++) {
+                for (int i = 0; i < obsSize; i++)
+                    assertEquals(obs[i], obsBuffer.order(ByteOrder.nativeOrder()).getFloat(i * 4), 1e-6);
+                for (int i = 0; i < masks.length; i++)
+                    assertEquals(masks[i], maskBuffer.get(i));
+                for (int e = 0; e < ENVS; e++) {
+                    assertEquals(rewards[e], rewardBuffer.getFloat(e * 4), 1e-6);
+                    assertEquals(dones[e] ? 1 : 0, doneBuffer.get(e));
+                    actions[e] = pickAction(masks, e, 9, rnd);
+                }
+                arrayEnv.step(actions);
+                bufferEnv.step(actions);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void buffersTooSmall() throws Exception {
+        try (PyTAGVec env = create(1)) {
+            env.bindBuffers(new double[1], new int[ENVS * 9], new double[ENVS], new boolean[ENVS]);
+        }
+    }
+
+    @Test
+    public void tooSmallMaskDetectedOnReset() throws Exception {
+        try (PyTAGVec env = create(1)) {
+            env.bindBuffers(new double[ENVS * env.getObservationSpace()], new int[3], new double[ENVS], new boolean[ENVS]);
+            env.reset();
+            fail("Expected exception");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("Mask"));
+        }
+    }
+}
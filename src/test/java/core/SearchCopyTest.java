@@ -0,0 +1,76 @@
+package core;
+
+import core.actions.AbstractAction;
+import games.GameType;
+import org.junit.Before;
+import org.junit.Test;
+import players.simple.RandomPlayer;
+import utilities.ElapsedCpuChessTimer;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class SearchCopyTest {
+
+    Game game;
+    AbstractGameState state;
+    AbstractForwardModel fm;
+    Random rnd = new Random(933);
+
+    @Before
+    public void setup() {
+        List<AbstractPlayer> players = Arrays.asList(new RandomPlayer(new Random(1)), new RandomPlayer(new Random(2)), new RandomPlayer(new Random(3)));
+        game = GameType.LoveLetter.createGameInstance(players.size());
+        game.reset(players);
+        state = game.getGameState();
+        fm = game.getForwardModel();
+        for (int i = 0; i < 3; i++)
+            fm.next(state, randomAction(state));
+    }
+
+    private AbstractAction randomAction(AbstractGameState gs) {
+        List<AbstractAction> actions = fm.computeAvailableActions(gs);
+        return actions.get(rnd.nextInt(actions.size()));
+    }
+
+    @Test
+    public void searchCopySkipsBookkeeping() {
+        AbstractGameState copy = state.searchCopy();
+        assertTrue(copy.isSearchCopy());
+        assertFalse(state.isSearchCopy());
+        assertTrue(copy.getHistory().isEmpty());
+        assertTrue(copy.getHistoryAsText().isEmpty());
+        assertSame(ElapsedCpuChessTimer.FROZEN, copy.getPlayerTimer()[0]);
+
+        fm.next(copy, randomAction(copy));
+        assertTrue(copy.getHistory().isEmpty());
+        assertTrue(copy.getHistoryAsText().isEmpty());
+        assertEquals(3, state.getHistory().size());
+
+        // and copies of a search copy are also search copies
+        assertTrue(copy.copy().isSearchCopy());
+        assertTrue(copy.copy(1).isSearchCopy());
+    }
+
+    @Test
+    public void componentsAreFoundLazily() {
+        AbstractGameState copy = state.searchCopy();
+        for (Integer id : state.getAllComponents().getComponentsMap().keySet()) {
+            assertNotNull(copy.getComponentById(id));
+            if (state.getComponentById(id).isImmutable())
+                assertSame(state.getComponentById(id), copy.getComponentById(id));
+            else
+                assertNotSame(state.getComponentById(id), copy.getComponentById(id));
+        }
+    }
+
+    @Test
+    public void searchCopyPlaysToTheEnd() {
+        AbstractGameState copy = state.searchCopy(state.getCurrentPlayer());
+        while (copy.isNotTerminal())
+            fm.next(copy, randomAction(copy));
+        assertTrue(state.isNotTerminal());
+        assertTrue(copy.getHistory().isEmpty());
+    }
+}
@@ -0,0 +1,119 @@
+package core;
+
+import core.actions.AbstractAction;
+import games.GameType;
+import org.junit.Test;
+import players.PlayerConstants;
+import players.mcts.MCTSParams;
+import players.mcts.SingleTreeNode;
+import players.mcts.TestMCTSPlayer;
+import players.simple.RandomPlayer;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class UndoTest {
+
+    Random rnd = new Random(933);
+    UndoStack undoStack = new UndoStack();
+
+    private void checkRoundTrips(GameType gameType, int nPlayers) {
+        Game game = gameType.createGameInstance(nPlayers, 42);
+        game.reset(Collections.nCopies(nPlayers, new RandomPlayer(new Random(1))));
+        AbstractForwardModel fm = game.getForwardModel();
+        assertTrue(fm.supportsUndo());
+        AbstractGameState state = game.getGameState();
+        for (int decision = 0; decision < 150 && state.isNotTerminal(); decision++) {
+            AbstractGameState original = state.copy();
+            int historySize = state.getHistoryAsText().size();
+            for (AbstractAction action : fm.computeAvailableActions(state)) {
+                fm.next(state, action.copy(), undoStack);
+                assertEquals(action, fm.undo(state, undoStack));
+                assertEquals(original, state);
+                assertEquals(original.hashCode(), state.hashCode());
+            }
+            for (int depth = 0; depth < 8 && state.isNotTerminal(); depth++) {
+                List<AbstractAction> actions = fm.computeAvailableActions(state);
+                fm.next(state, actions.get(rnd.nextInt(actions.size())), undoStack);
+            }
+            fm.undoAll(state, undoStack);
+            assertTrue(undoStack.isEmpty());
+            assertEquals(original, state);
+            assertEquals(original.hashCode(), state.hashCode());
+            assertEquals(historySize, state.getHistoryAsText().size());
+
+            List<AbstractAction> actions = fm.computeAvailableActions(state);
+            fm.next(state, actions.get(rnd.nextInt(actions.size())));
+        }
+    }
+
+    @Test
+    public void ticTacToe() {
+        checkRoundTrips(GameType.TicTacToe, 2);
+    }
+
+    @Test
+    public void connect4() {
+        checkRoundTrips(GameType.Connect4, 2);
+    }
+
+    @Test
+    public void dotsAndBoxes() {
+        checkRoundTrips(GameType.DotsAndBoxes, 3);
+    }
+
+    @Test
+    public void chineseCheckers() {
+        checkRoundTrips(GameType.ChineseCheckers, 2);
+    }
+
+    @Test
+    public void cantStop() {
+        checkRoundTrips(GameType.CantStop, 3);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void unsupportedGame() {
+        Game game = GameType.LoveLetter.createGameInstance(2, 42);
+        AbstractForwardModel fm = game.getForwardModel();
+        assertFalse(fm.supportsUndo());
+        AbstractGameState state = game.getGameState();
+        fm.next(state, fm.computeAvailableActions(state).get(0), undoStack);
+    }
+
+    @Test
+    public void mctsSearchUnchanged() {
+        Game game = GameType.Connect4.createGameInstance(2, 42);
+        game.reset(Arrays.asList(new RandomPlayer(new Random(1)), new RandomPlayer(new Random(2))));
+        AbstractForwardModel fm = game.getForwardModel();
+        AbstractGameState state = game.getGameState();
+        for (int i = 0; i < 4; i++)
+            fm.next(state, fm.computeAvailableActions(state).get(i));
+        List<AbstractAction> actions = fm.computeAvailableActions(state);
+
+        SingleTreeNode withCopies = search(state, false);
+        SingleTreeNode withUndo = search(state, true);
+        assertEquals(withCopies.getVisits(), withUndo.getVisits());
+        for (AbstractAction action : actions) {
+            assertEquals(withCopies.actionVisits(action), withUndo.actionVisits(action));
+            assertEquals(withCopies.actionTotValue(action, 0), withUndo.actionTotValue(action, 0), 1e-9);
+        }
+        assertEquals(withCopies.bestAction(), withUndo.bestAction());
+    }
+
+    private SingleTreeNode search(AbstractGameState state, boolean useUndo) {
+        MCTSParams params = new MCTSParams();
+        params.setRandomSeed(7);
+        params.budgetType = PlayerConstants.BUDGET_ITERATIONS;
+        params.budget = 500;
+        params.rolloutLength = 10;
+        params.useUndo = useUndo;
+        TestMCTSPlayer player = new TestMCTSPlayer(params, null);
+        player.setForwardModel(GameType.Connect4.createForwardModel(null, 2));
+        AbstractGameState copy = state.copy();
+        player._getAction(copy, player.getForwardModel().computeAvailableActions(copy));
+        assertEquals(state, copy);
+        return player.getRoot(0);
+    }
+}
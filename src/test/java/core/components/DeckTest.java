@@ -0,0 +1,50 @@
+package core.components;
+
+import games.uno.cards.UnoCard;
+import org.junit.Test;
+
+import static core.CoreConstants.VisibilityMode.VISIBLE_TO_ALL;
+import static org.junit.Assert.*;
+
+public class DeckTest {
+
+    @Test
+    public void immutableComponentsAreSharedByCopies() {
+        Deck<Card> deck = new Deck<>("Hand", 1, VISIBLE_TO_ALL);
+        UnoCard shared = new UnoCard(UnoCard.UnoCardType.Number, "Red", 3);
+        Card mutable = new Card("Mutable");
+        deck.add(shared);
+        deck.add(mutable);
+
+        Deck<Card> copy = deck.copy();
+        assertSame(shared, copy.get(1));
+        assertNotSame(mutable, copy.get(0));
+        assertEquals(mutable, copy.get(0));
+
+        copy.remove(shared);
+        assertEquals(2, deck.getSize());
+        assertEquals(1, copy.getSize());
+    }
+
+    @Test
+    public void ownershipIsNotRecordedOnImmutableComponents() {
+        Deck<Card> deck = new Deck<>("Hand", 1, VISIBLE_TO_ALL);
+        UnoCard shared = new UnoCard(UnoCard.UnoCardType.Skip, "Blue");
+        deck.add(shared);
+        assertEquals(-1, shared.getOwnerId());
+
+        PartialObservableDeck<Card> hidden = new PartialObservableDeck<>("Hidden", 0, new boolean[]{true, false});
+        hidden.add(shared);
+        assertSame(shared, hidden.copy(1).get(0));
+
+        hidden.remove(shared);
+        hidden.add(shared);
+        hidden.clear();
+        assertEquals(-1, shared.getOwnerId());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void settingTheOwnerOfAnImmutableComponentFails() {
+        new UnoCard(UnoCard.UnoCardType.Skip, "Blue").setOwnerId(0);
+    }
+}
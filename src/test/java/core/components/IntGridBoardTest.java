@@ -0,0 +1,88 @@
+package core.components;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class IntGridBoardTest {
+
+    Token empty = new Token(".");
+    Token x = new Token("x");
+    Token o = new Token("o");
+    IntGridBoard<Token> board;
+
+    @Before
+    public void setup() {
+        board = new IntGridBoard<>(3, 2, Arrays.asList(empty, x, o));
+    }
+
+    @Test
+    public void cellsStartWithTheDefaultValue() {
+        assertEquals(6, board.count(0));
+        assertEquals(empty, board.getElement(2, 1));
+        assertEquals(6, board.getEmptyCells(empty).size());
+    }
+
+    @Test
+    public void elementsAndValuesAgree() {
+        board.setElement(1, 0, x);
+        board.setValue(2, 1, 2);
+        assertEquals(1, board.getValue(1, 0));
+        assertEquals(o, board.getElement(2, 1));
+        assertEquals(-1, board.getValue(3, 0));
+        assertNull(board.getElement(0, 2));
+        assertArrayEquals(new Component[]{empty, x, empty, empty, empty, o}, board.flattenGrid());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownElementsAreRejected() {
+        board.setElement(0, 0, new Token("z"));
+    }
+
+    @Test
+    public void nextCellIteratesOverMatchingCells() {
+        board.setElement(0, 0, x);
+        board.setElement(2, 1, x);
+        int found = 0;
+        for (int i = board.nextCell(0, 0); i >= 0; i = board.nextCell(i + 1, 0))
+            found++;
+        assertEquals(4, found);
+        assertEquals(5, board.nextCell(1, 1));
+    }
+
+    @Test
+    public void copiesAreIndependent() {
+        board.setElement(0, 0, x);
+        IntGridBoard<Token> copy = board.copy();
+        assertEquals(board, copy);
+        assertEquals(board.hashCode(), copy.hashCode());
+        assertEquals(board.getComponentID(), copy.getComponentID());
+
+        copy.setElement(1, 1, o);
+        assertNotEquals(board, copy);
+        assertEquals(empty, board.getElement(1, 1));
+    }
+
+    @Test
+    public void zobristHashIsMaintainedIncrementally() {
+        long start = board.getZobristHash();
+        board.setElement(1, 1, o);
+        assertNotEquals(start, board.getZobristHash());
+
+        GridBoard<Token> plain = new GridBoard<>(3, 2, empty);
+        plain.setElement(1, 1, o);
+        assertEquals(plain.getZobristHash(), board.getZobristHash());
+
+        board.setElement(1, 1, empty);
+        assertEquals(start, board.getZobristHash());
+    }
+
+    @Test
+    public void convertsToGraphBoard() {
+        GraphBoard graph = board.toGraphBoard(false);
+        assertEquals(6, graph.getBoardNodes().size());
+    }
+}
@@ -0,0 +1,109 @@
+package evaluation.listeners;
+
+import core.AbstractPlayer;
+import core.Game;
+import evaluation.metrics.Event;
+import games.GameType;
+import org.junit.Test;
+import players.simple.RandomPlayer;
+import utilities.Pair;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class AsyncGameListenerTest {
+
+    static class RecordingListener implements IGameListener {
+        final List<String> records = new ArrayList<>();
+        Thread thread;
+        Game game;
+
+        @Override
+        public void onEvent(Event event) {
+            thread = Thread.currentThread();
+            List<Pair<Integer, Integer>> actionSpaces = game.getActionSpaceSize();
+            records.add(String.format("%s tick %d round %d player %d action %s decisions %d actionSpaces %d last %s",
+                    event.type, event.state.getGameTick(), event.state.getRoundCounter(), event.playerID,
+                    event.action, game.getNDecisions(), actionSpaces.size(),
+                    actionSpaces.isEmpty() ? null : actionSpaces.get(actionSpaces.size() - 1)));
+        }
+
+        @Override
+        public void report() {
+        }
+
+        @Override
+        public void setGame(Game game) {
+            this.game = game;
+        }
+
+        @Override
+        public Game getGame() {
+            return game;
+        }
+    }
+
+    private Game play(GameType gameType, IGameListener listener) {
+        List<AbstractPlayer> players = Arrays.asList(new RandomPlayer(new Random(1)), new RandomPlayer(new Random(2)), new RandomPlayer(new Random(3)));
+        Game game = gameType.createGameInstance(players.size(), 42);
+        game.addListener(listener);
+        game.reset(players);
+        game.run();
+        return game;
+    }
+
+    @Test
+    public void eventsMatchTheSynchronousListener() {
+        for (GameType gameType : new GameType[]{GameType.LoveLetter, GameType.Uno}) {
+            RecordingListener direct = new RecordingListener();
+            play(gameType, direct);
+
+            RecordingListener wrapped = new RecordingListener();
+            AsyncGameListener async = new AsyncGameListener(wrapped, 2);
+            Game game = play(gameType, async);
+
+            // by GAME_OVER all events have been passed on, and the listener sees the live game again
+            assertEquals(direct.records, wrapped.records);
+            assertSame(game, wrapped.getGame());
+            assertNotSame(Thread.currentThread(), wrapped.thread);
+            assertTrue(async.getStalls() > 0);
+            async.report();
+        }
+    }
+
+    @Test
+    public void snapshotsAreNotChangedByTheRestOfTheGame() {
+        List<AbstractPlayer> players = Arrays.asList(new RandomPlayer(new Random(1)), new RandomPlayer(new Random(2)));
+        Game game = GameType.Uno.createGameInstance(players.size(), 42);
+        game.reset(players);
+        List<Game> snapshots = new ArrayList<>();
+        List<List<Pair<Integer, Integer>>> expected = new ArrayList<>();
+        while (game.getGameState().isNotTerminal()) {
+            game.oneAction();
+            snapshots.add(game.snapshot(game.getGameState().copy()));
+            expected.add(new ArrayList<>(game.getActionSpaceSize()));
+        }
+        // well over one chunk of the list of action spaces, so that it has grown while the snapshots were taken
+        assertTrue(game.getActionSpaceSize().size() > 1024);
+        for (int i = 0; i < snapshots.size(); i++)
+            assertEquals(expected.get(i), snapshots.get(i).getActionSpaceSize());
+    }
+
+    @Test
+    public void listenerExceptionsAreRethrownOnTheGameThread() {
+        RecordingListener failing = new RecordingListener() {
+            @Override
+            public void onEvent(Event event) {
+                if (event.type == Event.GameEvent.ACTION_TAKEN)
+                    throw new IllegalStateException("failed");
+            }
+        };
+        try {
+            play(GameType.LoveLetter, new AsyncGameListener(failing, 16));
+            fail("Expected the listener exception");
+        } catch (IllegalStateException e) {
+            assertEquals("failed", e.getMessage());
+        }
+    }
+}
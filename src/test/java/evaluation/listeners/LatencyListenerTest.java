@@ -0,0 +1,108 @@
+package evaluation.listeners;
+
+import core.AbstractPlayer;
+import core.Game;
+import evaluation.metrics.LatencyRecorder;
+import games.GameType;
+import org.junit.Test;
+import players.simple.RandomPlayer;
+import utilities.LatencyHistogram;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class LatencyListenerTest {
+
+    @Test
+    public void histogramPercentilesAreWithinPrecision() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (long v = 1; v <= 100000; v++)
+            h.record(v * 1000);
+        assertEquals(100000, h.getCount());
+        assertEquals(1000, h.getMin());
+        assertEquals(100000000, h.getMax());
+        for (double p : new double[]{1, 50, 90, 99, 99.9}) {
+            double expected = p * 1000 * 1000;
+            assertEquals(expected, h.getValueAtPercentile(p), expected / 64);
+        }
+        assertEquals(h.getMax(), h.getValueAtPercentile(100));
+        assertEquals(50000500, h.getMean(), 1.0);
+    }
+
+    @Test
+    public void histogramsAddTogether() {
+        LatencyHistogram a = new LatencyHistogram(), b = new LatencyHistogram();
+        a.record(5);
+        b.record(-3);
+        b.record(Long.MAX_VALUE);
+        a.add(b);
+        assertEquals(3, a.getCount());
+        assertEquals(0, a.getMin());
+        assertEquals(LatencyHistogram.MAX_VALUE, a.getMax());
+        assertEquals(5, a.getValueAtPercentile(50));
+    }
+
+    @Test
+    public void recordsEveryActionOfEveryGame() {
+        LatencyListener listener = new LatencyListener();
+        List<AbstractPlayer> players = Arrays.asList(new RandomPlayer(new Random(1)), new RandomPlayer(new Random(2)));
+        Game game = GameType.TicTacToe.createGameInstance(players.size());
+        game.addListener(listener);
+        int actions = 0;
+        for (int i = 0; i < 3; i++) {
+            game.reset(players);
+            game.run();
+            actions += game.getGameState().getHistory().size();
+        }
+
+        List<Map<String, Object>> rows = listener.getRows();
+        Map<String, Object> nextAll = rows.stream()
+                .filter(r -> r.get("Stage").equals("Next") && r.get("GamePhase").equals("All"))
+                .findFirst().orElseThrow(AssertionError::new);
+        assertEquals((long) actions, nextAll.get("Count"));
+        long perPlayer = rows.stream()
+                .filter(r -> r.get("Stage").equals("Copy") && !r.get("Player").equals("All"))
+                .mapToLong(r -> (Long) r.get("Count")).sum();
+        assertEquals(actions, perPlayer);
+    }
+
+    @Test
+    public void nothingIsRecordedWithoutTheListener() {
+        List<AbstractPlayer> players = Arrays.asList(new RandomPlayer(new Random(1)), new RandomPlayer(new Random(2)));
+        Game game = GameType.TicTacToe.createGameInstance(players.size());
+        game.reset(players);
+        game.run();
+        assertTrue(game.getLatencies().getEntries().isEmpty());
+
+        // and recording stops when the listeners are cleared
+        game.addListener(new LatencyListener());
+        game.reset(players);
+        game.run();
+        assertFalse(game.getLatencies().getEntries().isEmpty());
+        game.clearListeners();
+        game.reset(players);
+        game.run();
+        for (LatencyRecorder.Entry entry : game.getLatencies().getEntries())
+            assertNull(entry.get(LatencyRecorder.Stage.Next, 0));
+    }
+
+    @Test
+    public void resetEmptiesTheHistogramsInPlace() {
+        List<AbstractPlayer> players = Arrays.asList(new RandomPlayer(new Random(1)), new RandomPlayer(new Random(2)));
+        Game game = GameType.TicTacToe.createGameInstance(players.size());
+        game.addListener(new LatencyListener());
+        game.reset(players);
+        game.run();
+        List<LatencyRecorder.Entry> entries = game.getLatencies().getEntries();
+        LatencyHistogram next = entries.get(0).get(LatencyRecorder.Stage.Next, 0);
+        assertTrue(next.getCount() > 0);
+
+        game.reset(players);
+        assertEquals(0, next.getCount());
+        assertEquals(entries, game.getLatencies().getEntries());
+        assertNull(entries.get(0).get(LatencyRecorder.Stage.Next, 0));
+        game.run();
+        assertSame(next, entries.get(0).get(LatencyRecorder.Stage.Next, 0));
+    }
+}
@@ -0,0 +1,91 @@
+package evaluation.loggers;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class BinaryFeatureLoggerTest {
+
+    File file;
+
+    @Before
+    public void setup() throws IOException {
+        file = File.createTempFile("features", ".bin");
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    private Map<String, Object> row(double a, int b) {
+        Map<String, Object> retValue = new LinkedHashMap<>();
+        retValue.put("A", a);
+        retValue.put("B", b);
+        return retValue;
+    }
+
+    @Test
+    public void roundTrip() throws IOException {
+        BinaryFeatureLogger logger = new BinaryFeatureLogger(file.getPath(), false, false);
+        for (int i = 0; i < 1000; i++)
+            logger.record(row(i / 4.0, i));
+        logger.processDataAndNotFinish();
+        logger.record(new String[]{"A", "B"}, new double[]{-1.5, 7});
+        logger.processDataAndFinish();
+
+        assertTrue(BinaryFeatureReader.isBinaryFeatureFile(file.getPath()));
+        try (BinaryFeatureReader reader = new BinaryFeatureReader(file.getPath())) {
+            assertArrayEquals(new String[]{"A", "B"}, reader.columns());
+            assertFalse(reader.doublePrecision());
+            assertEquals(1001, reader.rows());
+            List<double[]> data = reader.readAll();
+            assertEquals(1001, data.size());
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(i / 4.0, data.get(i)[0], 0.0);
+                assertEquals(i, data.get(i)[1], 0.0);
+            }
+            assertArrayEquals(new double[]{-1.5, 7}, data.get(1000), 0.0);
+        }
+    }
+
+    @Test
+    public void appendAndMissingValues() throws IOException {
+        BinaryFeatureLogger logger = new BinaryFeatureLogger(file.getPath(), false, true);
+        logger.record(row(Math.PI, 1));
+        logger.processDataAndFinish();
+
+        logger = new BinaryFeatureLogger(file.getPath(), true, true);
+        Map<String, Object> partial = new LinkedHashMap<>();
+        partial.put("A", 2.0);
+        logger.record(row(0.1, 2));
+        logger.record(partial);
+        logger.processDataAndFinish();
+
+        try (BinaryFeatureReader reader = new BinaryFeatureReader(file.getPath())) {
+            assertTrue(reader.doublePrecision());
+            double[] row = new double[2];
+            assertTrue(reader.next(row));
+            assertArrayEquals(new double[]{Math.PI, 1}, row, 0.0);
+            assertTrue(reader.next(row));
+            assertArrayEquals(new double[]{0.1, 2}, row, 0.0);
+            assertTrue(reader.next(row));
+            assertEquals(2.0, row[0], 0.0);
+            assertTrue(Double.isNaN(row[1]));
+            assertFalse(reader.next(row));
+        }
+    }
+
+    @Test
+    public void textFileIsNotBinary() {
+        assertFalse(BinaryFeatureReader.isBinaryFeatureFile("json/players/random.json"));
+    }
+}
@@ -0,0 +1,75 @@
+package evaluation.optimisation;
+
+import core.AbstractPlayer;
+import core.interfaces.IStateHeuristic;
+import games.GameType;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.junit.Test;
+import players.mcts.MCTSParams;
+import players.simple.RandomPlayer;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class GameEvaluatorTest {
+
+    // the score of the tuned player is the result of the game, so that different games give different scores
+    IStateHeuristic result = (state, playerId) -> state.getPlayerResults()[playerId].value;
+
+    // the tuned agents get a fixed seed, as the default is taken from the clock
+    private GameEvaluator evaluator() throws ParseException {
+        JSONObject json = (JSONObject) new JSONParser().parse("{" +
+                "\"class\": \"players.mcts.MCTSParams\", " +
+                "\"budgetType\": \"BUDGET_ITERATIONS\", \"budget\": [5, 20, 50], " +
+                "\"K\": [0.1, 1.0, 10.0], \"rolloutLength\": [0, 3, 10], \"randomSeed\": 42}");
+        ITPSearchSpace searchSpace = new ITPSearchSpace(new MCTSParams(), json);
+        List<AbstractPlayer> opponents = Collections.singletonList(new RandomPlayer(new Random(7)));
+        return new GameEvaluator(GameType.Connect4, searchSpace, null, 2, opponents, 387,
+                result, null, true);
+    }
+
+    private List<int[]> settings(GameEvaluator evaluator) {
+        Random rnd = new Random(11);
+        List<int[]> retValue = new ArrayList<>();
+        for (int i = 0; i < 24; i++) {
+            int[] s = new int[evaluator.searchSpace().nDims()];
+            for (int d = 0; d < s.length; d++)
+                s[d] = rnd.nextInt(evaluator.searchSpace().nValues(d));
+            retValue.add(s);
+        }
+        return retValue;
+    }
+
+    @Test
+    public void batchResultsDoNotDependOnTheExecutor() throws ParseException {
+        GameEvaluator sequential = evaluator();
+        List<int[]> settings = settings(sequential);
+        // two batches, so that the second starts from the random state the first left behind
+        double[] expected1 = sequential.evaluate(settings);
+        double[] expected2 = sequential.evaluate(settings);
+        assertEquals(48, sequential.nEvals());
+        // a batch with all results the same would not show games being matched to the wrong settings
+        assertTrue(Arrays.stream(expected1).distinct().count() > 1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            GameEvaluator parallel = evaluator();
+            parallel.setExecutor(executor);
+            assertArrayEquals(expected1, parallel.evaluate(settings), 0.0);
+            assertArrayEquals(expected2, parallel.evaluate(settings), 0.0);
+            assertEquals(48, parallel.nEvals());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // and evaluating them one at a time gives the same results as a batch
+        GameEvaluator single = evaluator();
+        for (int i = 0; i < settings.size(); i++)
+            assertEquals(expected1[i], single.evaluate(settings.get(i)), 0.0);
+    }
+}
@@ -0,0 +1,174 @@
+package evaluation.tournaments;
+
+import core.AbstractGameState;
+import core.AbstractPlayer;
+import core.Game;
+import core.actions.AbstractAction;
+import evaluation.RunArg;
+import evaluation.RunGames;
+import evaluation.listeners.IGameListener;
+import evaluation.metrics.Event;
+import games.GameType;
+import org.junit.Test;
+import players.simple.RandomPlayer;
+import utilities.Utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static evaluation.tournaments.AbstractTournament.TournamentMode.NO_SELF_PLAY;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MultiProcessTournamentTest {
+
+    /**
+     * Kills the worker JVM it is running in once it is past its first game, the first time across all the workers
+     * of the test process.
+     */
+    public static class CrashOncePlayer extends RandomPlayer {
+        private static int actionsTaken;
+        private final File marker;
+
+        public CrashOncePlayer() {
+            super(new Random(1));
+            long coordinator = ProcessHandle.current().parent().map(ProcessHandle::pid).orElse(-1L);
+            marker = crashMarker(coordinator);
+        }
+
+        @Override
+        public AbstractAction _getAction(AbstractGameState observation, List<AbstractAction> actions) {
+            try {
+                // a player has at most 5 moves in a game, so the worker has finished at least one game before this
+                if (++actionsTaken > 5 && marker.createNewFile())
+                    Runtime.getRuntime().halt(1);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            return super._getAction(observation, actions);
+        }
+    }
+
+    /**
+     * Writes the seed of each game it saw, one per line, when it reports.
+     */
+    public static class GameSeedListener implements IGameListener {
+        private final List<String> lines = new ArrayList<>(Collections.singletonList("Seed"));
+        private String folder = "";
+        private Game game;
+
+        @Override
+        public void onEvent(Event event) {
+            if (event.type == Event.GameEvent.GAME_OVER)
+                lines.add(String.valueOf(game.getGameState().getGameParameters().getRandomSeed()));
+        }
+
+        @Override
+        public boolean setOutputDirectory(String... nestedDirectories) {
+            folder = Utils.createDirectory(nestedDirectories);
+            return true;
+        }
+
+        @Override
+        public void report() {
+            try {
+                Files.write(Paths.get(folder, "Seeds.txt"), lines);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void setGame(Game game) {
+            this.game = game;
+        }
+
+        @Override
+        public Game getGame() {
+            return game;
+        }
+    }
+
+    static File crashMarker(long coordinatorPID) {
+        return new File(System.getProperty("java.io.tmpdir"), "CrashOncePlayer-" + coordinatorPID);
+    }
+
+    private Path playerDirectory(String... extraPlayers) throws IOException {
+        Path dir = Files.createTempDirectory("players");
+        dir.toFile().deleteOnExit();
+        for (int i = 0; i < 3; i++) {
+            Files.write(dir.resolve("mcts" + i + ".json"), Collections.singletonList(String.format(
+                    "{\"class\": \"players.mcts.MCTSParams\", \"budgetType\": \"BUDGET_ITERATIONS\", \"budget\": %d, " +
+                            "\"randomSeed\": %d, \"resetSeedEachGame\": true}", 20 + 40 * i, 42 + i))).toFile().deleteOnExit();
+        }
+        for (int i = 0; i < extraPlayers.length; i++)
+            Files.write(dir.resolve("extra" + i + ".json"), Collections.singletonList(extraPlayers[i])).toFile().deleteOnExit();
+        return dir;
+    }
+
+    private RoundRobinTournament runTournament(Path playerDirectory, int processes) {
+        return runTournament(playerDirectory, processes, null);
+    }
+
+    private RoundRobinTournament runTournament(Path playerDirectory, int processes, Path listenerDirectory) {
+        Map<RunArg, Object> config = new HashMap<>();
+        config.put(RunArg.matchups, 4);
+        config.put(RunArg.processes, processes);
+        config.put(RunArg.playerDirectory, playerDirectory.toString());
+        List<AbstractPlayer> agents = RunGames.createAgents(playerDirectory.toString(), "");
+        RoundRobinTournament tournament = new RoundRobinTournament(agents, GameType.TicTacToe, 2, null, NO_SELF_PLAY, config);
+        tournament.setVerbose(false);
+        tournament.setRandomSeed(387);
+        if (listenerDirectory != null) {
+            try {
+                Path listenerFile = Files.write(listenerDirectory.resolve("listener.json"),
+                        Collections.singletonList(String.format("{\"class\": \"%s\"}", GameSeedListener.class.getName())));
+                tournament.addWorkerListener(listenerFile.toString(), "", listenerDirectory.toString());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        tournament.run();
+        return tournament;
+    }
+
+    @Test
+    public void workerProcessesMatchSerialRun() throws IOException {
+        Path players = playerDirectory();
+        RoundRobinTournament serial = runTournament(players, 0);
+        RoundRobinTournament multiProcess = runTournament(players, 2);
+        for (int i = 0; i < serial.getNumberOfAgents(); i++) {
+            assertEquals(serial.getWinRate(i), multiProcess.getWinRate(i), 0.0);
+            assertEquals(serial.getOrdinalRank(i), multiProcess.getOrdinalRank(i), 0.0);
+        }
+    }
+
+    @Test
+    public void gamesFromCrashedWorkersAreRetried() throws IOException {
+        File marker = crashMarker(ProcessHandle.current().pid());
+        Files.deleteIfExists(marker.toPath());
+        Path players = playerDirectory(String.format("{\"class\": \"%s\"}", CrashOncePlayer.class.getName()));
+        Path output = Files.createTempDirectory("listeners");
+        try {
+            RoundRobinTournament tournament = runTournament(players, 2, output);
+            // 4 agents, 12 ordered pairs, 4 games each, and every game counts for both players
+            assertEquals(12 * 4 * 2, Arrays.stream(tournament.nGamesPlayed).sum());
+            assertTrue(marker.exists());
+            // the games of the worker that crashed are replayed, so the merged listener output covers every game
+            List<String> seeds = Files.readAllLines(output.resolve("Seeds.txt"));
+            assertEquals("Seed", seeds.get(0));
+            assertEquals(12 * 4, seeds.size() - 1);
+        } finally {
+            Files.deleteIfExists(marker.toPath());
+            try (Stream<Path> files = Files.walk(output)) {
+                files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package evaluation.tournaments;
+
+import core.AbstractPlayer;
+import core.Game;
+import evaluation.RunArg;
+import evaluation.listeners.IGameListener;
+import evaluation.metrics.Event;
+import games.GameType;
+import org.junit.Test;
+import players.mcts.MCTSParams;
+import players.mcts.MCTSPlayer;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static evaluation.tournaments.AbstractTournament.TournamentMode.NO_SELF_PLAY;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelTournamentTest {
+
+    /**
+     * Records every event of each game as one line of text: the players in seat order, then each event
+     * with its player and action, then the final results.
+     */
+    static class GameRecorder implements IGameListener {
+        final List<String> records = new ArrayList<>();
+        private StringBuilder current;
+        private Game game;
+
+        @Override
+        public void onEvent(Event event) {
+            if (event.type == Event.GameEvent.ABOUT_TO_START)
+                current = new StringBuilder(game.getPlayers().stream().map(AbstractPlayer::toString).collect(Collectors.joining(",")));
+            current.append(" | ").append(event.type).append(":").append(event.playerID);
+            if (event.action != null)
+                // component IDs differ between games, so the action is described in terms of the state
+                current.append(":").append(event.state == null ? event.action.toString() : event.action.getString(event.state));
+            if (event.type == Event.GameEvent.GAME_OVER) {
+                current.append(" | ").append(Arrays.toString(event.state.getPlayerResults()));
+                records.add(current.toString());
+                current = null;
+            }
+        }
+
+        @Override
+        public void report() {
+        }
+
+        @Override
+        public void setGame(Game game) {
+            this.game = game;
+        }
+
+        @Override
+        public Game getGame() {
+            return game;
+        }
+    }
+
+    private List<AbstractPlayer> agents(boolean resetSeed) {
+        List<AbstractPlayer> agents = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            MCTSParams params = new MCTSParams();
+            // set via the tunable values, so that they survive the copy() of each player used in parallel games
+            params.setParameterValue("budget", 20 + 40 * i);
+            params.setParameterValue("randomSeed", 42 + i);
+            params.setParameterValue("resetSeedEachGame", resetSeed);
+            agents.add(new MCTSPlayer(params, "MCTS-" + i));
+        }
+        return agents;
+    }
+
+    private RoundRobinTournament runTournament(boolean random, int parallelism, IGameListener listener) {
+        return runTournament(random, parallelism, true, listener);
+    }
+
+    private RoundRobinTournament runTournament(boolean random, int parallelism, boolean resetSeed, IGameListener listener) {
+        Map<RunArg, Object> config = new HashMap<>();
+        config.put(RunArg.matchups, 12);
+        config.put(RunArg.parallelism, parallelism);
+        RoundRobinTournament tournament = random ?
+                new RandomRRTournament(agents(resetSeed), GameType.TicTacToe, 2, null, NO_SELF_PLAY, config) :
+                new RoundRobinTournament(agents(resetSeed), GameType.TicTacToe, 2, null, NO_SELF_PLAY, config);
+        tournament.setVerbose(false);
+        tournament.setRandomSeed(387);
+        tournament.addListener(listener);
+        tournament.run();
+        return tournament;
+    }
+
+    private void checkSameResults(RoundRobinTournament serial, RoundRobinTournament parallel) {
+        for (int i = 0; i < serial.getNumberOfAgents(); i++) {
+            assertEquals(serial.getWinRate(i), parallel.getWinRate(i), 0.0);
+            assertEquals(serial.getOrdinalRank(i), parallel.getOrdinalRank(i), 0.0);
+        }
+    }
+
+    // Listener events are replayed in the order of a serial run, so the records match without sorting
+    private void checkSameRecords(GameRecorder serial, GameRecorder parallel, int nGames) {
+        assertEquals(nGames, serial.records.size());
+        assertEquals(serial.records, parallel.records);
+    }
+
+    @Test
+    public void exhaustiveTournamentMatchesSerialRun() {
+        GameRecorder serialRecords = new GameRecorder(), parallelRecords = new GameRecorder();
+        checkSameResults(runTournament(false, 1, serialRecords), runTournament(false, 4, parallelRecords));
+        // 6 ordered matchups of 3 agents, with 12 games each
+        checkSameRecords(serialRecords, parallelRecords, 72);
+    }
+
+    @Test
+    public void randomTournamentMatchesSerialRun() {
+        GameRecorder serialRecords = new GameRecorder(), parallelRecords = new GameRecorder();
+        checkSameResults(runTournament(true, 1, serialRecords), runTournament(true, 3, parallelRecords));
+        checkSameRecords(serialRecords, parallelRecords, 12);
+    }
+
+    @Test
+    public void listenersSeeEveryGameWhenAgentsCarryRandomStateBetweenGames() {
+        // the moves can then differ from a serial run, but each game must still be reported in full and in order
+        GameRecorder serialRecords = new GameRecorder(), parallelRecords = new GameRecorder();
+        runTournament(false, 1, false, serialRecords);
+        runTournament(false, 4, false, parallelRecords);
+        assertEquals(72, parallelRecords.records.size());
+        for (int i = 0; i < serialRecords.records.size(); i++) {
+            String serial = serialRecords.records.get(i), parallel = parallelRecords.records.get(i);
+            assertEquals(serial.substring(0, serial.indexOf(" | ")), parallel.substring(0, parallel.indexOf(" | ")));
+            assertTrue(parallel.contains("ABOUT_TO_START") && parallel.contains("ACTION_TAKEN"));
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package games.catan;
+
+import core.actions.AbstractAction;
+import core.components.BoardNodeWithEdges;
+import core.components.Edge;
+import games.catan.actions.build.BuildRoad;
+import games.catan.actions.build.BuildSettlement;
+import games.catan.actions.build.BuyAction;
+import games.catan.components.Building;
+import org.junit.Test;
+
+import java.util.*;
+
+import static core.CoreConstants.GameResult.GAME_ONGOING;
+import static org.junit.Assert.*;
+
+public class RoadNetworkTest {
+
+    CatanForwardModel fm = new CatanForwardModel();
+
+    /**
+     * Plays random games, preferring to build, and checks the road lengths kept by RoadNetwork after every action.
+     */
+    @Test
+    public void roadLengthsMatchFullSearch() {
+        int maxSeen = 0, pathsChecked = 0;
+        for (long seed = 0; seed < 10; seed++) {
+            Random rnd = new Random(seed);
+            CatanGameState state = new CatanGameState(new CatanParameters(), 3);
+            state.getGameParameters().setRandomSeed(seed);
+            fm.setup(state);
+            int steps = 0;
+            while (state.getGameStatus() == GAME_ONGOING && steps++ < 5000) {
+                fm.next(state, chooseAction(state, rnd));
+                pathsChecked += checkRoads(state);
+                if (steps % 500 == 0) {
+                    // and copies carry on from the same road components
+                    CatanGameState copy = (CatanGameState) state.copy();
+                    for (int i = 0; i < 100 && copy.getGameStatus() == GAME_ONGOING; i++) {
+                        fm.next(copy, chooseAction(copy, rnd));
+                        checkRoads(copy);
+                    }
+                }
+            }
+            maxSeen = Math.max(maxSeen, Arrays.stream(state.getRoadLengths()).max().getAsInt());
+        }
+        // make sure the games actually built some long roads
+        assertTrue(maxSeen >= 6);
+        assertTrue(pathsChecked > 0);
+    }
+
+    private AbstractAction chooseAction(CatanGameState state, Random rnd) {
+        List<AbstractAction> actions = fm.computeAvailableActions(state);
+        // the order of the actions depends on the hash codes of the edges, and hence on the component IDs (which
+        // depend on what has run before); the descriptions only use board positions, so the games are the same
+        actions.sort(Comparator.comparing(AbstractAction::toString));
+        List<AbstractAction> builds = new ArrayList<>();
+        for (AbstractAction a : actions) {
+            if (a instanceof BuildRoad || a instanceof BuildSettlement ||
+                    (a instanceof BuyAction && ((BuyAction) a).type != BuyAction.BuyType.DevCard))
+                builds.add(a);
+        }
+        if (!builds.isEmpty() && rnd.nextDouble() < 0.9)
+            return builds.get(rnd.nextInt(builds.size()));
+        return actions.get(rnd.nextInt(actions.size()));
+    }
+
+    /**
+     * @return the number of players whose roads formed one simple path, and were also checked with the old walk
+     */
+    private int checkRoads(CatanGameState state) {
+        int paths = 0;
+        int[] lengths = state.getRoadLengths();
+        for (int p = 0; p < state.getNPlayers(); p++) {
+            assertEquals(longestRoad(state, p), lengths[p]);
+            assertEquals(lengths[p], state.getRoadNetwork().getLongestRoad(p));
+            Edge start = simplePathStart(state, p);
+            if (start != null) {
+                assertEquals(lengths[p], roadDistance(state, start, p));
+                paths++;
+            }
+        }
+        int owner = state.getLongestRoadOwner();
+        int max = Arrays.stream(lengths).max().getAsInt();
+        if (owner >= 0) {
+            assertEquals(max, lengths[owner]);
+            assertEquals(max, state.getLongestRoadLength());
+            assertTrue(max > ((CatanParameters) state.getGameParameters()).min_longest_road);
+        }
+        return paths;
+    }
+
+    /*
+     * Longest road of a player by searching all their roads from every vertex.
+     */
+    private int longestRoad(CatanGameState state, int player) {
+        int best = 0;
+        for (BoardNodeWithEdges node : state.getGraph().getBoardNodes())
+            best = Math.max(best, extend(node, player, new HashSet<>()));
+        return best;
+    }
+
+    private int extend(BoardNodeWithEdges node, int player, Set<Integer> used) {
+        int best = 0;
+        for (Map.Entry<Edge, BoardNodeWithEdges> e : node.getNeighbourEdgeMapping().entrySet()) {
+            Edge road = e.getKey();
+            if (road.getOwnerId() != player || used.contains(road.getComponentID())) continue;
+            BoardNodeWithEdges next = e.getValue();
+            used.add(road.getComponentID());
+            boolean blocked = next.getOwnerId() != -1 && next.getOwnerId() != player;
+            best = Math.max(best, 1 + (blocked ? 0 : extend(next, player, used)));
+            used.remove(road.getComponentID());
+        }
+        return best;
+    }
+
+    /*
+     * If all the roads of the player form a single path, with no fork, loop or building of another player on it,
+     * returns the road at one end of it (the end that is first in the list of board nodes).
+     * A building of another player may be at either end; the road to it counts, but the path stops there.
+     */
+    private Edge simplePathStart(CatanGameState state, int player) {
+        Set<Edge> roads = new HashSet<>();
+        Edge start = null;
+        for (BoardNodeWithEdges node : state.getGraph().getBoardNodes()) {
+            int degree = 0;
+            Edge last = null;
+            for (Edge road : node.getNeighbourEdgeMapping().keySet()) {
+                if (road.getOwnerId() == player) {
+                    degree++;
+                    roads.add(road);
+                    last = road;
+                }
+            }
+            if (degree > 2 || degree == 2 && node.getOwnerId() != -1 && node.getOwnerId() != player)
+                return null;
+            if (degree == 1 && start == null)
+                start = last;
+        }
+        // a single path has one more vertex than roads, and is connected
+        if (roads.isEmpty()) return null;
+        Set<BoardNodeWithEdges> nodes = new HashSet<>();
+        for (BoardNodeWithEdges node : state.getGraph().getBoardNodes())
+            for (Edge road : node.getNeighbourEdgeMapping().keySet())
+                if (roads.contains(road)) nodes.add(node);
+        if (nodes.size() != roads.size() + 1 || longestRoad(state, player) != roads.size()) return null;
+        return start;
+    }
+
+    /*
+     * The walk used by CatanGameState.getRoadDistance() before the roads were tracked incrementally, changed only to
+     * follow the current rule that a road ending at another player's building counts towards the length (the old
+     * walk left it out). This is exact for a simple path, which is where it is compared.
+     */
+    private int roadDistance(CatanGameState state, Edge road, int player) {
+        List<Building> ends = new ArrayList<>();
+        for (BoardNodeWithEdges node : state.getGraph().getBoardNodes()) {
+            // (Edge hash codes change with the owner, so the mapping cannot be looked up by key)
+            for (Edge e : node.getNeighbourEdgeMapping().keySet())
+                if (e == road) ends.add((Building) node);
+        }
+        Set<Edge> roadSet = expandRoad(new LinkedHashSet<>(), new ArrayList<>(ends.subList(0, 1)), new ArrayList<>(ends.subList(1, 2)), player);
+        roadSet.addAll(expandRoad(new LinkedHashSet<>(), new ArrayList<>(ends.subList(1, 2)), new ArrayList<>(ends.subList(0, 1)), player));
+        return roadSet.size();
+    }
+
+    private Set<Edge> expandRoad(Set<Edge> roadSet, List<Building> unexpanded, List<Building> expanded, int player) {
+        if (unexpanded.size() == 0) {
+            return roadSet;
+        }
+        if (unexpanded.size() == 2) {
+            int length = 0;
+            Set<Edge> longestSegment = new LinkedHashSet<>(roadSet);
+            for (Building settlement : unexpanded) {
+                ArrayList<Building> toExpand = new ArrayList<>();
+                toExpand.add(settlement);
+                Set<Edge> roadSetCopy = expandRoad(new LinkedHashSet<>(roadSet), toExpand, expanded, player);
+                if (roadSetCopy.size() >= length) {
+                    length = roadSetCopy.size();
+                    longestSegment = roadSetCopy;
+                }
+            }
+            roadSet.addAll(longestSegment);
+            return roadSet;
+        } else {
+            Building settlement = unexpanded.remove(0);
+            expanded.add(settlement);
+            for (Map.Entry<Edge, BoardNodeWithEdges> e : settlement.getNeighbourEdgeMapping().entrySet()) {
+                if (e.getKey().getOwnerId() == player) {
+                    if (expanded.contains((Building) e.getValue())) {
+                        roadSet.add(e.getKey());
+                    } else if (e.getValue().getOwnerId() == -1 || e.getValue().getOwnerId() == player) {
+                        unexpanded.add((Building) e.getValue());
+                    } else {
+                        // the road counts, but we cannot continue through the other player's building
+                        roadSet.add(e.getKey());
+                    }
+                }
+            }
+        }
+        return expandRoad(roadSet, unexpanded, expanded, player);
+    }
+}
@@ -0,0 +1,258 @@
+package games.connect4;
+
+import core.AbstractForwardModel;
+import core.CoreConstants;
+import core.actions.AbstractAction;
+import core.actions.SetGridValueAction;
+import core.components.GridBoard;
+import core.components.Token;
+import games.GameType;
+import org.junit.Test;
+import utilities.Pair;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the bitboard move generation and line detection in Connect4ForwardModel against a scan of the grid, as
+ * the forward model did before the bitboards were added; and the same for grids too wide for bitboards, which the
+ * forward model scans itself.
+ */
+public class Connect4BitboardTest {
+
+    Connect4GameState state;
+    AbstractForwardModel fm;
+
+    private void setup(int gridSize, int winCount, long seed) {
+        Connect4GameParameters params = new Connect4GameParameters();
+        params.setParameterValue("gridSize", gridSize);
+        params.setParameterValue("winCount", winCount);
+        params.setRandomSeed(seed);
+        state = (Connect4GameState) GameType.Connect4.createGameInstance(2, seed, params).getGameState();
+        fm = GameType.Connect4.createForwardModel(params, 2);
+    }
+
+    /*
+     * The lowest empty cell in each column, scanning up from the bottom of the grid.
+     */
+    private List<String> referenceMoves() {
+        List<String> retValue = new ArrayList<>();
+        if (!state.isNotTerminal())
+            return retValue;
+        GridBoard<Token> grid = state.getGridBoard();
+        for (int x = 0; x < grid.getWidth(); x++) {
+            for (int y = grid.getHeight() - 1; y >= 0; y--) {
+                if (grid.getElement(x, y).getTokenType().equals(Connect4Constants.emptyCell)) {
+                    retValue.add(x + "," + y);
+                    break;
+                }
+            }
+        }
+        return retValue;
+    }
+
+    private List<String> moves() {
+        List<String> retValue = new ArrayList<>();
+        for (AbstractAction action : fm.computeAvailableActions(state)) {
+            SetGridValueAction<?> set = (SetGridValueAction<?>) action;
+            assertEquals(Connect4Constants.playerMapping.get(state.getCurrentPlayer()), set.getValue());
+            retValue.add(set.getX() + "," + set.getY());
+        }
+        return retValue;
+    }
+
+    /*
+     * @return true if the token is winCount times in a row, in any direction, starting from any cell
+     */
+    private boolean referenceHasLine(Token token) {
+        GridBoard<Token> grid = state.getGridBoard();
+        int winCount = ((Connect4GameParameters) state.getGameParameters()).winCount;
+        int[][] directions = {{1, 0}, {0, 1}, {1, 1}, {-1, 1}};
+        for (int x = 0; x < grid.getWidth(); x++) {
+            for (int y = 0; y < grid.getHeight(); y++) {
+                for (int[] d : directions) {
+                    int i = 0;
+                    while (i < winCount) {
+                        int cx = x + i * d[0], cy = y + i * d[1];
+                        if (cx < 0 || cx >= grid.getWidth() || cy >= grid.getHeight() || !grid.getElement(cx, cy).equals(token))
+                            break;
+                        i++;
+                    }
+                    if (i == winCount)
+                        return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean full() {
+        for (Token t : state.getGridBoard().getComponents())
+            if (t.getTokenType().equals(Connect4Constants.emptyCell))
+                return false;
+        return true;
+    }
+
+    /**
+     * Plays the move in column x, checking the moves available before it, and the result after it.
+     */
+    private void drop(int x) {
+        List<String> moves = moves();
+        assertEquals(referenceMoves(), moves);
+        List<AbstractAction> actions = fm.computeAvailableActions(state);
+        AbstractAction action = null;
+        for (AbstractAction a : actions)
+            if (((SetGridValueAction<?>) a).getX() == x) action = a;
+        assertNotNull("Column " + x + " is full", action);
+        int player = state.getCurrentPlayer();
+        fm.next(state, action);
+        checkResult(player);
+    }
+
+    private void checkResult(int player) {
+        Token token = Connect4Constants.playerMapping.get(player);
+        if (referenceHasLine(token)) {
+            assertEquals(CoreConstants.GameResult.GAME_END, state.getGameStatus());
+            assertEquals(CoreConstants.GameResult.WIN_GAME, state.getPlayerResults()[player]);
+            assertEquals(CoreConstants.GameResult.LOSE_GAME, state.getPlayerResults()[1 - player]);
+            checkWinningCells(token);
+        } else if (full()) {
+            assertEquals(CoreConstants.GameResult.DRAW_GAME, state.getGameStatus());
+        } else {
+            assertTrue(state.isNotTerminal());
+        }
+        assertFalse(referenceHasLine(Connect4Constants.playerMapping.get(1 - player)));
+    }
+
+    /*
+     * The winning cells are winCount adjacent cells in a straight line, all holding the winner's token
+     */
+    private void checkWinningCells(Token token) {
+        List<Pair<Integer, Integer>> cells = new ArrayList<>(state.getWinningCells());
+        int winCount = ((Connect4GameParameters) state.getGameParameters()).winCount;
+        assertEquals(winCount, cells.size());
+        for (Pair<Integer, Integer> cell : cells)
+            assertEquals(token, state.getGridBoard().getElement(cell.a, cell.b));
+        if (winCount > 1) {
+            int dx = cells.get(1).a - cells.get(0).a, dy = cells.get(1).b - cells.get(0).b;
+            assertTrue(Math.abs(dx) <= 1 && Math.abs(dy) <= 1 && (dx != 0 || dy != 0));
+            for (int i = 1; i < cells.size(); i++) {
+                assertEquals(cells.get(0).a + i * dx, (int) cells.get(i).a);
+                assertEquals(cells.get(0).b + i * dy, (int) cells.get(i).b);
+            }
+        }
+    }
+
+    @Test
+    public void randomGamesMatchTheGridScan() {
+        int[][] configurations = {{3, 3}, {4, 3}, {4, 4}, {5, 5}, {6, 4}, {8, 4}, {8, 6}, {12, 5}, {64, 4}, {65, 4}, {80, 5}};
+        int wins = 0, draws = 0;
+        for (int[] configuration : configurations) {
+            int games = configuration[0] >= 64 ? 3 : 40;
+            for (int seed = 0; seed < games; seed++) {
+                setup(configuration[0], configuration[1], seed);
+                Random rnd = new Random(seed);
+                while (state.isNotTerminal()) {
+                    List<String> moves = moves();
+                    drop(Integer.parseInt(moves.get(rnd.nextInt(moves.size())).split(",")[0]));
+                }
+                assertEquals(referenceMoves(), moves());
+                if (state.getGameStatus() == CoreConstants.GameResult.DRAW_GAME) draws++;
+                else wins++;
+            }
+        }
+        assertTrue(wins > 0);
+        assertTrue(draws > 0);
+    }
+
+    @Test
+    public void linesAtTheEdgesOfTheLargestBoard() {
+        // horizontal, at the left and right ends of the bottom row (the lowest and highest bits of the row)
+        setup(64, 4, 1);
+        for (int x : new int[]{60, 0, 61, 1, 62, 2})
+            drop(x);
+        drop(63);
+        assertEquals(CoreConstants.GameResult.WIN_GAME, state.getPlayerResults()[0]);
+
+        setup(64, 4, 1);
+        for (int x : new int[]{0, 60, 1, 61, 2, 62})
+            drop(x);
+        drop(3);
+        assertEquals(CoreConstants.GameResult.WIN_GAME, state.getPlayerResults()[0]);
+
+        // a row does not wrap around from the last column to the first
+        setup(64, 4, 1);
+        for (int x : new int[]{62, 30, 63, 31, 0, 32})
+            drop(x);
+        drop(1);
+        assertTrue(state.isNotTerminal());
+
+        // vertical in the last column, up to the top row
+        setup(4, 4, 1);
+        for (int x : new int[]{3, 0, 3, 0, 3, 0})
+            drop(x);
+        drop(3);
+        assertEquals(CoreConstants.GameResult.WIN_GAME, state.getPlayerResults()[0]);
+        assertTrue(state.getWinningCells().stream().anyMatch(cell -> cell.a == 3 && cell.b == 0));
+    }
+
+    @Test
+    public void diagonalsAtTheEdgesOfTheLargestBoard() {
+        // player 0 builds a diagonal rising to the right into the last column, with player 1 filling in below it
+        setup(64, 4, 1);
+        for (int x : new int[]{60, 61, 61, 62, 20, 62, 62, 63, 30, 63, 40, 63})
+            drop(x);
+        drop(63);
+        assertEquals(CoreConstants.GameResult.WIN_GAME, state.getPlayerResults()[0]);
+
+        // and the mirror image, rising to the left into the first column
+        setup(64, 4, 1);
+        for (int x : new int[]{3, 2, 2, 1, 43, 1, 1, 0, 33, 0, 23, 0})
+            drop(x);
+        drop(0);
+        assertEquals(CoreConstants.GameResult.WIN_GAME, state.getPlayerResults()[0]);
+    }
+
+    @Test
+    public void linesAtTheEdgesOfAGridTooWideForBitboards() {
+        // horizontal, ending in the last column
+        setup(65, 4, 1);
+        for (int x : new int[]{61, 0, 62, 1, 63, 2})
+            drop(x);
+        drop(64);
+        assertEquals(CoreConstants.GameResult.WIN_GAME, state.getPlayerResults()[0]);
+
+        // a diagonal rising to the left into the first column, completed in the middle of the line
+        setup(65, 4, 1);
+        for (int x : new int[]{3, 2, 2, 1, 43, 1, 0, 0, 33, 0, 0, 23})
+            drop(x);
+        drop(1);
+        assertEquals(CoreConstants.GameResult.WIN_GAME, state.getPlayerResults()[0]);
+    }
+
+    @Test
+    public void aFullGridTooWideForBitboardsIsADraw() {
+        // no line is possible when winCount is more than the size of the grid
+        setup(65, 66, 1);
+        for (int i = 0; i < 65 * 65; i++) {
+            assertTrue(state.isNotTerminal());
+            List<AbstractAction> actions = fm.computeAvailableActions(state);
+            assertEquals(65 - i / 65, actions.size());
+            fm.next(state, actions.get(0));
+        }
+        assertEquals(CoreConstants.GameResult.DRAW_GAME, state.getGameStatus());
+        assertTrue(moves().isEmpty());
+    }
+
+    @Test
+    public void aFullBoardWithNoLineIsADraw() {
+        // columns filled in pairs (0 1, 0 1, 1 0, 1 0...) alternate the tokens in every row and column
+        setup(4, 3, 1);
+        for (int x : new int[]{0, 1, 0, 1, 1, 0, 1, 0, 2, 3, 2, 3, 3, 2, 3})
+            drop(x);
+        drop(2);
+        assertEquals(CoreConstants.GameResult.DRAW_GAME, state.getGameStatus());
+        assertTrue(moves().isEmpty());
+    }
+}
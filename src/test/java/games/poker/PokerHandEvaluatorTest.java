@@ -0,0 +1,188 @@
+package games.poker;
+
+import core.CoreConstants;
+import core.components.FrenchCard;
+import org.junit.Test;
+
+import java.util.*;
+
+import static games.poker.PokerGameState.PokerHand.*;
+import static org.junit.Assert.*;
+
+public class PokerHandEvaluatorTest {
+
+    List<FrenchCard> deck = FrenchCard.generateDeck("Deck", CoreConstants.VisibilityMode.HIDDEN_TO_ALL).getComponents();
+
+    private FrenchCard card(int number, FrenchCard.Suite suite) {
+        for (FrenchCard c : deck)
+            if (c.number == number && c.suite == suite) return c;
+        throw new IllegalArgumentException(number + " " + suite);
+    }
+
+    private int evaluate(FrenchCard... cards) {
+        return PokerHandEvaluator.evaluate(Arrays.asList(cards));
+    }
+
+    @Test
+    public void allFiveCardHands() {
+        // Well-known number of each kind of 5-card hand, and of distinct hand values
+        Map<PokerGameState.PokerHand, Integer> expected = new EnumMap<>(PokerGameState.PokerHand.class);
+        expected.put(RoyalFlush, 4);
+        expected.put(StraightFlush, 36);
+        expected.put(FourOfAKind, 624);
+        expected.put(FullHouse, 3744);
+        expected.put(Flush, 5108);
+        expected.put(Straight, 10200);
+        expected.put(ThreeOfAKind, 54912);
+        expected.put(TwoPair, 123552);
+        expected.put(OnePair, 1098240);
+        expected.put(HighCard, 1302540);
+
+        Map<PokerGameState.PokerHand, Integer> counts = new EnumMap<>(PokerGameState.PokerHand.class);
+        Set<Integer> values = new HashSet<>();
+        List<FrenchCard> hand = new ArrayList<>();
+        int[] idx = new int[5];
+        for (idx[0] = 0; idx[0] < 52; idx[0]++)
+            for (idx[1] = idx[0] + 1; idx[1] < 52; idx[1]++)
+                for (idx[2] = idx[1] + 1; idx[2] < 52; idx[2]++)
+                    for (idx[3] = idx[2] + 1; idx[3] < 52; idx[3]++)
+                        for (idx[4] = idx[3] + 1; idx[4] < 52; idx[4]++) {
+                            hand.clear();
+                            for (int i : idx) hand.add(deck.get(i));
+                            int value = PokerHandEvaluator.evaluate(hand);
+                            PokerGameState.PokerHand category = PokerHandEvaluator.getCategory(value);
+                            counts.merge(category, 1, Integer::sum);
+                            values.add(value);
+                            if (!isWheel(hand))
+                                assertEquals(hand.toString(), oldCategory(hand), category);
+                        }
+        assertEquals(expected, counts);
+        assertEquals(7462, values.size());
+    }
+
+    @Test
+    public void sevenCardHandsMatchBestFiveCards() {
+        Random rnd = new Random(2308);
+        List<FrenchCard> cards = new ArrayList<>(deck);
+        for (int n = 0; n < 100000; n++) {
+            Collections.shuffle(cards, rnd);
+            List<FrenchCard> hand = cards.subList(0, 7);
+            int best = 0;
+            List<Integer> bestReference = null;
+            for (int i = 0; i < 7; i++) {
+                for (int j = i + 1; j < 7; j++) {
+                    List<FrenchCard> five = new ArrayList<>(hand);
+                    five.remove(j);
+                    five.remove(i);
+                    best = Math.max(best, PokerHandEvaluator.evaluate(five));
+                    List<Integer> reference = reference(five);
+                    if (bestReference == null || compare(reference, bestReference) > 0) bestReference = reference;
+                }
+            }
+            assertEquals(hand.toString(), best, PokerHandEvaluator.evaluate(hand));
+            // and compare against another hand through the reference ordering
+            List<FrenchCard> other = cards.subList(7, 12);
+            assertEquals(hand + " vs " + other,
+                    Integer.signum(compare(bestReference, reference(other))),
+                    Integer.signum(Integer.compare(best, PokerHandEvaluator.evaluate(other))));
+        }
+    }
+
+    @Test
+    public void tieBreaks() {
+        FrenchCard.Suite h = FrenchCard.Suite.Hearts, s = FrenchCard.Suite.Spades, d = FrenchCard.Suite.Diamonds, c = FrenchCard.Suite.Clubs;
+        // the wheel is the lowest straight
+        int wheel = evaluate(card(14, h), card(2, s), card(3, d), card(4, c), card(5, h));
+        int sixHigh = evaluate(card(6, h), card(2, s), card(3, d), card(4, c), card(5, h));
+        assertEquals(Straight, PokerHandEvaluator.getCategory(wheel));
+        assertTrue(wheel < sixHigh);
+        // a pair beats a lower pair with a higher kicker
+        assertTrue(evaluate(card(13, h), card(13, s), card(2, d), card(3, c), card(4, h)) >
+                evaluate(card(9, h), card(9, s), card(14, d), card(3, c), card(4, h)));
+        // two sets of three make a full house with the higher set
+        int twoTrips = evaluate(card(9, h), card(9, s), card(9, d), card(12, c), card(12, h), card(12, s), card(2, d));
+        assertEquals(FullHouse, PokerHandEvaluator.getCategory(twoTrips));
+        assertEquals(evaluate(card(12, c), card(12, h), card(12, s), card(9, h), card(9, s)), twoTrips);
+        // suits do not matter
+        assertEquals(evaluate(card(10, h), card(10, s), card(7, d), card(3, c), card(2, h)),
+                evaluate(card(10, c), card(10, d), card(7, h), card(3, s), card(2, s)));
+        // fewer than 5 cards
+        assertEquals(OnePair, PokerHandEvaluator.getCategory(evaluate(card(10, h), card(10, s))));
+        assertEquals(HighCard, PokerHandEvaluator.getCategory(evaluate(card(10, h), card(11, h), card(12, h))));
+    }
+
+    @Test
+    public void largerHands() {
+        // 9 cards are scored without the tables, and can hold both a flush and four of a kind
+        FrenchCard.Suite h = FrenchCard.Suite.Hearts;
+        List<FrenchCard> hand = new ArrayList<>();
+        for (FrenchCard.Suite suite : FrenchCard.Suite.values()) hand.add(card(8, suite));
+        for (int n : new int[]{2, 4, 6, 10, 12}) hand.add(card(n, h));
+        assertEquals(FourOfAKind, PokerHandEvaluator.getCategory(PokerHandEvaluator.evaluate(hand)));
+        hand.add(card(11, h));
+        hand.add(card(9, h));
+        assertEquals(StraightFlush, PokerHandEvaluator.getCategory(PokerHandEvaluator.evaluate(hand)));
+    }
+
+    private static boolean isWheel(List<FrenchCard> hand) {
+        Set<Integer> numbers = new HashSet<>();
+        for (FrenchCard c : hand) numbers.add(c.number);
+        return numbers.equals(new HashSet<>(Arrays.asList(14, 2, 3, 4, 5)));
+    }
+
+    /*
+     * Category of a 5-card hand, as PokerGameState.PokerHand._translateHand() found it before the evaluator
+     * replaced it. It did not count A-2-3-4-5 as a straight.
+     */
+    private static PokerGameState.PokerHand oldCategory(List<FrenchCard> hand) {
+        HashSet<FrenchCard.Suite> suites = new HashSet<>();
+        HashMap<Integer, Integer> numberCount = new HashMap<>();
+        ArrayList<Integer> numbers = new ArrayList<>();
+        for (FrenchCard card : hand) {
+            suites.add(card.suite);
+            numbers.add(card.number);
+            numberCount.merge(card.number, 1, Integer::sum);
+        }
+        Collections.sort(numbers);
+        boolean consecutive = true;
+        for (int i = 0; i < numbers.size() - 1; i++)
+            if (numbers.get(i + 1) - numbers.get(i) != 1) consecutive = false;
+        int maxCount = Collections.max(numberCount.values());
+        if (suites.size() == 1) {
+            if (consecutive) return numbers.contains(14) ? RoyalFlush : StraightFlush;
+            return Flush;
+        }
+        if (numberCount.size() == 2) return maxCount == 4 ? FourOfAKind : FullHouse;
+        if (numberCount.size() == 3) return maxCount == 3 ? ThreeOfAKind : TwoPair;
+        if (numberCount.size() == 4) return OnePair;
+        return consecutive ? Straight : HighCard;
+    }
+
+    /*
+     * Orders 5-card hands: category (using the old classification, with the wheel as a 5-high straight), then card
+     * numbers grouped by how many there are of each.
+     */
+    private static List<Integer> reference(List<FrenchCard> hand) {
+        PokerGameState.PokerHand category = oldCategory(hand);
+        Map<Integer, Integer> numberCount = new HashMap<>();
+        for (FrenchCard card : hand) numberCount.merge(card.number, 1, Integer::sum);
+        List<Integer> numbers = new ArrayList<>(numberCount.keySet());
+        numbers.sort((a, b) -> numberCount.get(a).equals(numberCount.get(b)) ? b - a : numberCount.get(b) - numberCount.get(a));
+        if (isWheel(hand)) {
+            category = new HashSet<>(hand.stream().map(c -> c.suite).toList()).size() == 1 ? StraightFlush : Straight;
+            numbers = Arrays.asList(5, 4, 3, 2, 1);
+        }
+        List<Integer> key = new ArrayList<>();
+        key.add(-category.rank);
+        key.addAll(numbers);
+        return key;
+    }
+
+    private static int compare(List<Integer> a, List<Integer> b) {
+        for (int i = 0; i < Math.min(a.size(), b.size()); i++) {
+            int c = Integer.compare(a.get(i), b.get(i));
+            if (c != 0) return c;
+        }
+        return Integer.compare(a.size(), b.size());
+    }
+}
@@ -0,0 +1,178 @@
+package games.tictactoe;
+
+import core.AbstractForwardModel;
+import core.CoreConstants;
+import core.actions.AbstractAction;
+import core.actions.SetGridValueAction;
+import core.components.GridBoard;
+import core.components.Token;
+import games.GameType;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the bitboard move generation and line detection in TicTacToeForwardModel against a scan of the grid, as
+ * the forward model did before the bitboards were added.
+ */
+public class TicTacToeBitboardTest {
+
+    TicTacToeGameState state;
+    AbstractForwardModel fm;
+
+    private void setup(int gridSize, long seed) {
+        TicTacToeGameParameters params = new TicTacToeGameParameters();
+        params.setParameterValue("gridSize", gridSize);
+        params.setRandomSeed(seed);
+        state = (TicTacToeGameState) GameType.TicTacToe.createGameInstance(2, seed, params).getGameState();
+        fm = GameType.TicTacToe.createForwardModel(params, 2);
+    }
+
+    /*
+     * The empty cells, by column and then row.
+     */
+    private List<String> referenceMoves() {
+        List<String> retValue = new ArrayList<>();
+        if (!state.isNotTerminal())
+            return retValue;
+        GridBoard<Token> grid = state.getGridBoard();
+        for (int x = 0; x < grid.getWidth(); x++)
+            for (int y = 0; y < grid.getHeight(); y++)
+                if (grid.getElement(x, y).getTokenType().equals(TicTacToeConstants.emptyCell))
+                    retValue.add(x + "," + y);
+        return retValue;
+    }
+
+    private List<String> moves() {
+        List<String> retValue = new ArrayList<>();
+        for (AbstractAction action : fm.computeAvailableActions(state)) {
+            SetGridValueAction<?> set = (SetGridValueAction<?>) action;
+            assertEquals(TicTacToeConstants.playerMapping.get(state.getCurrentPlayer()), set.getValue());
+            retValue.add(set.getX() + "," + set.getY());
+        }
+        return retValue;
+    }
+
+    /*
+     * @return true if the token fills a column, row or either diagonal
+     */
+    private boolean referenceHasLine(Token token) {
+        GridBoard<Token> grid = state.getGridBoard();
+        int size = grid.getWidth();
+        boolean primary = true, secondary = true;
+        for (int i = 0; i < size; i++) {
+            boolean column = true, row = true;
+            for (int j = 0; j < size; j++) {
+                column &= grid.getElement(i, j).equals(token);
+                row &= grid.getElement(j, i).equals(token);
+            }
+            if (column || row)
+                return true;
+            primary &= grid.getElement(i, i).equals(token);
+            secondary &= grid.getElement(size - 1 - i, i).equals(token);
+        }
+        return primary || secondary;
+    }
+
+    private boolean full() {
+        for (Token t : state.getGridBoard().getComponents())
+            if (t.getTokenType().equals(TicTacToeConstants.emptyCell))
+                return false;
+        return true;
+    }
+
+    /**
+     * Plays the move at (x, y), checking the moves available before it, and the result after it.
+     */
+    private void play(int x, int y) {
+        assertEquals(referenceMoves(), moves());
+        AbstractAction action = null;
+        for (AbstractAction a : fm.computeAvailableActions(state)) {
+            SetGridValueAction<?> set = (SetGridValueAction<?>) a;
+            if (set.getX() == x && set.getY() == y) action = a;
+        }
+        assertNotNull("Cell " + x + "," + y + " is taken", action);
+        int player = state.getCurrentPlayer();
+        fm.next(state, action);
+
+        if (referenceHasLine(TicTacToeConstants.playerMapping.get(player))) {
+            assertEquals(CoreConstants.GameResult.GAME_END, state.getGameStatus());
+            assertEquals(CoreConstants.GameResult.WIN_GAME, state.getPlayerResults()[player]);
+            assertEquals(CoreConstants.GameResult.LOSE_GAME, state.getPlayerResults()[1 - player]);
+        } else if (full()) {
+            assertEquals(CoreConstants.GameResult.DRAW_GAME, state.getGameStatus());
+        } else {
+            assertTrue(state.isNotTerminal());
+        }
+        assertFalse(referenceHasLine(TicTacToeConstants.playerMapping.get(1 - player)));
+    }
+
+    @Test
+    public void randomGamesMatchTheGridScan() {
+        int wins = 0, draws = 0;
+        for (int size = 1; size <= 8; size++) {
+            for (int seed = 0; seed < 50; seed++) {
+                setup(size, seed);
+                Random rnd = new Random(seed);
+                while (state.isNotTerminal()) {
+                    String[] move = moves().get(rnd.nextInt(moves().size())).split(",");
+                    play(Integer.parseInt(move[0]), Integer.parseInt(move[1]));
+                }
+                assertEquals(referenceMoves(), moves());
+                if (state.getGameStatus() == CoreConstants.GameResult.DRAW_GAME) draws++;
+                else wins++;
+            }
+        }
+        assertTrue(wins > 0);
+        assertTrue(draws > 0);
+    }
+
+    /*
+     * Player 0 plays the cells given, and player 1 the first cells of the top rows that are not on the line
+     */
+    private void playLine(int[][] cells) {
+        setup(8, 1);
+        Set<String> line = new HashSet<>();
+        for (int[] cell : cells)
+            line.add(cell[0] + "," + cell[1]);
+        List<int[]> filler = new ArrayList<>();
+        for (int i = 0; filler.size() < cells.length - 1; i++) {
+            if (!line.contains(i % 8 + "," + i / 8))
+                filler.add(new int[]{i % 8, i / 8});
+        }
+        for (int i = 0; i < cells.length; i++) {
+            play(cells[i][0], cells[i][1]);
+            if (i < cells.length - 1)
+                play(filler.get(i)[0], filler.get(i)[1]);
+        }
+        assertEquals(CoreConstants.GameResult.WIN_GAME, state.getPlayerResults()[0]);
+    }
+
+    @Test
+    public void linesOnTheLargestBoard() {
+        int[][] lastColumn = new int[8][], lastRow = new int[8][], primary = new int[8][], secondary = new int[8][];
+        for (int i = 0; i < 8; i++) {
+            lastColumn[i] = new int[]{7, i};  // includes the highest bit
+            lastRow[i] = new int[]{i, 7};
+            primary[i] = new int[]{i, i};
+            secondary[i] = new int[]{7 - i, i};
+        }
+        playLine(lastColumn);
+        playLine(lastRow);
+        playLine(primary);
+        playLine(secondary);
+    }
+
+    @Test
+    public void anIncompleteLineIsNotAWin() {
+        // seven cells of the last column for player 0, and of the first column for player 1
+        setup(8, 1);
+        for (int i = 0; i < 7; i++) {
+            play(7, i);
+            play(0, i + 1);
+        }
+        assertTrue(state.isNotTerminal());
+    }
+}
@@ -0,0 +1,134 @@
+package players.learners;
+
+import core.AbstractGameState;
+import core.interfaces.IStateFeatureVector;
+import org.apache.spark.ml.linalg.Vectors;
+import org.apache.spark.ml.regression.DecisionTreeRegressionModel;
+import org.apache.spark.ml.tree.ContinuousSplit;
+import org.apache.spark.ml.tree.InternalNode;
+import org.apache.spark.ml.tree.LeafNode;
+import org.apache.spark.ml.tree.Node;
+import org.junit.Test;
+import players.heuristics.AbstractDecisionTreeHeuristic;
+import players.heuristics.CompiledDecisionTree;
+import players.heuristics.DecisionTreeStateHeuristic;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CompiledDecisionTreeTest {
+
+    // Spark trees are built directly from their nodes, as a SparkSession (needed to train or save a model)
+    // does not start on recent JVMs without extra module options
+    static final String[] names = {"a", "b", "c", "d"};
+    Random rnd = new Random(93);
+
+    private Node randomNode(int depth) {
+        if (depth == 0 || rnd.nextInt(5) == 0)
+            return new LeafNode(rnd.nextGaussian(), 0.0, null);
+        // thresholds on a grid, so that the points we test fall exactly on them as well as between them
+        ContinuousSplit split = new ContinuousSplit(rnd.nextInt(names.length), rnd.nextInt(9) / 2.0);
+        return new InternalNode(0.0, 0.0, 0.0, randomNode(depth - 1), randomNode(depth - 1), split, null);
+    }
+
+    private double[] randomPoint() {
+        double[] x = new double[names.length];
+        for (int i = 0; i < x.length; i++)
+            x[i] = rnd.nextBoolean() ? rnd.nextInt(9) / 2.0 : rnd.nextDouble() * 4.0;
+        return x;
+    }
+
+    private void assertSamePredictions(DecisionTreeRegressionModel model, CompiledDecisionTree tree) {
+        for (int i = 0; i < 1000; i++) {
+            double[] x = randomPoint();
+            double expected = model.predict(Vectors.dense(x));
+            assertEquals(expected, tree.predict(x), 0.0);
+            // and split into two parts, as for state and action features
+            assertEquals(expected, tree.predict(new double[]{x[0]}, new double[]{x[1], x[2], x[3]}), 0.0);
+        }
+    }
+
+    @Test
+    public void compiledTreeMatchesSpark() {
+        for (int t = 0; t < 50; t++) {
+            DecisionTreeRegressionModel model = new DecisionTreeRegressionModel(randomNode(8), names.length);
+            CompiledDecisionTree tree = DecisionTreeCompiler.compile(model, names);
+            assertEquals(model.numNodes(), tree.getNodeCount());
+            assertSamePredictions(model, tree);
+        }
+    }
+
+    @Test
+    public void compiledTreeCanBeSavedAndLoaded() throws IOException {
+        DecisionTreeRegressionModel model = new DecisionTreeRegressionModel(randomNode(8), names.length);
+        File file = File.createTempFile("tree", ".txt");
+        file.deleteOnExit();
+        DecisionTreeCompiler.compile(model, names).save(file.getPath());
+        CompiledDecisionTree tree = CompiledDecisionTree.load(file.getPath());
+        assertArrayEquals(names, tree.getFeatureNames());
+        assertSamePredictions(model, tree);
+    }
+
+    @Test
+    public void heuristicLoadsCompiledTree() throws IOException {
+        DecisionTreeRegressionModel model = new DecisionTreeRegressionModel(randomNode(6), names.length);
+        File directory = Files.createTempDirectory("decisionTree").toFile();
+        directory.deleteOnExit();
+        File compiled = new File(directory, AbstractDecisionTreeHeuristic.COMPILED_TREE_FILE);
+        compiled.deleteOnExit();
+        DecisionTreeCompiler.compile(model, names).save(compiled.getPath());
+
+        // the feature vector just passes on the values of the point we are evaluating
+        double[][] current = new double[1][];
+        IStateFeatureVector features = new IStateFeatureVector() {
+            @Override
+            public double[] featureVector(AbstractGameState state, int playerID) {
+                return current[0];
+            }
+
+            @Override
+            public String[] names() {
+                return names;
+            }
+        };
+        // from the directory, or the file itself
+        for (String path : new String[]{directory.getPath(), compiled.getPath()}) {
+            DecisionTreeStateHeuristic heuristic = new DecisionTreeStateHeuristic(features, path, null);
+            for (int i = 0; i < 100; i++) {
+                current[0] = randomPoint();
+                assertEquals(model.predict(Vectors.dense(current[0])), heuristic.evaluateState(null, 0), 0.0);
+            }
+        }
+    }
+
+    @Test(expected = AssertionError.class)
+    public void heuristicRejectsDifferentFeatureNames() throws IOException {
+        DecisionTreeRegressionModel model = new DecisionTreeRegressionModel(randomNode(6), names.length);
+        File file = File.createTempFile("tree", ".txt");
+        file.deleteOnExit();
+        DecisionTreeCompiler.compile(model, names).save(file.getPath());
+        // the same number of features, in a different order
+        IStateFeatureVector features = new IStateFeatureVector() {
+            @Override
+            public double[] featureVector(AbstractGameState state, int playerID) {
+                return new double[names.length];
+            }
+
+            @Override
+            public String[] names() {
+                return new String[]{"a", "b", "d", "c"};
+            }
+        };
+        new DecisionTreeStateHeuristic(features, file.getPath(), null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidTreesAreRejected() {
+        // the right child of the root cannot be its left child
+        new CompiledDecisionTree(names, new int[]{0, -1, -1}, new double[]{0.5, 1, 2}, new int[]{1, -1, -1});
+    }
+}
@@ -0,0 +1,133 @@
+package players.learners;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class StreamingLinearLearnerTest {
+
+    // the columns that FeatureListener writes around the features
+    static final String header = "GameID\tPlayer\tRound\tTurn\tCurrentScore\tA\tB\tCONSTANT\tPlayerCount\tTotalRounds\tActionScore\tWin\tOrdinal\tFinalScore";
+    static final int rows = 5000;
+
+    File dataFile;
+    double[][] features = new double[rows][];
+    double[] finalScore = new double[rows];
+    double[] win = new double[rows];
+
+    @Before
+    public void setup() throws IOException {
+        Random rnd = new Random(17);
+        dataFile = File.createTempFile("features", ".txt");
+        dataFile.deleteOnExit();
+        try (PrintWriter writer = new PrintWriter(dataFile)) {
+            writer.println(header);
+            for (int i = 0; i < rows; i++) {
+                double a = rnd.nextGaussian();
+                double b = rnd.nextInt(5);
+                features[i] = new double[]{1.0, a, b, 3.0};
+                finalScore[i] = 2.0 + 3.0 * a - 0.5 * b;
+                win[i] = rnd.nextDouble() < 1.0 / (1.0 + Math.exp(-(0.5 + a - 0.25 * b))) ? 1.0 : 0.0;
+                writer.printf("%d\t0\t%d\t0\t0\t%s\t%s\t3.0\t2\t10\t0\t%s\t1\t%s%n",
+                        i, i % 10, a, b, win[i], finalScore[i]);
+            }
+        }
+    }
+
+    @Test
+    public void olsRecoversExactFit() {
+        OLSLearner learner = new OLSLearner(1.0, AbstractLearner.Target.SCORE, 0.0);
+        learner.learnFrom(dataFile.getPath());
+        double[] coefficients = learner.getCoefficients();
+        assertEquals(2.0, coefficients[0], 1e-8);
+        assertEquals(3.0, coefficients[1], 1e-8);
+        assertEquals(-0.5, coefficients[2], 1e-8);
+        assertEquals(0.0, coefficients[3], 0.0);  // constant, so absorbed in the bias
+    }
+
+    @Test
+    public void ridgeShrinksCoefficients() {
+        OLSLearner learner = new OLSLearner(1.0, AbstractLearner.Target.SCORE, 0.5);
+        learner.learnFrom(dataFile.getPath());
+        double[] coefficients = learner.getCoefficients();
+        assertTrue(coefficients[1] > 0.0 && coefficients[1] < 3.0);
+        assertTrue(coefficients[2] < 0.0 && coefficients[2] > -0.5);
+    }
+
+    @Test
+    public void threadsAndBatchesGiveSameResult() {
+        OLSLearner single = new OLSLearner(0.9, AbstractLearner.Target.WIN_MEAN, 0.1);
+        single.learnFrom(dataFile.getPath());
+        OLSLearner parallel = new OLSLearner(0.9, AbstractLearner.Target.WIN_MEAN, 0.1, 3);
+        parallel.batchSize = 97;
+        parallel.learnFrom(dataFile.getPath());
+        assertArrayEquals(single.getCoefficients(), parallel.getCoefficients(), 1e-9);
+
+        LogisticLearner singleLogistic = new LogisticLearner(1.0, AbstractLearner.Target.WIN, 0.01);
+        singleLogistic.learnFrom(dataFile.getPath());
+        LogisticLearner parallelLogistic = new LogisticLearner(1.0, AbstractLearner.Target.WIN, 0.01, 3);
+        parallelLogistic.batchSize = 97;
+        parallelLogistic.learnFrom(dataFile.getPath());
+        assertArrayEquals(singleLogistic.getCoefficients(), parallelLogistic.getCoefficients(), 1e-9);
+    }
+
+    @Test
+    public void logisticIsAtOptimum() {
+        double regularisation = 0.01;
+        LogisticLearner learner = new LogisticLearner(1.0, AbstractLearner.Target.WIN, regularisation);
+        learner.learnFrom(dataFile.getPath());
+        double[] beta = learner.getCoefficients();
+        // at convergence the gradient of the mean log-likelihood balances the penalty (scaled by the mean weight)
+        double[] gradient = new double[beta.length];
+        double meanWeight = 0.0;
+        for (int i = 0; i < rows; i++) {
+            double eta = 0.0;
+            for (int j = 0; j < beta.length; j++)
+                eta += features[i][j] * beta[j];
+            double mu = 1.0 / (1.0 + Math.exp(-eta));
+            meanWeight += mu * (1.0 - mu) / rows;
+            for (int j = 0; j < beta.length; j++)
+                gradient[j] += (win[i] - mu) * features[i][j] / rows;
+        }
+        for (int j = 1; j < beta.length; j++)
+            gradient[j] -= regularisation * meanWeight * beta[j];
+        for (double g : gradient)
+            assertEquals(0.0, g, 1e-8);
+        // and the coefficients are close to those the data were generated from
+        assertEquals(1.0, beta[1], 0.15);
+        assertEquals(-0.25, beta[2], 0.15);
+    }
+
+    @Test
+    public void logisticRejectsTargetOutsideUnitInterval() {
+        LogisticLearner learner = new LogisticLearner(1.0, AbstractLearner.Target.SCORE);
+        try {
+            learner.learnFrom(dataFile.getPath());
+            fail("Expected the target to be rejected");
+        } catch (AssertionError e) {
+            assertTrue(e.getMessage().contains("[0, 1]"));
+        }
+    }
+
+    @Test
+    public void coefficientFileHasHeaderAndValues() throws IOException {
+        OLSLearner learner = new OLSLearner(1.0, AbstractLearner.Target.SCORE, 0.0);
+        learner.learnFrom(dataFile.getPath());
+        File output = File.createTempFile("coefficients", "");
+        output.deleteOnExit();
+        learner.writeToFile(output.getPath());
+        File written = new File(output.getPath() + ".txt");
+        written.deleteOnExit();
+        List<String> lines = Files.readAllLines(written.toPath());
+        assertEquals("BIAS\tA\tB\tCONSTANT", lines.get(0));
+        assertEquals("2.000\t3.000\t-0.5000\t0.000", lines.get(1));
+    }
+}
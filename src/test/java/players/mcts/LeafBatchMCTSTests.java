@@ -0,0 +1,236 @@
+package players.mcts;
+
+import core.AbstractForwardModel;
+import core.AbstractGameState;
+import core.AbstractPlayer;
+import core.Game;
+import core.actions.AbstractAction;
+import core.interfaces.IBatchStateHeuristic;
+import evaluation.features.TurnAndPlayerOnly;
+import games.GameType;
+import org.junit.Before;
+import org.junit.Test;
+import players.PlayerConstants;
+import players.heuristics.*;
+import players.simple.RandomPlayer;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class LeafBatchMCTSTests {
+
+    /**
+     * Records every (state tick, player) evaluated, and how. The value depends only on the tick and player, so that
+     * we can work out what the search should have backed up.
+     */
+    static class CountingBatchHeuristic implements IBatchStateHeuristic {
+        int singleCalls, batchCalls, largestBatch;
+        double scale = 0.01;
+        List<int[]> evaluated = new ArrayList<>();
+
+        double value(int tick, int player) {
+            return tick * (player + 1) * scale;
+        }
+
+        @Override
+        public double evaluateState(AbstractGameState gs, int playerId) {
+            singleCalls++;
+            evaluated.add(new int[]{gs.getGameTick(), playerId});
+            return value(gs.getGameTick(), playerId);
+        }
+
+        @Override
+        public double[] evaluateStates(List<AbstractGameState> states, int[] playerIds) {
+            batchCalls++;
+            largestBatch = Math.max(largestBatch, states.size());
+            double[] retValue = new double[states.size()];
+            for (int i = 0; i < retValue.length; i++) {
+                evaluated.add(new int[]{states.get(i).getGameTick(), playerIds[i]});
+                retValue[i] = value(states.get(i).getGameTick(), playerIds[i]);
+            }
+            return retValue;
+        }
+    }
+
+    MCTSParams params;
+    CountingBatchHeuristic heuristic = new CountingBatchHeuristic();
+    SingleTreeNode mctsPlayerRoot;
+
+    @Before
+    public void setup() {
+        params = new MCTSParams();
+        params.setRandomSeed(9332);
+        params.budgetType = PlayerConstants.BUDGET_ITERATIONS;
+        params.budget = 100;
+        params.rolloutLength = 3;
+        params.leafBatchSize = 8;
+        params.normaliseRewards = false;
+        params.heuristic = heuristic;
+    }
+
+    private void runDecisions() {
+        MCTSPlayer mctsPlayer = new MCTSPlayer(params);
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(mctsPlayer);
+        players.add(new RandomPlayer(new Random(3023)));
+        players.add(new RandomPlayer(new Random(54)));
+        Game game = GameType.LoveLetter.createGameInstance(players.size());
+        game.reset(players);
+        AbstractGameState state = game.getGameState();
+        AbstractForwardModel fm = game.getForwardModel();
+
+        int decisions = 0;
+        while (state.isNotTerminal() && decisions < 5) {
+            List<AbstractAction> actions = fm.computeAvailableActions(state);
+            AbstractPlayer player = players.get(state.getCurrentPlayer());
+            if (player == mctsPlayer && actions.size() > 1) {
+                heuristic.evaluated.clear();
+                heuristic.singleCalls = 0;
+                heuristic.batchCalls = 0;
+            }
+            AbstractAction action = player.getAction(state.copy(state.getCurrentPlayer()), actions);
+            if (player == mctsPlayer && actions.size() > 1) {
+                decisions++;
+                mctsPlayerRoot = mctsPlayer.root;
+                checkSearch(mctsPlayer.root, state.getGameTick(), state.getNPlayers());
+            }
+            fm.next(state, action);
+        }
+        assertTrue(decisions > 0);
+    }
+
+    private void checkSearch(SingleTreeNode root, int rootTick, int nPlayers) {
+        assertEquals(100, root.getVisits());
+        assertEquals(100, Arrays.stream(root.actionVisits()).sum());
+        // one call for the starting values of each iteration, and one for each batch of 8 leaves
+        assertEquals(0, heuristic.singleCalls);
+        assertEquals(100 + 13, heuristic.batchCalls);
+        assertEquals(8 * nPlayers, heuristic.largestBatch);
+
+        // once all leaves are backed up, no virtual loss remains: the root holds the sum of the real results
+        double[] expected = new double[nPlayers];
+        for (int[] call : heuristic.evaluated) {
+            if (call[0] != rootTick)
+                expected[call[1]] += heuristic.value(call[0], call[1]);
+        }
+        for (int p = 0; p < nPlayers; p++)
+            expected[p] -= 100 * heuristic.value(rootTick, p);
+        for (int p = 0; p < nPlayers; p++) {
+            // a SelfOnly tree backs up the result of the root player for everyone
+            double expectedValue = params.opponentTreePolicy == MCTSEnums.OpponentTreePolicy.SelfOnly ?
+                    expected[root.decisionPlayer] : expected[p];
+            double actual = 0.0;
+            for (AbstractAction action : root.actionValues.keySet())
+                actual += root.actionTotValue(action, p);
+            assertEquals(expectedValue, actual, 1e-9);
+        }
+
+        // the virtual loss is the lowest result backed up, whether or not rewards are normalised
+        double lowest = Double.POSITIVE_INFINITY;
+        boolean selfOnly = params.opponentTreePolicy == MCTSEnums.OpponentTreePolicy.SelfOnly;
+        for (int[] call : heuristic.evaluated) {
+            if (call[0] != rootTick && (!selfOnly || call[1] == root.decisionPlayer))
+                lowest = Math.min(lowest, heuristic.value(call[0], call[1]) - heuristic.value(rootTick, call[1]));
+        }
+        assertEquals(lowest, root.virtualLoss(), 1e-9);
+    }
+
+    @Test
+    public void batchedOpenLoop() {
+        params.information = MCTSEnums.Information.Open_Loop;
+        runDecisions();
+    }
+
+    @Test
+    public void batchedOpenLoopWithUndo() {
+        params.information = MCTSEnums.Information.Open_Loop;
+        params.useUndo = true;
+        runDecisions();
+    }
+
+    @Test
+    public void batchedInformationSet() {
+        params.information = MCTSEnums.Information.Information_Set;
+        runDecisions();
+    }
+
+    @Test
+    public void batchedSelfOnly() {
+        params.information = MCTSEnums.Information.Information_Set;
+        params.opponentTreePolicy = MCTSEnums.OpponentTreePolicy.SelfOnly;
+        runDecisions();
+    }
+
+    @Test
+    public void virtualLossIsPessimisticWithoutNormalisedRewards() {
+        // every result is negative, so a virtual loss of zero would make pending paths look better than the rest
+        heuristic.scale = -0.01;
+        params.information = MCTSEnums.Information.Open_Loop;
+        runDecisions();
+        assertTrue(mctsPlayerRoot.virtualLoss() < 0.0);
+        // the range used to normalise rewards is not tracked, as it is not used
+        assertTrue(Double.isInfinite(mctsPlayerRoot.lowReward));
+    }
+
+    @Test
+    public void batchedLinearHeuristicsMatchSingleEvaluation() throws IOException {
+        File coefficients = File.createTempFile("coefficients", ".txt");
+        coefficients.deleteOnExit();
+        try (FileWriter writer = new FileWriter(coefficients)) {
+            writer.write("BIAS\tPlayer\tRound\tTurn\n-1.5\t0.2\t0.05\t0.01\n");
+        }
+        String file = coefficients.getPath();
+        List<AbstractStateHeuristic> heuristics = Arrays.asList(
+                new LinearStateHeuristic(new TurnAndPlayerOnly(), file, new LeaderHeuristic()),
+                new LinearStateOrdHeuristic(new TurnAndPlayerOnly(), file, new LeaderHeuristic()),
+                new LinearStateWinHeuristic(new TurnAndPlayerOnly(), file, new LeaderHeuristic()),
+                new LinearStateBonusHeuristic(new TurnAndPlayerOnly(), file, new LeaderHeuristic()),
+                new LogisticStateHeuristic(new TurnAndPlayerOnly(), file, new LeaderHeuristic()),
+                new LogisticStateOrdHeuristic(new TurnAndPlayerOnly(), file, new LeaderHeuristic()),
+                new LogisticStateWinHeuristic(new TurnAndPlayerOnly(), file, new LeaderHeuristic()));
+
+        // the states of a random game, including the terminal state
+        Game game = GameType.LoveLetter.createGameInstance(3);
+        List<AbstractPlayer> players = Arrays.asList(new RandomPlayer(new Random(1)), new RandomPlayer(new Random(2)), new RandomPlayer(new Random(3)));
+        game.reset(players);
+        AbstractGameState state = game.getGameState();
+        AbstractForwardModel fm = game.getForwardModel();
+        List<AbstractGameState> states = new ArrayList<>();
+        List<Integer> playerIds = new ArrayList<>();
+        while (true) {
+            for (int p = 0; p < state.getNPlayers(); p++) {
+                states.add(state.copy());
+                playerIds.add(p);
+            }
+            if (!state.isNotTerminal())
+                break;
+            List<AbstractAction> actions = fm.computeAvailableActions(state);
+            fm.next(state, players.get(state.getCurrentPlayer()).getAction(state, actions));
+        }
+        int[] ids = playerIds.stream().mapToInt(i -> i).toArray();
+
+        for (AbstractStateHeuristic h : heuristics) {
+            // some of these heuristics reject states where a player is out of the round, so we leave those out
+            List<AbstractGameState> valid = new ArrayList<>();
+            List<Integer> validIds = new ArrayList<>();
+            List<Double> expected = new ArrayList<>();
+            for (int i = 0; i < states.size(); i++) {
+                try {
+                    expected.add(h.evaluateState(states.get(i), ids[i]));
+                    valid.add(states.get(i));
+                    validIds.add(ids[i]);
+                } catch (AssertionError e) {
+                    // not reachable for this state
+                }
+            }
+            assertTrue(valid.size() > states.size() / 2);
+            double[] batched = h.evaluateStates(valid, validIds.stream().mapToInt(i -> i).toArray());
+            for (int i = 0; i < valid.size(); i++)
+                assertEquals(h.getClass().getSimpleName(), expected.get(i), batched[i], 0.0);
+        }
+    }
+}
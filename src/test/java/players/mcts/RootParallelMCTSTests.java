@@ -0,0 +1,92 @@
+package players.mcts;
+
+import core.AbstractForwardModel;
+import core.AbstractGameState;
+import core.AbstractPlayer;
+import core.Game;
+import core.actions.AbstractAction;
+import games.GameType;
+import org.junit.Before;
+import org.junit.Test;
+import players.PlayerConstants;
+import players.simple.RandomPlayer;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RootParallelMCTSTests {
+
+    MCTSParams params;
+
+    @Before
+    public void setup() {
+        // set via the tunable values, so that they are picked up by the copies of the player that search the other trees
+        params = new MCTSParams();
+        params.setParameterValue("randomSeed", 9332);
+        params.setParameterValue("budgetType", PlayerConstants.BUDGET_ITERATIONS);
+        params.setParameterValue("budget", 100);
+        params.setParameterValue("rootParallelism", 3);
+        params.setParameterValue("selectionPolicy", MCTSEnums.SelectionPolicy.SIMPLE);
+    }
+
+    private void runDecisions(MCTSEnums.Information information) {
+        params.setParameterValue("information", information);
+        MCTSPlayer mctsPlayer = new MCTSPlayer(params);
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(mctsPlayer);
+        players.add(new RandomPlayer(new Random(3023)));
+        Game game = GameType.LoveLetter.createGameInstance(players.size());
+        game.reset(players);
+        AbstractGameState state = game.getGameState();
+        AbstractForwardModel fm = game.getForwardModel();
+
+        int decisions = 0;
+        while (state.isNotTerminal() && decisions < 5) {
+            List<AbstractAction> actions = fm.computeAvailableActions(state);
+            AbstractPlayer player = players.get(state.getCurrentPlayer());
+            AbstractAction action = player.getAction(state.copy(state.getCurrentPlayer()), actions);
+            if (player == mctsPlayer && actions.size() > 1) {
+                decisions++;
+                SingleTreeNode root = mctsPlayer.root;
+                // each of the three trees runs the full budget
+                assertEquals(300, root.getVisits());
+                assertEquals(300, Arrays.stream(root.actionVisits()).sum());
+            }
+            fm.next(state, action);
+        }
+        mctsPlayer.finalizePlayer(state);
+        assertTrue(decisions > 0);
+    }
+
+    @Test
+    public void eachTreeHasItsOwnRolloutSeed() {
+        MCTSPlayer mctsPlayer = new MCTSPlayer(params);
+        Game game = GameType.Connect4.createGameInstance(2);
+        game.reset(Arrays.asList(mctsPlayer, new RandomPlayer(new Random(3023))));
+        AbstractGameState state = game.getGameState();
+        List<AbstractAction> actions = game.getForwardModel().computeAvailableActions(state);
+
+        // the rollout policies of the workers choose differently, rather than all following the same random sequence
+        Set<List<AbstractAction>> choices = new HashSet<>();
+        for (int w = 0; w < 3; w++) {
+            AbstractPlayer policy = mctsPlayer.newSearchWorker(state).getParameters().getRolloutStrategy();
+            List<AbstractAction> chosen = new ArrayList<>();
+            for (int i = 0; i < 20; i++)
+                chosen.add(policy.getAction(state.copy(0), actions));
+            choices.add(chosen);
+        }
+        assertEquals(3, choices.size());
+    }
+
+    @Test
+    public void rootParallelOpenLoop() {
+        runDecisions(MCTSEnums.Information.Open_Loop);
+    }
+
+    @Test
+    public void rootParallelInformationSet() {
+        runDecisions(MCTSEnums.Information.Information_Set);
+    }
+}
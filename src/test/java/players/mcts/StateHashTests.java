@@ -0,0 +1,68 @@
+package players.mcts;
+
+import core.AbstractForwardModel;
+import core.AbstractGameState;
+import core.Game;
+import core.actions.AbstractAction;
+import core.interfaces.IStateHash;
+import games.GameType;
+import games.chinesecheckers.CCStateKey;
+import games.connect4.Connect4StateVector;
+import games.dotsboxes.DBEdgeAndScoreKey;
+import games.tictactoe.TicTacToeStateVector;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+public class StateHashTests {
+
+    /**
+     * Plays random games, and checks that the (incrementally maintained) hash is the same for two states
+     * if and only if their String keys are the same.
+     */
+    private void checkHashMatchesKey(GameType gameType, int nPlayers, IStateHash stateKey, int nGames) {
+        Random rnd = new Random(4039);
+        Map<String, Long> hashByKey = new HashMap<>();
+        Map<Long, String> keyByHash = new HashMap<>();
+        for (int g = 0; g < nGames; g++) {
+            Game game = gameType.createGameInstance(nPlayers, g);
+            AbstractGameState state = game.getGameState();
+            AbstractForwardModel fm = game.getForwardModel();
+            int actions = 0;
+            while (state.isNotTerminal() && actions < 200) {
+                String key = stateKey.getKey(state);
+                long hash = stateKey.getHash(state);
+                assertEquals(key, hash, (long) hashByKey.computeIfAbsent(key, k -> hash));
+                assertEquals(key, keyByHash.computeIfAbsent(hash, h -> key));
+                // and the hash survives copying
+                assertEquals(hash, stateKey.getHash(state.copy()));
+
+                List<AbstractAction> available = fm.computeAvailableActions(state);
+                fm.next(state, available.get(rnd.nextInt(available.size())));
+                actions++;
+            }
+        }
+    }
+
+    @Test
+    public void connect4() {
+        checkHashMatchesKey(GameType.Connect4, 2, new Connect4StateVector(), 50);
+    }
+
+    @Test
+    public void ticTacToe() {
+        checkHashMatchesKey(GameType.TicTacToe, 2, new TicTacToeStateVector(), 200);
+    }
+
+    @Test
+    public void dotsAndBoxes() {
+        checkHashMatchesKey(GameType.DotsAndBoxes, 2, new DBEdgeAndScoreKey(), 20);
+    }
+
+    @Test
+    public void chineseCheckers() {
+        checkHashMatchesKey(GameType.ChineseCheckers, 2, new CCStateKey(), 5);
+    }
+}
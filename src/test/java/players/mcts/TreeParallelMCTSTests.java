@@ -0,0 +1,175 @@
+package players.mcts;
+
+import core.AbstractForwardModel;
+import core.AbstractGameState;
+import core.AbstractPlayer;
+import core.Game;
+import core.actions.AbstractAction;
+import core.interfaces.IStateHeuristic;
+import games.GameType;
+import org.junit.Before;
+import org.junit.Test;
+import players.PlayerConstants;
+import players.simple.RandomPlayer;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class TreeParallelMCTSTests {
+
+    /**
+     * Records every (state tick, player) evaluated, and the threads that evaluated them. The value depends only on the
+     * tick and player, so that we can work out what the search should have backed up. Each call takes a millisecond,
+     * so that the threads overlap.
+     */
+    static class SlowRecordingHeuristic implements IStateHeuristic {
+        final List<int[]> evaluated = new ArrayList<>();
+        final Set<String> threads = new HashSet<>();
+
+        static double value(int tick, int player) {
+            return -tick * (player + 1) * 0.01;
+        }
+
+        @Override
+        public double evaluateState(AbstractGameState gs, int playerId) {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            synchronized (this) {
+                evaluated.add(new int[]{gs.getGameTick(), playerId});
+                threads.add(Thread.currentThread().getName());
+            }
+            return value(gs.getGameTick(), playerId);
+        }
+
+        synchronized void clear() {
+            evaluated.clear();
+            threads.clear();
+        }
+    }
+
+    MCTSParams params;
+    SlowRecordingHeuristic heuristic = new SlowRecordingHeuristic();
+
+    @Before
+    public void setup() {
+        // set via the tunable values, so that they are picked up by the copies of the player used by each thread
+        params = new MCTSParams();
+        params.setParameterValue("randomSeed", 9332);
+        params.setParameterValue("budgetType", PlayerConstants.BUDGET_ITERATIONS);
+        params.setParameterValue("budget", 100);
+        params.setParameterValue("rolloutLength", 3);
+        params.setParameterValue("treeParallelism", 3);
+        params.setParameterValue("normaliseRewards", false);
+        params.setParameterValue("heuristic", heuristic);
+    }
+
+    private void runDecisions() {
+        MCTSPlayer mctsPlayer = new MCTSPlayer(params);
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(mctsPlayer);
+        players.add(new RandomPlayer(new Random(3023)));
+        players.add(new RandomPlayer(new Random(54)));
+        Game game = GameType.LoveLetter.createGameInstance(players.size());
+        game.reset(players);
+        AbstractGameState state = game.getGameState();
+        AbstractForwardModel fm = game.getForwardModel();
+
+        int decisions = 0;
+        while (state.isNotTerminal() && decisions < 3) {
+            List<AbstractAction> actions = fm.computeAvailableActions(state);
+            AbstractPlayer player = players.get(state.getCurrentPlayer());
+            heuristic.clear();
+            AbstractAction action = player.getAction(state.copy(state.getCurrentPlayer()), actions);
+            if (player == mctsPlayer && actions.size() > 1) {
+                decisions++;
+                checkSearch(mctsPlayer.root, state.getGameTick(), state.getNPlayers());
+            }
+            fm.next(state, action);
+        }
+        mctsPlayer.finalizePlayer(state);
+        assertTrue(decisions > 0);
+    }
+
+    private void checkSearch(SingleTreeNode root, int rootTick, int nPlayers) {
+        // the budget is for the tree as a whole, and every iteration has been backed up
+        assertEquals(100, root.getVisits());
+        assertEquals(100, Arrays.stream(root.actionVisits()).sum());
+        for (SingleTreeNode node : root.allNodesInTree())
+            assertTrue(Arrays.stream(node.actionVisits()).sum() <= node.getVisits());
+        assertTrue("Leaves evaluated on " + heuristic.threads, heuristic.threads.size() > 1);
+
+        // no virtual loss remains: the root holds the sum of the real results
+        double[] expected = new double[nPlayers];
+        for (int[] call : heuristic.evaluated) {
+            if (call[0] != rootTick)
+                expected[call[1]] += SlowRecordingHeuristic.value(call[0], call[1]);
+        }
+        for (int p = 0; p < nPlayers; p++)
+            expected[p] -= 100 * SlowRecordingHeuristic.value(rootTick, p);
+        for (int p = 0; p < nPlayers; p++) {
+            double expectedValue = params.opponentTreePolicy == MCTSEnums.OpponentTreePolicy.SelfOnly ?
+                    expected[root.decisionPlayer] : expected[p];
+            double actual = 0.0;
+            for (AbstractAction action : root.actionValues.keySet())
+                actual += root.actionTotValue(action, p);
+            assertEquals(expectedValue, actual, 1e-9);
+        }
+    }
+
+    @Test
+    public void sharedTreeOpenLoop() {
+        params.setParameterValue("information", MCTSEnums.Information.Open_Loop);
+        runDecisions();
+    }
+
+    @Test
+    public void sharedTreeInformationSet() {
+        params.setParameterValue("information", MCTSEnums.Information.Information_Set);
+        runDecisions();
+    }
+
+    @Test
+    public void sharedTreeClosedLoop() {
+        params.setParameterValue("information", MCTSEnums.Information.Closed_Loop);
+        runDecisions();
+    }
+
+    @Test
+    public void sharedTreeSelfOnly() {
+        params.setParameterValue("information", MCTSEnums.Information.Information_Set);
+        params.setParameterValue("opponentTreePolicy", MCTSEnums.OpponentTreePolicy.SelfOnly);
+        runDecisions();
+    }
+
+    @Test
+    public void sharedTreeWithTreeReuse() {
+        params.setParameterValue("information", MCTSEnums.Information.Open_Loop);
+        params.setParameterValue("reuseTree", true);
+        MCTSPlayer mctsPlayer = new MCTSPlayer(params);
+        List<AbstractPlayer> players = Arrays.asList(mctsPlayer, new RandomPlayer(new Random(3023)));
+        Game game = GameType.LoveLetter.createGameInstance(players.size());
+        game.reset(players);
+        AbstractGameState state = game.getGameState();
+        AbstractForwardModel fm = game.getForwardModel();
+        int decisions = 0;
+        while (state.isNotTerminal() && decisions < 4) {
+            List<AbstractAction> actions = fm.computeAvailableActions(state);
+            AbstractPlayer player = players.get(state.getCurrentPlayer());
+            AbstractAction action = player.getAction(state.copy(state.getCurrentPlayer()), actions);
+            if (player == mctsPlayer) {
+                decisions++;
+                // a reused root keeps its earlier visits (including those to actions that are no longer legal),
+                // to which the full budget is added
+                int actionVisits = Arrays.stream(mctsPlayer.root.actionVisits()).sum();
+                assertTrue(actionVisits >= 100);
+                assertTrue(actionVisits <= mctsPlayer.root.getVisits());
+            }
+            fm.next(state, action);
+        }
+        mctsPlayer.finalizePlayer(state);
+    }
+}
@@ -0,0 +1,126 @@
+package players.mcts;
+
+import core.AbstractPlayer;
+import core.Game;
+import games.GameType;
+import org.junit.Before;
+import org.junit.Test;
+import players.PlayerConstants;
+import players.simple.RandomPlayer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TreeReuseTests {
+
+    MCTSParams params;
+
+    @Before
+    public void setup() {
+        params = new MCTSParams();
+        params.setParameterValue("randomSeed", 3902);
+        params.setParameterValue("budgetType", PlayerConstants.BUDGET_ITERATIONS);
+        params.setParameterValue("budget", 200);
+        params.setParameterValue("reuseTree", true);
+    }
+
+    private void playConnect4(MCTSEnums.Information information, MCTSEnums.OpponentTreePolicy treePolicy) {
+        params.setParameterValue("information", information);
+        params.setParameterValue("opponentTreePolicy", treePolicy);
+        MCTSPlayer mctsPlayer = new MCTSPlayer(params);
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(mctsPlayer);
+        players.add(new RandomPlayer(new Random(392)));
+        Game game = GameType.Connect4.createGameInstance(players.size(), 39);
+        game.reset(players);
+
+        int decisions = 0, reused = 0;
+        do {
+            int p = game.getGameState().getCurrentPlayer();
+            game.oneAction();
+            if (p == 0) {
+                decisions++;
+                SingleTreeNode root = mctsPlayer.root;
+                // the tree must be consistent with the new root, wherever that came from
+                assertNull(root.parent);
+                assertEquals(0, root.depth);
+                for (SingleTreeNode node : root.allNodesInTree()) {
+                    assertSame(root, node.root);
+                    if (node != root)
+                        assertEquals(node.parent.depth + 1, node.depth);
+                }
+                List<SingleTreeNode> problemNodes = root.nonMatchingNodes(n -> n.decisionPlayer == 0 || !treePolicy.selfOnlyTree);
+                assertEquals(0, problemNodes.size());
+                if (root.getVisits() > 200)
+                    reused++;
+            }
+        } while (game.getGameState().isNotTerminal());
+        assertTrue(decisions > 3);
+        // we keep the subtree for every decision except the first (unless random picks a reply we never expanded)
+        assertTrue(reused >= decisions / 2);
+    }
+
+    @Test
+    public void closedLoop() {
+        playConnect4(MCTSEnums.Information.Closed_Loop, MCTSEnums.OpponentTreePolicy.OneTree);
+    }
+
+    @Test
+    public void openLoop() {
+        playConnect4(MCTSEnums.Information.Open_Loop, MCTSEnums.OpponentTreePolicy.OneTree);
+    }
+
+    @Test
+    public void openLoopSelfOnly() {
+        playConnect4(MCTSEnums.Information.Open_Loop, MCTSEnums.OpponentTreePolicy.SelfOnly);
+    }
+
+    private SingleTreeNode closedLoopSearch() {
+        params.setParameterValue("information", MCTSEnums.Information.Closed_Loop);
+        MCTSPlayer mctsPlayer = new MCTSPlayer(params);
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(mctsPlayer);
+        players.add(new RandomPlayer(new Random(392)));
+        Game game = GameType.Connect4.createGameInstance(players.size(), 39);
+        game.reset(players);
+        game.oneAction();
+        return mctsPlayer.root;
+    }
+
+    @Test
+    public void closedLoopNodesHoldTheirOwnStatesOnlyWithReuse() {
+        // each Connect4 action is one game tick
+        SingleTreeNode root = closedLoopSearch();
+        for (SingleTreeNode node : root.allNodesInTree()) {
+            if (node != root)
+                assertEquals(node.parent.state.getGameTick() + 1, node.state.getGameTick());
+        }
+
+        // without reuse every node has the state of the root, as before reuseTree was added
+        params.setParameterValue("reuseTree", false);
+        root = closedLoopSearch();
+        assertTrue(root.allNodesInTree().size() > 1);
+        for (SingleTreeNode node : root.allNodesInTree())
+            assertEquals(root.state.getGameTick(), node.state.getGameTick());
+    }
+
+    @Test
+    public void noReuseByDefault() {
+        params.setParameterValue("reuseTree", false);
+        MCTSPlayer mctsPlayer = new MCTSPlayer(params);
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(mctsPlayer);
+        players.add(new RandomPlayer(new Random(392)));
+        Game game = GameType.Connect4.createGameInstance(players.size(), 39);
+        game.reset(players);
+        for (int i = 0; i < 10; i++) {
+            int p = game.getGameState().getCurrentPlayer();
+            game.oneAction();
+            if (p == 0)
+                assertEquals(200, mctsPlayer.root.getVisits());
+        }
+    }
+}
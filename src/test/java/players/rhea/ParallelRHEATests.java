@@ -0,0 +1,125 @@
+package players.rhea;
+
+import core.AbstractPlayer;
+import core.Game;
+import core.actions.AbstractAction;
+import core.interfaces.IStateHeuristic;
+import games.GameType;
+import org.junit.Before;
+import org.junit.Test;
+import players.PlayerConstants;
+import players.simple.RandomPlayer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ParallelRHEATests {
+
+    RHEAParams params;
+    // counts the states evaluated, which is one for each copy taken in a rollout
+    AtomicInteger evaluations = new AtomicInteger();
+
+    @Before
+    public void setup() {
+        params = new RHEAParams();
+        params.setParameterValue("randomSeed", 7381);
+        params.setParameterValue("budgetType", PlayerConstants.BUDGET_FM_CALLS);
+        params.setParameterValue("budget", 2000);
+        params.setParameterValue("evaluationThreads", 3);
+        params.setParameterValue("heuristic", (IStateHeuristic) (state, playerId) -> {
+            evaluations.incrementAndGet();
+            return state.getGameScore(playerId);
+        });
+    }
+
+    /**
+     * Plays a game of Connect4 against a random player, checking the budget used at each decision.
+     *
+     * @return the actions taken by RHEA, and the FM and copy calls used for each
+     */
+    private List<Object> playConnect4() {
+        RHEAPlayer rheaPlayer = new RHEAPlayer(params);
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(rheaPlayer);
+        players.add(new RandomPlayer(new Random(392)));
+        Game game = GameType.Connect4.createGameInstance(players.size(), 39);
+        game.reset(players);
+
+        List<Object> decisions = new ArrayList<>();
+        do {
+            int p = game.getGameState().getCurrentPlayer();
+            evaluations.set(0);
+            AbstractAction action = game.oneAction();
+            if (p == 0) {
+                // (crossover also counts a copy for each action in the child, although no state is copied)
+                if (params.crossoverType == RHEAEnums.CrossoverType.NONE)
+                    assertEquals(evaluations.get(), rheaPlayer.copyCalls);
+                assertTrue((params.budgetType == PlayerConstants.BUDGET_FM_CALLS ? rheaPlayer.fmCalls : rheaPlayer.copyCalls) >= params.budget);
+                assertTrue(rheaPlayer.fmCalls >= rheaPlayer.copyCalls);
+                assertTrue(rheaPlayer.numIters > 0);
+                decisions.add(action.getString(game.getGameState()));
+                decisions.add(rheaPlayer.fmCalls);
+                decisions.add(rheaPlayer.copyCalls);
+            }
+        } while (game.getGameState().isNotTerminal());
+        rheaPlayer.finalizePlayer(game.getGameState());
+        assertFalse(decisions.isEmpty());
+        return decisions;
+    }
+
+    @Test
+    public void parallelEvaluationIsReproducible() {
+        assertEquals(playConnect4(), playConnect4());
+    }
+
+    @Test
+    public void parallelEvaluationWithShiftLeft() {
+        params.setParameterValue("shiftLeft", true);
+        assertEquals(playConnect4(), playConnect4());
+    }
+
+    @Test
+    public void parallelEvaluationWithMAST() {
+        // (not reproducible from one game to the next, as the MAST rollout policy samples from a HashMap of actions)
+        params.setParameterValue("useMAST", true);
+        params.setParameterValue("crossoverType", RHEAEnums.CrossoverType.NONE);
+        playConnect4();
+    }
+
+    @Test
+    public void parallelBudgetIsExact() {
+        params.setParameterValue("crossoverType", RHEAEnums.CrossoverType.NONE);
+        params.setParameterValue("budgetType", PlayerConstants.BUDGET_COPY_CALLS);
+        playConnect4();
+    }
+
+    @Test
+    public void initialPopulationStopsWhenTheBudgetRunsOut() {
+        // the budget is used up by the first individual (with one thread), or the first one per thread
+        params.setParameterValue("budget", 1);
+        for (int threads : new int[]{1, 3}) {
+            params.setParameterValue("evaluationThreads", threads);
+            RHEAPlayer rheaPlayer = new RHEAPlayer(params);
+            Game game = GameType.Connect4.createGameInstance(2, 39);
+            List<AbstractPlayer> players = new ArrayList<>();
+            players.add(rheaPlayer);
+            players.add(new RandomPlayer(new Random(392)));
+            game.reset(players);
+            game.oneAction();
+            assertEquals(threads, rheaPlayer.population.size());
+            assertEquals(0, rheaPlayer.numIters);
+            rheaPlayer.finalizePlayer(game.getGameState());
+        }
+    }
+
+    @Test
+    public void singleThreadBudgetIsExact() {
+        params.setParameterValue("evaluationThreads", 1);
+        params.setParameterValue("crossoverType", RHEAEnums.CrossoverType.NONE);
+        assertEquals(playConnect4(), playConnect4());
+    }
+}